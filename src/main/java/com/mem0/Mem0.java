@@ -1,14 +1,17 @@
 package com.mem0;
 
 import com.mem0.config.Mem0Config;
+import com.mem0.constants.MemoryConstants;
 import com.mem0.core.*;
 import com.mem0.embedding.EmbeddingProvider;
 import com.mem0.embedding.impl.SimpleTFIDFEmbeddingProvider;
 import com.mem0.llm.LLMProvider;
 import com.mem0.llm.impl.RuleBasedLLMProvider;
+import com.mem0.resilience.Deadline;
 import com.mem0.store.VectorStore;
 import com.mem0.vector.impl.InMemoryVectorStore;
 import com.mem0.store.GraphStore;
+import com.mem0.store.Page;
 import com.mem0.graph.impl.DefaultInMemoryGraphStore;
 import com.mem0.factory.ProviderFactory;
 import org.slf4j.Logger;
@@ -219,11 +222,20 @@ public class Mem0 implements AutoCloseable {
     }
     
     /**
-     * Add a new memory with type and metadata
+     * Add a new memory with type and metadata; no deadline applies
      */
     public CompletableFuture<String> add(String content, String userId, String memoryType, 
                                        Map<String, Object> metadata) {
-        return memoryService.addEnhancedMemory(content, userId, null, null, memoryType, metadata);
+        return add(content, userId, memoryType, metadata, Deadline.none());
+    }
+    
+    /**
+     * Add a new memory within the caller's deadline; the deadline covers queueing behind earlier
+     * adds for the same user, and fails with DeadlineExceededException once it is spent
+     */
+    public CompletableFuture<String> add(String content, String userId, String memoryType,
+                                       Map<String, Object> metadata, Deadline deadline) {
+        return memoryService.addEnhancedMemory(content, userId, null, null, memoryType, metadata, deadline);
     }
     
     /**
@@ -247,6 +259,23 @@ public class Mem0 implements AutoCloseable {
         return memoryService.getAllEnhancedMemories(userId, memoryType);
     }
     
+    /**
+     * Get one page of memories for a user; pass null for the first page and the previous
+     * page's next token afterwards
+     */
+    public CompletableFuture<Page<EnhancedMemory>> getAll(String userId, String memoryType,
+                                                         String pageToken, int pageSize) {
+        return memoryService.getEnhancedMemoriesPage(userId, memoryType, pageToken, pageSize);
+    }
+    
+    /**
+     * Iterate over all memories for a user, fetching one page at a time as the iterator advances
+     */
+    public Iterator<EnhancedMemory> iterateAll(String userId, String memoryType) {
+        return Page.iterator(token -> memoryService.getEnhancedMemoriesPage(
+            userId, memoryType, token, MemoryConstants.DEFAULT_PAGE_SIZE));
+    }
+    
     /**
      * Search for memories using semantic similarity
      */
@@ -255,10 +284,19 @@ public class Mem0 implements AutoCloseable {
     }
     
     /**
-     * Search for memories with limit
+     * Search for memories with limit; no deadline applies
      */
     public CompletableFuture<List<EnhancedMemory>> search(String query, String userId, int limit) {
-        return memoryService.searchEnhancedMemories(query, userId, limit);
+        return search(query, userId, limit, Deadline.none());
+    }
+    
+    /**
+     * Search for memories within the caller's deadline; provider calls are cancelled and the
+     * future fails with DeadlineExceededException once it is spent
+     */
+    public CompletableFuture<List<EnhancedMemory>> search(String query, String userId, int limit,
+                                                         Deadline deadline) {
+        return memoryService.searchEnhancedMemories(query, userId, limit, deadline);
     }
     
     /**
@@ -290,11 +328,34 @@ public class Mem0 implements AutoCloseable {
     }
     
     /**
-     * Perform RAG query with custom parameters
+     * Perform RAG query with custom parameters; no deadline applies
      */
     public CompletableFuture<String> queryWithRAG(String query, String userId, int maxMemories, 
                                                  String systemMessage) {
-        return memoryService.queryWithRAG(query, userId, maxMemories, systemMessage);
+        return queryWithRAG(query, userId, maxMemories, systemMessage, Deadline.none());
+    }
+    
+    /**
+     * Perform RAG query within the caller's deadline, shared by retrieval and generation
+     */
+    public CompletableFuture<String> queryWithRAG(String query, String userId, int maxMemories,
+                                                 String systemMessage, Deadline deadline) {
+        return memoryService.queryWithRAG(query, userId, maxMemories, systemMessage, deadline);
+    }
+    
+    /**
+     * Cache RAG answers for semantically near-identical queries of a user for ttlMs; any memory
+     * write of the user drops them at once. Not positive ttlMs disables the cache (the default).
+     */
+    public void configureAnswerCache(long ttlMs, double similarityThreshold) {
+        memoryService.configureAnswerCache(ttlMs, similarityThreshold);
+    }
+    
+    /**
+     * Answer cache hit rate and size; null while the cache is disabled
+     */
+    public SemanticAnswerCache.Stats getAnswerCacheStats() {
+        return memoryService.getAnswerCacheStats();
     }
     
     /**
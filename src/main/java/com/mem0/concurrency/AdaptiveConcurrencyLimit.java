@@ -0,0 +1,140 @@
+package com.mem0.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应并发上限 / Adaptive Concurrency Limit
+ *
+ * <p>根据观测到的请求延迟自动调整允许的在途请求数，采用梯度算法：长期延迟基线与短期延迟之比
+ * 作为梯度，延迟上升时梯度小于1，上限按比例收缩；延迟稳定时在上限之上加 sqrt(limit) 的探测余量，
+ * 使上限逐步增长。被丢弃（超时）的请求使上限乘性减小。只有在途请求达到上限一半以上时才允许增长，
+ * 避免空闲期把上限抬到后端无法承受的值。</p>
+ *
+ * <p>Adjusts the allowed number of in-flight requests from observed latency using a gradient
+ * algorithm. The gradient is the ratio of the long-term latency baseline to the short-term latency.
+ * When latency rises the gradient drops below 1 and the limit shrinks proportionally; when latency is
+ * stable a probe of sqrt(limit) is added on top, so the limit grows. Dropped (timed out) requests cut
+ * the limit multiplicatively. Growth is only allowed while at least half the limit is in use, so an
+ * idle period cannot push the limit beyond what the backend can handle.</p>
+ *
+ * <p>许可的获取为无锁CAS；延迟样本在对象锁内更新，每个完成的请求一次。</p>
+ *
+ * <p>Acquiring a permit is a lock-free CAS; latency samples are folded in under the object's lock,
+ * once per completed request.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    // 短期与长期延迟的平滑窗口（样本数） / smoothing windows for short- and long-term latency, in samples
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 600;
+    // 短期延迟在基线的1.5倍以内不视为变慢 / short-term latency within 1.5x of baseline is not a slowdown
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("并发上限范围无效: [" + minLimit + ", " + maxLimit + "]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 在途请求数低于上限时占用一个许可
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 请求完成，记录其延迟并归还许可
+     */
+    public void onSuccess(long rttNanos) {
+        int inFlightAtSample = inFlight.getAndDecrement();
+        synchronized (this) {
+            double rtt = Math.max(1, rttNanos);
+            if (longRttNanos == 0) {
+                shortRttNanos = rtt;
+                longRttNanos = rtt;
+                return;
+            }
+            shortRttNanos += (rtt - shortRttNanos) / SHORT_WINDOW;
+            longRttNanos += (rtt - longRttNanos) / LONG_WINDOW;
+            // 长时间过载后延迟恢复时，基线远高于当前延迟，让它更快回落，否则梯度会长期偏高
+            if (longRttNanos > shortRttNanos * 2) {
+                longRttNanos *= 0.95;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            if (target > estimatedLimit && inFlightAtSample < estimatedLimit / 2) {
+                return;
+            }
+            update(estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING);
+        }
+    }
+
+    /**
+     * 请求被丢弃（超时），上限乘性减小并归还许可
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            update(estimatedLimit * DROP_BACKOFF);
+        }
+    }
+
+    /**
+     * 归还许可但不作为延迟样本，用于与后端负载无关的失败或未执行的请求
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdaptiveConcurrencyLimit{上限=%d, 在途=%d, 范围=[%d, %d]}",
+            limit, inFlight.get(), minLimit, maxLimit);
+    }
+}
@@ -2,14 +2,17 @@ package com.mem0.concurrency;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.mem0.constants.MemoryConstants;
 import com.mem0.monitoring.PerformanceMonitor;
+import com.mem0.performance.WheelTimer;
 import com.mem0.model.ResourcePoolStats;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 /**
@@ -24,15 +27,15 @@ import java.util.function.Supplier;
  * all concurrent operations and ensuring system stability and performance under high load.
  * 
  * 核心功能 / Key Features:
- * - 并发请求控制和信号量管理 / Concurrent request control and semaphore management
- * - 用户级别的速率限制和流量控制 / User-level rate limiting and traffic control
+ * - 按延迟自适应的并发上限，全局与按请求类型 / Latency-adaptive concurrency limits, global and per request type
+ * - 无锁GCRA分层限流（用户、Agent、全局） / Lock-free GCRA rate limiting per user, agent and globally
  * - 资源池管理和生命周期控制 / Resource pool management and lifecycle control
  * - 分布式锁创建和死锁检测 / Distributed lock creation and deadlock detection
- * - 请求队列管理和优先级调度 / Request queue management and priority scheduling
+ * - 优先级请求队列，每个请求完成时排空 / Priority request queue drained on every completion
  * - 系统健康状态监控 / System health status monitoring
  * 
  * 技术规格 / Technical Specifications:
- * - 默认最大并发数: 1000 / Default max concurrency: 1000
+ * - 默认最大并发数: 1000（自适应上限的最大值） / Default max concurrency: 1000 (ceiling of the adaptive limit)
  * - 默认队列大小: 5000 / Default queue size: 5000
  * - 请求超时时间: 30秒 / Request timeout: 30 seconds
  * - 限流窗口时间: 60秒 / Rate limit window: 60 seconds
@@ -78,14 +81,21 @@ public class ConcurrencyController {
     private final long rateLimitWindowMs;
     private final int maxRequestsPerWindow;
     
-    // 并发控制
-    private final Semaphore requestSemaphore;
-    private final BlockingQueue<QueuedRequest> requestQueue;
+    // 并发控制：全局与按请求类型的自适应上限，按优先级排序的等待队列
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Map<String, AdaptiveConcurrencyLimit> requestTypeLimits = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<QueuedRequest> requestQueue = new ConcurrentSkipListSet<>();
+    private final AtomicInteger queuedCount = new AtomicInteger(0);
+    private final AtomicLong requestSequence = new AtomicLong(0);
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean drainRequested = new AtomicBoolean(false);
     private final ThreadPoolExecutor requestExecutor;
     
-    // 限流控制
-    private final Map<String, UserRateLimit> userRateLimits = new ConcurrentHashMap<>();
-    private final ReentrantReadWriteLock rateLimitLock = new ReentrantReadWriteLock();
+    // 限流控制：用户 → Agent → 全局，逐级检查，后续层级拒绝时退还已占用的配额
+    private static final String GLOBAL_RATE_LIMIT_KEY = "*";
+    private final GcraRateLimiter userRateLimiter;
+    private final GcraRateLimiter agentRateLimiter;
+    private final GcraRateLimiter globalRateLimiter;
     
     // 资源池管理
     private final Map<String, ResourcePool> resourcePools = new ConcurrentHashMap<>();
@@ -123,8 +133,12 @@ public class ConcurrencyController {
         this.maxRequestsPerWindow = maxRequestsPerWindow;
         
         // 初始化并发控制
-        this.requestSemaphore = new Semaphore(maxConcurrentRequests, true);
-        this.requestQueue = new LinkedBlockingQueue<>(maxQueueSize);
+        this.concurrencyLimit = newLimit(maxConcurrentRequests);
+        
+        // 初始化限流：用户使用默认规则，Agent与全局在设置前不限流
+        this.userRateLimiter = new GcraRateLimiter(maxRequestsPerWindow, rateLimitWindowMs);
+        this.agentRateLimiter = new GcraRateLimiter(0, rateLimitWindowMs);
+        this.globalRateLimiter = new GcraRateLimiter(0, rateLimitWindowMs);
         
         // 创建请求执行线程池
         this.requestExecutor = new ThreadPoolExecutor(
@@ -168,6 +182,14 @@ public class ConcurrencyController {
      */
     public <T> CompletableFuture<T> executeControlledRequest(String userId, String requestType, 
                                                            Callable<T> request, RequestPriority priority) {
+        return executeControlledRequest(userId, null, requestType, request, priority);
+    }
+
+    /**
+     * 执行受控请求（带Agent与优先级），依次检查用户、Agent和全局限流
+     */
+    public <T> CompletableFuture<T> executeControlledRequest(String userId, String agentId, String requestType,
+                                                           Callable<T> request, RequestPriority priority) {
         if (isShutdown) {
             CompletableFuture<T> failedFuture = new CompletableFuture<>();
             failedFuture.completeExceptionally(new IllegalStateException("并发控制器已关闭"));
@@ -178,24 +200,25 @@ public class ConcurrencyController {
         performanceMonitor.incrementCounter("concurrency.requests.total");
 
         // 检查限流
-        if (!checkRateLimit(userId)) {
+        String rateLimited = checkRateLimit(userId, agentId);
+        if (rateLimited != null) {
             rateLimitedRequests.incrementAndGet();
             performanceMonitor.incrementCounter("concurrency.requests.rate_limited");
             CompletableFuture<T> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(new RateLimitExceededException("用户请求频率超限: " + userId));
+            failedFuture.completeExceptionally(new RateLimitExceededException(rateLimited));
             return failedFuture;
         }
 
         // 创建请求对象
-        QueuedRequest queuedRequest = new QueuedRequest(userId, requestType, request, priority);
+        QueuedRequest queuedRequest = new QueuedRequest(userId, requestType, request, priority,
+            requestSequence.incrementAndGet());
         
         try {
-            // 尝试获取信号量
-            if (requestSemaphore.tryAcquire()) {
-                // 直接执行
-                return executeRequestDirectly(queuedRequest);
+            // 没有排队的请求且上限未满时直接执行，否则按优先级排队
+            if (requestQueue.isEmpty() && tryAcquire(queuedRequest)) {
+                executeRequest(queuedRequest);
+                return (CompletableFuture<T>) queuedRequest.future;
             } else {
-                // 加入队列等待
                 return enqueueRequest(queuedRequest);
             }
         } catch (Exception e) {
@@ -207,6 +230,31 @@ public class ConcurrencyController {
         }
     }
 
+    /**
+     * 设置某类请求的并发上限；该类请求的自适应上限不会超过此值
+     */
+    public void setRequestTypeLimit(String requestType, int maxConcurrency) {
+        requestTypeLimits.put(requestType, newLimit(Math.min(maxConcurrency, maxConcurrentRequests)));
+        logger.debug("设置请求类型并发上限: {} - {}", requestType, maxConcurrency);
+        drainQueue();
+    }
+
+    /**
+     * 当前的全局自适应并发上限
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimit.getLimit();
+    }
+
+    /**
+     * 各请求类型当前的自适应并发上限
+     */
+    public Map<String, Integer> getRequestTypeLimits() {
+        Map<String, Integer> limits = new TreeMap<>();
+        requestTypeLimits.forEach((type, limit) -> limits.put(type, limit.getLimit()));
+        return limits;
+    }
+
     /**
      * 获取资源池
      */
@@ -228,14 +276,24 @@ public class ConcurrencyController {
      * 设置用户限流规则
      */
     public void setUserRateLimit(String userId, int maxRequests, long windowMs) {
-        rateLimitLock.writeLock().lock();
-        try {
-            UserRateLimit rateLimit = new UserRateLimit(userId, maxRequests, windowMs);
-            userRateLimits.put(userId, rateLimit);
-            logger.debug("设置用户限流规则: {} - {}请求/{}ms", userId, maxRequests, windowMs);
-        } finally {
-            rateLimitLock.writeLock().unlock();
-        }
+        userRateLimiter.setLimit(userId, maxRequests, windowMs);
+        logger.debug("设置用户限流规则: {} - {}请求/{}ms", userId, maxRequests, windowMs);
+    }
+
+    /**
+     * 设置Agent限流规则，该Agent代表的所有用户共享此配额
+     */
+    public void setAgentRateLimit(String agentId, int maxRequests, long windowMs) {
+        agentRateLimiter.setLimit(agentId, maxRequests, windowMs);
+        logger.debug("设置Agent限流规则: {} - {}请求/{}ms", agentId, maxRequests, windowMs);
+    }
+
+    /**
+     * 设置全局限流规则
+     */
+    public void setGlobalRateLimit(int maxRequests, long windowMs) {
+        globalRateLimiter.setLimit(GLOBAL_RATE_LIMIT_KEY, maxRequests, windowMs);
+        logger.debug("设置全局限流规则: {}请求/{}ms", maxRequests, windowMs);
     }
 
     /**
@@ -270,12 +328,13 @@ public class ConcurrencyController {
             rejectedRequests.get(),
             timeoutRequests.get(),
             rateLimitedRequests.get(),
-            requestSemaphore.availablePermits(),
-            requestQueue.size(),
+            Math.max(0, concurrencyLimit.getLimit() - concurrencyLimit.getInFlight()),
+            queuedCount.get(),
             requestExecutor.getActiveCount(),
             requestExecutor.getCompletedTaskCount(),
             poolStats,
-            deadlockDetector.getStats()
+            deadlockDetector.getStats(),
+            concurrencyLimit.getLimit()
         );
     }
 
@@ -286,12 +345,12 @@ public class ConcurrencyController {
         List<String> issues = new ArrayList<>();
         
         // 检查并发度
-        if (requestSemaphore.availablePermits() == 0) {
+        if (concurrencyLimit.getInFlight() >= concurrencyLimit.getLimit()) {
             issues.add("所有并发槽位已占用");
         }
         
         // 检查队列
-        if (requestQueue.size() > maxQueueSize * 0.8) {
+        if (queuedCount.get() > maxQueueSize * 0.8) {
             issues.add("请求队列接近满载");
         }
         
@@ -328,6 +387,16 @@ public class ConcurrencyController {
         
         return CompletableFuture.runAsync(() -> {
             try {
+                // 排队中的请求不再执行
+                QueuedRequest queued;
+                while ((queued = requestQueue.pollFirst()) != null) {
+                    queuedCount.decrementAndGet();
+                    if (queued.timeoutFuture != null) {
+                        queued.timeoutFuture.cancel();
+                    }
+                    queued.future.completeExceptionally(new IllegalStateException("并发控制器已关闭"));
+                }
+                
                 // 停止维护任务
                 maintenanceExecutor.shutdown();
                 maintenanceExecutor.awaitTermination(5, TimeUnit.SECONDS);
@@ -342,7 +411,9 @@ public class ConcurrencyController {
                 }
                 
                 // 清理限流信息
-                userRateLimits.clear();
+                userRateLimiter.clear();
+                agentRateLimiter.clear();
+                globalRateLimiter.clear();
                 
                 logger.info("并发控制器关闭完成");
                 
@@ -355,9 +426,9 @@ public class ConcurrencyController {
     // 私有辅助方法
 
     private void startMaintenanceTasks() {
-        // 定期清理过期的限流记录
+        // 定期推进限流过期时间轮，删除空闲键
         maintenanceExecutor.scheduleAtFixedRate(this::cleanupExpiredRateLimits, 
-            60, 60, TimeUnit.SECONDS);
+            1, 1, TimeUnit.SECONDS);
         
         // 定期检查死锁
         maintenanceExecutor.scheduleAtFixedRate(deadlockDetector::detectDeadlocks, 
@@ -368,114 +439,172 @@ public class ConcurrencyController {
             300, 300, TimeUnit.SECONDS);
     }
 
-    private boolean checkRateLimit(String userId) {
-        rateLimitLock.readLock().lock();
-        try {
-            UserRateLimit rateLimit = userRateLimits.get(userId);
-            if (rateLimit == null) {
-                // 使用默认限流规则
-                rateLimit = userRateLimits.computeIfAbsent(userId, 
-                    id -> new UserRateLimit(id, maxRequestsPerWindow, rateLimitWindowMs));
+    /**
+     * 逐级检查限流
+     *
+     * @return 被拒绝时的原因，通过时为null
+     */
+    private String checkRateLimit(String userId, String agentId) {
+        if (!userRateLimiter.tryAcquire(userId)) {
+            return "用户请求频率超限: " + userId;
+        }
+        if (agentId != null && !agentRateLimiter.tryAcquire(agentId)) {
+            userRateLimiter.refund(userId);
+            return "Agent请求频率超限: " + agentId;
+        }
+        if (!globalRateLimiter.tryAcquire(GLOBAL_RATE_LIMIT_KEY)) {
+            userRateLimiter.refund(userId);
+            if (agentId != null) {
+                agentRateLimiter.refund(agentId);
             }
-            
-            return rateLimit.tryAcquire();
-        } finally {
-            rateLimitLock.readLock().unlock();
+            return "全局请求频率超限";
         }
+        return null;
+    }
+
+    private AdaptiveConcurrencyLimit newLimit(int maxLimit) {
+        int max = Math.max(1, maxLimit);
+        return new AdaptiveConcurrencyLimit(Math.min(max, MemoryConstants.DEFAULT_INITIAL_CONCURRENCY_LIMIT), 1, max);
+    }
+
+    private AdaptiveConcurrencyLimit requestTypeLimit(String requestType) {
+        return requestTypeLimits.computeIfAbsent(requestType, type -> newLimit(maxConcurrentRequests));
     }
 
-    private <T> CompletableFuture<T> executeRequestDirectly(QueuedRequest request) {
+    /**
+     * 同时占用请求类型与全局许可，任一已满时不占用
+     */
+    private boolean tryAcquire(QueuedRequest request) {
+        AdaptiveConcurrencyLimit typeLimit = requestTypeLimit(request.requestType);
+        if (!typeLimit.tryAcquire()) {
+            return false;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            typeLimit.onIgnore();
+            return false;
+        }
+        request.typeLimit = typeLimit;
+        return true;
+    }
+
+    /**
+     * 执行已占用许可的请求。返回CompletionStage的请求在该阶段完成时才归还许可，
+     * 这样异步后端的延迟也计入自适应上限
+     */
+    private void executeRequest(QueuedRequest request) {
         acceptedRequests.incrementAndGet();
         performanceMonitor.incrementCounter("concurrency.requests.accepted");
         
-        return CompletableFuture.supplyAsync(() -> {
+        CompletableFuture.runAsync(() -> {
+            long startNanos = System.nanoTime();
+            Object result;
             try {
                 performanceMonitor.incrementCounter("concurrency.requests.executing");
                 
-                T result = performanceMonitor.measureTime("concurrency.request.execution", () -> {
-                    return (T) request.callable.call();
+                result = performanceMonitor.measureTime("concurrency.request.execution", () -> {
+                    return request.callable.call();
                 });
-                
-                performanceMonitor.incrementCounter("concurrency.requests.completed");
-                return result;
             } catch (Exception e) {
-                throw new RuntimeException("请求执行失败", e);
-                
-            } finally {
-                requestSemaphore.release();
+                release(request, startNanos, e);
+                request.future.completeExceptionally(new RuntimeException("请求执行失败", e));
+                return;
+            }
+            
+            if (result instanceof CompletionStage) {
+                ((CompletionStage<?>) result).whenComplete((value, throwable) -> release(request, startNanos, throwable));
+            } else {
+                release(request, startNanos, null);
             }
+            performanceMonitor.incrementCounter("concurrency.requests.completed");
+            request.future.complete(result);
         }, requestExecutor);
     }
 
+    /**
+     * 归还许可并记录延迟样本，然后排空等待队列
+     */
+    private void release(QueuedRequest request, long startNanos, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause() : throwable;
+        if (cause == null) {
+            long rttNanos = System.nanoTime() - startNanos;
+            request.typeLimit.onSuccess(rttNanos);
+            concurrencyLimit.onSuccess(rttNanos);
+        } else if (cause instanceof TimeoutException) {
+            request.typeLimit.onDropped();
+            concurrencyLimit.onDropped();
+        } else {
+            request.typeLimit.onIgnore();
+            concurrencyLimit.onIgnore();
+        }
+        drainQueue();
+    }
+
     private <T> CompletableFuture<T> enqueueRequest(QueuedRequest request) {
-        try {
-            // 尝试加入队列
-            if (requestQueue.offer(request)) {
-                performanceMonitor.incrementCounter("concurrency.requests.queued");
-                
-                // 创建超时处理
-                ScheduledFuture<?> timeoutFuture = maintenanceExecutor.schedule(() -> {
-                    if (requestQueue.remove(request)) {
-                        timeoutRequests.incrementAndGet();
-                        performanceMonitor.incrementCounter("concurrency.requests.timeout");
-                        request.future.completeExceptionally(new TimeoutException("请求超时"));
-                    }
-                }, requestTimeoutMs, TimeUnit.MILLISECONDS);
-                
-                request.timeoutFuture = timeoutFuture;
-                
-                // 尝试处理队列中的请求
-                tryProcessQueue();
-                
-                return (CompletableFuture<T>) request.future;
-            } else {
-                rejectedRequests.incrementAndGet();
-                performanceMonitor.incrementCounter("concurrency.requests.queue_full");
-                throw new RejectedExecutionException("请求队列已满");
-            }
-        } catch (Exception e) {
+        if (queuedCount.incrementAndGet() > maxQueueSize) {
+            queuedCount.decrementAndGet();
             rejectedRequests.incrementAndGet();
+            performanceMonitor.incrementCounter("concurrency.requests.queue_full");
             CompletableFuture<T> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(e);
+            failedFuture.completeExceptionally(new RejectedExecutionException("请求队列已满"));
             return failedFuture;
         }
+        
+        requestQueue.add(request);
+        performanceMonitor.incrementCounter("concurrency.requests.queued");
+        
+        // 创建超时处理（共用定时器，请求出队时取消）
+        request.timeoutFuture = WheelTimer.shared().newTimeout(() -> {
+            if (requestQueue.remove(request)) {
+                queuedCount.decrementAndGet();
+                timeoutRequests.incrementAndGet();
+                performanceMonitor.incrementCounter("concurrency.requests.timeout");
+                request.future.completeExceptionally(new TimeoutException("请求超时"));
+            }
+        }, requestTimeoutMs, TimeUnit.MILLISECONDS);
+        
+        drainQueue();
+        return (CompletableFuture<T>) request.future;
     }
 
-    private void tryProcessQueue() {
-        // 在单独的线程中尝试处理队列
-        CompletableFuture.runAsync(() -> {
-            while (!isShutdown && !requestQueue.isEmpty() && requestSemaphore.tryAcquire()) {
-                QueuedRequest request = requestQueue.poll();
-                if (request != null) {
-                    // 取消超时任务
-                    if (request.timeoutFuture != null) {
-                        request.timeoutFuture.cancel(false);
+    /**
+     * 按优先级启动可以获得许可的排队请求；所属类型已满的请求被跳过，不阻塞其他类型。
+     * 在入队和每个请求完成时调用，同一时间只有一个线程排空，其他调用方留下标记由它补做
+     */
+    private void drainQueue() {
+        drainRequested.set(true);
+        while (drainRequested.get() && drainLock.tryLock()) {
+            try {
+                drainRequested.set(false);
+                for (QueuedRequest request : requestQueue) {
+                    if (isShutdown || concurrencyLimit.getInFlight() >= concurrencyLimit.getLimit()) {
+                        break;
+                    }
+                    if (!tryAcquire(request)) {
+                        continue;
                     }
-                    
-                    // 执行请求
-                    CompletableFuture<?> execution = executeRequestDirectly(request);
-                    execution.whenComplete((result, throwable) -> {
-                        if (throwable != null) {
-                            request.future.completeExceptionally(throwable);
-                        } else {
-                            request.future.complete(result);
+                    if (requestQueue.remove(request)) {
+                        queuedCount.decrementAndGet();
+                        if (request.timeoutFuture != null) {
+                            request.timeoutFuture.cancel();
                         }
-                    });
+                        executeRequest(request);
+                    } else {
+                        // 已超时移出
+                        request.typeLimit.onIgnore();
+                        concurrencyLimit.onIgnore();
+                    }
                 }
+            } finally {
+                drainLock.unlock();
             }
-        });
+        }
     }
 
     private void cleanupExpiredRateLimits() {
-        rateLimitLock.writeLock().lock();
-        try {
-            long now = System.currentTimeMillis();
-            userRateLimits.entrySet().removeIf(entry -> {
-                UserRateLimit rateLimit = entry.getValue();
-                return now - rateLimit.getLastAccessTime() > rateLimitWindowMs * 10; // 10个窗口周期后清理
-            });
-        } finally {
-            rateLimitLock.writeLock().unlock();
+        int expired = userRateLimiter.expireIdle() + agentRateLimiter.expireIdle() + globalRateLimiter.expireIdle();
+        if (expired > 0) {
+            logger.debug("清理空闲限流记录: {}", expired);
         }
     }
 
@@ -488,60 +617,34 @@ public class ConcurrencyController {
 
     // 内部类
 
-    private static class QueuedRequest {
+    /**
+     * 排队顺序：优先级高的在前，同优先级按到达顺序
+     */
+    private static class QueuedRequest implements Comparable<QueuedRequest> {
         final String userId;
         final String requestType;
         final Callable<?> callable;
         final RequestPriority priority;
         final CompletableFuture<Object> future;
         final long createTime;
-        volatile ScheduledFuture<?> timeoutFuture;
+        final long sequence;
+        volatile WheelTimer.Timeout timeoutFuture;
+        volatile AdaptiveConcurrencyLimit typeLimit;
 
-        QueuedRequest(String userId, String requestType, Callable<?> callable, RequestPriority priority) {
+        QueuedRequest(String userId, String requestType, Callable<?> callable, RequestPriority priority, long sequence) {
             this.userId = userId;
             this.requestType = requestType;
             this.callable = callable;
             this.priority = priority;
             this.future = new CompletableFuture<>();
             this.createTime = System.currentTimeMillis();
+            this.sequence = sequence;
         }
-    }
 
-    private static class UserRateLimit {
-        private final String userId;
-        private final int maxRequests;
-        private final long windowMs;
-        private final LinkedList<Long> requestTimes = new LinkedList<>();
-        private volatile long lastAccessTime;
-
-        UserRateLimit(String userId, int maxRequests, long windowMs) {
-            this.userId = userId;
-            this.maxRequests = maxRequests;
-            this.windowMs = windowMs;
-            this.lastAccessTime = System.currentTimeMillis();
-        }
-
-        synchronized boolean tryAcquire() {
-            long now = System.currentTimeMillis();
-            lastAccessTime = now;
-            
-            // 清理过期的请求记录
-            while (!requestTimes.isEmpty() && now - requestTimes.peekFirst() > windowMs) {
-                requestTimes.removeFirst();
-            }
-            
-            // 检查是否超限
-            if (requestTimes.size() >= maxRequests) {
-                return false;
-            }
-            
-            // 记录此次请求
-            requestTimes.addLast(now);
-            return true;
-        }
-
-        long getLastAccessTime() {
-            return lastAccessTime;
+        @Override
+        public int compareTo(QueuedRequest other) {
+            int byPriority = Integer.compare(other.priority.getWeight(), priority.getWeight());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
         }
     }
 
@@ -574,12 +677,23 @@ public class ConcurrencyController {
         private final long completedTasks;
         private final Map<String, ResourcePoolStats> poolStats;
         private final DeadlockDetector.DeadlockStats deadlockStats;
+        private final int concurrencyLimit;
 
         public ConcurrencyStats(long totalRequests, long acceptedRequests, long rejectedRequests,
                               long timeoutRequests, long rateLimitedRequests, int availablePermits,
                               int queueSize, int activeThreads, long completedTasks,
                               Map<String, ResourcePoolStats> poolStats,
                               DeadlockDetector.DeadlockStats deadlockStats) {
+            this(totalRequests, acceptedRequests, rejectedRequests, timeoutRequests, rateLimitedRequests,
+                availablePermits, queueSize, activeThreads, completedTasks, poolStats, deadlockStats,
+                availablePermits);
+        }
+
+        public ConcurrencyStats(long totalRequests, long acceptedRequests, long rejectedRequests,
+                              long timeoutRequests, long rateLimitedRequests, int availablePermits,
+                              int queueSize, int activeThreads, long completedTasks,
+                              Map<String, ResourcePoolStats> poolStats,
+                              DeadlockDetector.DeadlockStats deadlockStats, int concurrencyLimit) {
             this.totalRequests = totalRequests;
             this.acceptedRequests = acceptedRequests;
             this.rejectedRequests = rejectedRequests;
@@ -591,6 +705,7 @@ public class ConcurrencyController {
             this.completedTasks = completedTasks;
             this.poolStats = poolStats;
             this.deadlockStats = deadlockStats;
+            this.concurrencyLimit = concurrencyLimit;
         }
 
         // Getter 方法
@@ -605,6 +720,7 @@ public class ConcurrencyController {
         public long getCompletedTasks() { return completedTasks; }
         public Map<String, ResourcePoolStats> getPoolStats() { return poolStats; }
         public DeadlockDetector.DeadlockStats getDeadlockStats() { return deadlockStats; }
+        public int getConcurrencyLimit() { return concurrencyLimit; }
 
         public double getAcceptanceRate() {
             return totalRequests == 0 ? 0.0 : (double) acceptedRequests / totalRequests;
@@ -612,9 +728,9 @@ public class ConcurrencyController {
 
         @Override
         public String toString() {
-            return String.format("ConcurrencyStats{总请求=%d, 接受=%d, 拒绝=%d, 超时=%d, 限流=%d, 接受率=%.2f%%, 可用许可=%d, 队列=%d, 活跃线程=%d}",
+            return String.format("ConcurrencyStats{总请求=%d, 接受=%d, 拒绝=%d, 超时=%d, 限流=%d, 接受率=%.2f%%, 并发上限=%d, 可用许可=%d, 队列=%d, 活跃线程=%d}",
                 totalRequests, acceptedRequests, rejectedRequests, timeoutRequests, rateLimitedRequests,
-                getAcceptanceRate() * 100, availablePermits, queueSize, activeThreads);
+                getAcceptanceRate() * 100, concurrencyLimit, availablePermits, queueSize, activeThreads);
         }
     }
 
@@ -0,0 +1,248 @@
+package com.mem0.concurrency;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * GCRA速率限制器 / GCRA Rate Limiter
+ *
+ * <p>基于通用信元速率算法（GCRA）的无锁限流器。每个键只保存一个 {@code long}：理论到达时间（TAT）。
+ * 速率为每窗口 N 次时，每次请求把TAT推后一个发射间隔 T = window / N；当TAT超前当前时间超过
+ * window - T 时拒绝，因此空闲的键最多可以突发 N 次，与滑动窗口计数的语义一致。检查只是一次CAS，
+ * 没有锁，也不随请求数占用内存。</p>
+ *
+ * <p>A lock-free limiter based on the Generic Cell Rate Algorithm. Each key keeps a single
+ * {@code long}: its theoretical arrival time (TAT). For N requests per window, each request pushes
+ * the TAT forward by the emission interval T = window / N, and a request is rejected when the TAT
+ * would run ahead of now by more than window - T. An idle key can therefore burst N requests, which
+ * matches sliding-window counting. A check is one CAS, takes no locks and uses no memory per
+ * request.</p>
+ *
+ * <p>TAT不晚于当前时间的键与不存在的键等价，可以随时删除。键首次出现时登记到按键哈希分片的
+ * 过期时间轮，{@link #expireIdle()} 推进时间轮，删除到期且已空闲的键，仍在使用的键按新的TAT
+ * 重新登记。删除前先把TAT以CAS置为墓碑，保证并发的请求不会落在被删除的状态上。</p>
+ *
+ * <p>A key whose TAT is not after now is equivalent to an absent key, so it can be dropped at any
+ * time. Keys are registered on a sharded expiry wheel when first seen; {@link #expireIdle()} advances
+ * the wheel, removes due keys that are idle and re-registers busy ones at their new TAT. Removal first
+ * CASes the TAT to a tombstone, so a concurrent request never lands on state that is being
+ * dropped.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class GcraRateLimiter {
+
+    private static final long RETIRED = Long.MIN_VALUE;
+    private static final int EXPIRY_SHARDS = 16;
+    private static final int WHEEL_SLOTS = 64;
+
+    private final Rate defaultRate;
+    private final Map<String, Rate> rateOverrides = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ExpiryShard[] expiryShards = new ExpiryShard[EXPIRY_SHARDS];
+    private final long tickNanos;
+    private final long epochNanos = System.nanoTime();
+
+    /**
+     * @param maxRequests 默认每窗口允许的请求数；不大于0时没有单独设置的键不限流
+     *                    / default requests per window; when not positive, keys without their own
+     *                    limit are unlimited
+     * @param windowMs    默认窗口长度 / default window length
+     */
+    public GcraRateLimiter(int maxRequests, long windowMs) {
+        this.defaultRate = maxRequests > 0 ? new Rate(maxRequests, windowMs) : null;
+        long window = TimeUnit.MILLISECONDS.toNanos(Math.max(1, windowMs));
+        this.tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(10), window / (WHEEL_SLOTS / 2));
+        for (int i = 0; i < expiryShards.length; i++) {
+            expiryShards[i] = new ExpiryShard();
+        }
+    }
+
+    /**
+     * 为键设置单独的速率，替换其当前状态
+     */
+    public void setLimit(String key, int maxRequests, long windowMs) {
+        rateOverrides.put(key, new Rate(maxRequests, windowMs));
+        retire(key);
+    }
+
+    /**
+     * 尝试占用一次请求配额
+     */
+    public boolean tryAcquire(String key) {
+        Rate rate = rateOverrides.getOrDefault(key, defaultRate);
+        if (rate == null) {
+            return true;
+        }
+        while (true) {
+            long now = now();
+            Bucket bucket = bucket(key, rate, now);
+            long tat = bucket.tat;
+            if (tat == RETIRED) {
+                buckets.remove(key, bucket);
+                continue;
+            }
+            long base = Math.max(tat, now);
+            if (base - now > bucket.rate.toleranceNanos) {
+                return false;
+            }
+            if (TAT.compareAndSet(bucket, tat, base + bucket.rate.intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 退还一次已占用的配额，用于分层限流中后续层级拒绝的请求
+     */
+    public void refund(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        while (true) {
+            long tat = bucket.tat;
+            if (tat == RETIRED || TAT.compareAndSet(bucket, tat, tat - bucket.rate.intervalNanos)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 推进过期时间轮，删除已空闲的键
+     *
+     * @return 删除的键数
+     */
+    public int expireIdle() {
+        long now = now();
+        long targetTick = now / tickNanos;
+        int expired = 0;
+        for (ExpiryShard shard : expiryShards) {
+            synchronized (shard) {
+                long tick = Math.max(shard.cursor, targetTick - WHEEL_SLOTS);
+                while (tick < targetTick) {
+                    tick++;
+                    shard.cursor = tick;
+                    Queue<Bucket> slot = shard.slots[(int) (tick % WHEEL_SLOTS)];
+                    for (int n = slot.size(); n > 0; n--) {
+                        Bucket bucket = slot.poll();
+                        if (bucket == null) {
+                            break;
+                        }
+                        long tat = bucket.tat;
+                        if (tat == RETIRED) {
+                            continue;
+                        }
+                        if (tat <= now && TAT.compareAndSet(bucket, tat, RETIRED)) {
+                            buckets.remove(bucket.key, bucket);
+                            expired++;
+                        } else {
+                            schedule(bucket, Math.max(tat, now + tickNanos));
+                        }
+                    }
+                }
+                shard.cursor = Math.max(shard.cursor, targetTick);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 当前保存状态的键数
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    public void clear() {
+        buckets.values().forEach(bucket -> bucket.tat = RETIRED);
+        buckets.clear();
+        rateOverrides.clear();
+    }
+
+    // 私有辅助方法
+
+    private long now() {
+        return System.nanoTime() - epochNanos;
+    }
+
+    private Bucket bucket(String key, Rate rate, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        Bucket created = new Bucket(key, rate);
+        bucket = buckets.putIfAbsent(key, created);
+        if (bucket != null) {
+            return bucket;
+        }
+        schedule(created, now + rate.windowNanos);
+        return created;
+    }
+
+    private void retire(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.tat = RETIRED;
+            buckets.remove(key, bucket);
+        }
+    }
+
+    /**
+     * 登记到到期时刻所在的槽；超出时间轮范围的放在最远的槽，届时再重新登记
+     */
+    private void schedule(Bucket bucket, long dueNanos) {
+        ExpiryShard shard = expiryShards[(bucket.key.hashCode() & 0x7fffffff) % EXPIRY_SHARDS];
+        long cursor = shard.cursor;
+        long tick = Math.min(Math.max(dueNanos / tickNanos, cursor + 1), cursor + WHEEL_SLOTS - 1);
+        shard.slots[(int) (tick % WHEEL_SLOTS)].offer(bucket);
+    }
+
+    // 内部类
+
+    private static final AtomicLongFieldUpdater<Bucket> TAT = AtomicLongFieldUpdater.newUpdater(Bucket.class, "tat");
+
+    private static final class Bucket {
+        final String key;
+        final Rate rate;
+        volatile long tat;
+
+        Bucket(String key, Rate rate) {
+            this.key = key;
+            this.rate = rate;
+        }
+    }
+
+    private static final class Rate {
+        final long windowNanos;
+        final long intervalNanos;
+        final long toleranceNanos;
+
+        Rate(int maxRequests, long windowMs) {
+            if (maxRequests <= 0 || windowMs <= 0) {
+                throw new IllegalArgumentException("速率必须为正数: " + maxRequests + "/" + windowMs + "ms");
+            }
+            this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+            this.intervalNanos = Math.max(1, windowNanos / maxRequests);
+            this.toleranceNanos = windowNanos - intervalNanos;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static final class ExpiryShard {
+        final Queue<Bucket>[] slots = new Queue[WHEEL_SLOTS];
+        volatile long cursor;
+
+        ExpiryShard() {
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = new ConcurrentLinkedQueue<>();
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.mem0.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按键有序的异步执行器 / Keyed Ordered Async Executor
+ *
+ * <p>同一个键（例如用户ID）的任务严格按提交顺序逐个执行：前一个任务返回的future完成后才启动
+ * 下一个；不同键的任务相互独立、并行执行。每个键按哈希固定分配到N个条带线程之一，任务的
+ * 同步启动部分总在该线程上运行（单写者），异步后续不占用条带线程，因此同一条带上的其他键
+ * 不会被长耗时的I/O阻塞。</p>
+ *
+ * <p>Tasks for one key (a user id, say) run strictly one at a time in submission order: the next
+ * task starts only after the future returned by the previous one completes, while tasks for
+ * different keys run independently and in parallel. Each key is pinned by hash to one of N stripe
+ * threads and the synchronous start of its tasks always runs there (single writer). Asynchronous
+ * continuations do not hold the stripe thread, so other keys on the stripe are not held up by long
+ * I/O.</p>
+ *
+ * <p>每个键的排队深度（含执行中的任务）有上限，超出时立即以 {@link RejectedExecutionException}
+ * 失败，避免单个租户无限堆积。空闲的键不占用内存。</p>
+ *
+ * <p>The queue depth per key, including the running task, is bounded; beyond it submissions fail
+ * immediately with {@link RejectedExecutionException}, so one tenant cannot pile up work without
+ * limit. Idle keys hold no memory.</p>
+ *
+ * <p>注意：任务内部不能再向同一个键提交并等待结果，否则会等待排在自己之后的任务而永不完成。
+ * Tasks must not submit to their own key and wait for the result; that would wait on a task queued
+ * behind itself and never complete.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public class KeyedExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedExecutor.class);
+
+    private final String name;
+    private final int maxQueueDepthPerKey;
+    private final ExecutorService[] stripes;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicLong rejectedTasks = new AtomicLong();
+    private final AtomicInteger maxObservedDepth = new AtomicInteger();
+
+    /**
+     * @param name                线程名前缀 / thread name prefix
+     * @param stripeCount         条带线程数 / number of stripe threads
+     * @param maxQueueDepthPerKey 每个键的最大排队深度 / maximum queue depth per key
+     */
+    public KeyedExecutor(String name, int stripeCount, int maxQueueDepthPerKey) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("stripeCount must be positive: " + stripeCount);
+        }
+        if (maxQueueDepthPerKey <= 0) {
+            throw new IllegalArgumentException("maxQueueDepthPerKey must be positive: " + maxQueueDepthPerKey);
+        }
+        this.name = name;
+        this.maxQueueDepthPerKey = maxQueueDepthPerKey;
+        this.stripes = new ExecutorService[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            String threadName = name + "-" + i;
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 提交键控任务 / Submit a keyed task.
+     *
+     * @param key  顺序键 / ordering key
+     * @param task 启动异步操作并返回其future / starts the async operation and returns its future
+     * @return 任务结果；队列已满时以 {@link RejectedExecutionException} 失败 / the task's result,
+     *         failed with {@link RejectedExecutionException} when the key's queue is full
+     */
+    public <T> CompletableFuture<T> submit(String key, Supplier<CompletableFuture<T>> task) {
+        return submitKeyed(key != null ? key : "", task);
+    }
+
+    private <T> CompletableFuture<T> submitKeyed(String key, Supplier<CompletableFuture<T>> task) {
+        submittedTasks.incrementAndGet();
+        Task<T> queued = new Task<>(task);
+        boolean[] rejected = new boolean[1];
+        boolean[] start = new boolean[1];
+        // 入队与深度计数在同一个compute中完成，与finish中的移除互斥
+        // enqueue and depth update share one compute, exclusive with the removal in finish
+        Lane lane = lanes.compute(key, (k, existing) -> {
+            Lane current = existing != null ? existing : new Lane(stripes[stripeOf(k)]);
+            if (current.depth >= maxQueueDepthPerKey) {
+                rejected[0] = true;
+                return current;
+            }
+            current.queue.add(queued);
+            start[0] = current.depth++ == 0;
+            maxObservedDepth.accumulateAndGet(current.depth, Math::max);
+            return current;
+        });
+
+        if (rejected[0]) {
+            rejectedTasks.incrementAndGet();
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RejectedExecutionException(
+                name + " queue for key " + key + " is full (" + maxQueueDepthPerKey + ")"));
+            return failed;
+        }
+        if (start[0]) {
+            runNext(key, lane);
+        }
+        return queued.result;
+    }
+
+    /**
+     * 键当前的排队深度（含执行中的任务） / Current queue depth of a key, including the running task.
+     */
+    public int getQueueDepth(String key) {
+        Lane lane = lanes.get(key != null ? key : "");
+        return lane != null ? lane.depth : 0;
+    }
+
+    public int getActiveKeys() {
+        return lanes.size();
+    }
+
+    public long getSubmittedTasks() {
+        return submittedTasks.get();
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    public long getFailedTasks() {
+        return failedTasks.get();
+    }
+
+    public long getRejectedTasks() {
+        return rejectedTasks.get();
+    }
+
+    public int getMaxObservedDepth() {
+        return maxObservedDepth.get();
+    }
+
+    public int getMaxQueueDepthPerKey() {
+        return maxQueueDepthPerKey;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public void shutdown() {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        try {
+            for (ExecutorService stripe : stripes) {
+                if (!stripe.awaitTermination(5, TimeUnit.SECONDS)) {
+                    stripe.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (ExecutorService stripe : stripes) {
+                stripe.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+        logger.debug("{} shut down", name);
+    }
+
+    private int stripeOf(String key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    private void runNext(String key, Lane lane) {
+        try {
+            lane.stripe.execute(() -> {
+                Task<?> task = lane.queue.poll();
+                task.start().whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        failedTasks.incrementAndGet();
+                    } else {
+                        completedTasks.incrementAndGet();
+                    }
+                    finish(key, lane);
+                    task.complete();
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            // 执行器已关闭：让排队的任务全部失败 / executor shut down: fail everything queued
+            Task<?> task;
+            while ((task = lane.queue.poll()) != null) {
+                task.result.completeExceptionally(e);
+            }
+            lanes.remove(key, lane);
+        }
+    }
+
+    private void finish(String key, Lane lane) {
+        boolean[] more = new boolean[1];
+        lanes.computeIfPresent(key, (k, current) -> {
+            if (--current.depth == 0) {
+                return null;
+            }
+            more[0] = true;
+            return current;
+        });
+        if (more[0]) {
+            runNext(key, lane);
+        }
+    }
+
+    private static final class Lane {
+        final ExecutorService stripe;
+        final Queue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+        // 仅在lanes.compute内修改 / only modified inside lanes.compute
+        volatile int depth;
+
+        Lane(ExecutorService stripe) {
+            this.stripe = stripe;
+        }
+    }
+
+    private static final class Task<T> {
+        final Supplier<CompletableFuture<T>> supplier;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<T> outcome;
+
+        Task(Supplier<CompletableFuture<T>> supplier) {
+            this.supplier = supplier;
+        }
+
+        CompletableFuture<T> start() {
+            try {
+                CompletableFuture<T> future = supplier.get();
+                outcome = future != null ? future : CompletableFuture.<T>completedFuture(null);
+            } catch (RuntimeException e) {
+                outcome = new CompletableFuture<>();
+                outcome.completeExceptionally(e);
+            }
+            return outcome;
+        }
+
+        void complete() {
+            outcome.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+    }
+}
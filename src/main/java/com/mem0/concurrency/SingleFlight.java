@@ -0,0 +1,296 @@
+package com.mem0.concurrency;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * 单飞请求合并 / Single-Flight Request Deduplication
+ *
+ * <p>同一作用域（通常是用户）下参数相同的并发请求只执行一次：第一个请求成为领头者并执行加载，
+ * 在它完成前到达的相同请求共享它的结果。可选的短期结果备忘在加载成功后保留一小段时间，
+ * 期间到达的相同请求直接返回备忘的结果。</p>
+ *
+ * <p>Concurrent requests with the same parameters in the same scope (usually a user) run once: the
+ * first becomes the leader and runs the load, and identical requests that arrive before it completes
+ * share its result. An optional short-lived memo keeps a successful result for a little while and
+ * serves identical requests that arrive in that window.</p>
+ *
+ * <p>{@link #invalidate(String)} 在写入完成后调用，它把该作用域进行中的请求标记为过时并移出表，
+ * 同时删除该作用域的备忘：之后到达的请求不再加入旧的请求，也不会读到旧的备忘，过时请求的结果也不会
+ * 进入备忘，写入之后的读取总能看到写入的结果。不为作用域保留任何状态，内存只与进行中的请求和备忘数
+ * 相关，与出现过的用户数无关。</p>
+ *
+ * <p>{@link #invalidate(String)} is called once a write completes. It marks the scope's in-flight
+ * loads stale, takes them out of the table and drops the scope's memos, so a request arriving later
+ * never joins an older load nor reads an older memo, stale loads never enter the memo, and a read after
+ * a write always observes it. No state is kept per scope, so memory follows the in-flight loads and
+ * memos rather than the number of users ever seen.</p>
+ *
+ * <p>每个调用方拿到各自的future，取消自己的future不影响其他调用方；结果经 {@code copier} 复制后
+ * 交给每个调用方，可变的结果（如列表）不会在调用方之间共享。</p>
+ *
+ * <p>Every caller gets its own future, so cancelling it does not affect the others; results pass
+ * through {@code copier} for each caller, so mutable results such as lists are not shared between
+ * callers.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class SingleFlight<V> {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String name;
+    private final long memoTtlNanos;
+    private final int maxMemoEntries;
+    private final UnaryOperator<V> copier;
+
+    private final Map<FlightKey, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<FlightKey, Memo<V>> memos = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+
+    /**
+     * 只合并进行中的请求，不保留结果 / Collapse in-flight requests only, without a memo
+     */
+    public SingleFlight(String name, UnaryOperator<V> copier) {
+        this(name, 0, 0, copier);
+    }
+
+    /**
+     * @param memoTtlMs      结果备忘时长，不大于0时关闭备忘 / memo lifetime; not positive disables the memo
+     * @param maxMemoEntries 备忘条目上限 / maximum memo entries
+     * @param copier         交给每个调用方前复制结果 / copies the result for each caller
+     */
+    public SingleFlight(String name, long memoTtlMs, int maxMemoEntries, UnaryOperator<V> copier) {
+        this.name = name;
+        this.memoTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, memoTtlMs));
+        this.maxMemoEntries = Math.max(0, maxMemoEntries);
+        this.copier = copier != null ? copier : UnaryOperator.identity();
+    }
+
+    /**
+     * 执行请求，相同作用域与键的并发请求共享一次加载
+     *
+     * @param scope  失效作用域，如用户ID / invalidation scope such as the user id
+     * @param key    规范化后的请求参数 / normalised request parameters
+     * @param loader 领头者执行的加载 / the load run by the leader
+     */
+    public CompletableFuture<V> execute(String scope, Object key, Supplier<CompletableFuture<V>> loader) {
+        scope = scopeOf(scope);
+        requests.increment();
+        FlightKey flightKey = new FlightKey(scope, key);
+
+        if (memoTtlNanos > 0) {
+            Memo<V> memo = memos.get(flightKey);
+            if (memo != null) {
+                if (System.nanoTime() - memo.expiresAtNanos < 0) {
+                    memoHits.increment();
+                    return CompletableFuture.completedFuture(copier.apply(memo.value));
+                }
+                memos.remove(flightKey, memo);
+            }
+        }
+
+        Flight<V> flight = new Flight<>();
+        Flight<V> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            collapsed.increment();
+            return existing.promise.thenApply(copier);
+        }
+
+        executions.increment();
+        CompletableFuture<V> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException e) {
+            load = new CompletableFuture<>();
+            load.completeExceptionally(e);
+        }
+        load.whenComplete((value, error) -> {
+            // 先写入备忘再移出进行中的表，最后完成共享的future，之后到达的请求不会错过两者；
+            // 移出前发生的失效总能标记到这次加载，移出后发生的失效总能删除这条备忘
+            if (error == null) {
+                remember(flightKey, flight, value);
+            }
+            inFlight.remove(flightKey, flight);
+            if (error == null) {
+                flight.promise.complete(value);
+            } else {
+                flight.promise.completeExceptionally(error);
+            }
+        });
+        return flight.promise.thenApply(copier);
+    }
+
+    /**
+     * 作用域发生写入后调用：之后的请求不再加入进行中的请求，也不读取已有的备忘
+     */
+    public void invalidate(String scope) {
+        String invalidated = scopeOf(scope);
+        inFlight.entrySet().removeIf(entry ->
+            entry.getKey().scope.equals(invalidated) && entry.getValue().markStale());
+        if (memoTtlNanos > 0) {
+            memos.keySet().removeIf(key -> key.scope.equals(invalidated));
+        }
+    }
+
+    /**
+     * 写入的作用域未知时调用，使所有作用域失效
+     */
+    public void invalidateAll() {
+        inFlight.values().removeIf(Flight::markStale);
+        memos.clear();
+    }
+
+    /**
+     * 由请求参数组成的键，文本参数去掉首尾空白并合并连续空白
+     * A key made of the request parameters; text is trimmed and runs of whitespace are collapsed
+     */
+    public static Object key(Object... parts) {
+        Object[] normalised = new Object[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            normalised[i] = parts[i] instanceof String
+                ? WHITESPACE.matcher(((String) parts[i]).trim()).replaceAll(" ") : parts[i];
+        }
+        return Arrays.asList(normalised);
+    }
+
+    public Stats getStats() {
+        return new Stats(name, requests.sum(), executions.sum(), collapsed.sum(), memoHits.sum(),
+            inFlight.size(), memos.size());
+    }
+
+    private static String scopeOf(String scope) {
+        return scope != null ? scope : "";
+    }
+
+    private void remember(FlightKey key, Flight<V> flight, V value) {
+        // 加载期间发生过写入时结果可能已过时，不备忘
+        if (memoTtlNanos <= 0 || value == null || flight.stale) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (memos.size() >= maxMemoEntries) {
+            memos.values().removeIf(memo -> now - memo.expiresAtNanos >= 0);
+            if (memos.size() >= maxMemoEntries) {
+                return;
+            }
+        }
+        Memo<V> memo = new Memo<>(value, now + memoTtlNanos);
+        memos.put(key, memo);
+        // 检查与写入之间发生了失效时，失效可能没有看到这条备忘，撤回它
+        if (flight.stale) {
+            memos.remove(key, memo);
+        }
+    }
+
+    /**
+     * 一次进行中的加载；作用域失效后标记为过时，结果仍交给已加入的调用方，但不进入备忘
+     */
+    private static final class Flight<V> {
+        final CompletableFuture<V> promise = new CompletableFuture<>();
+        volatile boolean stale;
+
+        boolean markStale() {
+            stale = true;
+            return true;
+        }
+    }
+
+    private static final class FlightKey {
+        final String scope;
+        final Object key;
+        final int hash;
+
+        FlightKey(String scope, Object key) {
+            this.scope = scope;
+            this.key = key;
+            this.hash = Objects.hash(scope, key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FlightKey)) {
+                return false;
+            }
+            FlightKey other = (FlightKey) o;
+            return scope.equals(other.scope) && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Memo<V> {
+        final V value;
+        final long expiresAtNanos;
+
+        Memo(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * 合并统计 / Collapse statistics
+     */
+    public static final class Stats {
+        private final String name;
+        private final long requests;
+        private final long executions;
+        private final long collapsed;
+        private final long memoHits;
+        private final int inFlight;
+        private final int memoEntries;
+
+        Stats(String name, long requests, long executions, long collapsed, long memoHits,
+              int inFlight, int memoEntries) {
+            this.name = name;
+            this.requests = requests;
+            this.executions = executions;
+            this.collapsed = collapsed;
+            this.memoHits = memoHits;
+            this.inFlight = inFlight;
+            this.memoEntries = memoEntries;
+        }
+
+        public long getRequests() { return requests; }
+        public long getExecutions() { return executions; }
+        public long getCollapsed() { return collapsed; }
+        public long getMemoHits() { return memoHits; }
+        public int getInFlight() { return inFlight; }
+        public int getMemoEntries() { return memoEntries; }
+
+        /**
+         * 未实际执行的请求占比 / Share of requests that did not run a load
+         */
+        public double getCollapseRate() {
+            return requests == 0 ? 0.0 : (double) (collapsed + memoHits) / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SingleFlight{%s: requests=%d, executions=%d, collapsed=%d, memoHits=%d, "
+                + "collapseRate=%.2f%%, inFlight=%d}", name, requests, executions, collapsed, memoHits,
+                getCollapseRate() * 100, inFlight);
+        }
+    }
+}
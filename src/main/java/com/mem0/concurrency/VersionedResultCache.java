@@ -0,0 +1,371 @@
+package com.mem0.concurrency;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 按作用域版本失效的结果缓存 / Result Cache Invalidated by Scope Versions
+ *
+ * <p>每个作用域（通常是用户）有一个版本号，作用域发生写入后调用 {@link #invalidate(String)} 递增它。
+ * 调用方在计算结果之前用 {@link #version(String)} 取得版本，计算完成后连同版本一起
+ * {@link #put(String, Object, long, Object)}；版本已经变化的结果直接丢弃，读取时版本不一致的条目
+ * 视为未命中并移除。写入之后的读取不会拿到写入之前计算的结果，失效本身是O(1)，不需要遍历缓存。</p>
+ *
+ * <p>Each scope (usually a user) has a version that {@link #invalidate(String)} bumps after a write.
+ * Callers read the version with {@link #version(String)} before computing a result and pass it back to
+ * {@link #put(String, Object, long, Object)}; a result computed under an older version is dropped, and
+ * an entry whose version no longer matches is a miss and gets removed. A read after a write never sees a
+ * result computed before it, and invalidation is O(1) without walking the cache.</p>
+ *
+ * <p>键按 {@code equals} 精确匹配，不使用可能冲突的摘要作为键。条目数有上限，超出后先清除过期与
+ * 版本过时的条目，仍超出时按最近访问时间淘汰最久未用的条目；条目另有存活时间作为兜底。
+ * 结果经 {@code copier} 复制后交给调用方，调用方修改返回值不会影响缓存。</p>
+ *
+ * <p>Keys match exactly by {@code equals} rather than by a digest that may collide. The entry count is
+ * bounded: on overflow expired and outdated entries go first, then the least recently used ones; entries
+ * also carry a time-to-live as a backstop. Results pass through {@code copier} before they are handed
+ * out, so callers may modify them without affecting the cache.</p>
+ *
+ * <p>版本记录同样有界：淘汰时删除已没有缓存条目的作用域的版本记录，并把删除的最大版本并入无记录作用域
+ * 共用的下限，被删除作用域的版本只升不降，写入之前取得的版本不会再次生效。</p>
+ *
+ * <p>Version records are bounded too: eviction drops the records of scopes that no longer have cached
+ * entries and folds the largest dropped version into a floor shared by scopes without a record, so a
+ * dropped scope's version never goes backwards and a version read before a write never becomes current
+ * again.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class VersionedResultCache<K, V> {
+
+    // 淘汰时保留的比例，避免每次写入都触发淘汰
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final UnaryOperator<V> copier;
+
+    private final Map<ScopedKey<K>, Entry<V>> entries = new ConcurrentHashMap<>();
+    // 所有版本号取自同一个计数器，作用域版本与全局失效版本可以直接比较大小
+    private final AtomicLong clock = new AtomicLong();
+    // 有缓存条目的作用域总有版本记录，没有记录的作用域使用prunedVersion
+    private final Map<String, Long> scopeVersions = new ConcurrentHashMap<>();
+    private volatile long prunedVersion;
+    private volatile long floorVersion;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleDrops = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries 条目上限 / maximum entries
+     * @param ttlMs      条目存活时间 / entry time-to-live
+     * @param copier     交给调用方前复制结果，为null时直接返回缓存的对象 / copies results before they are handed out
+     */
+    public VersionedResultCache(String name, int maxEntries, long ttlMs, UnaryOperator<V> copier) {
+        if (maxEntries <= 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("条目上限与存活时间必须为正数");
+        }
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.copier = copier != null ? copier : UnaryOperator.identity();
+    }
+
+    /**
+     * 作用域当前的版本，在计算结果之前读取 / The scope's current version, read before computing a result
+     */
+    public long version(String scope) {
+        Long recorded = scopeVersions.get(scopeOf(scope));
+        long version = recorded != null ? recorded : prunedVersion;
+        return Math.max(version, floorVersion);
+    }
+
+    /**
+     * 查找当前版本下的结果，未命中返回null / Look up a result for the current version; null on a miss
+     */
+    public V get(String scope, K key) {
+        ScopedKey<K> scopedKey = new ScopedKey<>(scopeOf(scope), key);
+        Entry<V> entry = entries.get(scopedKey);
+        if (entry != null) {
+            long now = System.nanoTime();
+            if (entry.version == version(scopedKey.scope) && now - entry.expiresAtNanos < 0) {
+                entry.lastAccessNanos = now;
+                hits.increment();
+                return copier.apply(entry.value);
+            }
+            entries.remove(scopedKey, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 缓存在给定版本下计算的结果；期间作用域已失效时丢弃
+     * Cache a result computed under the given version; dropped if the scope was invalidated meanwhile
+     *
+     * @return 结果是否被缓存 / whether the result was cached
+     */
+    public boolean put(String scope, K key, long version, V value) {
+        String scopeName = scopeOf(scope);
+        if (value == null || version != version(scopeName)) {
+            staleDrops.increment();
+            return false;
+        }
+        // 记录版本后淘汰不会删除它；记录时下限若已上升，下面的确认会丢弃这个结果
+        scopeVersions.computeIfAbsent(scopeName, s -> prunedVersion);
+        long now = System.nanoTime();
+        ScopedKey<K> scopedKey = new ScopedKey<>(scopeName, key);
+        Entry<V> entry = new Entry<>(copier.apply(value), version, now, now + ttlNanos);
+        entries.put(scopedKey, entry);
+        // 写入与失效并发时，写入后再确认一次版本，失效之后写入的过时条目立即移除
+        if (version != version(scopeName)) {
+            entries.remove(scopedKey, entry);
+            staleDrops.increment();
+            return false;
+        }
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+        return true;
+    }
+
+    /**
+     * 取得给定版本下的结果，没有时原子地创建并缓存，并发的调用方拿到同一个对象；期间作用域已失效时返回null。
+     * 返回缓存中的对象本身而不经 {@code copier} 复制，适合调用方在其上继续累积的可变结果
+     * Get the result for the given version, atomically creating and caching it when absent so concurrent
+     * callers share one object; null if the scope was invalidated meanwhile. The cached object itself is
+     * returned without {@code copier}, for mutable results that callers keep adding to
+     */
+    public V computeIfAbsent(String scope, K key, long version, Supplier<V> factory) {
+        String scopeName = scopeOf(scope);
+        if (version != version(scopeName)) {
+            staleDrops.increment();
+            return null;
+        }
+        scopeVersions.computeIfAbsent(scopeName, s -> prunedVersion);
+        long now = System.nanoTime();
+        ScopedKey<K> scopedKey = new ScopedKey<>(scopeName, key);
+        Entry<V> entry = entries.compute(scopedKey, (k, existing) ->
+            existing != null && existing.version == version && now - existing.expiresAtNanos < 0
+                ? existing : new Entry<>(factory.get(), version, now, now + ttlNanos));
+        if (version != version(scopeName)) {
+            entries.remove(scopedKey, entry);
+            staleDrops.increment();
+            return null;
+        }
+        entry.lastAccessNanos = now;
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+        return entry.value;
+    }
+
+    /**
+     * 作用域发生写入后调用 / Call after a write to the scope
+     */
+    public void invalidate(String scope) {
+        scopeVersions.merge(scopeOf(scope), clock.incrementAndGet(), Math::max);
+        // 只写不读的作用域也会留下版本记录，累积到条目上限的两倍时清理一次
+        if (scopeVersions.size() > 2 * maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * 写入的作用域未知时调用，使所有作用域失效 / Invalidate every scope when the written scope is unknown
+     */
+    public void invalidateAll() {
+        floorVersion = clock.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats getStats() {
+        return new Stats(name, hits.sum(), misses.sum(), staleDrops.sum(), evictions.sum(), entries.size(), maxEntries,
+            scopeVersions.size());
+    }
+
+    private static String scopeOf(String scope) {
+        return scope != null ? scope : "";
+    }
+
+    private void evict() {
+        // 只需一个线程淘汰，其他写入方直接返回
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            for (Map.Entry<ScopedKey<K>, Entry<V>> mapping : entries.entrySet()) {
+                Entry<V> entry = mapping.getValue();
+                if ((now - entry.expiresAtNanos >= 0 || entry.version != version(mapping.getKey().scope))
+                    && entries.remove(mapping.getKey(), entry)) {
+                    evictions.increment();
+                }
+            }
+
+            int excess = entries.size() - (int) (maxEntries * EVICTION_TARGET);
+            if (excess > 0) {
+                evictLeastRecentlyUsed(excess, now);
+            }
+            pruneScopeVersions();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void evictLeastRecentlyUsed(int excess, long now) {
+        // 找到第excess旧的访问时间，淘汰不晚于它的条目
+        long[] accessTimes = new long[entries.size()];
+        int count = 0;
+        for (Entry<V> entry : entries.values()) {
+            if (count == accessTimes.length) {
+                break;
+            }
+            accessTimes[count++] = entry.lastAccessNanos - now;
+        }
+        if (count == 0) {
+            return;
+        }
+        Arrays.sort(accessTimes, 0, count);
+        long threshold = accessTimes[Math.min(excess, count) - 1];
+        entries.values().removeIf(entry -> {
+            if (entry.lastAccessNanos - now <= threshold) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 删除没有缓存条目的作用域的版本记录，删除前先把它们的版本并入prunedVersion
+     */
+    private void pruneScopeVersions() {
+        Set<String> liveScopes = new HashSet<>();
+        for (ScopedKey<K> scopedKey : entries.keySet()) {
+            liveScopes.add(scopedKey.scope);
+        }
+        Map<String, Long> pruned = new HashMap<>();
+        long highest = prunedVersion;
+        for (Map.Entry<String, Long> record : scopeVersions.entrySet()) {
+            if (!liveScopes.contains(record.getKey())) {
+                pruned.put(record.getKey(), record.getValue());
+                highest = Math.max(highest, record.getValue());
+            }
+        }
+        prunedVersion = highest;
+        for (Map.Entry<String, Long> record : pruned.entrySet()) {
+            scopeVersions.remove(record.getKey(), record.getValue());
+        }
+    }
+
+    private static final class ScopedKey<K> {
+        final String scope;
+        final K key;
+        final int hash;
+
+        ScopedKey(String scope, K key) {
+            this.scope = scope;
+            this.key = key;
+            this.hash = 31 * scope.hashCode() + Objects.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ScopedKey)) {
+                return false;
+            }
+            ScopedKey<?> other = (ScopedKey<?>) o;
+            return hash == other.hash && scope.equals(other.scope) && Objects.equals(key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long version;
+        final long expiresAtNanos;
+        volatile long lastAccessNanos;
+
+        Entry(V value, long version, long createdNanos, long expiresAtNanos) {
+            this.value = value;
+            this.version = version;
+            this.lastAccessNanos = createdNanos;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * 缓存统计 / Cache statistics
+     */
+    public static final class Stats {
+        private final String name;
+        private final long hits;
+        private final long misses;
+        private final long staleDrops;
+        private final long evictions;
+        private final int size;
+        private final int maxEntries;
+        private final int scopes;
+
+        Stats(String name, long hits, long misses, long staleDrops, long evictions, int size, int maxEntries,
+              int scopes) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+            this.staleDrops = staleDrops;
+            this.evictions = evictions;
+            this.size = size;
+            this.maxEntries = maxEntries;
+            this.scopes = scopes;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getStaleDrops() { return staleDrops; }
+        public long getEvictions() { return evictions; }
+        public int getSize() { return size; }
+        public int getMaxEntries() { return maxEntries; }
+        public int getScopes() { return scopes; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("VersionedResultCache{%s: hits=%d, misses=%d, hitRate=%.2f%%, staleDrops=%d, "
+                + "evictions=%d, size=%d/%d, scopes=%d}", name, hits, misses, getHitRate() * 100, staleDrops,
+                evictions, size, maxEntries, scopes);
+        }
+    }
+}
@@ -68,4 +68,54 @@ public final class MemoryConstants {
     public static final int DEFAULT_SEARCH_LIMIT = 10;
     public static final float MIN_SIMILARITY_THRESHOLD = 0.0f;
     public static final float MAX_SIMILARITY_THRESHOLD = 1.0f;
-}
\ No newline at end of file
+    
+    // Graph-aware retrieval
+    public static final double DEFAULT_GRAPH_RERANK_WEIGHT = 0.3;
+    
+    // Graph store writes
+    public static final int DEFAULT_GRAPH_WRITE_BATCH_SIZE = 500;
+    
+    // Paged reads
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    
+    // Per-user ordered writes
+    public static final int DEFAULT_USER_WRITE_STRIPES = Math.max(2, Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_USER_WRITE_QUEUE_DEPTH = 256;
+    
+    // Memory sharding
+    public static final int DEFAULT_VIRTUAL_NODES_PER_SHARD = 128;
+    public static final int DEFAULT_SHARD_SPLIT_THRESHOLD = 10000;
+    public static final int DEFAULT_MAX_SHARDS = 256;
+    
+    // Pipeline stages
+    public static final int DEFAULT_PIPELINE_STAGE_CAPACITY = 1024;
+    
+    // Bulk ingest ring
+    public static final int DEFAULT_BULK_INGEST_THRESHOLD = 1024;
+    public static final int DEFAULT_INGEST_RING_SIZE = 8192;
+    public static final int DEFAULT_INGEST_EMBED_BATCH_SIZE = 256;
+    public static final int DEFAULT_INGEST_WRITE_BATCH_SIZE = 512;
+    
+    // Adaptive concurrency
+    public static final int DEFAULT_INITIAL_CONCURRENCY_LIMIT = 20;
+    
+    // Shared CPU pool and timer
+    public static final int DEFAULT_PARALLEL_SCAN_MIN_GRAIN = 512;
+    public static final int DEFAULT_TFIDF_SCAN_GRAIN = 16;
+    public static final long DEFAULT_TIMER_TICK_MS = 5;
+    public static final int DEFAULT_TIMER_WHEEL_SIZE = 512;
+    
+    // Search deduplication; the result memo is off unless a TTL is configured
+    public static final long DEFAULT_SEARCH_MEMO_TTL_MS = 0;
+    public static final int DEFAULT_SEARCH_MEMO_MAX_ENTRIES = 10_000;
+    
+    // Search result caches, invalidated per user on every write
+    public static final int DEFAULT_SEARCH_CACHE_MAX_ENTRIES = 5_000;
+    public static final long DEFAULT_SEARCH_CACHE_TTL_MS = 300_000;
+    
+    // Semantic RAG answer cache; off unless a TTL is configured
+    public static final long DEFAULT_ANSWER_CACHE_TTL_MS = 0;
+    public static final double DEFAULT_ANSWER_CACHE_SIMILARITY = 0.95;
+    public static final int DEFAULT_ANSWER_CACHE_MAX_USERS = 10_000;
+    public static final int DEFAULT_ANSWER_CACHE_MAX_ENTRIES_PER_USER = 256;
+}
@@ -1,9 +1,13 @@
 package com.mem0.core;
 
 import com.mem0.Mem0;
+import com.mem0.concurrency.KeyedExecutor;
+import com.mem0.concurrency.SingleFlight;
 import com.mem0.embedding.EmbeddingProvider;
 import com.mem0.llm.LLMProvider;
+import com.mem0.resilience.Deadline;
 import com.mem0.store.GraphStore;
+import com.mem0.store.Page;
 import com.mem0.store.VectorStore;
 import com.mem0.template.ChatRAGPromptTemplate;
 import com.mem0.template.PromptTemplate;
@@ -14,6 +18,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import com.mem0.constants.MemoryConstants;
 
@@ -64,6 +69,25 @@ public class EnhancedMemoryService implements AutoCloseable {
     );
     private final int maxCacheSize = MemoryConstants.DEFAULT_MEMORY_CACHE_SIZE;
     
+    // Per-user statistics maintained on every add, update, access and delete
+    private final MemoryStatisticsAggregator statistics = new MemoryStatisticsAggregator();
+    
+    // Mutations of one user run in order, different users in parallel
+    private final KeyedExecutor userWrites = new KeyedExecutor("mem0-user-writes",
+        MemoryConstants.DEFAULT_USER_WRITE_STRIPES, MemoryConstants.DEFAULT_USER_WRITE_QUEUE_DEPTH);
+    
+    // Graph-aware re-ranking of RAG context; null options disable it
+    private volatile GraphStore.PageRankOptions graphRerankOptions = GraphStore.PageRankOptions.defaults();
+    private volatile double graphRerankWeight = MemoryConstants.DEFAULT_GRAPH_RERANK_WEIGHT;
+    
+    // Concurrent identical searches of one user share a single embed and vector scan
+    private volatile SingleFlight<List<EnhancedMemory>> searches = newSearchFlight(
+        MemoryConstants.DEFAULT_SEARCH_MEMO_TTL_MS);
+    
+    // Answers of semantically near-identical RAG queries per user; null disables the cache
+    private volatile SemanticAnswerCache answerCache = newAnswerCache(
+        MemoryConstants.DEFAULT_ANSWER_CACHE_TTL_MS, MemoryConstants.DEFAULT_ANSWER_CACHE_SIMILARITY);
+    
     /**
      * 构造增强型内存服务
      * 
@@ -106,8 +130,33 @@ public class EnhancedMemoryService implements AutoCloseable {
                                                       String agentId, String runId,
                                                       String memoryType, 
                                                       Map<String, Object> metadata) {
+        return addEnhancedMemory(content, userId, agentId, runId, memoryType, metadata, Deadline.none());
+    }
+    
+    /**
+     * 在截止时间内新增记忆：排队等待与每个阶段开始前检查预算，写入存储开始后不再中断
+     * Add a memory within a deadline: the budget is checked after queueing and before every stage,
+     * and a write is never interrupted once it has reached the stores.
+     */
+    public CompletableFuture<String> addEnhancedMemory(String content, String userId,
+                                                      String agentId, String runId,
+                                                      String memoryType,
+                                                      Map<String, Object> metadata,
+                                                      Deadline deadline) {
         logger.info("Adding enhanced memory for user: {}", userId);
         
+        // 同一用户的新增串行执行，冲突检测总能看到之前新增的记忆
+        // adds for one user run in order, so conflict detection always sees the previous adds
+        return deadline.bound(userWrites.submit(userId,
+            () -> addInOrder(content, userId, agentId, runId, memoryType, metadata, deadline)), "add");
+    }
+    
+    private CompletableFuture<String> addInOrder(String content, String userId, String agentId, String runId,
+                                                 String memoryType, Map<String, Object> metadata,
+                                                 Deadline deadline) {
+        if (deadline.isExpired()) {
+            return deadline.failed("add.queue");
+        }
         return CompletableFuture.supplyAsync(() -> {
             // Create enhanced memory object
             String memoryId = UUID.randomUUID().toString();
@@ -121,12 +170,14 @@ public class EnhancedMemoryService implements AutoCloseable {
                 classificationContext.put("suggested_type", memoryType);
             }
             
-            return memoryClassifier.classifyMemory(content, classificationContext)
+            return Deadline.callWith(deadline, () -> memoryClassifier.classifyMemory(content, classificationContext))
                 .thenCompose(type -> {
                     memory.setType(type);
                     
                     // Assess importance
-                    return importanceScorer.scoreMemoryImportance(memory, classificationContext);
+                    deadline.check("add.importance");
+                    return Deadline.callWith(deadline,
+                        () -> importanceScorer.scoreMemoryImportance(memory, classificationContext));
                 })
                 .thenCompose(importanceScore -> {
                     memory.setImportance(MemoryImportance.fromScore(importanceScore.getTotalScore()));
@@ -149,13 +200,16 @@ public class EnhancedMemoryService implements AutoCloseable {
                             memory.getMetadata().put("classification_confidence", importanceScore.getConfidence());
                             
                             // Check for conflicts with existing memories
-                            return detectAndHandleConflicts(memory);
+                            deadline.check("add.conflicts");
+                            return Deadline.callWith(deadline, () -> detectAndHandleConflicts(memory));
                         });
                 })
                 .thenCompose(processedMemory -> {
                     // Store in vector database
-                    return embeddingProvider.embed(processedMemory.getContent())
+                    deadline.check("add.embed");
+                    return Deadline.callWith(deadline, () -> embeddingProvider.embed(processedMemory.getContent()))
                         .thenCompose(embedding -> {
+                            deadline.check("add.store");
                             Map<String, Object> vectorMetadata = createVectorMetadata(processedMemory);
                             vectorMetadata.put("id", processedMemory.getId());
                             return vectorStore.insert(defaultCollectionName, embedding, vectorMetadata);
@@ -168,6 +222,8 @@ public class EnhancedMemoryService implements AutoCloseable {
                         .thenApply(nodeId -> {
                             // Add to cache
                             updateCache(processedMemory);
+                            statistics.record(processedMemory);
+                            invalidateSearches(userId);
                             
                             logger.debug("Added enhanced memory: {}", processedMemory.getId());
                             return processedMemory.getId();
@@ -180,7 +236,7 @@ public class EnhancedMemoryService implements AutoCloseable {
         // Check cache first
         EnhancedMemory cached = memoryCache.get(memoryId);
         if (cached != null) {
-            cached.recordAccess();
+            recordAccess(cached);
             return CompletableFuture.completedFuture(cached);
         }
         
@@ -188,74 +244,178 @@ public class EnhancedMemoryService implements AutoCloseable {
         return loadMemoryFromStorage(memoryId)
             .thenApply(memory -> {
                 if (memory != null) {
-                    memory.recordAccess();
+                    recordAccess(memory);
                     updateCache(memory);
                 }
                 return memory;
             });
     }
     
+    /**
+     * 批量获取内存 / Fetch several memories at once.
+     * 
+     * <p>先从缓存解析命中的ID，其余未命中的ID通过一次 {@link VectorStore#getBatch} 调用加载，
+     * 避免逐条查询带来的N+1次往返。结果按输入顺序排列并去重，不存在的ID被跳过。</p>
+     * 
+     * <p>Cache hits are resolved first and all misses are loaded with a single
+     * {@link VectorStore#getBatch} call instead of one round trip per id. Results follow the input
+     * order without duplicates; unknown ids are skipped.</p>
+     */
+    public CompletableFuture<List<EnhancedMemory>> getEnhancedMemories(Collection<String> memoryIds) {
+        Map<String, EnhancedMemory> resolved = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String memoryId : memoryIds) {
+            if (memoryId == null || resolved.containsKey(memoryId)) {
+                continue;
+            }
+            EnhancedMemory cached = memoryCache.get(memoryId);
+            if (cached != null) {
+                recordAccess(cached);
+            } else {
+                misses.add(memoryId);
+            }
+            // 占位以保持输入顺序 / placeholder keeps the input order
+            resolved.put(memoryId, cached);
+        }
+        
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>(resolved.values()));
+        }
+        
+        return vectorStore.getBatch(defaultCollectionName, misses)
+            .thenApply(documents -> {
+                for (String memoryId : misses) {
+                    EnhancedMemory memory = toMemory(memoryId, documents.get(memoryId));
+                    if (memory != null) {
+                        recordAccess(memory);
+                        updateCache(memory);
+                    }
+                    resolved.put(memoryId, memory);
+                }
+                return resolved.values().stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            });
+    }
+    
     public CompletableFuture<List<EnhancedMemory>> getAllEnhancedMemories(String userId, String memoryType) {
+        List<EnhancedMemory> memories = new ArrayList<>();
+        return forEachMemoryPage(userId, memoryType, MemoryConstants.DEFAULT_PAGE_SIZE, page -> {
+                memories.addAll(page);
+                return CompletableFuture.completedFuture(null);
+            })
+            .thenApply(ignored -> memories);
+    }
+    
+    /**
+     * 按键集分页获取用户记忆 / Fetch one keyset page of a user's memories.
+     * 
+     * <p>第一页传入null令牌，之后传入上一页的 {@link Page#getNextPageToken()}；令牌对调用方不透明。
+     * Pass a null token for the first page and the previous {@link Page#getNextPageToken()}
+     * afterwards; tokens are opaque to callers.</p>
+     */
+    public CompletableFuture<Page<EnhancedMemory>> getEnhancedMemoriesPage(String userId, String memoryType,
+                                                                         String pageToken, int pageSize) {
+        return graphStore.getNodesByLabelPage("EnhancedMemory", memoryFilter(userId, memoryType), pageToken, pageSize)
+            .thenCompose(nodes -> getEnhancedMemories(memoryIdsOf(nodes.getItems()))
+                .thenApply(memories -> new Page<>(memories, nodes.getNextPageToken())));
+    }
+    
+    /**
+     * 逐页处理用户记忆，上一页处理完才读取下一页，任一时刻只持有一页
+     * Process a user's memories page by page, reading the next page only after the previous one has
+     * been handled, so only one page is held at a time.
+     */
+    public CompletableFuture<Void> forEachMemoryPage(String userId, String memoryType, int pageSize,
+                                                     Function<List<EnhancedMemory>, CompletableFuture<Void>> consumer) {
+        Page.checkPageSize(pageSize);
+        return Page.forEach(token -> getEnhancedMemoriesPage(userId, memoryType, token, pageSize), consumer);
+    }
+    
+    private static Map<String, Object> memoryFilter(String userId, String memoryType) {
         Map<String, Object> filter = new HashMap<>();
         filter.put("userId", userId);
         if (memoryType != null) {
             filter.put("memoryType", memoryType);
         }
-        
-        return graphStore.getNodesByLabel("EnhancedMemory", filter)
-            .thenCompose(nodes -> {
-                List<CompletableFuture<EnhancedMemory>> memoryFutures = nodes.stream()
-                    .map(node -> {
-                        if (node.getProperties() == null) {
-                            logger.warn("Node properties is null for node: {}", node.getId());
-                            return CompletableFuture.<EnhancedMemory>completedFuture(null);
-                        }
-                        String memoryId = (String) node.getProperties().get("id");
-                        if (memoryId == null) {
-                            logger.warn("Memory ID is null for node: {}", node.getId());
-                            return CompletableFuture.<EnhancedMemory>completedFuture(null);
-                        }
-                        return getEnhancedMemory(memoryId);
-                    })
-                    .collect(Collectors.toList());
-                
-                return CompletableFuture.allOf(memoryFutures.toArray(new CompletableFuture[0]))
-                    .thenApply(ignored -> memoryFutures.stream()
-                        .map(CompletableFuture::join)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList()));
-            });
+        return filter;
+    }
+    
+    private static List<String> memoryIdsOf(List<GraphStore.GraphNode> nodes) {
+        List<String> memoryIds = new ArrayList<>(nodes.size());
+        for (GraphStore.GraphNode node : nodes) {
+            if (node.getProperties() == null) {
+                logger.warn("Node properties is null for node: {}", node.getId());
+                continue;
+            }
+            String memoryId = (String) node.getProperties().get("id");
+            if (memoryId == null) {
+                logger.warn("Memory ID is null for node: {}", node.getId());
+                continue;
+            }
+            memoryIds.add(memoryId);
+        }
+        return memoryIds;
     }
     
     public CompletableFuture<List<EnhancedMemory>> searchEnhancedMemories(String query, String userId, int limit) {
-        return embeddingProvider.embed(query)
+        return searchEnhancedMemories(query, userId, limit, Deadline.none());
+    }
+    
+    /**
+     * 在截止时间内检索：嵌入、向量检索与加载记忆每个阶段开始前检查预算，到期时取消进行中的阶段
+     * Search within a deadline: the budget is checked before embedding, vector search and loading,
+     * and whichever stage is in flight at the deadline is cancelled.
+     */
+    public CompletableFuture<List<EnhancedMemory>> searchEnhancedMemories(String query, String userId, int limit,
+                                                                         Deadline deadline) {
+        return searchEnhancedMemories(query, userId, limit, deadline, null);
+    }
+    
+    /**
+     * 检索；queryEmbedding不为null时直接使用，不再嵌入查询
+     */
+    private CompletableFuture<List<EnhancedMemory>> searchEnhancedMemories(String query, String userId, int limit,
+                                                                          Deadline deadline,
+                                                                          List<Float> queryEmbedding) {
+        if (deadline.isExpired()) {
+            return deadline.failed("search.embed");
+        }
+        // 同一用户相同查询与数量的并发检索共享一次执行，每个调用方仍受自己的截止时间约束
+        // identical concurrent searches of one user run once; every caller is still bound by its own deadline
+        return deadline.bound(searches.execute(userId, SingleFlight.key(query, limit),
+            () -> runSearch(query, userId, limit, deadline, queryEmbedding)), "search");
+    }
+    
+    private CompletableFuture<List<EnhancedMemory>> runSearch(String query, String userId, int limit,
+                                                              Deadline deadline, List<Float> precomputedEmbedding) {
+        CompletableFuture<List<Float>> embedding = precomputedEmbedding != null
+            ? CompletableFuture.completedFuture(precomputedEmbedding)
+            : Deadline.callWith(deadline, () -> embeddingProvider.embed(query));
+        return deadline.bound(embedding
             .thenCompose(queryEmbedding -> {
+                deadline.check("search.vector");
                 Map<String, Object> filter = new HashMap<>();
                 filter.put("userId", userId);
                 
                 return vectorStore.search(defaultCollectionName, queryEmbedding, limit, filter);
             })
             .thenCompose(searchResults -> {
-                List<CompletableFuture<EnhancedMemory>> memoryFutures = ((List<VectorStore.VectorSearchResult>) searchResults).stream()
-                    .map(result -> {
-                        String memoryId = result.getId();
-                        return getEnhancedMemory(memoryId)
-                            .thenApply(memory -> {
-                                if (memory != null) {
-                                    memory.setRelevanceScore(result.getScore());
-                                }
-                                return memory;
-                            });
-                    })
-                    .collect(Collectors.toList());
+                deadline.check("search.load");
+                Map<String, Double> scores = new LinkedHashMap<>();
+                for (VectorStore.VectorSearchResult result : searchResults) {
+                    scores.merge(result.getId(), (double) result.getScore(), Math::max);
+                }
                 
-                return CompletableFuture.allOf(memoryFutures.toArray(new CompletableFuture[0]))
-                    .thenApply(ignored -> memoryFutures.stream()
-                        .map(CompletableFuture::join)
-                        .filter(Objects::nonNull)
-                        .sorted((m1, m2) -> Double.compare(m2.getRelevanceScore(), m1.getRelevanceScore()))
-                        .collect(Collectors.toList()));
-            });
+                return getEnhancedMemories(scores.keySet())
+                    .thenApply(memories -> {
+                        for (EnhancedMemory memory : memories) {
+                            memory.setRelevanceScore(scores.get(memory.getId()));
+                        }
+                        memories.sort((m1, m2) -> Double.compare(m2.getRelevanceScore(), m1.getRelevanceScore()));
+                        return memories;
+                    });
+            }), "search");
     }
     
     public CompletableFuture<EnhancedMemory> updateEnhancedMemory(String memoryId, String newContent,
@@ -266,38 +426,63 @@ public class EnhancedMemoryService implements AutoCloseable {
                     return CompletableFuture.completedFuture(null);
                 }
                 
-                return mergeStrategy.updateMemory(existingMemory, newContent, updateContext)
-                    .thenCompose(updatedMemory -> {
-                        // Re-evaluate importance after update
-                        return importanceScorer.updateMemoryImportance(updatedMemory)
-                            .thenCompose(ignored -> {
-                                // Update storage
-                                return updateMemoryInStorage(updatedMemory)
-                                    .thenApply(voidResult -> updatedMemory);
-                            });
-                    });
+                return userWrites.submit(existingMemory.getUserId(), () ->
+                    mergeStrategy.updateMemory(existingMemory, newContent, updateContext)
+                        .thenCompose(updatedMemory -> {
+                            // Re-evaluate importance after update
+                            return importanceScorer.updateMemoryImportance(updatedMemory)
+                                .thenCompose(ignored -> {
+                                    // Update storage
+                                    return updateMemoryInStorage(updatedMemory)
+                                        .thenApply(voidResult -> updatedMemory);
+                                });
+                        }));
             });
     }
     
     public CompletableFuture<Void> deleteEnhancedMemory(String memoryId) {
+        // 与该用户的新增、合并走同一条通道；找不到所属用户时仍清理两个存储
+        // shares the owner's lane with its adds and merges; without a known owner both stores are still cleared
+        EnhancedMemory cached = memoryCache.get(memoryId);
+        CompletableFuture<EnhancedMemory> owner = cached != null
+            ? CompletableFuture.completedFuture(cached) : loadMemoryFromStorage(memoryId);
+        return owner.thenCompose(memory -> {
+            if (memory == null) {
+                return deleteMemoryInStorage(memoryId, null);
+            }
+            String userId = memory.getUserId();
+            return userWrites.submit(userId, () -> deleteMemoryInStorage(memoryId, userId));
+        });
+    }
+    
+    /**
+     * 直接删除，调用方已持有该用户的写通道 / Delete directly; the caller already holds the user's write lane.
+     */
+    private CompletableFuture<Void> deleteMemoryInStorage(String memoryId, String userId) {
         return CompletableFuture.allOf(
             vectorStore.delete(defaultCollectionName, memoryId),
             graphStore.deleteNode(memoryId)
         ).thenRun(() -> {
             memoryCache.remove(memoryId);
+            statistics.remove(memoryId);
+            invalidateSearches(userId);
             logger.debug("Deleted enhanced memory: {}", memoryId);
         });
     }
     
     public CompletableFuture<Void> deleteAllEnhancedMemories(String userId) {
-        return getAllEnhancedMemories(userId, null)
-            .thenCompose(memories -> {
-                List<CompletableFuture<Void>> deleteFutures = memories.stream()
-                    .map(memory -> deleteEnhancedMemory(memory.getId()))
+        // 只读取节点页上的ID，不加载记忆内容；键集令牌不受本页删除影响
+        // only the ids on each node page are read, never the memories; keyset tokens survive the deletes
+        Map<String, Object> filter = memoryFilter(userId, null);
+        return userWrites.submit(userId, () -> Page.forEach(
+            token -> graphStore.getNodesByLabelPage("EnhancedMemory", filter, token, MemoryConstants.DEFAULT_PAGE_SIZE),
+            nodes -> {
+                List<CompletableFuture<Void>> deleteFutures = memoryIdsOf(nodes).stream()
+                    .map(memoryId -> deleteMemoryInStorage(memoryId, userId))
                     .collect(Collectors.toList());
                 
                 return CompletableFuture.allOf(deleteFutures.toArray(new CompletableFuture[0]));
-            });
+            }));
     }
     
     // ================== Advanced Memory Management ==================
@@ -324,7 +509,7 @@ public class EnhancedMemoryService implements AutoCloseable {
     }
     
     public CompletableFuture<List<EnhancedMemory>> consolidateMemories(String userId, double similarityThreshold) {
-        return getAllEnhancedMemories(userId, null)
+        return userWrites.submit(userId, () -> getAllEnhancedMemories(userId, null)
             .thenCompose(memories -> mergeStrategy.consolidateMemories(memories, similarityThreshold))
             .thenCompose(consolidatedMemories -> {
                 // Update storage for consolidated memories
@@ -334,22 +519,23 @@ public class EnhancedMemoryService implements AutoCloseable {
                 
                 return CompletableFuture.allOf(updateFutures.toArray(new CompletableFuture[0]))
                     .thenApply(ignored -> consolidatedMemories);
-            });
+            }));
     }
     
     public CompletableFuture<Void> updateAllImportanceScores(String userId) {
-        return getAllEnhancedMemories(userId, null)
+        return userWrites.submit(userId, () -> getAllEnhancedMemories(userId, null)
             .thenCompose(memories -> {
                 List<CompletableFuture<Void>> updateFutures = memories.stream()
-                    .map(importanceScorer::updateMemoryImportance)
+                    .map(memory -> importanceScorer.updateMemoryImportance(memory)
+                        .thenRun(() -> statistics.record(memory)))
                     .collect(Collectors.toList());
                 
                 return CompletableFuture.allOf(updateFutures.toArray(new CompletableFuture[0]));
-            });
+            }));
     }
     
     public CompletableFuture<Integer> processMemoryDecay(String userId) {
-        return getAllEnhancedMemories(userId, null)
+        return userWrites.submit(userId, () -> getAllEnhancedMemories(userId, null)
             .thenCompose(memories -> forgettingManager.processMemoryDecay(memories))
             .thenCompose(survivingMemories -> {
                 int forgottenCount = 0;
@@ -359,7 +545,7 @@ public class EnhancedMemoryService implements AutoCloseable {
                 
                 for (EnhancedMemory memory : survivingMemories) {
                     if (memory.isDeprecated()) {
-                        updateFutures.add(deleteEnhancedMemory(memory.getId()));
+                        updateFutures.add(deleteMemoryInStorage(memory.getId(), userId));
                         forgottenCount++;
                     } else {
                         updateFutures.add(updateMemoryInStorage(memory));
@@ -369,12 +555,12 @@ public class EnhancedMemoryService implements AutoCloseable {
                 final int finalForgottenCount = forgottenCount;
                 return CompletableFuture.allOf(updateFutures.toArray(new CompletableFuture[0]))
                     .thenApply(ignored -> finalForgottenCount);
-            });
+            }));
     }
     
     public CompletableFuture<Integer> pruneMemories(String userId, int maxMemories, 
                                                    MemoryForgettingManager.PruningStrategy strategy) {
-        return getAllEnhancedMemories(userId, null)
+        return userWrites.submit(userId, () -> getAllEnhancedMemories(userId, null)
             .thenCompose(memories -> {
                 if (memories.size() <= maxMemories) {
                     return CompletableFuture.completedFuture(0);
@@ -389,7 +575,7 @@ public class EnhancedMemoryService implements AutoCloseable {
                         
                         List<CompletableFuture<Void>> deleteFutures = memories.stream()
                             .filter(memory -> !keptIds.contains(memory.getId()))
-                            .map(memory -> deleteEnhancedMemory(memory.getId()))
+                            .map(memory -> deleteMemoryInStorage(memory.getId(), userId))
                             .collect(Collectors.toList());
                         
                         int prunedCount = deleteFutures.size();
@@ -397,16 +583,54 @@ public class EnhancedMemoryService implements AutoCloseable {
                         return CompletableFuture.allOf(deleteFutures.toArray(new CompletableFuture[0]))
                             .thenApply(ignored -> prunedCount);
                     });
-            });
+            }));
     }
     
     public CompletableFuture<String> queryWithRAG(String query, String userId, int maxMemories, 
                                                  String systemMessage) {
-        return searchEnhancedMemories(query, userId, maxMemories)
+        return queryWithRAG(query, userId, maxMemories, systemMessage, Deadline.none());
+    }
+    
+    /**
+     * 在截止时间内执行RAG查询，检索与生成共用同一预算
+     * Run a RAG query within a deadline; retrieval and generation share one budget.
+     */
+    public CompletableFuture<String> queryWithRAG(String query, String userId, int maxMemories,
+                                                 String systemMessage, Deadline deadline) {
+        SemanticAnswerCache cache = answerCache;
+        if (cache == null) {
+            return generateWithRAG(query, userId, maxMemories, systemMessage, deadline, null);
+        }
+        
+        // 先取用户的记忆版本再嵌入查询，生成期间发生的写入会使这次的答案不被缓存；
+        // 查询嵌入同时用于查找答案缓存和未命中时的检索
+        // read the memory version before embedding so a write during generation keeps the answer out of
+        // the cache; the query embedding serves both the answer lookup and, on a miss, the retrieval
+        long version = cache.version(userId);
+        Object variant = Arrays.asList(maxMemories, systemMessage);
+        return deadline.bound(Deadline.callWith(deadline, () -> embeddingProvider.embed(query))
+            .thenCompose(queryEmbedding -> {
+                String cached = cache.get(userId, queryEmbedding, variant);
+                if (cached != null) {
+                    return CompletableFuture.completedFuture(cached);
+                }
+                return generateWithRAG(query, userId, maxMemories, systemMessage, deadline, queryEmbedding)
+                    .thenApply(answer -> {
+                        cache.put(userId, version, queryEmbedding, variant, answer);
+                        return answer;
+                    });
+            }), "rag");
+    }
+    
+    private CompletableFuture<String> generateWithRAG(String query, String userId, int maxMemories,
+                                                      String systemMessage, Deadline deadline,
+                                                      List<Float> queryEmbedding) {
+        return deadline.bound(searchWithGraphRerank(query, userId, maxMemories, deadline, queryEmbedding)
             .thenCompose(memories -> {
+                deadline.check("rag.generate");
                 if (memories.isEmpty()) {
                     // No memories found, generate response without context
-                    return generateStandaloneResponse(query, systemMessage);
+                    return Deadline.callWith(deadline, () -> generateStandaloneResponse(query, systemMessage));
                 }
                 
                 // Build prompt context
@@ -431,19 +655,212 @@ public class EnhancedMemoryService implements AutoCloseable {
                 llmConfig.setMaxTokens(MemoryConstants.DEFAULT_LLM_MAX_TOKENS);
                 llmConfig.setTemperature(MemoryConstants.DEFAULT_LLM_TEMPERATURE);
                 
-                return llmProvider.generateChatCompletion(messages, llmConfig)
+                return Deadline.callWith(deadline, () -> llmProvider.generateChatCompletion(messages, llmConfig))
                     .thenApply(response -> {
                         // Record access for retrieved memories
                         memories.forEach(memory -> {
-                            memory.recordAccess();
+                            recordAccess(memory);
                             updateCache(memory);
                         });
                         
                         return response.getContent();
                     });
+            }), "rag");
+    }
+    
+    /**
+     * 图感知检索：以向量检索命中为种子在内存关系图上运行个性化PageRank，并与向量相似度融合排序
+     * Graph-aware retrieval: seed personalised PageRank over the memory graph with the vector hits
+     * and fuse both signals into one ranking.
+     * 
+     * <p>融合分数为 {@code (1 - w) * sim / maxSim + w * ppr / maxPpr}，仅由图传播到达的内存相似度记为0，
+     * 因此只有与多个强命中紧密相连的内存才能挤掉弱命中。图存储不支持PageRank、图为空或计算失败时
+     * 返回原始向量排序。PageRank的代价由 {@link GraphStore.PageRankOptions} 的精度和时间预算限定。</p>
+     * 
+     * <p>The fused score is {@code (1 - w) * sim / maxSim + w * ppr / maxPpr}; memories reached only
+     * through the graph count as similarity 0, so they displace weak hits only when tightly linked to
+     * strong ones. Falls back to the plain vector ranking when the graph store has no PageRank
+     * support, the graph is empty or the computation fails. PageRank cost is capped by the precision
+     * and time budget in {@link GraphStore.PageRankOptions}.</p>
+     */
+    public CompletableFuture<List<EnhancedMemory>> searchWithGraphRerank(String query, String userId, int limit) {
+        return searchWithGraphRerank(query, userId, limit, Deadline.none());
+    }
+    
+    /**
+     * 在截止时间内执行图感知检索；预算在重排前用完时失败，不返回未重排的结果
+     */
+    public CompletableFuture<List<EnhancedMemory>> searchWithGraphRerank(String query, String userId, int limit,
+                                                                        Deadline deadline) {
+        return searchWithGraphRerank(query, userId, limit, deadline, null);
+    }
+    
+    private CompletableFuture<List<EnhancedMemory>> searchWithGraphRerank(String query, String userId, int limit,
+                                                                         Deadline deadline,
+                                                                         List<Float> queryEmbedding) {
+        return searchEnhancedMemories(query, userId, limit, deadline, queryEmbedding)
+            .thenCompose(hits -> {
+                deadline.check("search.rerank");
+                return rerankWithGraph(hits, userId, limit);
+            });
+    }
+    
+    /**
+     * 配置图感知重排；options为null时关闭 / Configure graph-aware re-ranking; null options disable it.
+     * 
+     * @param options PageRank参数 / PageRank parameters
+     * @param graphWeight 图信号在融合分数中的权重，取值[0, 1] / weight of the graph signal in [0, 1]
+     */
+    public void configureGraphRerank(GraphStore.PageRankOptions options, double graphWeight) {
+        if (graphWeight < 0.0 || graphWeight > 1.0) {
+            throw new IllegalArgumentException("graph weight must be in [0, 1]: " + graphWeight);
+        }
+        this.graphRerankOptions = options;
+        this.graphRerankWeight = graphWeight;
+    }
+    
+    /**
+     * 配置检索结果备忘：相同检索在ttlMs内直接返回上次结果，该用户的写入立即使其失效；不大于0时只合并进行中的检索
+     * Configure the search result memo: an identical search within ttlMs returns the previous result, and
+     * any write of that user invalidates it at once; when not positive only in-flight searches are merged.
+     */
+    public void configureSearchMemo(long ttlMs) {
+        this.searches = newSearchFlight(ttlMs);
+    }
+    
+    /**
+     * 检索合并统计 / Search deduplication statistics
+     */
+    public SingleFlight.Stats getSearchDedupStats() {
+        return searches.getStats();
+    }
+    
+    /**
+     * 配置语义RAG答案缓存：与某个已回答查询的嵌入余弦相似度不低于threshold、且记忆数与系统消息相同的查询
+     * 在ttlMs内直接返回已有答案，该用户的任何记忆写入立即使其全部失效；ttlMs不大于0时关闭。
+     * 命中时不检索记忆，也不记录记忆访问。
+     * Configure the semantic RAG answer cache: a query whose embedding has cosine similarity at or above
+     * threshold with an answered query, with the same memory count and system message, gets that answer
+     * within ttlMs, and any memory write of the user drops all of them at once; not positive disables it.
+     * A hit retrieves no memories and records no memory access.
+     */
+    public void configureAnswerCache(long ttlMs, double similarityThreshold) {
+        this.answerCache = newAnswerCache(ttlMs, similarityThreshold);
+    }
+    
+    /**
+     * 答案缓存统计，缓存关闭时返回null / Answer cache statistics; null while the cache is disabled
+     */
+    public SemanticAnswerCache.Stats getAnswerCacheStats() {
+        SemanticAnswerCache cache = answerCache;
+        return cache != null ? cache.getStats() : null;
+    }
+    
+    private static SemanticAnswerCache newAnswerCache(long ttlMs, double similarityThreshold) {
+        return ttlMs > 0 ? new SemanticAnswerCache(ttlMs, similarityThreshold,
+            MemoryConstants.DEFAULT_ANSWER_CACHE_MAX_USERS, MemoryConstants.DEFAULT_ANSWER_CACHE_MAX_ENTRIES_PER_USER)
+            : null;
+    }
+    
+    private static SingleFlight<List<EnhancedMemory>> newSearchFlight(long memoTtlMs) {
+        return new SingleFlight<>("enhanced-search", memoTtlMs, MemoryConstants.DEFAULT_SEARCH_MEMO_MAX_ENTRIES,
+            ArrayList::new);
+    }
+    
+    /**
+     * 用户的记忆变更后调用，之后的检索与RAG不再复用变更前开始的检索、备忘或答案；用户未知时使全部失效
+     */
+    private void invalidateSearches(String userId) {
+        SemanticAnswerCache cache = answerCache;
+        if (userId != null) {
+            searches.invalidate(userId);
+            if (cache != null) {
+                cache.invalidate(userId);
+            }
+        } else {
+            searches.invalidateAll();
+            if (cache != null) {
+                cache.invalidateAll();
+            }
+        }
+    }
+    
+    private CompletableFuture<List<EnhancedMemory>> rerankWithGraph(List<EnhancedMemory> hits, String userId, int limit) {
+        GraphStore.PageRankOptions options = graphRerankOptions;
+        if (options == null || hits.isEmpty()) {
+            return CompletableFuture.completedFuture(hits);
+        }
+        
+        Map<String, Double> seeds = new HashMap<>();
+        Set<String> hitIds = new HashSet<>();
+        for (EnhancedMemory hit : hits) {
+            // 非正相似度的命中仍以很小的权重参与传播
+            seeds.merge(hit.getId(), Math.max(hit.getRelevanceScore(), 1e-3), Double::sum);
+            hitIds.add(hit.getId());
+        }
+        
+        return graphStore.personalizedPageRank(seeds, options)
+            .exceptionally(e -> {
+                logger.warn("Graph re-ranking skipped: {}", e.getMessage());
+                return Collections.emptyMap();
+            })
+            .thenCompose(ranks -> {
+                if (ranks.isEmpty()) {
+                    return CompletableFuture.completedFuture(hits);
+                }
+                
+                List<String> expansionIds = ranks.entrySet().stream()
+                    .filter(entry -> !hitIds.contains(entry.getKey()))
+                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+                
+                return getEnhancedMemories(expansionIds)
+                    .exceptionally(e -> {
+                        logger.warn("Failed to load graph expansions: {}", e.getMessage());
+                        return Collections.emptyList();
+                    })
+                    .thenApply(loaded -> {
+                        List<EnhancedMemory> expanded = loaded.stream()
+                            .filter(memory -> userId.equals(memory.getUserId()) && !memory.isDeprecated())
+                            .collect(Collectors.toList());
+                        return fuseRankings(hits, expanded, ranks, limit);
+                    });
             });
     }
     
+    private List<EnhancedMemory> fuseRankings(List<EnhancedMemory> hits, List<EnhancedMemory> expanded,
+                                              Map<String, Double> ranks, int limit) {
+        double weight = graphRerankWeight;
+        double maxSimilarity = 0.0;
+        for (EnhancedMemory hit : hits) {
+            maxSimilarity = Math.max(maxSimilarity, hit.getRelevanceScore());
+        }
+        double maxRank = 0.0;
+        for (double rank : ranks.values()) {
+            maxRank = Math.max(maxRank, rank);
+        }
+        
+        Map<String, Double> fused = new HashMap<>();
+        for (EnhancedMemory hit : hits) {
+            double similarity = maxSimilarity > 0 ? Math.max(hit.getRelevanceScore(), 0.0) / maxSimilarity : 0.0;
+            double rank = maxRank > 0 ? ranks.getOrDefault(hit.getId(), 0.0) / maxRank : 0.0;
+            fused.put(hit.getId(), (1.0 - weight) * similarity + weight * rank);
+        }
+        for (EnhancedMemory memory : expanded) {
+            double score = maxRank > 0 ? weight * ranks.getOrDefault(memory.getId(), 0.0) / maxRank : 0.0;
+            memory.setRelevanceScore(score);
+            fused.put(memory.getId(), score);
+        }
+        
+        List<EnhancedMemory> ranked = new ArrayList<>(hits.size() + expanded.size());
+        ranked.addAll(hits);
+        ranked.addAll(expanded);
+        ranked.sort((m1, m2) -> Double.compare(fused.get(m2.getId()), fused.get(m1.getId())));
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+    
     public CompletableFuture<String> createMemoryRelationship(String sourceMemoryId, String targetMemoryId,
                                                              String relationshipType, 
                                                              Map<String, Object> properties) {
@@ -488,83 +905,96 @@ public class EnhancedMemoryService implements AutoCloseable {
                     return CompletableFuture.completedFuture(Collections.emptyList());
                 }
                 
-                List<CompletableFuture<EnhancedMemory>> memoryFutures = nodes.stream()
-                    .map(node -> {
-                        if (node == null) {
-                            logger.warn("Node is null in connected nodes for memory: {}", memoryId);
-                            return CompletableFuture.<EnhancedMemory>completedFuture(null);
-                        }
-                        if (node.getId() == null) {
-                            logger.warn("Node ID is null in connected nodes for memory: {}", memoryId);
-                            return CompletableFuture.<EnhancedMemory>completedFuture(null);
-                        }
-                        if (node.getProperties() == null) {
-                            logger.warn("Node properties is null for related node: {}", node.getId());
-                            return CompletableFuture.<EnhancedMemory>completedFuture(null);
-                        }
-                        String relatedMemoryId = (String) node.getProperties().get("id");
-                        if (relatedMemoryId == null) {
-                            logger.warn("Related memory ID is null for node: {}", node.getId());
-                            return CompletableFuture.<EnhancedMemory>completedFuture(null);
-                        }
-                        return getEnhancedMemory(relatedMemoryId);
-                    })
-                    .collect(Collectors.toList());
+                List<String> relatedMemoryIds = new ArrayList<>(nodes.size());
+                for (GraphStore.GraphNode node : nodes) {
+                    if (node == null) {
+                        logger.warn("Node is null in connected nodes for memory: {}", memoryId);
+                        continue;
+                    }
+                    if (node.getId() == null) {
+                        logger.warn("Node ID is null in connected nodes for memory: {}", memoryId);
+                        continue;
+                    }
+                    if (node.getProperties() == null) {
+                        logger.warn("Node properties is null for related node: {}", node.getId());
+                        continue;
+                    }
+                    String relatedMemoryId = (String) node.getProperties().get("id");
+                    if (relatedMemoryId == null) {
+                        logger.warn("Related memory ID is null for node: {}", node.getId());
+                        continue;
+                    }
+                    relatedMemoryIds.add(relatedMemoryId);
+                }
                 
-                return CompletableFuture.allOf(memoryFutures.toArray(new CompletableFuture[0]))
-                    .thenApply(ignored -> memoryFutures.stream()
-                        .map(future -> {
-                            try {
-                                return future.join();
-                            } catch (Exception e) {
-                                logger.warn("Failed to get enhanced memory: {}", e.getMessage());
-                                return null;
-                            }
-                        })
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList()));
+                return getEnhancedMemories(relatedMemoryIds)
+                    .exceptionally(e -> {
+                        logger.warn("Failed to get enhanced memories: {}", e.getMessage());
+                        return Collections.emptyList();
+                    });
             });
     }
     
+    /**
+     * 获取用户的记忆统计 / Get a user's memory statistics.
+     * 
+     * <p>统计随新增、更新、访问与删除增量维护，读取为O(1)且不访问存储。每个用户只在首次读取时
+     * 扫描一次存储，登记本进程启动前已存在的记忆；扫描按页读取且不记录访问。</p>
+     * 
+     * <p>Statistics are maintained incrementally on add, update, access and delete, so reading them is
+     * O(1) with no store I/O. Each user is scanned once, on the first read, to register memories that
+     * existed before this process started; the scan reads page by page and records no accesses.</p>
+     */
     public CompletableFuture<Mem0.MemoryStatistics> getMemoryStatistics(String userId) {
-        return getAllEnhancedMemories(userId, null)
-            .thenApply(memories -> {
-                if (memories.isEmpty()) {
-                    return new Mem0.MemoryStatistics(0, new HashMap<>(), new HashMap<>(), 0, 0, 0.0, 0.0);
+        if (statistics.isSeeded(userId)) {
+            return CompletableFuture.completedFuture(statistics.snapshot(userId));
+        }
+        return seedStatistics(userId).thenApply(ignored -> statistics.snapshot(userId));
+    }
+    
+    private CompletableFuture<Void> seedStatistics(String userId) {
+        statistics.beginSeed();
+        Map<String, Object> filter = memoryFilter(userId, null);
+        return Page.forEach(
+            token -> graphStore.getNodesByLabelPage("EnhancedMemory", filter, token, MemoryConstants.DEFAULT_PAGE_SIZE),
+            nodes -> {
+                List<String> misses = new ArrayList<>();
+                for (String memoryId : memoryIdsOf(nodes)) {
+                    EnhancedMemory cached = memoryCache.get(memoryId);
+                    if (cached != null) {
+                        statistics.recordIfAbsent(cached);
+                    } else {
+                        misses.add(memoryId);
+                    }
                 }
-                
-                // Calculate statistics
-                Map<MemoryType, Integer> typeCount = new HashMap<>();
-                Map<MemoryImportance, Integer> importanceCount = new HashMap<>();
-                int consolidatedCount = 0;
-                int deprecatedCount = 0;
-                double totalAge = 0.0;
-                double totalAccess = 0.0;
-                
-                for (EnhancedMemory memory : memories) {
-                    typeCount.merge(memory.getType(), 1, Integer::sum);
-                    importanceCount.merge(memory.getImportance(), 1, Integer::sum);
-                    
-                    if (memory.isConsolidated()) consolidatedCount++;
-                    if (memory.isDeprecated()) deprecatedCount++;
-                    
-                    totalAge += memory.getDaysOld();
-                    totalAccess += memory.getAccessCount();
+                if (misses.isEmpty()) {
+                    return CompletableFuture.completedFuture(null);
                 }
-                
-                double avgAge = totalAge / memories.size();
-                double avgAccess = totalAccess / memories.size();
-                
-                return new Mem0.MemoryStatistics(
-                    memories.size(), typeCount, importanceCount,
-                    consolidatedCount, deprecatedCount, avgAge, avgAccess
-                );
-            });
+                return vectorStore.getBatch(defaultCollectionName, misses)
+                    .thenAccept(documents -> {
+                        for (String memoryId : misses) {
+                            EnhancedMemory memory = toMemory(memoryId, documents.get(memoryId));
+                            if (memory != null) {
+                                statistics.recordIfAbsent(memory);
+                            }
+                        }
+                    });
+            })
+            .whenComplete((ignored, error) -> statistics.endSeed(userId, error == null));
+    }
+    
+    /**
+     * 按用户有序写入的执行器，提供排队深度与拒绝数等指标 / Executor that orders writes per user;
+     * exposes queue depth and rejection metrics.
+     */
+    public KeyedExecutor getUserWriteExecutor() {
+        return userWrites;
     }
     
     @Override
     public void close() {
         logger.info("Closing EnhancedMemoryService");
+        userWrites.shutdown();
         
         try {
             if (embeddingProvider != null) {
@@ -651,26 +1081,27 @@ public class EnhancedMemoryService implements AutoCloseable {
     
     private CompletableFuture<EnhancedMemory> loadMemoryFromStorage(String memoryId) {
         return vectorStore.get(defaultCollectionName, memoryId)
-            .thenApply(document -> {
-                if (document == null) {
-                    logger.warn("Document is null for memory: {}", memoryId);
-                    return null;
-                }
-                
-                Map<String, Object> metadata = document.getMetadata();
-                if (metadata == null) {
-                    logger.warn("Document metadata is null for memory: {}", memoryId);
-                    return null;
-                }
-                
-                try {
-                    EnhancedMemory memory = reconstructMemoryFromMetadata(memoryId, metadata);
-                    return memory;
-                } catch (Exception e) {
-                    logger.error("Error reconstructing memory from metadata for memory: {}", memoryId, e);
-                    return null;
-                }
-            });
+            .thenApply(document -> toMemory(memoryId, document));
+    }
+    
+    private EnhancedMemory toMemory(String memoryId, VectorStore.VectorDocument document) {
+        if (document == null) {
+            logger.warn("Document is null for memory: {}", memoryId);
+            return null;
+        }
+        
+        Map<String, Object> metadata = document.getMetadata();
+        if (metadata == null) {
+            logger.warn("Document metadata is null for memory: {}", memoryId);
+            return null;
+        }
+        
+        try {
+            return reconstructMemoryFromMetadata(memoryId, metadata);
+        } catch (Exception e) {
+            logger.error("Error reconstructing memory from metadata for memory: {}", memoryId, e);
+            return null;
+        }
     }
     
     private EnhancedMemory reconstructMemoryFromMetadata(String memoryId, Map<String, Object> metadata) {
@@ -752,7 +1183,16 @@ public class EnhancedMemoryService implements AutoCloseable {
         CompletableFuture<Void> graphUpdate = graphStore.updateNode(memory.getId(), createNodeProperties(memory));
         
         return CompletableFuture.allOf(vectorUpdate, graphUpdate)
-            .thenRun(() -> updateCache(memory));
+            .thenRun(() -> {
+                updateCache(memory);
+                statistics.record(memory);
+                invalidateSearches(memory.getUserId());
+            });
+    }
+    
+    private void recordAccess(EnhancedMemory memory) {
+        memory.recordAccess();
+        statistics.record(memory);
     }
     
     private void updateCache(EnhancedMemory memory) {
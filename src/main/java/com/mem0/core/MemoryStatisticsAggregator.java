@@ -0,0 +1,227 @@
+package com.mem0.core;
+
+import com.mem0.Mem0;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按用户增量维护的记忆统计 / Incrementally Maintained Per-User Memory Statistics
+ *
+ * <p>每条记忆登记一份不可变的贡献快照（类型、重要性、整合/废弃标记、创建时间、访问次数），
+ * 用户聚合值由各快照累加而成。记录新状态时先替换快照再扣除旧快照、加入新快照，删除时扣除
+ * 旧快照，因此新增、更新、访问与删除都只做常数次计数器操作，读取统计不需要任何存储I/O。
+ * 计数器使用 {@link LongAdder}，高并发写入分散在多个单元上，不会争用同一个变量。</p>
+ *
+ * <p>Every memory registers an immutable contribution snapshot (type, importance, consolidated and
+ * deprecated flags, creation time, access count) and the per-user aggregates are the sum of those
+ * snapshots. Recording a new state swaps the snapshot, then subtracts the old one and adds the new
+ * one; removal subtracts the old one. Adds, updates, accesses and deletes therefore cost a constant
+ * number of counter operations and reading the statistics needs no store I/O. Counters are
+ * {@link LongAdder}s, so concurrent writers are spread over cells instead of contending on one
+ * variable.</p>
+ *
+ * <p>平均年龄由创建时间之和推算，以小数天表示。进程启动前已存在的记忆通过一次播种扫描登记，
+ * 播种期间的删除记为墓碑以免被扫描结果重新加入。统计快照在并发写入下是弱一致的。</p>
+ *
+ * <p>Average age is derived from the sum of creation times and reported in fractional days. Memories
+ * that existed before the process started are registered by a one-off seeding scan; deletes during a
+ * seed are tombstoned so the scan cannot re-add them. Snapshots are weakly consistent under
+ * concurrent writes.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class MemoryStatisticsAggregator {
+
+    private static final double SECONDS_PER_DAY = 86_400.0;
+
+    private final Map<String, Contribution> contributions = new ConcurrentHashMap<>();
+    private final Map<String, UserAggregate> users = new ConcurrentHashMap<>();
+    private final Set<String> tombstones = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger seedsInProgress = new AtomicInteger();
+
+    /**
+     * 登记记忆的当前状态，替换之前登记的状态 / Record the current state of a memory, replacing the
+     * state recorded before.
+     */
+    public void record(EnhancedMemory memory) {
+        Contribution current = Contribution.of(memory);
+        if (current == null) {
+            return;
+        }
+        Contribution previous = contributions.put(memory.getId(), current);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(current, 1);
+    }
+
+    /**
+     * 播种时登记：已登记或在播种期间被删除的记忆不受影响
+     * Record while seeding: memories already recorded or deleted during the seed are left alone.
+     *
+     * @return 是否登记了该记忆 / whether the memory was recorded
+     */
+    public boolean recordIfAbsent(EnhancedMemory memory) {
+        Contribution current = Contribution.of(memory);
+        if (current == null) {
+            return false;
+        }
+        // 墓碑检查与登记在同一个键的compute中完成，与remove()互斥
+        // The tombstone check and the insert share the key's compute, so remove() cannot slip between them
+        boolean[] recorded = new boolean[1];
+        contributions.compute(memory.getId(), (id, existing) -> {
+            if (existing != null || tombstones.contains(id)) {
+                return existing;
+            }
+            recorded[0] = true;
+            return current;
+        });
+        if (recorded[0]) {
+            apply(current, 1);
+        }
+        return recorded[0];
+    }
+
+    public void remove(String memoryId) {
+        Contribution[] removed = new Contribution[1];
+        contributions.compute(memoryId, (id, existing) -> {
+            if (seedsInProgress.get() > 0) {
+                tombstones.add(id);
+            }
+            removed[0] = existing;
+            return null;
+        });
+        if (removed[0] != null) {
+            apply(removed[0], -1);
+        }
+    }
+
+    /**
+     * 用户的统计是否已完整（已播种） / Whether the user's statistics are complete (seeded).
+     */
+    public boolean isSeeded(String userId) {
+        UserAggregate aggregate = users.get(userId);
+        return aggregate != null && aggregate.seeded;
+    }
+
+    public void beginSeed() {
+        seedsInProgress.incrementAndGet();
+    }
+
+    /**
+     * @param userId    播种的用户 / user being seeded
+     * @param completed 扫描是否完整完成；失败时下次读取重新播种 / whether the scan completed; a failed
+     *                  seed is retried on the next read
+     */
+    public void endSeed(String userId, boolean completed) {
+        if (completed) {
+            users.computeIfAbsent(userId, k -> new UserAggregate()).seeded = true;
+        }
+        if (seedsInProgress.decrementAndGet() == 0) {
+            tombstones.clear();
+        }
+    }
+
+    public Mem0.MemoryStatistics snapshot(String userId) {
+        UserAggregate aggregate = users.get(userId);
+        long total = aggregate != null ? aggregate.total.sum() : 0;
+        if (total <= 0) {
+            return new Mem0.MemoryStatistics(0, new HashMap<>(), new HashMap<>(), 0, 0, 0.0, 0.0);
+        }
+
+        Map<MemoryType, Integer> typeCount = new HashMap<>();
+        aggregate.types.forEach((type, count) -> putPositive(typeCount, type, count.sum()));
+        Map<MemoryImportance, Integer> importanceCount = new HashMap<>();
+        aggregate.importance.forEach((importance, count) -> putPositive(importanceCount, importance, count.sum()));
+
+        double ageSeconds = (double) epochSeconds(LocalDateTime.now()) * total - aggregate.createdAtSeconds.sum();
+        return new Mem0.MemoryStatistics(
+            (int) total, typeCount, importanceCount,
+            (int) aggregate.consolidated.sum(), (int) aggregate.deprecated.sum(),
+            Math.max(0.0, ageSeconds / total / SECONDS_PER_DAY),
+            (double) aggregate.accessCount.sum() / total
+        );
+    }
+
+    public void clear() {
+        contributions.clear();
+        users.clear();
+        tombstones.clear();
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        UserAggregate aggregate = users.computeIfAbsent(contribution.userId, k -> new UserAggregate());
+        aggregate.total.add(sign);
+        if (contribution.type != null) {
+            aggregate.types.computeIfAbsent(contribution.type, k -> new LongAdder()).add(sign);
+        }
+        if (contribution.importance != null) {
+            aggregate.importance.computeIfAbsent(contribution.importance, k -> new LongAdder()).add(sign);
+        }
+        if (contribution.consolidated) {
+            aggregate.consolidated.add(sign);
+        }
+        if (contribution.deprecated) {
+            aggregate.deprecated.add(sign);
+        }
+        aggregate.createdAtSeconds.add(sign * contribution.createdAtSeconds);
+        aggregate.accessCount.add(sign * contribution.accessCount);
+    }
+
+    private static <K> void putPositive(Map<K, Integer> counts, K key, long count) {
+        if (count > 0) {
+            counts.put(key, (int) count);
+        }
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        // getDaysOld同样按本地时间计算差值，偏移量取任意固定值即可 / getDaysOld also diffs local times
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Contribution {
+        final String userId;
+        final MemoryType type;
+        final MemoryImportance importance;
+        final boolean consolidated;
+        final boolean deprecated;
+        final long createdAtSeconds;
+        final long accessCount;
+
+        private Contribution(EnhancedMemory memory) {
+            this.userId = memory.getUserId();
+            this.type = memory.getType();
+            this.importance = memory.getImportance();
+            this.consolidated = memory.isConsolidated();
+            this.deprecated = memory.isDeprecated();
+            LocalDateTime createdAt = memory.getCreatedAt();
+            this.createdAtSeconds = epochSeconds(createdAt != null ? createdAt : LocalDateTime.now());
+            this.accessCount = memory.getAccessCount();
+        }
+
+        static Contribution of(EnhancedMemory memory) {
+            return memory != null && memory.getId() != null && memory.getUserId() != null
+                ? new Contribution(memory) : null;
+        }
+    }
+
+    private static final class UserAggregate {
+        final LongAdder total = new LongAdder();
+        final LongAdder consolidated = new LongAdder();
+        final LongAdder deprecated = new LongAdder();
+        final LongAdder createdAtSeconds = new LongAdder();
+        final LongAdder accessCount = new LongAdder();
+        final Map<MemoryType, LongAdder> types = new ConcurrentHashMap<>();
+        final Map<MemoryImportance, LongAdder> importance = new ConcurrentHashMap<>();
+        volatile boolean seeded;
+    }
+}
@@ -0,0 +1,247 @@
+package com.mem0.core;
+
+import com.mem0.concurrency.VersionedResultCache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语义RAG答案缓存 / Semantic RAG Answer Cache
+ *
+ * <p>按查询嵌入缓存RAG答案：新查询与某个已缓存查询的余弦相似度不低于阈值、且其余参数（记忆数、
+ * 系统消息）相同时，直接返回缓存的答案，跳过检索与LLM生成。每个用户有一个小型暴力索引，
+ * 保存归一化后的查询向量，查找是一次对最多数百个向量的点积扫描，耗时在亚毫秒级。</p>
+ *
+ * <p>Caches RAG answers by query embedding: when a new query has cosine similarity at or above the
+ * threshold with a cached query and the other parameters (memory count, system message) are equal, the
+ * cached answer is returned and retrieval and LLM generation are skipped. Each user has a small
+ * brute-force index of normalised query vectors, so a lookup is one dot-product scan over at most a few
+ * hundred vectors and takes well under a millisecond.</p>
+ *
+ * <p>索引绑定用户的记忆版本：调用方在开始RAG之前用 {@link #version(String)} 取得版本，生成答案后连同
+ * 版本一起 {@link #put}；用户的任何记忆写入都应调用 {@link #invalidate(String)}，之后该用户的缓存答案
+ * 全部失效，写入之前开始计算的答案也不会再进入缓存。答案另有存活时间，超过后不再返回。</p>
+ *
+ * <p>The index is bound to the user's memory version: callers read it with {@link #version(String)}
+ * before starting RAG and pass it back to {@link #put} with the answer. Every memory write of the user
+ * should call {@link #invalidate(String)}, after which none of the user's cached answers is served and
+ * answers computed before the write never enter the cache. Answers also expire after a time-to-live.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class SemanticAnswerCache {
+
+    // 索引只随用户写入或按最近访问淘汰而失效，答案各自按存活时间过期
+    private static final long INDEX_TTL_MS = TimeUnit.DAYS.toMillis(365);
+
+    private final double similarityThreshold;
+    private final int maxEntriesPerUser;
+    private final long ttlNanos;
+    private final VersionedResultCache<String, UserIndex> indexes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * @param ttlMs               答案存活时间 / answer time-to-live
+     * @param similarityThreshold 命中所需的最低余弦相似度，取值(0, 1] / minimum cosine similarity for a hit, in (0, 1]
+     * @param maxUsers            保留索引的用户数上限 / maximum users with an index
+     * @param maxEntriesPerUser   每个用户缓存的答案上限 / maximum cached answers per user
+     */
+    public SemanticAnswerCache(long ttlMs, double similarityThreshold, int maxUsers, int maxEntriesPerUser) {
+        if (similarityThreshold <= 0.0 || similarityThreshold > 1.0) {
+            throw new IllegalArgumentException("similarity threshold must be in (0, 1]: " + similarityThreshold);
+        }
+        if (maxEntriesPerUser <= 0) {
+            throw new IllegalArgumentException("maxEntriesPerUser must be positive: " + maxEntriesPerUser);
+        }
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntriesPerUser = maxEntriesPerUser;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        // 索引本身不复制，按用户版本失效
+        this.indexes = new VersionedResultCache<>("rag-answers", maxUsers, INDEX_TTL_MS, null);
+    }
+
+    /**
+     * 用户当前的记忆版本，在开始RAG之前读取 / The user's memory version, read before starting RAG
+     */
+    public long version(String userId) {
+        return indexes.version(userId);
+    }
+
+    /**
+     * 查找语义相近且参数相同的缓存答案，未命中返回null
+     * Find a cached answer for a similar query with equal parameters; null on a miss
+     *
+     * @param variant 影响答案的其余参数 / the other parameters the answer depends on
+     */
+    public String get(String userId, List<Float> queryEmbedding, Object variant) {
+        UserIndex index = indexes.get(userId, "");
+        float[] query = normalise(queryEmbedding);
+        String answer = index != null && query != null ? index.lookup(query, variant, similarityThreshold) : null;
+        if (answer != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return answer;
+    }
+
+    /**
+     * 缓存在给定版本下生成的答案；期间用户发生过写入时丢弃
+     * Cache an answer generated under the given version; dropped if the user wrote meanwhile
+     */
+    public void put(String userId, long version, List<Float> queryEmbedding, Object variant, String answer) {
+        float[] query = normalise(queryEmbedding);
+        if (answer == null || query == null || version != indexes.version(userId)) {
+            return;
+        }
+        // 并发未命中的调用方共享同一个索引，各自的答案都不会丢失
+        UserIndex index = indexes.computeIfAbsent(userId, "", version, () -> new UserIndex(maxEntriesPerUser));
+        if (index == null) {
+            return;
+        }
+        index.add(new Answer(query, variant, answer, System.nanoTime() + ttlNanos));
+        stores.increment();
+    }
+
+    /**
+     * 用户的记忆发生写入后调用 / Call after any memory write of the user
+     */
+    public void invalidate(String userId) {
+        indexes.invalidate(userId);
+    }
+
+    /**
+     * 写入的用户未知时调用 / Call when the written user is unknown
+     */
+    public void invalidateAll() {
+        indexes.invalidateAll();
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), stores.sum(), indexes.size());
+    }
+
+    private static float[] normalise(List<Float> embedding) {
+        if (embedding == null || embedding.isEmpty()) {
+            return null;
+        }
+        float[] vector = new float[embedding.size()];
+        double norm = 0.0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = embedding.get(i);
+            norm += vector[i] * vector[i];
+        }
+        if (norm == 0.0) {
+            return null;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    /**
+     * 单个用户的暴力索引：读取无锁地扫描不可变快照，写入在锁内复制后替换
+     */
+    private static final class UserIndex {
+        final int capacity;
+        volatile Answer[] answers = new Answer[0];
+
+        UserIndex(int capacity) {
+            this.capacity = capacity;
+        }
+
+        String lookup(float[] query, Object variant, double threshold) {
+            long now = System.nanoTime();
+            Answer best = null;
+            // 留出浮点舍入的余量，阈值为1时相同的查询仍能命中
+            double bestScore = threshold - 1e-6;
+            for (Answer answer : answers) {
+                if (answer.vector.length != query.length || now - answer.expiresAtNanos >= 0
+                    || !Objects.equals(answer.variant, variant)) {
+                    continue;
+                }
+                double score = 0.0;
+                for (int i = 0; i < query.length; i++) {
+                    score += answer.vector[i] * query[i];
+                }
+                if (score >= bestScore) {
+                    best = answer;
+                    bestScore = score;
+                }
+            }
+            return best != null ? best.answer : null;
+        }
+
+        synchronized void add(Answer answer) {
+            long now = System.nanoTime();
+            Answer[] current = answers;
+            Answer[] next = new Answer[Math.min(current.length + 1, capacity)];
+            // 新答案放在首位，其后保留未过期的旧答案，满时丢弃最早加入的
+            next[0] = answer;
+            int size = 1;
+            for (int i = 0; i < current.length && size < next.length; i++) {
+                if (now - current[i].expiresAtNanos < 0) {
+                    next[size++] = current[i];
+                }
+            }
+            answers = size == next.length ? next : Arrays.copyOf(next, size);
+        }
+    }
+
+    private static final class Answer {
+        final float[] vector;
+        final Object variant;
+        final String answer;
+        final long expiresAtNanos;
+
+        Answer(float[] vector, Object variant, String answer, long expiresAtNanos) {
+            this.vector = vector;
+            this.variant = variant;
+            this.answer = answer;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * 答案缓存统计 / Answer cache statistics
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long stores;
+        private final int users;
+
+        Stats(long hits, long misses, long stores, int users) {
+            this.hits = hits;
+            this.misses = misses;
+            this.stores = stores;
+            this.users = users;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getStores() { return stores; }
+        public int getUsers() { return users; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SemanticAnswerCache{hits=%d, misses=%d, hitRate=%.2f%%, stores=%d, users=%d}",
+                hits, misses, getHitRate() * 100, stores, users);
+        }
+    }
+}
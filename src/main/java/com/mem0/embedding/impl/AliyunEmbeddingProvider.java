@@ -1,6 +1,7 @@
 package com.mem0.embedding.impl;
 
 import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.performance.VirtualThreadSupport;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
@@ -172,7 +173,7 @@ public class AliyunEmbeddingProvider implements EmbeddingProvider {
                 logger.error("Failed to get embeddings from Aliyun API", e);
                 throw new CompletionException("Failed to get embeddings", e);
             }
-        });
+        }, VirtualThreadSupport.blockingIoExecutor());
     }
     
     private List<List<Float>> callEmbeddingAPI(List<String> texts) throws IOException {
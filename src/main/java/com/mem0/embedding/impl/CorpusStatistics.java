@@ -0,0 +1,283 @@
+package com.mem0.embedding.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁语料统计 / Lock-Free Corpus Statistics
+ *
+ * <p>维护文档频率（DF）并发布不可变的IDF快照。写入方对每个词条的计数单元做原子自增，
+ * 不同词条落在不同单元上互不竞争；文档总数使用 {@link LongAdder}。读取方只读取
+ * volatile快照引用，永远不加锁。</p>
+ *
+ * <p>Maintains document frequencies and publishes immutable IDF snapshots. Writers atomically
+ * increment one counter cell per term, so distinct terms never contend; the document total is a
+ * {@link LongAdder}. Readers only dereference a volatile snapshot and never lock.</p>
+ *
+ * <p>两种计数模式 / Two counting modes:</p>
+ * <ul>
+ *   <li>{@link #exact(int)}: 键直接映射到单元，键空间不超过宽度时是精确的（例如词典ID）
+ *       / keys map straight to cells, exact while keys stay within the width (e.g. dictionary IDs)</li>
+ *   <li>{@link #countMinSketch(int, int)}: 多行哈希取最小值，以有界内存近似任意规模词表
+ *       / several hashed rows with a min estimate, bounding memory for unbounded vocabularies</li>
+ * </ul>
+ *
+ * <p>累计的新文档达到已发布文档数的10%（且不少于最小刷新量）时，由写入线程之一重建快照；
+ * 也可调用 {@link #publish()} 立即发布。IDF采用平滑公式 {@code ln((1+N)/(1+df)) + 1}，
+ * 空语料时所有词条权重为1。</p>
+ *
+ * <p>A writer rebuilds the snapshot once new documents reach 10% of the published count (and at
+ * least the minimum refresh size); {@link #publish()} forces it. IDF uses the smoothed
+ * {@code ln((1+N)/(1+df)) + 1}, so every term weighs 1 on an empty corpus.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CorpusStatistics {
+
+    /** 默认count-min行数 / Default count-min sketch depth */
+    public static final int DEFAULT_SKETCH_DEPTH = 4;
+
+    /** 默认最小刷新文档数 / Default minimum number of new documents before a refresh */
+    public static final int DEFAULT_MIN_REFRESH_DOCUMENTS = 64;
+
+    private static final int[] ROW_SEEDS = {
+        0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1, 0xD3A2646C, 0xFD7046C5, 0xB55A4F09
+    };
+
+    private final int width;
+    private final int mask;
+    private final int depth;
+    private final int minRefreshDocuments;
+    private final AtomicLongArray counts;
+    private final LongAdder documents = new LongAdder();
+    private final AtomicBoolean publishing = new AtomicBoolean(false);
+    private volatile IdfSnapshot snapshot;
+
+    private CorpusStatistics(int width, int depth, int minRefreshDocuments) {
+        if (depth < 1 || depth > ROW_SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + ROW_SEEDS.length + ": " + depth);
+        }
+        this.width = tableSizeFor(width);
+        this.mask = this.width - 1;
+        this.depth = depth;
+        this.minRefreshDocuments = Math.max(1, minRefreshDocuments);
+        this.counts = new AtomicLongArray(this.width * depth);
+        this.snapshot = buildSnapshot(0L);
+    }
+
+    /**
+     * 精确计数：键按位与映射到单元 / Direct-mapped counting, exact for keys in [0, keySpace).
+     */
+    public static CorpusStatistics exact(int keySpace) {
+        return new CorpusStatistics(keySpace, 1, DEFAULT_MIN_REFRESH_DOCUMENTS);
+    }
+
+    /**
+     * Count-min sketch计数 / Count-min sketch counting with bounded memory.
+     */
+    public static CorpusStatistics countMinSketch(int width, int depth) {
+        return new CorpusStatistics(width, depth, DEFAULT_MIN_REFRESH_DOCUMENTS);
+    }
+
+    /**
+     * 相同配置的空统计 / An empty instance with the same configuration.
+     */
+    public CorpusStatistics emptyCopy() {
+        return new CorpusStatistics(width, depth, minRefreshDocuments);
+    }
+
+    /**
+     * 指定最小刷新文档数的副本 / An empty instance with a different minimum refresh size.
+     */
+    public CorpusStatistics withMinRefreshDocuments(int minRefresh) {
+        return new CorpusStatistics(width, depth, minRefresh);
+    }
+
+    /**
+     * 记录一篇文档 / Record one document.
+     *
+     * @param uniqueKeys 文档中去重后的词条键 / the document's distinct term keys
+     * @param length     有效键数量 / number of valid keys in the array
+     */
+    public void addDocument(int[] uniqueKeys, int length) {
+        for (int i = 0; i < length; i++) {
+            increment(uniqueKeys[i]);
+        }
+        documents.increment();
+        maybePublish();
+    }
+
+    /**
+     * 单独累加一个词条的文档频率，需配合 {@link #addDocuments(long)} 使用 / Count one term
+     * occurrence; pair with {@link #addDocuments(long)}.
+     */
+    public void addTerm(int key) {
+        increment(key);
+    }
+
+    /**
+     * 累加文档数 / Add to the document total.
+     */
+    public void addDocuments(long count) {
+        documents.add(count);
+        maybePublish();
+    }
+
+    /**
+     * 估计文档频率（读取实时计数） / Estimate a term's live document frequency.
+     */
+    public long documentFrequency(int key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts.get(cell(key, row)));
+        }
+        return min;
+    }
+
+    public long getDocumentCount() {
+        return documents.sum();
+    }
+
+    /**
+     * 当前已发布的不可变快照 / The currently published immutable snapshot.
+     */
+    public IdfSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 立即重建并发布快照 / Rebuild and publish a snapshot now.
+     */
+    public IdfSnapshot publish() {
+        while (!publishing.compareAndSet(false, true)) {
+            Thread.yield();
+        }
+        try {
+            snapshot = buildSnapshot(documents.sum());
+            return snapshot;
+        } finally {
+            publishing.set(false);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * 计数表占用的字节数 / Bytes held by the counter table.
+     */
+    public long getSizeInBytes() {
+        return (long) width * depth * Long.BYTES;
+    }
+
+    private void maybePublish() {
+        IdfSnapshot current = snapshot;
+        long pending = documents.sum() - current.documents;
+        long threshold = Math.max(minRefreshDocuments, current.documents / 10);
+        if (pending >= threshold && publishing.compareAndSet(false, true)) {
+            try {
+                if (snapshot == current) {
+                    snapshot = buildSnapshot(documents.sum());
+                }
+            } finally {
+                publishing.set(false);
+            }
+        }
+    }
+
+    private void increment(int key) {
+        for (int row = 0; row < depth; row++) {
+            counts.incrementAndGet(cell(key, row));
+        }
+    }
+
+    private int cell(int key, int row) {
+        if (depth == 1) {
+            return key & mask;
+        }
+        int h = key * ROW_SEEDS[row];
+        h ^= h >>> 16;
+        return row * width + (h & mask);
+    }
+
+    private IdfSnapshot buildSnapshot(long documentCount) {
+        float[] idf = new float[width * depth];
+        int populated = 0;
+        double numerator = 1.0 + documentCount;
+        for (int i = 0; i < idf.length; i++) {
+            long df = counts.get(i);
+            idf[i] = (float) (Math.log(numerator / (1.0 + df)) + 1.0);
+            if (df > 0 && i < width) {
+                populated++;
+            }
+        }
+        return new IdfSnapshot(this, idf, documentCount, populated);
+    }
+
+    private static int tableSizeFor(int size) {
+        if (size <= 1) {
+            return 1;
+        }
+        int n = Integer.highestOneBit(size - 1) << 1;
+        if (n <= 0) {
+            throw new IllegalArgumentException("width too large: " + size);
+        }
+        return n;
+    }
+
+    /**
+     * 不可变IDF快照 / Immutable IDF snapshot.
+     *
+     * <p>Count-min模式下取各行IDF的最大值，等价于取最小文档频率估计 / In count-min mode the
+     * lookup takes the largest per-row IDF, which corresponds to the minimum DF estimate.</p>
+     */
+    public static final class IdfSnapshot implements HashingTextVectorizer.TermWeights {
+        private final CorpusStatistics owner;
+        private final float[] idf;
+        private final long documents;
+        private final int populatedCells;
+
+        private IdfSnapshot(CorpusStatistics owner, float[] idf, long documents, int populatedCells) {
+            this.owner = owner;
+            this.idf = idf;
+            this.documents = documents;
+            this.populatedCells = populatedCells;
+        }
+
+        public float idf(int key) {
+            if (owner.depth == 1) {
+                return idf[key & owner.mask];
+            }
+            float max = 0.0f;
+            for (int row = 0; row < owner.depth; row++) {
+                max = Math.max(max, idf[owner.cell(key, row)]);
+            }
+            return max;
+        }
+
+        @Override
+        public float weight(int termHash) {
+            return idf(termHash);
+        }
+
+        public long getDocumentCount() {
+            return documents;
+        }
+
+        /**
+         * 首行中出现过的单元数，精确模式下即不同词条数 / Non-empty cells in the first row;
+         * the number of distinct terms in exact mode.
+         */
+        public int getPopulatedCells() {
+            return populatedCells;
+        }
+    }
+}
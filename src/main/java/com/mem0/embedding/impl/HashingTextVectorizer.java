@@ -0,0 +1,382 @@
+package com.mem0.embedding.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 特征哈希文本向量化器 / Feature-Hashing Text Vectorizer
+ *
+ * <p>无正则、无装箱的逐字符分词器与哈希技巧（hashing trick）向量化器。文本按字符扫描，
+ * 拉丁/数字字符组成单词（小写化，长度2-49），中日韩字符输出重叠的二元组（孤立单字输出单字）。
+ * 词条直接在线程本地的字符缓冲区上做MurmurHash3，不创建String；词频在线程本地的开放寻址表中
+ * 累加，最终以带符号哈希映射到固定维度的 {@code float[]} 并做L2归一化。</p>
+ *
+ * <p>A regex-free, boxing-free char-scanning tokenizer plus hashing-trick vectorizer. Latin and
+ * digit runs become lower-cased words (length 2-49); CJK runs emit overlapping bigrams (an
+ * isolated character emits a unigram). Tokens are hashed with MurmurHash3 directly over a
+ * thread-local char buffer without creating Strings, term counts accumulate in a thread-local
+ * open-addressing table, and the result is projected into a fixed-dimension {@code float[]}
+ * using signed hashing and L2-normalised.</p>
+ *
+ * <p>实例是线程安全的，所有可变状态都位于线程本地暂存区 / Instances are thread-safe; all mutable
+ * state lives in per-thread scratch buffers.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class HashingTextVectorizer {
+
+    /** 最短拉丁词长度 / Minimum Latin token length */
+    public static final int MIN_TOKEN_LENGTH = 2;
+
+    /** 最长拉丁词长度 / Maximum Latin token length */
+    public static final int MAX_TOKEN_LENGTH = 49;
+
+    private static final int DEFAULT_SEED = 0x9747b28c;
+    private static final int INITIAL_TERM_CAPACITY = 256;
+
+    /**
+     * 词条回调 / Token callback. 缓冲区仅在回调期间有效 / The buffer is only valid during the call.
+     */
+    public interface TokenSink {
+        void accept(char[] buffer, int offset, int length);
+    }
+
+    /**
+     * 去重词条回调 / Unique term callback with its raw count in the text.
+     */
+    public interface TermVisitor {
+        void visit(int termHash, int count);
+    }
+
+    /**
+     * 词条权重（通常为IDF） / Per-term weight, typically an IDF lookup.
+     */
+    public interface TermWeights {
+        float weight(int termHash);
+    }
+
+    private final int dimension;
+    private final int seed;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public HashingTextVectorizer(int dimension) {
+        this(dimension, DEFAULT_SEED);
+    }
+
+    public HashingTextVectorizer(int dimension, int seed) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("dimension must be positive: " + dimension);
+        }
+        this.dimension = dimension;
+        this.seed = seed;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * 扫描文本并逐个输出词条 / Scan the text and emit each token.
+     *
+     * @return 词条数量 / number of tokens emitted
+     */
+    public int tokenize(CharSequence text, TokenSink sink) {
+        if (text == null) {
+            return 0;
+        }
+        char[] buf = scratch.get().token;
+        int tokens = 0;
+        int wordLength = 0;
+        boolean wordOverflow = false;
+        // CJK状态：buf[0..cjkPrevLength)为上一个字，cjkRun为当前连续长度
+        int cjkPrevLength = 0;
+        int cjkRun = 0;
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = Character.codePointAt(text, i);
+            int cpLength = Character.charCount(cp);
+            i += cpLength;
+
+            if (isCjk(cp)) {
+                if (wordLength > 0 || wordOverflow) {
+                    tokens += emitWord(buf, wordLength, wordOverflow, sink);
+                    wordLength = 0;
+                    wordOverflow = false;
+                }
+                if (cjkRun == 0) {
+                    cjkPrevLength = Character.toChars(cp, buf, 0);
+                } else {
+                    int curLength = Character.toChars(cp, buf, cjkPrevLength);
+                    sink.accept(buf, 0, cjkPrevLength + curLength);
+                    tokens++;
+                    System.arraycopy(buf, cjkPrevLength, buf, 0, curLength);
+                    cjkPrevLength = curLength;
+                }
+                cjkRun++;
+            } else if (Character.isLetterOrDigit(cp)) {
+                if (cjkRun > 0) {
+                    tokens += emitCjkUnigram(buf, cjkPrevLength, cjkRun, sink);
+                    cjkRun = 0;
+                }
+                int lower = cp < 0x80
+                    ? (cp >= 'A' && cp <= 'Z' ? cp + ('a' - 'A') : cp)
+                    : Character.toLowerCase(cp);
+                int lowerLength = Character.charCount(lower);
+                if (wordLength + lowerLength > MAX_TOKEN_LENGTH) {
+                    wordOverflow = true;
+                } else if (!wordOverflow) {
+                    wordLength += Character.toChars(lower, buf, wordLength);
+                }
+            } else {
+                if (wordLength > 0 || wordOverflow) {
+                    tokens += emitWord(buf, wordLength, wordOverflow, sink);
+                    wordLength = 0;
+                    wordOverflow = false;
+                }
+                if (cjkRun > 0) {
+                    tokens += emitCjkUnigram(buf, cjkPrevLength, cjkRun, sink);
+                    cjkRun = 0;
+                }
+            }
+        }
+        if (wordLength > 0 || wordOverflow) {
+            tokens += emitWord(buf, wordLength, wordOverflow, sink);
+        }
+        if (cjkRun > 0) {
+            tokens += emitCjkUnigram(buf, cjkPrevLength, cjkRun, sink);
+        }
+        return tokens;
+    }
+
+    /**
+     * 物化词条列表，仅用于训练/调试等非热路径 / Materialise tokens as Strings; intended for
+     * training and diagnostics, not the embedding hot path.
+     */
+    public List<String> tokens(CharSequence text) {
+        List<String> result = new ArrayList<>();
+        tokenize(text, (buffer, offset, length) -> result.add(new String(buffer, offset, length)));
+        return result;
+    }
+
+    /**
+     * 计算单个词条的哈希 / Hash a single term the same way the tokenizer does.
+     */
+    public int hashTerm(CharSequence term) {
+        int length = term.length();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = term.charAt(i);
+        }
+        return murmur3(chars, 0, length, seed);
+    }
+
+    /**
+     * 访问文本中的每个去重词条及其次数 / Visit every distinct term hash with its count.
+     *
+     * @return 词条总数 / total token count
+     */
+    public int forEachTerm(CharSequence text, TermVisitor visitor) {
+        Scratch s = scratch.get();
+        s.reset();
+        int total = tokenize(text, s);
+        for (int i = 0; i < s.used; i++) {
+            int slot = s.usedSlots[i];
+            visitor.visit(s.keys[slot], s.counts[slot]);
+        }
+        return total;
+    }
+
+    /**
+     * 将文本向量化为L2归一化的TF-IDF哈希向量 / Vectorise the text into an L2-normalised hashed
+     * TF-IDF vector. 无词条时返回零向量 / Returns a zero vector when no tokens are found.
+     */
+    public float[] vectorize(CharSequence text, TermWeights weights) {
+        float[] vector = new float[dimension];
+        vectorizeInto(text, weights, vector);
+        return vector;
+    }
+
+    /**
+     * 将结果累加写入调用方提供的数组（先清零） / Write the vector into the caller's array,
+     * which is zeroed first.
+     *
+     * @return 词条总数 / total token count
+     */
+    public int vectorizeInto(CharSequence text, TermWeights weights, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("vector length " + vector.length + " != dimension " + dimension);
+        }
+        Arrays.fill(vector, 0.0f);
+        Scratch s = scratch.get();
+        s.reset();
+        int total = tokenize(text, s);
+        if (total == 0) {
+            return 0;
+        }
+        float invTotal = 1.0f / total;
+        for (int i = 0; i < s.used; i++) {
+            int slot = s.usedSlots[i];
+            int hash = s.keys[slot];
+            float tfidf = s.counts[slot] * invTotal * (weights == null ? 1.0f : weights.weight(hash));
+            int index = (hash >>> 1) % dimension;
+            vector[index] += (hash & 1) == 0 ? tfidf : -tfidf;
+        }
+        normalize(vector);
+        return total;
+    }
+
+    /**
+     * MurmurHash3 (x86_32) over UTF-16 code units, two chars per block, without allocation.
+     */
+    public static int murmur3(char[] chars, int offset, int length, int seed) {
+        int h1 = seed;
+        int end = offset + length;
+        int i = offset;
+        for (; i + 1 < end; i += 2) {
+            int k1 = chars[i] | (chars[i + 1] << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+        if (i < end) {
+            h1 ^= mixK1(chars[i]);
+        }
+        h1 ^= 2 * length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= 0xcc9e2d51;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= 0x1b873593;
+        return k1;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    private static void normalize(float[] vector) {
+        double magnitude = 0.0;
+        for (float value : vector) {
+            magnitude += value * value;
+        }
+        if (magnitude > 0.0) {
+            float scale = (float) (1.0 / Math.sqrt(magnitude));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= scale;
+            }
+        }
+    }
+
+    private static int emitWord(char[] buf, int length, boolean overflow, TokenSink sink) {
+        if (overflow || length < MIN_TOKEN_LENGTH) {
+            return 0;
+        }
+        sink.accept(buf, 0, length);
+        return 1;
+    }
+
+    private static int emitCjkUnigram(char[] buf, int prevLength, int run, TokenSink sink) {
+        if (run != 1) {
+            return 0;
+        }
+        sink.accept(buf, 0, prevLength);
+        return 1;
+    }
+
+    private static boolean isCjk(int cp) {
+        if (cp < 0x2E80) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 线程本地暂存区：词条缓冲与按哈希计数的开放寻址表 / Per-thread scratch: the token buffer and
+     * an open-addressing table of term hash counts. 用代数标记避免每次清空 / Generation stamps
+     * avoid clearing the table between texts.
+     */
+    private final class Scratch implements TokenSink {
+        final char[] token = new char[MAX_TOKEN_LENGTH + 2];
+        int[] keys = new int[INITIAL_TERM_CAPACITY];
+        int[] counts = new int[INITIAL_TERM_CAPACITY];
+        int[] stamps = new int[INITIAL_TERM_CAPACITY];
+        int[] usedSlots = new int[INITIAL_TERM_CAPACITY / 2];
+        int used;
+        int generation = 1;
+
+        void reset() {
+            used = 0;
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+
+        @Override
+        public void accept(char[] buffer, int offset, int length) {
+            add(murmur3(buffer, offset, length, seed));
+        }
+
+        private void add(int hash) {
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (stamps[slot] == generation) {
+                if (keys[slot] == hash) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            stamps[slot] = generation;
+            keys[slot] = hash;
+            counts[slot] = 1;
+            usedSlots[used++] = slot;
+            if (used == usedSlots.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            int[] oldUsed = usedSlots;
+            int oldUsedCount = used;
+            int capacity = oldKeys.length * 2;
+            keys = new int[capacity];
+            counts = new int[capacity];
+            stamps = new int[capacity];
+            usedSlots = new int[capacity / 2];
+            generation = 1;
+            used = 0;
+            int mask = capacity - 1;
+            for (int i = 0; i < oldUsedCount; i++) {
+                int oldSlot = oldUsed[i];
+                int hash = oldKeys[oldSlot];
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (stamps[slot] == generation) {
+                    slot = (slot + 1) & mask;
+                }
+                stamps[slot] = generation;
+                keys[slot] = hash;
+                counts[slot] = oldCounts[oldSlot];
+                usedSlots[used++] = slot;
+            }
+        }
+    }
+}
@@ -5,14 +5,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.mem0.concurrency.cache.HighPerformanceCache;
 import com.mem0.performance.ConcurrentExecutionManager;
-import com.mem0.performance.ObjectPool;
+import com.mem0.constants.MemoryConstants;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
@@ -34,7 +32,7 @@ import java.util.stream.Collectors;
  * - 智能缓存系统 / Intelligent caching system
  * - 批量处理优化 / Batch processing optimization
  * - 对象池化内存管理 / Object pooling memory management
- * - 动态词汇表构建 / Dynamic vocabulary building
+ * - 训练时构建词汇表 / Vocabulary built during training
  * - 相似词搜索功能 / Similar word search functionality
  * - 实时性能监控 / Real-time performance monitoring
  * 
@@ -43,15 +41,19 @@ import java.util.stream.Collectors;
  * - 词汇表大小: 可配置 (默认10,000) / Configurable vocabulary size (default 10,000)
  * - 批处理大小: 可配置 (默认50) / Configurable batch size (default 50)
  * - 缓存容量: 5,000向量，TTL 10分钟 / Cache capacity: 5,000 vectors, TTL 10 minutes
- * - 对象池: 200个向量池，100个词频池 / Object pools: 200 vector, 100 term-freq
+ * - 哈希特征表: 词汇表大小2倍的文档频率桶，可选count-min sketch
+ *   / Hashed feature table: DF buckets sized at 2x vocabulary, optionally a count-min sketch
  * - 并发执行: 基于线程池的异步处理 / Concurrent execution: thread pool-based async
  * 
  * 算法优化 / Algorithm Optimizations:
- * - 预计算词向量表加速查询 / Pre-computed word vectors for fast lookup
- * - 哈希映射优化词汇索引 / Hash mapping optimized vocabulary indexing
+ * - 逐字符扫描分词，支持中日韩与拉丁文字 / Char-scanning tokenizer for CJK and Latin scripts
+ * - 特征哈希（MurmurHash3）直接作用于字符缓冲，嵌入路径不创建String
+ *   / Feature hashing (MurmurHash3) over char buffers, no String creation on the embed path
+ * - 线程本地暂存区与float[]累加，无装箱 / Thread-local scratch and float[] accumulation, no boxing
+ * - 批量嵌入按数据并行切分 / Data-parallel batch embedding
+ * - 只追加的CAS词典与不可变IDF快照，嵌入路径无锁 / Append-only CAS dictionary and immutable IDF
+ *   snapshots keep the embed path lock-free
  * - 向量归一化提高相似性精度 / Vector normalization for similarity accuracy
- * - 读写锁保证并发安全 / Read-write locks for concurrent safety
- * - 内存池化减少GC压力 / Memory pooling to reduce GC pressure
  * 
  * 使用场景 / Use Cases:
  * - 大规模文档检索系统 / Large-scale document retrieval systems
@@ -120,24 +122,21 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
     
     private static final Logger logger = LoggerFactory.getLogger(HighPerformanceTFIDFProvider.class);
     
-    // 词汇表和统计信息
-    private final Map<String, Integer> vocabulary = new ConcurrentHashMap<>();
-    private final Map<String, Double> inverseDocumentFrequencies = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, Double>> documentTermFrequencies = new ConcurrentHashMap<>();
+    // 词汇表和统计信息（训练时整体替换） / Vocabulary and statistics, swapped wholesale on training
+    private volatile TermDictionary vocabulary;
+    private volatile CorpusStatistics corpusStatistics;
     
     // 配置参数
     private final int maxVocabularySize;
     private final int embeddingDimension;
     private final int batchSize;
     
+    // 特征哈希：文档频率按词条哈希计数 / Feature hashing: document frequencies keyed by term hash
+    private final HashingTextVectorizer vectorizer;
+    
     // 性能优化组件
     private final HighPerformanceCache<String, float[]> embeddingCache;
     private final ConcurrentExecutionManager executionManager;
-    private final ReadWriteLock vocabularyLock = new ReentrantReadWriteLock();
-    
-    // 对象池
-    private final ObjectPool<float[]> vectorPool;
-    private final ObjectPool<Map<String, Double>> termFreqPool;
     
     // 统计信息
     private final AtomicInteger totalEmbeddings = new AtomicInteger(0);
@@ -146,13 +145,23 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
     
     // 预计算的词向量表
     private final Map<String, float[]> wordVectors = new ConcurrentHashMap<>();
-    private volatile boolean isTraining = false;
+    private volatile boolean closed = false;
     
     public HighPerformanceTFIDFProvider() {
         this(10000, 300, 50);
     }
     
     public HighPerformanceTFIDFProvider(int maxVocabularySize, int embeddingDimension, int batchSize) {
+        this(maxVocabularySize, embeddingDimension, batchSize, false);
+    }
+    
+    /**
+     * @param approximateDocumentFrequencies 使用count-min sketch统计文档频率，以相同内存降低哈希冲突的高估
+     *                                       / count document frequencies with a count-min sketch,
+     *                                       reducing collision overestimates for the same memory
+     */
+    public HighPerformanceTFIDFProvider(int maxVocabularySize, int embeddingDimension, int batchSize,
+                                        boolean approximateDocumentFrequencies) {
         this.maxVocabularySize = maxVocabularySize;
         this.embeddingDimension = embeddingDimension;
         this.batchSize = batchSize;
@@ -160,22 +169,13 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
         this.embeddingCache = new HighPerformanceCache<>(5000, 600000, 120000); // 5K向量，10分钟TTL
         this.executionManager = new ConcurrentExecutionManager();
         
-        // 初始化对象池
-        this.vectorPool = new ObjectPool<>(
-            () -> new float[embeddingDimension],
-            vector -> Arrays.fill(vector, 0.0f),
-            200
-        );
-        
-        this.termFreqPool = new ObjectPool<>(
-            HashMap::new,
-            Map::clear,
-            100
-        );
-        
-        // 预填充对象池
-        vectorPool.preFill(50);
-        termFreqPool.preFill(20);
+        this.vectorizer = new HashingTextVectorizer(embeddingDimension);
+        this.vocabulary = new TermDictionary(maxVocabularySize);
+        int buckets = Math.max(1024, maxVocabularySize * 2);
+        this.corpusStatistics = approximateDocumentFrequencies
+            ? CorpusStatistics.countMinSketch(buckets / CorpusStatistics.DEFAULT_SKETCH_DEPTH,
+                                              CorpusStatistics.DEFAULT_SKETCH_DEPTH)
+            : CorpusStatistics.exact(buckets);
         
         logger.info("高性能TF-IDF嵌入提供者初始化完成 - 词汇表大小: {}, 向量维度: {}, 批大小: {}",
                    maxVocabularySize, embeddingDimension, batchSize);
@@ -183,89 +183,37 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
     
     @Override
     public CompletableFuture<List<Float>> embed(String text) {
-        return executionManager.executeEmbeddingOperation(() -> {
-            if (text == null || text.trim().isEmpty()) {
-                return convertToList(createZeroVector());
-            }
-            
-            // 检查缓存
-            String cacheKey = generateCacheKey(text);
-            float[] cached = embeddingCache.get(cacheKey);
-            if (cached != null) {
-                cacheHits.incrementAndGet();
-                return convertToList(Arrays.copyOf(cached, cached.length));
-            }
-            
-            logger.debug("计算文本嵌入: {}", text.substring(0, Math.min(text.length(), 50)) + "...");
-            
-            List<String> tokens = tokenizeOptimized(text);
-            if (tokens.isEmpty()) {
-                return convertToList(createZeroVector());
-            }
-            
-            // 更新词汇表（如果不在训练模式）
-            if (!isTraining) {
-                updateVocabulary(tokens);
-            }
-            
-            // 计算TF-IDF向量
-            float[] embedding = computeTFIDFVector(tokens);
-            
-            // 缓存结果
-            embeddingCache.put(cacheKey, Arrays.copyOf(embedding, embedding.length));
-            
-            totalEmbeddings.incrementAndGet();
-            return convertToList(embedding);
-        });
+        return executionManager.executeEmbeddingOperation(() -> convertToList(embedText(text)));
     }
     
     @Override
     public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
-        return executionManager.executeEmbeddingOperation(() -> {
-            if (texts == null || texts.isEmpty()) {
-                return Collections.emptyList();
-            }
-            
-            logger.info("开始批量嵌入处理，文本数量: {}", texts.size());
-            long startTime = System.currentTimeMillis();
-            
-            // 分批处理以优化内存使用
-            List<CompletableFuture<List<float[]>>> batchFutures = new ArrayList<>();
-            
-            for (int i = 0; i < texts.size(); i += batchSize) {
-                int endIndex = Math.min(i + batchSize, texts.size());
-                List<String> batch = texts.subList(i, endIndex);
-                
-                CompletableFuture<List<float[]>> batchFuture = processBatch(batch);
-                batchFutures.add(batchFuture);
-            }
-            
-            // 等待所有批次完成
-            CompletableFuture<Void> allBatches = CompletableFuture.allOf(
-                batchFutures.toArray(new CompletableFuture[0])
-            );
-            
-            return allBatches.thenApply(v -> {
-                List<float[]> results = new ArrayList<>();
-                for (CompletableFuture<List<float[]>> batchFuture : batchFutures) {
-                    try {
-                        results.addAll(batchFuture.get());
-                    } catch (Exception e) {
-                        logger.error("批处理失败", e);
-                        // 添加零向量作为错误处理
-                        for (int j = 0; j < batchSize; j++) {
-                            results.add(createZeroVector());
-                        }
-                    }
-                }
-                
+        if (texts == null || texts.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        
+        logger.info("开始批量嵌入处理，文本数量: {}", texts.size());
+        long startTime = System.currentTimeMillis();
+        
+        // 按数据并行切分：在共用CPU线程池上按区间直接计算向量，不再逐条经由embed()排队等待，
+        // 每个区间不超过batchSize条
+        String[] batch = texts.toArray(new String[0]);
+        float[][] results = new float[batch.length][];
+        int minGrain = Math.max(1, Math.min(batchSize, MemoryConstants.DEFAULT_TFIDF_SCAN_GRAIN));
+        
+        return ConcurrentExecutionManager.parallelScanAsync(batch.length, minGrain,
+                (from, to) -> processBatch(batch, from, to, results))
+            .thenApply(v -> {
                 long duration = System.currentTimeMillis() - startTime;
                 batchProcessed.incrementAndGet();
                 logger.info("批量嵌入完成，处理 {} 个文本，耗时 {}ms", texts.size(), duration);
                 
-                return convertBatchToList(results);
-            }).join();
-        });
+                List<List<Float>> embeddings = new ArrayList<>(results.length);
+                for (float[] embedding : results) {
+                    embeddings.add(convertToList(embedding));
+                }
+                return embeddings;
+            });
     }
     
     /**
@@ -276,47 +224,43 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
             logger.info("开始训练模式，语料库大小: {}", corpus.size());
             long startTime = System.currentTimeMillis();
             
-            isTraining = true;
+            // 按下标切分区间，先复制成数组避免链表的随机访问
+            String[] documents = corpus.toArray(new String[0]);
             
-            try {
-                // 第一阶段：并行构建词汇表
-                Set<String> allTokens = ConcurrentHashMap.newKeySet();
-                List<List<String>> allDocumentTokens = corpus.parallelStream()
-                    .map(this::tokenizeOptimized)
-                    .peek(tokens -> allTokens.addAll(tokens))
-                    .collect(Collectors.toList());
-                
-                // 构建词汇表
-                buildVocabulary(allTokens);
-                
-                // 第二阶段：计算文档频率
-                Map<String, Integer> documentFrequencies = new ConcurrentHashMap<>();
-                allDocumentTokens.parallelStream().forEach(tokens -> {
-                    Set<String> uniqueTokens = new HashSet<>(tokens);
-                    uniqueTokens.forEach(token -> 
-                        documentFrequencies.merge(token, 1, Integer::sum)
-                    );
+            // 第一阶段：并行构建词汇表
+            Set<String> allTokens = ConcurrentHashMap.newKeySet();
+            ConcurrentExecutionManager.parallelScan(documents.length, MemoryConstants.DEFAULT_TFIDF_SCAN_GRAIN,
+                (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        vectorizer.tokenize(documents[i], (buffer, offset, length) -> 
+                            allTokens.add(new String(buffer, offset, length)));
+                    }
                 });
-                
-                // 第三阶段：计算IDF值
-                int totalDocuments = corpus.size();
-                documentFrequencies.entrySet().parallelStream().forEach(entry -> {
-                    String term = entry.getKey();
-                    int docFreq = entry.getValue();
-                    double idf = Math.log((double) totalDocuments / (1.0 + docFreq));
-                    inverseDocumentFrequencies.put(term, idf);
+            
+            // 构建词汇表
+            buildVocabulary(allTokens);
+            
+            // 第二阶段：并行统计文档频率（原子计数单元，不同词条互不竞争）
+            CorpusStatistics statistics = corpusStatistics.emptyCopy();
+            ConcurrentExecutionManager.parallelScan(documents.length, MemoryConstants.DEFAULT_TFIDF_SCAN_GRAIN,
+                (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        vectorizer.forEachTerm(documents[i], (termHash, count) -> statistics.addTerm(termHash));
+                    }
                 });
-                
-                // 第四阶段：预计算常用词的词向量
-                precomputeWordVectors();
-                
-                long duration = System.currentTimeMillis() - startTime;
-                logger.info("训练完成 - 词汇表大小: {}, IDF条目: {}, 耗时: {}ms", 
-                          vocabulary.size(), inverseDocumentFrequencies.size(), duration);
-                
-            } finally {
-                isTraining = false;
-            }
+            statistics.addDocuments(corpus.size());
+            
+            // 第三阶段：发布IDF快照
+            statistics.publish();
+            corpusStatistics = statistics;
+            embeddingCache.clear();
+            
+            // 第四阶段：预计算常用词的词向量
+            precomputeWordVectors();
+            
+            long duration = System.currentTimeMillis() - startTime;
+            logger.info("训练完成 - 词汇表大小: {}, IDF条目: {}, 耗时: {}ms", 
+                      vocabulary.size(), corpusStatistics.snapshot().getPopulatedCells(), duration);
             
             return null;
         });
@@ -359,13 +303,11 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
     public EmbeddingStats getStats() {
         return new EmbeddingStats(
             vocabulary.size(),
-            inverseDocumentFrequencies.size(),
+            corpusStatistics.snapshot().getPopulatedCells(),
             totalEmbeddings.get(),
             cacheHits.get(),
             batchProcessed.get(),
-            embeddingCache.getStats(),
-            vectorPool.getStats(),
-            termFreqPool.getStats()
+            embeddingCache.getStats()
         );
     }
     
@@ -387,6 +329,7 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
     @Override
     public void close() {
         logger.info("关闭高性能TF-IDF嵌入提供者");
+        closed = true;
         
         if (executionManager != null) {
             executionManager.close();
@@ -396,9 +339,8 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
             embeddingCache.shutdown();
         }
         
-        vocabulary.clear();
-        inverseDocumentFrequencies.clear();
-        documentTermFrequencies.clear();
+        vocabulary = new TermDictionary(maxVocabularySize);
+        corpusStatistics = corpusStatistics.emptyCopy();
         wordVectors.clear();
         
         logger.info("嵌入提供者关闭完成");
@@ -411,7 +353,8 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
     
     @Override
     public boolean isHealthy() {
-        return executionManager != null && embeddingCache != null && !vocabulary.isEmpty();
+        // 哈希向量化不依赖词汇表，未训练时也可以嵌入
+        return !closed && executionManager != null && embeddingCache != null;
     }
     
     // Helper methods
@@ -423,167 +366,72 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
         return list;
     }
     
-    private float[] convertToArray(List<Float> list) {
-        float[] array = new float[list.size()];
-        for (int i = 0; i < list.size(); i++) {
-            array[i] = list.get(i);
-        }
-        return array;
-    }
-    
-    private List<List<Float>> convertBatchToList(List<float[]> batch) {
-        List<List<Float>> result = new ArrayList<>(batch.size());
-        for (float[] array : batch) {
-            result.add(convertToList(array));
-        }
-        return result;
-    }
-    
     // 私有辅助方法
     
-    private CompletableFuture<List<float[]>> processBatch(List<String> batch) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<float[]> results = new ArrayList<>();
-            
-            for (String text : batch) {
-                try {
-                    float[] embedding = convertToArray(embed(text).join());
-                    results.add(embedding);
-                } catch (Exception e) {
-                    logger.error("处理批次中的文本失败", e);
-                    results.add(createZeroVector());
-                }
-            }
-            
-            return results;
-        });
-    }
-    
-    private List<String> tokenizeOptimized(String text) {
-        // 优化的分词实现，使用StringBuilder池
-        StringBuilder sb = null;
-        try {
-            sb = new StringBuilder(); // 简化实现，实际可使用对象池
-            
-            List<String> tokens = new ArrayList<>();
-            String[] words = text.toLowerCase()
-                .replaceAll("[^a-z0-9\\s]", " ")
-                .split("\\s+");
-            
-            for (String word : words) {
-                if (word.length() > 1 && word.length() < 50) { // 过滤过短和过长的词
-                    tokens.add(word);
-                }
+    private void processBatch(String[] texts, int fromIndex, int toIndex, float[][] results) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            try {
+                results[i] = embedText(texts[i]);
+            } catch (Exception e) {
+                logger.error("处理批次中的文本失败", e);
+                results[i] = createZeroVector();
             }
-            
-            return tokens;
-        } finally {
-            // 在实际实现中，这里应该释放StringBuilder回对象池
         }
     }
     
-    private void updateVocabulary(List<String> tokens) {
-        vocabularyLock.writeLock().lock();
-        try {
-            for (String token : tokens) {
-                if (vocabulary.size() < maxVocabularySize && !vocabulary.containsKey(token)) {
-                    vocabulary.put(token, vocabulary.size());
-                }
-            }
-        } finally {
-            vocabularyLock.writeLock().unlock();
+    /**
+     * 计算单个文本的嵌入：查缓存、哈希向量化并写回缓存；词汇表只在训练时构建，嵌入路径不物化词条
+     */
+    private float[] embedText(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return createZeroVector();
         }
-    }
-    
-    private void buildVocabulary(Set<String> allTokens) {
-        vocabularyLock.writeLock().lock();
-        try {
-            // 按频率排序，只保留最常见的词
-            List<String> sortedTokens = allTokens.stream()
-                .sorted()
-                .limit(maxVocabularySize)
-                .collect(Collectors.toList());
-            
-            vocabulary.clear();
-            for (int i = 0; i < sortedTokens.size(); i++) {
-                vocabulary.put(sortedTokens.get(i), i);
-            }
-        } finally {
-            vocabularyLock.writeLock().unlock();
+        
+        // 检查缓存
+        String cacheKey = generateCacheKey(text);
+        float[] cached = embeddingCache.get(cacheKey);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return Arrays.copyOf(cached, cached.length);
         }
-    }
-    
-    private float[] computeTFIDFVector(List<String> tokens) {
-        float[] vector = vectorPool.acquire();
         
-        try {
-            // 计算词频
-            Map<String, Double> termFreqs = calculateTermFrequencies(tokens);
-            
-            // 计算TF-IDF并映射到固定维度
-            for (Map.Entry<String, Double> entry : termFreqs.entrySet()) {
-                String term = entry.getKey();
-                Double tf = entry.getValue();
-                
-                Integer vocabularyIndex = vocabulary.get(term);
-                if (vocabularyIndex != null) {
-                    double idf = inverseDocumentFrequencies.getOrDefault(term, 1.0);
-                    double tfidf = tf * idf;
-                    
-                    // 映射到向量维度
-                    int[] targetIndices = getTargetIndices(vocabularyIndex);
-                    for (int targetIndex : targetIndices) {
-                        if (targetIndex < embeddingDimension) {
-                            vector[targetIndex] += (float) (tfidf / targetIndices.length);
-                        }
-                    }
-                }
-            }
-            
-            // 归一化向量
-            normalizeVector(vector);
-            
-            // 复制结果（因为要释放池化的向量）
-            return Arrays.copyOf(vector, vector.length);
-            
-        } finally {
-            vectorPool.release(vector);
+        if (logger.isDebugEnabled()) {
+            logger.debug("计算文本嵌入: {}", text.substring(0, Math.min(text.length(), 50)) + "...");
         }
+        
+        // 计算TF-IDF哈希向量（读取当前IDF快照，无锁）
+        float[] embedding = vectorizer.vectorize(text, corpusStatistics.snapshot());
+        
+        // 缓存结果
+        embeddingCache.put(cacheKey, Arrays.copyOf(embedding, embedding.length));
+        
+        totalEmbeddings.incrementAndGet();
+        return embedding;
     }
     
-    private Map<String, Double> calculateTermFrequencies(List<String> tokens) {
-        Map<String, Double> termFreqs = termFreqPool.acquire();
-        
-        try {
-            Map<String, Integer> termCounts = new HashMap<>();
-            
-            for (String token : tokens) {
-                termCounts.merge(token, 1, Integer::sum);
-            }
-            
-            int totalTokens = tokens.size();
-            for (Map.Entry<String, Integer> entry : termCounts.entrySet()) {
-                double tf = (double) entry.getValue() / totalTokens;
-                termFreqs.put(entry.getKey(), tf);
-            }
-            
-            // 复制结果
-            return new HashMap<>(termFreqs);
-            
-        } finally {
-            termFreqPool.release(termFreqs);
-        }
+    private void buildVocabulary(Set<String> allTokens) {
+        // 按字典序保留前maxVocabularySize个词，构建完成后整体发布
+        TermDictionary dictionary = new TermDictionary(maxVocabularySize);
+        allTokens.stream()
+            .sorted()
+            .limit(maxVocabularySize)
+            .forEachOrdered(dictionary::getOrAssign);
+        vocabulary = dictionary;
     }
     
     private void precomputeWordVectors() {
         logger.info("预计算词向量，词汇表大小: {}", vocabulary.size());
         
-        vocabulary.entrySet().parallelStream().forEach(entry -> {
-            String word = entry.getKey();
-            List<String> singleWordTokens = Collections.singletonList(word);
-            float[] wordVector = computeTFIDFVector(singleWordTokens);
-            wordVectors.put(word, wordVector);
-        });
+        CorpusStatistics.IdfSnapshot idf = corpusStatistics.snapshot();
+        List<String> words = new ArrayList<>(vocabulary.size());
+        vocabulary.forEach((word, id) -> words.add(word));
+        ConcurrentExecutionManager.parallelScan(words.size(), MemoryConstants.DEFAULT_TFIDF_SCAN_GRAIN,
+            (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    String word = words.get(i);
+                    wordVectors.put(word, vectorizer.vectorize(word, idf));
+                }
+            });
         
         logger.info("词向量预计算完成，向量数量: {}", wordVectors.size());
     }
@@ -592,34 +440,6 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
         return wordVectors.get(word.toLowerCase());
     }
     
-    private int[] getTargetIndices(int vocabIndex) {
-        // 使用确定性哈希映射词汇索引到嵌入维度
-        Random rand = new Random(vocabIndex);
-        int numMappings = Math.min(5, embeddingDimension / 10);
-        
-        Set<Integer> indices = new HashSet<>();
-        for (int i = 0; i < numMappings; i++) {
-            indices.add(rand.nextInt(embeddingDimension));
-        }
-        
-        return indices.stream().mapToInt(Integer::intValue).toArray();
-    }
-    
-    private void normalizeVector(float[] vector) {
-        double magnitude = 0.0;
-        for (float value : vector) {
-            magnitude += value * value;
-        }
-        
-        magnitude = Math.sqrt(magnitude);
-        
-        if (magnitude > 0.0) {
-            for (int i = 0; i < vector.length; i++) {
-                vector[i] = (float) (vector[i] / magnitude);
-            }
-        }
-    }
-    
     private float[] createZeroVector() {
         return new float[embeddingDimension];
     }
@@ -672,22 +492,16 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
         private final int cacheHits;
         private final int batchesProcessed;
         private final HighPerformanceCache.CacheStats cacheStats;
-        private final ObjectPool.PoolStats vectorPoolStats;
-        private final ObjectPool.PoolStats termFreqPoolStats;
         
         public EmbeddingStats(int vocabularySize, int idfSize, int totalEmbeddings, 
                             int cacheHits, int batchesProcessed,
-                            HighPerformanceCache.CacheStats cacheStats,
-                            ObjectPool.PoolStats vectorPoolStats,
-                            ObjectPool.PoolStats termFreqPoolStats) {
+                            HighPerformanceCache.CacheStats cacheStats) {
             this.vocabularySize = vocabularySize;
             this.idfSize = idfSize;
             this.totalEmbeddings = totalEmbeddings;
             this.cacheHits = cacheHits;
             this.batchesProcessed = batchesProcessed;
             this.cacheStats = cacheStats;
-            this.vectorPoolStats = vectorPoolStats;
-            this.termFreqPoolStats = termFreqPoolStats;
         }
         
         // Getter方法
@@ -697,8 +511,6 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
         public int getCacheHits() { return cacheHits; }
         public int getBatchesProcessed() { return batchesProcessed; }
         public HighPerformanceCache.CacheStats getCacheStats() { return cacheStats; }
-        public ObjectPool.PoolStats getVectorPoolStats() { return vectorPoolStats; }
-        public ObjectPool.PoolStats getTermFreqPoolStats() { return termFreqPoolStats; }
         
         public double getCacheHitRate() {
             return totalEmbeddings == 0 ? 0.0 : (double) cacheHits / totalEmbeddings;
@@ -706,9 +518,9 @@ public class HighPerformanceTFIDFProvider implements EmbeddingProvider {
         
         @Override
         public String toString() {
-            return String.format("EmbeddingStats{词汇=%d, IDF=%d, 嵌入=%d, 缓存命中=%d(%.2f%%), 批次=%d, 缓存=%s, 向量池=%s, 词频池=%s}",
+            return String.format("EmbeddingStats{词汇=%d, IDF=%d, 嵌入=%d, 缓存命中=%d(%.2f%%), 批次=%d, 缓存=%s}",
                 vocabularySize, idfSize, totalEmbeddings, cacheHits, getCacheHitRate() * 100,
-                batchesProcessed, cacheStats, vectorPoolStats, termFreqPoolStats);
+                batchesProcessed, cacheStats);
         }
     }
 }
\ No newline at end of file
@@ -1,12 +1,13 @@
 package com.mem0.embedding.impl;
 
 import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.performance.ConcurrentExecutionManager;
+import com.mem0.constants.MemoryConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +29,8 @@ import java.util.stream.Collectors;
  *   <li>批量文本嵌入处理 / Batch text embedding processing</li>
  *   <li>向量标准化和相似度计算 / Vector normalization and similarity computation</li>
  *   <li>语料库预训练支持 / Corpus pre-training support</li>
+ *   <li>无锁词典与IDF快照，并发嵌入互不串行 / Lock-free dictionary and IDF snapshots so concurrent
+ *       embeds never serialise</li>
  * </ul>
  * 
  * <p>使用示例 / Usage example:</p>
@@ -54,9 +57,9 @@ public class SimpleTFIDFEmbeddingProvider implements EmbeddingProvider {
     
     private static final Logger logger = LoggerFactory.getLogger(SimpleTFIDFEmbeddingProvider.class);
     
-    private final Map<String, Integer> vocabulary = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, Double>> documentTermFrequencies = new ConcurrentHashMap<>();
-    private final Map<String, Double> inverseDocumentFrequencies = new ConcurrentHashMap<>();
+    // 每次嵌入的文本都计为一篇文档；清空时整体替换 / Every embedded text counts as a document
+    private volatile TermDictionary vocabulary;
+    private volatile CorpusStatistics corpusStatistics;
     private final int maxVocabularySize;
     private final int embeddingDimension;
     
@@ -67,6 +70,8 @@ public class SimpleTFIDFEmbeddingProvider implements EmbeddingProvider {
     public SimpleTFIDFEmbeddingProvider(int maxVocabularySize, int embeddingDimension) {
         this.maxVocabularySize = maxVocabularySize;
         this.embeddingDimension = embeddingDimension;
+        this.vocabulary = new TermDictionary(maxVocabularySize);
+        this.corpusStatistics = CorpusStatistics.exact(maxVocabularySize);
         logger.info("Initialized SimpleTFIDFEmbeddingProvider with vocab size: {} and dimension: {}", 
                    maxVocabularySize, embeddingDimension);
     }
@@ -82,10 +87,8 @@ public class SimpleTFIDFEmbeddingProvider implements EmbeddingProvider {
                 logger.debug("Embedding text: {}", text.substring(0, Math.min(text.length(), 50)) + "...");
                 
                 List<String> tokens = tokenize(text);
-                updateVocabulary(tokens);
-                
                 Map<String, Double> termFrequencies = calculateTermFrequencies(tokens);
-                updateInverseDocumentFrequencies(termFrequencies.keySet());
+                recordDocument(termFrequencies.keySet());
                 
                 return convertToList(createTFIDFVector(termFrequencies));
             } catch (Exception e) {
@@ -127,9 +130,7 @@ public class SimpleTFIDFEmbeddingProvider implements EmbeddingProvider {
     @Override
     public void close() {
         logger.info("Closing SimpleTFIDFEmbeddingProvider");
-        vocabulary.clear();
-        documentTermFrequencies.clear();
-        inverseDocumentFrequencies.clear();
+        clearStatistics();
     }
     
     private List<String> tokenize(String text) {
@@ -141,12 +142,21 @@ public class SimpleTFIDFEmbeddingProvider implements EmbeddingProvider {
                 .collect(Collectors.toList());
     }
     
-    private synchronized void updateVocabulary(List<String> tokens) {
-        for (String token : tokens) {
-            if (vocabulary.size() < maxVocabularySize && !vocabulary.containsKey(token)) {
-                vocabulary.put(token, vocabulary.size());
+    /**
+     * 登记文档中的去重词条并累加文档频率，全程无锁
+     * Register a document's distinct terms and count their document frequencies without locking
+     */
+    private void recordDocument(Set<String> uniqueTerms) {
+        TermDictionary dictionary = vocabulary;
+        int[] termIds = new int[uniqueTerms.size()];
+        int count = 0;
+        for (String term : uniqueTerms) {
+            int id = dictionary.getOrAssign(term);
+            if (id != TermDictionary.NO_ID) {
+                termIds[count++] = id;
             }
         }
+        corpusStatistics.addDocument(termIds, count);
     }
     
     private Map<String, Double> calculateTermFrequencies(List<String> tokens) {
@@ -167,31 +177,21 @@ public class SimpleTFIDFEmbeddingProvider implements EmbeddingProvider {
         return termFrequencies;
     }
     
-    private synchronized void updateInverseDocumentFrequencies(Set<String> uniqueTerms) {
-        // For simplicity, we'll use a basic IDF calculation
-        // In a real implementation, you'd maintain document counts
-        for (String term : uniqueTerms) {
-            if (!inverseDocumentFrequencies.containsKey(term)) {
-                // Simple IDF calculation based on term rarity
-                double idf = Math.log(1.0 + (double) maxVocabularySize / (1.0 + vocabulary.getOrDefault(term, maxVocabularySize)));
-                inverseDocumentFrequencies.put(term, idf);
-            }
-        }
-    }
-    
     private float[] createTFIDFVector(Map<String, Double> termFrequencies) {
         float[] vector = new float[embeddingDimension];
         
         // Create a sparse TF-IDF vector and then project to fixed dimension
         Map<Integer, Double> sparseVector = new HashMap<>();
+        TermDictionary dictionary = vocabulary;
+        CorpusStatistics.IdfSnapshot idfSnapshot = corpusStatistics.snapshot();
         
         for (Map.Entry<String, Double> entry : termFrequencies.entrySet()) {
             String term = entry.getKey();
             Double tf = entry.getValue();
             
-            Integer vocabularyIndex = vocabulary.get(term);
-            if (vocabularyIndex != null) {
-                double idf = inverseDocumentFrequencies.getOrDefault(term, 1.0);
+            int vocabularyIndex = dictionary.idOf(term);
+            if (vocabularyIndex != TermDictionary.NO_ID) {
+                double idf = idfSnapshot.idf(vocabularyIndex);
                 double tfidf = tf * idf;
                 sparseVector.put(vocabularyIndex, tfidf);
             }
@@ -269,51 +269,41 @@ public class SimpleTFIDFEmbeddingProvider implements EmbeddingProvider {
     }
     
     public Set<String> getVocabulary() {
-        return new HashSet<>(vocabulary.keySet());
+        Set<String> terms = new HashSet<>();
+        vocabulary.forEach((term, id) -> terms.add(term));
+        return terms;
     }
     
     public void clearVocabulary() {
-        vocabulary.clear();
-        documentTermFrequencies.clear();
-        inverseDocumentFrequencies.clear();
+        clearStatistics();
         logger.info("Vocabulary cleared");
     }
     
+    private void clearStatistics() {
+        vocabulary = new TermDictionary(maxVocabularySize);
+        corpusStatistics = corpusStatistics.emptyCopy();
+    }
+    
     /**
      * Pre-train the embedding provider with a corpus of texts
      */
     public void preTrainWithCorpus(List<String> corpus) {
         logger.info("Pre-training with corpus of {} documents", corpus.size());
         
-        List<Map<String, Double>> allTermFrequencies = new ArrayList<>();
-        
-        // Process all documents to build vocabulary and term frequencies
-        for (String document : corpus) {
-            List<String> tokens = tokenize(document);
-            updateVocabulary(tokens);
-            Map<String, Double> termFreqs = calculateTermFrequencies(tokens);
-            allTermFrequencies.add(termFreqs);
-        }
-        
-        // Calculate IDF values based on document frequency
-        Map<String, Integer> documentFrequencies = new HashMap<>();
-        for (Map<String, Double> termFreqs : allTermFrequencies) {
-            for (String term : termFreqs.keySet()) {
-                documentFrequencies.put(term, documentFrequencies.getOrDefault(term, 0) + 1);
-            }
-        }
+        // Count document frequencies concurrently on the shared CPU pool; the dictionary and counters are lock-free
+        String[] documents = corpus.toArray(new String[0]);
+        ConcurrentExecutionManager.parallelScan(documents.length, MemoryConstants.DEFAULT_TFIDF_SCAN_GRAIN,
+            (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    recordDocument(new HashSet<>(tokenize(documents[i])));
+                }
+            });
         
-        // Update IDF values
-        int totalDocuments = corpus.size();
-        for (Map.Entry<String, Integer> entry : documentFrequencies.entrySet()) {
-            String term = entry.getKey();
-            int docFreq = entry.getValue();
-            double idf = Math.log((double) totalDocuments / (1.0 + docFreq));
-            inverseDocumentFrequencies.put(term, idf);
-        }
+        // Publish the IDF snapshot immediately instead of waiting for the refresh threshold
+        CorpusStatistics.IdfSnapshot snapshot = corpusStatistics.publish();
         
         logger.info("Pre-training completed. Vocabulary size: {}, IDF entries: {}", 
-                   vocabulary.size(), inverseDocumentFrequencies.size());
+                   vocabulary.size(), snapshot.getPopulatedCells());
     }
     
     @Override
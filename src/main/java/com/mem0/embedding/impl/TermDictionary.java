@@ -0,0 +1,115 @@
+package com.mem0.embedding.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 只追加的并发词典 / Append-Only Concurrent Term Dictionary
+ *
+ * <p>为词条分配从0开始的稠密ID，ID通过CAS在容量范围内预留，分配后永不改变或回收。
+ * 查询是无锁的 {@link ConcurrentHashMap#get}；只有首次出现的词条才进入
+ * {@code computeIfAbsent}，且只锁定该词条所在的哈希桶，不存在全局锁。</p>
+ *
+ * <p>Assigns dense IDs starting at 0. IDs are reserved by CAS against the capacity and never
+ * change or get recycled. Lookups are lock-free {@link ConcurrentHashMap#get} calls; only a
+ * term's first occurrence goes through {@code computeIfAbsent}, which locks that single hash
+ * bin rather than the whole dictionary. 需要清空时整体替换实例 / Replace the instance to reset.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class TermDictionary {
+
+    /** 未登记或词典已满 / Returned for unknown terms or when the dictionary is full */
+    public static final int NO_ID = -1;
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, Integer> ids;
+    private final AtomicReferenceArray<String> terms;
+    private final AtomicInteger nextId = new AtomicInteger(0);
+
+    public TermDictionary(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ids = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+        this.terms = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 查询词条ID / Look up a term's ID without assigning one.
+     */
+    public int idOf(String term) {
+        Integer id = ids.get(term);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * 获取或分配词条ID；词典已满时返回 {@link #NO_ID} / Get or assign the term's ID, or
+     * {@link #NO_ID} once the dictionary is full.
+     */
+    public int getOrAssign(String term) {
+        Integer id = ids.get(term);
+        if (id != null) {
+            return id;
+        }
+        if (isFull()) {
+            return NO_ID;
+        }
+        id = ids.computeIfAbsent(term, this::reserve);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * 按ID反查词条 / Reverse lookup; null for unassigned IDs.
+     */
+    public String termOf(int id) {
+        return id >= 0 && id < capacity ? terms.get(id) : null;
+    }
+
+    /**
+     * 按ID顺序遍历已发布的词条 / Visit published terms in ID order.
+     */
+    public void forEach(ObjIntConsumer<String> consumer) {
+        int limit = size();
+        for (int id = 0; id < limit; id++) {
+            String term = terms.get(id);
+            if (term != null) {
+                consumer.accept(term, id);
+            }
+        }
+    }
+
+    public int size() {
+        return Math.min(nextId.get(), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isFull() {
+        return nextId.get() >= capacity;
+    }
+
+    public boolean isEmpty() {
+        return nextId.get() == 0;
+    }
+
+    private Integer reserve(String term) {
+        while (true) {
+            int id = nextId.get();
+            if (id >= capacity) {
+                return null;
+            }
+            if (nextId.compareAndSet(id, id + 1)) {
+                terms.set(id, term);
+                return id;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mem0.exception;
+
+/**
+ * Exception thrown when a call is rejected because the circuit breaker of its provider is open
+ * 
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public class CircuitBreakerOpenException extends Mem0Exception {
+    
+    public CircuitBreakerOpenException(String message) {
+        super(ErrorCode.SERVICE_UNAVAILABLE, message);
+    }
+}
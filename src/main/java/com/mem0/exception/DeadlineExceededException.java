@@ -0,0 +1,19 @@
+package com.mem0.exception;
+
+/**
+ * Exception thrown when a request runs out of its time budget
+ * 
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public class DeadlineExceededException extends Mem0Exception {
+    
+    public DeadlineExceededException(String message) {
+        super(ErrorCode.DEADLINE_EXCEEDED, message);
+    }
+    
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(ErrorCode.DEADLINE_EXCEEDED, message, cause);
+    }
+}
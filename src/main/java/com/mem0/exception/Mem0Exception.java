@@ -80,7 +80,9 @@ public class Mem0Exception extends RuntimeException {
         VECTOR_OPERATION_ERROR(5002, "Vector operation failed"),
         GRAPH_OPERATION_ERROR(5003, "Graph operation failed"),
         EMBEDDING_ERROR(5004, "Embedding generation failed"),
-        LLM_ERROR(5005, "LLM operation failed");
+        LLM_ERROR(5005, "LLM operation failed"),
+        SERVICE_UNAVAILABLE(5030, "Service unavailable"),
+        DEADLINE_EXCEEDED(5040, "Deadline exceeded");
         
         private final int code;
         private final String description;
@@ -7,6 +7,8 @@ import com.mem0.embedding.impl.SimpleTFIDFEmbeddingProvider;
 import com.mem0.llm.LLMProvider;
 import com.mem0.llm.impl.QwenLLMProvider;
 import com.mem0.llm.impl.RuleBasedLLMProvider;
+import com.mem0.resilience.ResilientEmbeddingProvider;
+import com.mem0.resilience.ResilientLLMProvider;
 import com.mem0.store.GraphStore;
 import com.mem0.store.VectorStore;
 import com.mem0.graph.impl.DefaultInMemoryGraphStore;
@@ -93,7 +95,9 @@ public class ProviderFactory {
             case "aliyun":
                 if (config.getApiKey() != null && !config.getApiKey().trim().isEmpty()) {
                     logger.debug("Creating Aliyun EmbeddingProvider");
-                    return new AliyunEmbeddingProvider(config.getApiKey());
+                    // 重试由容错层以抖动退避完成，内层只尝试一次
+                    return new ResilientEmbeddingProvider(
+                        new AliyunEmbeddingProvider(config.getApiKey(), null, null, 0, 1));
                 } else {
                     logger.warn("Aliyun API key not provided, falling back to TFIDF");
                     return new SimpleTFIDFEmbeddingProvider();
@@ -131,7 +135,7 @@ public class ProviderFactory {
             case "qwen":
                 if (config.getApiKey() != null && !config.getApiKey().trim().isEmpty()) {
                     logger.debug("Creating Qwen LLMProvider");
-                    return new QwenLLMProvider(config.getApiKey());
+                    return new ResilientLLMProvider(new QwenLLMProvider(config.getApiKey()));
                 } else {
                     logger.warn("Qwen API key not provided, falling back to RuleBased");
                     return new RuleBasedLLMProvider();
@@ -0,0 +1,777 @@
+package com.mem0.graph.impl;
+
+import com.mem0.store.GraphStore.PageRankOptions;
+import com.mem0.util.IntBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * 图邻接索引 / Graph Adjacency Index
+ *
+ * <p>为图存储提供遍历内核：节点与关系类型映射为int编号，每个节点按关系类型分组保存出边与入边的
+ * 紧凑int数组。写入只修改对应节点的分组；遍历按层展开有界深度的前沿，以 {@link IntBitmap} 记录
+ * 已访问节点，因此一次k跳遍历的代价只与实际触达的边数成正比，而与全图关系数无关。</p>
+ *
+ * <p>对读多写少的图，当快照过期后的连续遍历次数达到阈值时，会把邻接表压缩为不可变的CSR
+ * （compressed sparse row）快照：每个方向一组偏移数组与按类型排序的邻居数组。之后的遍历无锁地
+ * 读取快照，任一写入都会使其失效并回退到带读锁的可变邻接表。</p>
+ *
+ * <p>Traversal core for graph stores. Node and relationship-type ids are interned to ints, and each
+ * node keeps compact int arrays of outgoing and incoming neighbours grouped by relationship type.
+ * Writes touch only the affected node's group; traversals expand a depth-bounded frontier level by
+ * level and track visited nodes in an {@link IntBitmap}, so a k-hop traversal costs the edges it
+ * actually touches rather than the size of the graph.</p>
+ *
+ * <p>For read-mostly graphs, once enough traversals have run against a stale snapshot the adjacency
+ * lists are compacted into an immutable CSR (compressed sparse row) snapshot: per direction, one
+ * offset array and a neighbour array sorted by type within each node. Later traversals read the
+ * snapshot without locking; any write invalidates it and traversals fall back to the mutable lists
+ * under a read lock.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class AdjacencyIndex {
+
+    /**
+     * 遍历方向 / Traversal direction
+     */
+    public enum Direction {
+        /** 沿出边 / follow outgoing edges */
+        OUTGOING,
+        /** 沿入边 / follow incoming edges */
+        INCOMING,
+        /** 忽略方向 / follow edges either way */
+        BOTH
+    }
+
+    /** 快照过期后触发CSR压缩的默认遍历次数 / Default traversals on a stale snapshot before compacting */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 32;
+
+    static final int ANY_TYPE = -1;
+    static final int NO_TYPE = -2;
+
+    private final int compactionThreshold;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 以下字段由lock保护 / guarded by lock
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private final Map<String, int[]> edges = new HashMap<>();
+    private String[] nodeNames = new String[64];
+    private EdgeBuckets[] outgoing = new EdgeBuckets[64];
+    private EdgeBuckets[] incoming = new EdgeBuckets[64];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextNodeId;
+
+    private volatile long version;
+    private volatile Csr csr;
+    private final AtomicInteger staleTraversals = new AtomicInteger();
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+    public AdjacencyIndex() {
+        this(DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param compactionThreshold 快照过期后触发压缩的遍历次数，0表示从不自动压缩 /
+     *                            traversals on a stale snapshot before compacting, 0 disables it
+     */
+    public AdjacencyIndex(int compactionThreshold) {
+        if (compactionThreshold < 0) {
+            throw new IllegalArgumentException("compaction threshold must not be negative: " + compactionThreshold);
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    // ---------------------------------------------------------------- writes
+
+    /**
+     * 添加一条有向边；重复的关系ID会被忽略 / Add a directed edge; a known relationship id is ignored.
+     */
+    public void addEdge(String relationshipId, String fromNodeId, String toNodeId, String type) {
+        lock.writeLock().lock();
+        try {
+            if (edges.containsKey(relationshipId)) {
+                return;
+            }
+            int from = internNode(fromNodeId);
+            int to = internNode(toNodeId);
+            int typeId = internType(type);
+            edges.put(relationshipId, new int[]{from, to, typeId});
+            buckets(outgoing, from).add(typeId, to);
+            buckets(incoming, to).add(typeId, from);
+            markModified();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除一条边 / Remove an edge.
+     *
+     * @return 边是否存在 / whether the edge was indexed
+     */
+    public boolean removeEdge(String relationshipId) {
+        lock.writeLock().lock();
+        try {
+            int[] edge = edges.remove(relationshipId);
+            if (edge == null) {
+                return false;
+            }
+            outgoing[edge[0]].remove(edge[2], edge[1]);
+            incoming[edge[1]].remove(edge[2], edge[0]);
+            markModified();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除节点及其全部边，并回收其编号 / Remove a node with all of its edges and recycle its id.
+     */
+    public void removeNode(String nodeId) {
+        lock.writeLock().lock();
+        try {
+            Integer id = nodeIds.remove(nodeId);
+            if (id == null) {
+                return;
+            }
+            if (hasEdges(id)) {
+                edges.values().removeIf(edge -> {
+                    if (edge[0] != id && edge[1] != id) {
+                        return false;
+                    }
+                    if (edge[0] != id) {
+                        outgoing[edge[0]].remove(edge[2], id);
+                    }
+                    if (edge[1] != id) {
+                        incoming[edge[1]].remove(edge[2], id);
+                    }
+                    return true;
+                });
+            }
+            nodeNames[id] = null;
+            outgoing[id] = null;
+            incoming[id] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = id;
+            markModified();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nodeIds.clear();
+            typeIds.clear();
+            edges.clear();
+            nodeNames = new String[64];
+            outgoing = new EdgeBuckets[64];
+            incoming = new EdgeBuckets[64];
+            freeCount = 0;
+            nextNodeId = 0;
+            markModified();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- traversal
+
+    /**
+     * 广度优先遍历，按距离返回节点ID / Breadth-first traversal returning node ids by distance.
+     *
+     * @param startNodeId  起点 / start node
+     * @param type         关系类型，null表示任意类型 / relationship type, null for any
+     * @param direction    遍历方向 / traversal direction
+     * @param maxDepth     最大跳数 / maximum hops
+     * @param includeStart 结果是否包含起点 / whether the start node is part of the result
+     */
+    public List<String> breadthFirst(String startNodeId, String type, Direction direction,
+                                     int maxDepth, boolean includeStart) {
+        Csr snapshot = acquireSnapshot();
+        if (snapshot != null) {
+            return breadthFirst(snapshot, snapshot.nodeIds.get(startNodeId), snapshot.typeIdOf(type),
+                startNodeId, direction, maxDepth, includeStart);
+        }
+        lock.readLock().lock();
+        try {
+            return breadthFirst(mutableView(), nodeIds.get(startNodeId), typeIdOf(typeIds, type),
+                startNodeId, direction, maxDepth, includeStart);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 深度优先遍历（先序），结果包含起点 / Pre-order depth-first traversal, start node included.
+     * 顺序与按邻接顺序递归的DFS一致 / Visits nodes in the same order as a recursive DFS over
+     * adjacency order.
+     */
+    public List<String> depthFirst(String startNodeId, String type, Direction direction, int maxDepth) {
+        Csr snapshot = acquireSnapshot();
+        if (snapshot != null) {
+            return depthFirst(snapshot, snapshot.nodeIds.get(startNodeId), snapshot.typeIdOf(type),
+                startNodeId, direction, maxDepth);
+        }
+        lock.readLock().lock();
+        try {
+            return depthFirst(mutableView(), nodeIds.get(startNodeId), typeIdOf(typeIds, type),
+                startNodeId, direction, maxDepth);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 直接邻居，平行边会重复出现 / Direct neighbours; parallel edges appear once per edge.
+     */
+    public List<String> neighbors(String nodeId, String type, Direction direction) {
+        List<String> result = new ArrayList<>();
+        Csr snapshot = acquireSnapshot();
+        if (snapshot != null) {
+            Integer id = snapshot.nodeIds.get(nodeId);
+            if (id != null) {
+                snapshot.forEachNeighbor(id, snapshot.typeIdOf(type), direction,
+                    n -> result.add(snapshot.names[n]));
+            }
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            Integer id = nodeIds.get(nodeId);
+            if (id != null) {
+                mutableView().forEachNeighbor(id, typeIdOf(typeIds, type), direction,
+                    n -> result.add(nodeNames[n]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 以前推法近似个性化PageRank，忽略边的方向 / Approximate personalised PageRank by forward push,
+     * treating edges as undirected.
+     *
+     * @see PushPageRank
+     */
+    public Map<String, Double> personalizedPageRank(Map<String, Double> seeds, PageRankOptions options) {
+        Csr snapshot = acquireSnapshot();
+        if (snapshot != null) {
+            return PushPageRank.run(snapshot, snapshot.nodeIds, snapshot.typeIdOf(options.getRelationshipType()),
+                seeds, options);
+        }
+        lock.readLock().lock();
+        try {
+            return PushPageRank.run(mutableView(), nodeIds, typeIdOf(typeIds, options.getRelationshipType()),
+                seeds, options);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 立即把当前邻接表压缩为CSR快照 / Compact the current adjacency lists into a CSR snapshot now.
+     */
+    public void compact() {
+        lock.readLock().lock();
+        try {
+            csr = buildCsr();
+            staleTraversals.set(0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前遍历是否读取最新的CSR快照 / Whether traversals currently read an up-to-date CSR snapshot.
+     */
+    public boolean isCompacted() {
+        Csr snapshot = csr;
+        return snapshot != null && snapshot.version == version;
+    }
+
+    public int getNodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return edges.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- internals
+
+    private static List<String> breadthFirst(View view, Integer start, int type, String startNodeId,
+                                             Direction direction, int maxDepth, boolean includeStart) {
+        List<String> result = new ArrayList<>();
+        if (includeStart && maxDepth >= 0) {
+            result.add(startNodeId);
+        }
+        if (start == null || type == NO_TYPE) {
+            return result;
+        }
+
+        IntBitmap visited = new IntBitmap();
+        visited.add(start);
+        // queue[head, levelEnd) 为当前层前沿，展开出的节点追加在其后 / queue[head, levelEnd) is the
+        // current frontier; nodes discovered while expanding it are appended behind it
+        IntList queue = new IntList();
+        queue.add(start);
+        IntConsumer expand = n -> {
+            if (visited.add(n)) {
+                queue.add(n);
+                result.add(view.nameOf(n));
+            }
+        };
+        int head = 0;
+        for (int depth = 1; depth <= maxDepth && head < queue.size; depth++) {
+            int levelEnd = queue.size;
+            while (head < levelEnd) {
+                view.forEachNeighbor(queue.values[head++], type, direction, expand);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> depthFirst(View view, Integer start, int type, String startNodeId,
+                                           Direction direction, int maxDepth) {
+        if (maxDepth < 0) {
+            return new ArrayList<>();
+        }
+        if (start == null || type == NO_TYPE) {
+            return new ArrayList<>(Collections.singletonList(startNodeId));
+        }
+
+        List<String> result = new ArrayList<>();
+        IntBitmap visited = new IntBitmap();
+        // 栈中交替存放节点与深度 / the stack holds (node, depth) pairs
+        IntList stack = new IntList();
+        IntList children = new IntList();
+        IntConsumer collect = children::add;
+        stack.add(start);
+        stack.add(0);
+        while (stack.size > 0) {
+            int depth = stack.values[--stack.size];
+            int node = stack.values[--stack.size];
+            if (!visited.add(node)) {
+                continue;
+            }
+            result.add(view.nameOf(node));
+            if (depth < maxDepth) {
+                children.size = 0;
+                view.forEachNeighbor(node, type, direction, collect);
+                // 逆序入栈以保持邻接顺序的先序访问 / push in reverse so neighbours pop in adjacency order
+                for (int i = children.size - 1; i >= 0; i--) {
+                    int child = children.values[i];
+                    if (!visited.contains(child)) {
+                        stack.add(child);
+                        stack.add(depth + 1);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Csr acquireSnapshot() {
+        Csr snapshot = csr;
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot;
+        }
+        if (compactionThreshold > 0 && staleTraversals.incrementAndGet() >= compactionThreshold
+                && compacting.compareAndSet(false, true)) {
+            try {
+                compact();
+                return csr;
+            } finally {
+                compacting.set(false);
+            }
+        }
+        return null;
+    }
+
+    private Csr buildCsr() {
+        int n = nextNodeId;
+        String[] names = Arrays.copyOf(nodeNames, n);
+        int[][] out = flatten(outgoing, n);
+        int[][] in = flatten(incoming, n);
+        return new Csr(version, new HashMap<>(nodeIds), new HashMap<>(typeIds), names,
+            out[0], out[1], out[2], in[0], in[1], in[2]);
+    }
+
+    /**
+     * 把分组邻接表展平为 {offsets, targets, types}，每个节点内部按类型升序 /
+     * Flatten grouped adjacency into {offsets, targets, types}, ascending type order within a node.
+     */
+    private static int[][] flatten(EdgeBuckets[] adjacency, int nodeCount) {
+        int[] offsets = new int[nodeCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            EdgeBuckets buckets = adjacency[node];
+            offsets[node + 1] = offsets[node] + (buckets == null ? 0 : buckets.degree());
+        }
+        int[] targets = new int[offsets[nodeCount]];
+        int[] types = new int[offsets[nodeCount]];
+        for (int node = 0; node < nodeCount; node++) {
+            EdgeBuckets buckets = adjacency[node];
+            if (buckets == null) {
+                continue;
+            }
+            int position = offsets[node];
+            for (int b : buckets.orderByType()) {
+                int size = buckets.sizes[b];
+                System.arraycopy(buckets.targets[b], 0, targets, position, size);
+                Arrays.fill(types, position, position + size, buckets.types[b]);
+                position += size;
+            }
+        }
+        return new int[][]{offsets, targets, types};
+    }
+
+    private void markModified() {
+        version++;
+        staleTraversals.set(0);
+    }
+
+    private boolean hasEdges(int id) {
+        return (outgoing[id] != null && outgoing[id].degree() > 0)
+            || (incoming[id] != null && incoming[id].degree() > 0);
+    }
+
+    private int internNode(String nodeId) {
+        Integer existing = nodeIds.get(nodeId);
+        if (existing != null) {
+            return existing;
+        }
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nextNodeId++;
+            if (id == nodeNames.length) {
+                int capacity = id * 2;
+                nodeNames = Arrays.copyOf(nodeNames, capacity);
+                outgoing = Arrays.copyOf(outgoing, capacity);
+                incoming = Arrays.copyOf(incoming, capacity);
+            }
+        }
+        nodeIds.put(nodeId, id);
+        nodeNames[id] = nodeId;
+        return id;
+    }
+
+    private int internType(String type) {
+        String key = type == null ? "" : type;
+        Integer existing = typeIds.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int id = typeIds.size();
+        typeIds.put(key, id);
+        return id;
+    }
+
+    private static int typeIdOf(Map<String, Integer> typeIds, String type) {
+        if (type == null) {
+            return ANY_TYPE;
+        }
+        Integer id = typeIds.get(type);
+        return id == null ? NO_TYPE : id;
+    }
+
+    private static EdgeBuckets buckets(EdgeBuckets[] adjacency, int node) {
+        EdgeBuckets buckets = adjacency[node];
+        if (buckets == null) {
+            buckets = new EdgeBuckets();
+            adjacency[node] = buckets;
+        }
+        return buckets;
+    }
+
+    private View mutableView() {
+        final String[] names = nodeNames;
+        final EdgeBuckets[] out = outgoing;
+        final EdgeBuckets[] in = incoming;
+        return new View() {
+            @Override
+            public String nameOf(int node) {
+                return names[node];
+            }
+
+            @Override
+            public void forEachNeighbor(int node, int type, Direction direction, IntConsumer consumer) {
+                if (direction != Direction.INCOMING && out[node] != null) {
+                    out[node].forEach(type, consumer);
+                }
+                if (direction != Direction.OUTGOING && in[node] != null) {
+                    in[node].forEach(type, consumer);
+                }
+            }
+
+            @Override
+            public int degree(int node, int type, Direction direction) {
+                int degree = 0;
+                if (direction != Direction.INCOMING && out[node] != null) {
+                    degree += out[node].degree(type);
+                }
+                if (direction != Direction.OUTGOING && in[node] != null) {
+                    degree += in[node].degree(type);
+                }
+                return degree;
+            }
+        };
+    }
+
+    /**
+     * 遍历算法读取的邻接视图 / Adjacency view read by traversal algorithms.
+     */
+    interface View {
+        String nameOf(int node);
+
+        void forEachNeighbor(int node, int type, Direction direction, IntConsumer consumer);
+
+        int degree(int node, int type, Direction direction);
+    }
+
+    /**
+     * 单个节点某一方向的边，按类型分组 / One node's edges in one direction, grouped by type.
+     * 节点通常只有少量关系类型，线性查找分组即可 / Nodes carry few types, so groups are found linearly.
+     */
+    private static final class EdgeBuckets {
+        int[] types = new int[1];
+        int[][] targets = new int[1][];
+        int[] sizes = new int[1];
+        int count;
+        int degree;
+
+        void add(int type, int target) {
+            int b = indexOf(type);
+            if (b < 0) {
+                if (count == types.length) {
+                    types = Arrays.copyOf(types, count * 2);
+                    targets = Arrays.copyOf(targets, count * 2);
+                    sizes = Arrays.copyOf(sizes, count * 2);
+                }
+                b = count++;
+                types[b] = type;
+                targets[b] = new int[4];
+            } else if (sizes[b] == targets[b].length) {
+                targets[b] = Arrays.copyOf(targets[b], sizes[b] * 2);
+            }
+            targets[b][sizes[b]++] = target;
+            degree++;
+        }
+
+        void remove(int type, int target) {
+            int b = indexOf(type);
+            if (b < 0) {
+                return;
+            }
+            int[] list = targets[b];
+            for (int i = 0; i < sizes[b]; i++) {
+                if (list[i] == target) {
+                    // 保持邻接顺序 / keep adjacency order stable
+                    System.arraycopy(list, i + 1, list, i, sizes[b] - i - 1);
+                    sizes[b]--;
+                    degree--;
+                    return;
+                }
+            }
+        }
+
+        void forEach(int type, IntConsumer consumer) {
+            for (int b = 0; b < count; b++) {
+                if (type != ANY_TYPE && types[b] != type) {
+                    continue;
+                }
+                int[] list = targets[b];
+                for (int i = 0, size = sizes[b]; i < size; i++) {
+                    consumer.accept(list[i]);
+                }
+            }
+        }
+
+        int degree() {
+            return degree;
+        }
+
+        int degree(int type) {
+            if (type == ANY_TYPE) {
+                return degree;
+            }
+            int b = indexOf(type);
+            return b < 0 ? 0 : sizes[b];
+        }
+
+        int[] orderByType() {
+            Integer[] order = new Integer[count];
+            for (int b = 0; b < count; b++) {
+                order[b] = b;
+            }
+            Arrays.sort(order, (x, y) -> Integer.compare(types[x], types[y]));
+            int[] result = new int[count];
+            for (int b = 0; b < count; b++) {
+                result[b] = order[b];
+            }
+            return result;
+        }
+
+        private int indexOf(int type) {
+            for (int b = 0; b < count; b++) {
+                if (types[b] == type) {
+                    return b;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 不可变CSR快照 / Immutable CSR snapshot.
+     */
+    private static final class Csr implements View {
+        final long version;
+        final Map<String, Integer> nodeIds;
+        final Map<String, Integer> typeIds;
+        final String[] names;
+        final int[] outOffsets;
+        final int[] outTargets;
+        final int[] outTypes;
+        final int[] inOffsets;
+        final int[] inTargets;
+        final int[] inTypes;
+
+        Csr(long version, Map<String, Integer> nodeIds, Map<String, Integer> typeIds, String[] names,
+            int[] outOffsets, int[] outTargets, int[] outTypes,
+            int[] inOffsets, int[] inTargets, int[] inTypes) {
+            this.version = version;
+            this.nodeIds = nodeIds;
+            this.typeIds = typeIds;
+            this.names = names;
+            this.outOffsets = outOffsets;
+            this.outTargets = outTargets;
+            this.outTypes = outTypes;
+            this.inOffsets = inOffsets;
+            this.inTargets = inTargets;
+            this.inTypes = inTypes;
+        }
+
+        int typeIdOf(String type) {
+            return AdjacencyIndex.typeIdOf(typeIds, type);
+        }
+
+        @Override
+        public String nameOf(int node) {
+            return names[node];
+        }
+
+        @Override
+        public void forEachNeighbor(int node, int type, Direction direction, IntConsumer consumer) {
+            if (direction != Direction.INCOMING) {
+                scan(outOffsets, outTargets, outTypes, node, type, consumer);
+            }
+            if (direction != Direction.OUTGOING) {
+                scan(inOffsets, inTargets, inTypes, node, type, consumer);
+            }
+        }
+
+        @Override
+        public int degree(int node, int type, Direction direction) {
+            int degree = 0;
+            if (direction != Direction.INCOMING) {
+                degree += count(outOffsets, outTypes, node, type);
+            }
+            if (direction != Direction.OUTGOING) {
+                degree += count(inOffsets, inTypes, node, type);
+            }
+            return degree;
+        }
+
+        private static void scan(int[] offsets, int[] targets, int[] types, int node, int type,
+                                 IntConsumer consumer) {
+            int to = offsets[node + 1];
+            for (int i = rangeStart(offsets, types, node, type); i < to; i++) {
+                if (type != ANY_TYPE && types[i] != type) {
+                    return;
+                }
+                consumer.accept(targets[i]);
+            }
+        }
+
+        private static int count(int[] offsets, int[] types, int node, int type) {
+            int to = offsets[node + 1];
+            if (type == ANY_TYPE) {
+                return to - offsets[node];
+            }
+            int i = rangeStart(offsets, types, node, type);
+            int start = i;
+            while (i < to && types[i] == type) {
+                i++;
+            }
+            return i - start;
+        }
+
+        /**
+         * 节点内按类型有序，二分定位该类型区段的起点 / Types are sorted within a node, so binary
+         * search finds where a type's run starts.
+         */
+        private static int rangeStart(int[] offsets, int[] types, int node, int type) {
+            int low = offsets[node];
+            if (type == ANY_TYPE) {
+                return low;
+            }
+            int high = offsets[node + 1];
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (types[mid] < type) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * 可增长的int数组 / Growable int array.
+     */
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.mem0.core.EnhancedMemory;
 import com.mem0.store.GraphStore;
 import com.mem0.store.GraphStore.GraphNode;
 import com.mem0.store.GraphStore.GraphRelationship;
+import com.mem0.store.Page;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -32,9 +33,12 @@ public class HighPerformanceGraphStore implements GraphStore {
     private final Map<String, List<String>> relationshipCache = new ConcurrentHashMap<>();
     
     // 索引结构
-    private final Map<String, Map<Object, Set<String>>> propertyIndex = new ConcurrentHashMap<>();
+    private final NodePropertyIndex propertyIndex = new NodePropertyIndex();
     private final Map<String, Set<String>> relationshipTypeIndex = new ConcurrentHashMap<>();
     
+    // 遍历用的int邻接表 / int adjacency lists used by traversals
+    private final AdjacencyIndex adjacency = new AdjacencyIndex();
+    
     // ID生成器
     private final AtomicLong relationshipIdCounter = new AtomicLong(0);
     
@@ -106,7 +110,12 @@ public class HighPerformanceGraphStore implements GraphStore {
             try {
                 String nodeId = "node_" + System.currentTimeMillis() + "_" + Math.random();
                 
-                MemoryNode node = new MemoryNode(nodeId, properties);
+                // 标签以"label"属性保存，与InMemoryGraphStore一致
+                Map<String, Object> nodeProperties = new HashMap<>(properties);
+                if (label != null) {
+                    nodeProperties.putIfAbsent("label", label);
+                }
+                MemoryNode node = new MemoryNode(nodeId, nodeProperties);
                 nodes.put(nodeId, node);
                 
                 // 更新用户索引
@@ -123,7 +132,7 @@ public class HighPerformanceGraphStore implements GraphStore {
                 }
                 
                 // 更新属性索引
-                updatePropertyIndex(nodeId, properties);
+                updatePropertyIndex(nodeId, node.properties);
                 
                 // 清理缓存
                 invalidateNodeCache(nodeId);
@@ -158,13 +167,12 @@ public class HighPerformanceGraphStore implements GraphStore {
             }
             
             // 更新属性索引
-            updatePropertyIndex(nodeId, properties);
+            updatePropertyIndex(nodeId, node.properties);
             
             // 清理缓存
             invalidateNodeCache(nodeId);
             
             totalNodeOperations++;
-            System.out.println("高性能GraphStore: 节点创建成功 " + nodeId);
         } catch (Exception e) {
             throw new RuntimeException("创建节点失败", e);
         }
@@ -179,15 +187,15 @@ public class HighPerformanceGraphStore implements GraphStore {
                     throw new RuntimeException("节点不存在: " + nodeId);
                 }
                 
-                // 更新属性（保留现有属性）
-                Map<String, Object> oldProperties = new HashMap<>(existingNode.properties);
-                existingNode.properties.putAll(properties);
+                // 更新属性（保留现有属性）并在节点分段锁内重建其索引项
+                synchronized (propertyIndex.lockFor(nodeId)) {
+                    Map<String, Object> oldProperties = new HashMap<>(existingNode.properties);
+                    existingNode.properties.putAll(properties);
+                    removeFromPropertyIndex(nodeId, oldProperties);
+                    updatePropertyIndex(nodeId, existingNode.properties);
+                }
                 existingNode.updateAccess();
                 
-                // 更新属性索引
-                removeFromPropertyIndex(nodeId, oldProperties);
-                updatePropertyIndex(nodeId, existingNode.properties);
-                
                 // 清理缓存
                 invalidateNodeCache(nodeId);
                 
@@ -225,9 +233,12 @@ public class HighPerformanceGraphStore implements GraphStore {
                     for (String relId : allRelationships) {
                         deleteRelationshipInternal(relId);
                     }
+                    adjacency.removeNode(nodeId);
                     
                     // 从属性索引中移除
-                    removeFromPropertyIndex(nodeId, node.properties);
+                    synchronized (propertyIndex.lockFor(nodeId)) {
+                        removeFromPropertyIndex(nodeId, node.properties);
+                    }
                     
                     // 清理缓存
                     invalidateNodeCache(nodeId);
@@ -262,6 +273,7 @@ public class HighPerformanceGraphStore implements GraphStore {
                 relationships.put(relationshipId, relationship);
                 fromNode.outgoingRelationships.add(relationshipId);
                 toNode.incomingRelationships.add(relationshipId);
+                adjacency.addEdge(relationshipId, sourceNodeId, targetNodeId, relationshipType);
                 
                 // 更新关系类型索引
                 relationshipTypeIndex.compute(relationshipType, (k, v) -> {
@@ -353,34 +365,52 @@ public class HighPerformanceGraphStore implements GraphStore {
                 }
                 
                 node.updateAccess();
-                String label = (String) node.properties.get("label");
-                List<String> labels = label != null ? Collections.singletonList(label) : Collections.emptyList();
-                
-                return new GraphNode(nodeId, labels, new HashMap<>(node.properties));
+                return toGraphNode(nodeId, node);
             } catch (Exception e) {
                 throw new RuntimeException("获取节点失败", e);
             }
         });
     }
     
+    @Override
+    public CompletableFuture<Map<String, GraphNode>> getNodes(Collection<String> nodeIds) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, GraphNode> result = new HashMap<>(nodeIds.size() * 2);
+            for (String nodeId : nodeIds) {
+                MemoryNode node = nodeId != null ? nodes.get(nodeId) : null;
+                if (node != null) {
+                    node.updateAccess();
+                    result.put(nodeId, toGraphNode(nodeId, node));
+                }
+            }
+            return result;
+        });
+    }
+    
+    private static GraphNode toGraphNode(String nodeId, MemoryNode node) {
+        String label = (String) node.properties.get("label");
+        List<String> labels = label != null ? Collections.singletonList(label) : Collections.emptyList();
+        return new GraphNode(nodeId, labels, new HashMap<>(node.properties));
+    }
+    
     // Helper method (not in interface)
     public CompletableFuture<List<Map<String, Object>>> findMemoriesByProperty(String propertyName, Object propertyValue, String userId) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                Set<String> candidateIds = getNodeIdsByProperty(propertyName, propertyValue);
-                Set<String> userNodeIds = userNodes.getOrDefault(userId, Collections.emptySet());
+                Map<String, Object> predicates = new HashMap<>();
+                predicates.put(propertyName, propertyValue);
+                predicates.put("userId", userId);
+                Collection<String> candidateIds = getNodeIdsByProperties(null, predicates);
                 
                 List<Map<String, Object>> results = new ArrayList<>();
                 
                 for (String nodeId : candidateIds) {
-                    if (userNodeIds.contains(nodeId)) {
-                        MemoryNode node = nodes.get(nodeId);
-                        if (node != null) {
-                            node.updateAccess();
-                            Map<String, Object> nodeData = new HashMap<>(node.properties);
-                            nodeData.put("id", nodeId);
-                            results.add(nodeData);
-                        }
+                    MemoryNode node = nodes.get(nodeId);
+                    if (node != null && matchesProperties(node, predicates)) {
+                        node.updateAccess();
+                        Map<String, Object> nodeData = new HashMap<>(node.properties);
+                        nodeData.put("id", nodeId);
+                        results.add(nodeData);
                     }
                 }
                 
@@ -403,34 +433,19 @@ public class HighPerformanceGraphStore implements GraphStore {
     public CompletableFuture<List<GraphNode>> getNodesByLabel(String label, Map<String, Object> properties) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                System.out.println("Getting nodes by label: " + label + " with properties: " + properties);
-                
-                List<GraphNode> results = new ArrayList<>();
+                totalQueries++;
+                Collection<String> candidateIds = getNodeIdsByProperties(label, properties);
                 
-                for (Map.Entry<String, MemoryNode> entry : nodes.entrySet()) {
-                    MemoryNode node = entry.getValue();
-                    
-                    // Check if label matches (stored as "label" property)
-                    if (!label.equals(node.properties.get("label"))) {
+                List<GraphNode> results = new ArrayList<>(candidateIds.size());
+                for (String nodeId : candidateIds) {
+                    MemoryNode node = nodes.get(nodeId);
+                    // 索引只保证可索引谓词，最终以节点当前属性复核
+                    if (node == null || !label.equals(node.properties.get("label"))
+                            || !matchesProperties(node, properties)) {
                         continue;
                     }
-                    
-                    // Check if all specified properties match
-                    boolean matches = true;
-                    if (properties != null) {
-                        for (Map.Entry<String, Object> prop : properties.entrySet()) {
-                            if (!Objects.equals(node.properties.get(prop.getKey()), prop.getValue())) {
-                                matches = false;
-                                break;
-                            }
-                        }
-                    }
-                    
-                    if (matches) {
-                        List<String> labels = Collections.singletonList(label);
-                        GraphNode graphNode = new GraphNode(entry.getKey(), labels, new HashMap<>(node.properties));
-                        results.add(graphNode);
-                    }
+                    List<String> labels = Collections.singletonList(label);
+                    results.add(new GraphNode(nodeId, labels, new HashMap<>(node.properties)));
                 }
                 
                 return results;
@@ -441,17 +456,45 @@ public class HighPerformanceGraphStore implements GraphStore {
         });
     }
     
+    @Override
+    public CompletableFuture<Page<GraphNode>> getNodesByLabelPage(String label, Map<String, Object> properties,
+                                                                 String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return CompletableFuture.supplyAsync(() -> {
+            totalQueries++;
+            Collection<String> candidateIds = getNodeIdsByProperties(label, properties);
+            // 先在ID上选出一页，只为页内节点复制属性 / pick the page on ids, copy properties for it only
+            Page<String> ids = Page.select(candidateIds, nodeId -> nodeId, nodeId -> {
+                MemoryNode node = nodes.get(nodeId);
+                return node != null && label.equals(node.properties.get("label"))
+                    && matchesProperties(node, properties);
+            }, pageToken, pageSize);
+            return ids.map(nodeId -> {
+                MemoryNode node = nodes.get(nodeId);
+                return node != null
+                    ? new GraphNode(nodeId, Collections.singletonList(label), new HashMap<>(node.properties))
+                    : null;
+            });
+        });
+    }
+    
     @Override
     public CompletableFuture<List<GraphNode>> findConnectedNodes(String nodeId, String relationshipType, int maxDepth) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                System.out.println("Finding connected nodes from: " + nodeId + " with relationship: " + relationshipType + " maxDepth: " + maxDepth);
-                
-                Set<String> visited = new HashSet<>();
-                List<GraphNode> results = new ArrayList<>();
-                
-                findConnectedNodesRecursive(nodeId, relationshipType, maxDepth, 0, visited, results);
-                
+                totalQueries++;
+                List<String> connected = adjacency.breadthFirst(
+                    nodeId, relationshipType, AdjacencyIndex.Direction.BOTH, maxDepth, false);
+                
+                List<GraphNode> results = new ArrayList<>(connected.size());
+                for (String connectedNodeId : connected) {
+                    MemoryNode node = nodes.get(connectedNodeId);
+                    if (node != null) {
+                        String label = (String) node.properties.get("label");
+                        List<String> labels = Collections.singletonList(label != null ? label : "Node");
+                        results.add(new GraphNode(connectedNodeId, labels, new HashMap<>(node.properties)));
+                    }
+                }
                 return results;
             } catch (Exception e) {
                 System.err.println("Failed to find connected nodes from: " + nodeId + ", error: " + e.getMessage());
@@ -460,37 +503,11 @@ public class HighPerformanceGraphStore implements GraphStore {
         });
     }
     
-    private void findConnectedNodesRecursive(String nodeId, String relationshipType, int maxDepth, int currentDepth, 
-                                           Set<String> visited, List<GraphNode> results) {
-        if (currentDepth >= maxDepth || visited.contains(nodeId)) {
-            return;
-        }
-        
-        visited.add(nodeId);
-        
-        // Find all relationships from this node
-        for (Relationship rel : relationships.values()) {
-            String connectedNodeId = null;
-            
-            if (rel.fromNodeId.equals(nodeId) && (relationshipType == null || relationshipType.equals(rel.type))) {
-                connectedNodeId = rel.toNodeId;
-            } else if (rel.toNodeId.equals(nodeId) && (relationshipType == null || relationshipType.equals(rel.type))) {
-                connectedNodeId = rel.fromNodeId;
-            }
-            
-            if (connectedNodeId != null && !visited.contains(connectedNodeId)) {
-                MemoryNode node = nodes.get(connectedNodeId);
-                if (node != null) {
-                    String label = (String) node.properties.get("label");
-                    List<String> labels = Collections.singletonList(label != null ? label : "Node");
-                    GraphNode graphNode = new GraphNode(connectedNodeId, labels, new HashMap<>(node.properties));
-                    results.add(graphNode);
-                    
-                    // Recursive call for next depth level
-                    findConnectedNodesRecursive(connectedNodeId, relationshipType, maxDepth, currentDepth + 1, visited, results);
-                }
-            }
-        }
+    @Override
+    public CompletableFuture<Map<String, Double>> personalizedPageRank(Map<String, Double> seeds,
+                                                                      PageRankOptions options) {
+        totalQueries++;
+        return CompletableFuture.completedFuture(adjacency.personalizedPageRank(seeds, options));
     }
     
     /**
@@ -517,55 +534,22 @@ public class HighPerformanceGraphStore implements GraphStore {
     }
     
     /**
-     * 图遍历 - 深度优先搜索
+     * 图遍历 - 深度优先搜索（忽略方向，结果包含起点）
      */
     public CompletableFuture<List<String>> depthFirstTraversal(String startNodeId, String relationshipType, int maxDepth) {
         return CompletableFuture.supplyAsync(() -> {
-            Set<String> visited = new HashSet<>();
-            List<String> result = new ArrayList<>();
-            
-            dfsInternal(startNodeId, relationshipType, maxDepth, 0, visited, result);
-            
-            return result;
+            totalQueries++;
+            return adjacency.depthFirst(startNodeId, relationshipType, AdjacencyIndex.Direction.BOTH, maxDepth);
         });
     }
     
     /**
-     * 图遍历 - 广度优先搜索
+     * 图遍历 - 广度优先搜索（忽略方向，结果包含起点）
      */
     public CompletableFuture<List<String>> breadthFirstTraversal(String startNodeId, String relationshipType, int maxDepth) {
         return CompletableFuture.supplyAsync(() -> {
-            Set<String> visited = new HashSet<>();
-            List<String> result = new ArrayList<>();
-            Queue<TraversalNode> queue = new LinkedList<>();
-            
-            queue.offer(new TraversalNode(startNodeId, 0));
-            visited.add(startNodeId);
-            
-            while (!queue.isEmpty()) {
-                TraversalNode current = queue.poll();
-                result.add(current.nodeId);
-                
-                if (current.depth < maxDepth) {
-                    List<GraphRelationship> relationships = getRelationships(current.nodeId, relationshipType).join();
-                    List<String> related = new ArrayList<>();
-                    for (GraphRelationship rel : relationships) {
-                        if (rel.getSourceNodeId().equals(current.nodeId)) {
-                            related.add(rel.getTargetNodeId());
-                        } else {
-                            related.add(rel.getSourceNodeId());
-                        }
-                    }
-                    for (String relatedId : related) {
-                        if (!visited.contains(relatedId)) {
-                            visited.add(relatedId);
-                            queue.offer(new TraversalNode(relatedId, current.depth + 1));
-                        }
-                    }
-                }
-            }
-            
-            return result;
+            totalQueries++;
+            return adjacency.breadthFirst(startNodeId, relationshipType, AdjacencyIndex.Direction.BOTH, maxDepth, true);
         });
     }
     
@@ -595,6 +579,7 @@ public class HighPerformanceGraphStore implements GraphStore {
             userNodes.clear();
             propertyIndex.clear();
             relationshipTypeIndex.clear();
+            adjacency.clear();
             
             System.out.println("图存储关闭完成");
             return null;
@@ -688,6 +673,7 @@ public class HighPerformanceGraphStore implements GraphStore {
             userNodes.clear();
             propertyIndex.clear();
             relationshipTypeIndex.clear();
+            adjacency.clear();
             nodeCache.clear();
             relationshipCache.clear();
             return null;
@@ -705,55 +691,50 @@ public class HighPerformanceGraphStore implements GraphStore {
     // 私有辅助方法
     
     private void updatePropertyIndex(String nodeId, Map<String, Object> properties) {
-        synchronized (propertyIndex) {
-            for (Map.Entry<String, Object> entry : properties.entrySet()) {
-                String propName = entry.getKey();
-                Object propValue = entry.getValue();
-                
-                propertyIndex.computeIfAbsent(propName, k -> new ConcurrentHashMap<>())
-                    .computeIfAbsent(propValue, k -> ConcurrentHashMap.newKeySet())
-                    .add(nodeId);
-            }
-        }
+        propertyIndex.add(nodeId, labelOf(properties), properties);
     }
     
     private void removeFromPropertyIndex(String nodeId, Map<String, Object> properties) {
-        synchronized (propertyIndex) {
-            for (Map.Entry<String, Object> entry : properties.entrySet()) {
-                String propName = entry.getKey();
-                Object propValue = entry.getValue();
-                
-                Map<Object, Set<String>> propMap = propertyIndex.get(propName);
-                if (propMap != null) {
-                    Set<String> nodeSet = propMap.get(propValue);
-                    if (nodeSet != null) {
-                        nodeSet.remove(nodeId);
-                        if (nodeSet.isEmpty()) {
-                            propMap.remove(propValue);
-                            if (propMap.isEmpty()) {
-                                propertyIndex.remove(propName);
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        propertyIndex.remove(nodeId, labelOf(properties), properties);
+    }
+    
+    private static String labelOf(Map<String, Object> properties) {
+        Object label = properties.get("label");
+        return label instanceof String ? (String) label : null;
+    }
+    
+    /**
+     * 通过索引交集获取候选节点；没有可用索引时退化为全部节点
+     */
+    private Collection<String> getNodeIdsByProperties(String label, Map<String, Object> properties) {
+        Collection<String> candidates = propertyIndex.candidates(label, properties);
+        return candidates != null ? candidates : new ArrayList<>(nodes.keySet());
     }
     
-    private Set<String> getNodeIdsByProperty(String propertyName, Object propertyValue) {
-        synchronized (propertyIndex) {
-            Map<Object, Set<String>> propMap = propertyIndex.get(propertyName);
-            if (propMap != null) {
-                Set<String> nodeSet = propMap.get(propertyValue);
-                return nodeSet != null ? new HashSet<>(nodeSet) : Collections.emptySet();
+    private static boolean matchesProperties(MemoryNode node, Map<String, Object> properties) {
+        if (properties != null) {
+            for (Map.Entry<String, Object> prop : properties.entrySet()) {
+                if (!Objects.equals(node.properties.get(prop.getKey()), prop.getValue())) {
+                    return false;
+                }
             }
-            return Collections.emptySet();
         }
+        return true;
     }
     
     private void deleteRelationshipInternal(String relationshipId) {
         Relationship rel = relationships.remove(relationshipId);
         if (rel != null) {
+            MemoryNode fromNode = nodes.get(rel.fromNodeId);
+            if (fromNode != null) {
+                fromNode.outgoingRelationships.remove(relationshipId);
+            }
+            MemoryNode toNode = nodes.get(rel.toNodeId);
+            if (toNode != null) {
+                toNode.incomingRelationships.remove(relationshipId);
+            }
+            adjacency.removeEdge(relationshipId);
+            
             // 从关系类型索引中移除
             Set<String> typeSet = relationshipTypeIndex.get(rel.type);
             if (typeSet != null) {
@@ -776,43 +757,6 @@ public class HighPerformanceGraphStore implements GraphStore {
         relationshipCache.clear(); // 在实际应用中可以更精确地失效相关缓存
     }
     
-    private void dfsInternal(String nodeId, String relationshipType, int maxDepth, int currentDepth, 
-                           Set<String> visited, List<String> result) {
-        if (currentDepth > maxDepth || visited.contains(nodeId)) {
-            return;
-        }
-        
-        visited.add(nodeId);
-        result.add(nodeId);
-        
-        if (currentDepth < maxDepth) {
-            List<GraphRelationship> relationships = getRelationships(nodeId, relationshipType).join();
-            List<String> related = new ArrayList<>();
-            for (GraphRelationship rel : relationships) {
-                if (rel.getSourceNodeId().equals(nodeId)) {
-                    related.add(rel.getTargetNodeId());
-                } else {
-                    related.add(rel.getSourceNodeId());
-                }
-            }
-            for (String relatedId : related) {
-                dfsInternal(relatedId, relationshipType, maxDepth, currentDepth + 1, visited, result);
-            }
-        }
-    }
-    
-    // 辅助类
-    
-    private static class TraversalNode {
-        final String nodeId;
-        final int depth;
-        
-        TraversalNode(String nodeId, int depth) {
-            this.nodeId = nodeId;
-            this.depth = depth;
-        }
-    }
-    
     // Simple stats without external dependencies
     public static class GraphStoreStats {
         private final int totalNodes;
@@ -957,6 +901,20 @@ public class HighPerformanceGraphStore implements GraphStore {
         });
     }
     
+    @Override
+    public CompletableFuture<Page<EnhancedMemory>> getUserMemoriesPage(String userId, String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return CompletableFuture.supplyAsync(() -> {
+            totalQueries++;
+            Set<String> userMems = userMemories.get(userId);
+            if (userMems == null || userMems.isEmpty()) {
+                return Page.<EnhancedMemory>empty();
+            }
+            return Page.select(userMems, memoryId -> memoryId, memories::containsKey, pageToken, pageSize)
+                .map(memories::get);
+        });
+    }
+    
     @Override
     public CompletableFuture<List<EnhancedMemory>> getMemoryHistory(String userId) {
         return CompletableFuture.supplyAsync(() -> {
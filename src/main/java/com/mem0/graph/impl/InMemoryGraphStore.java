@@ -3,6 +3,7 @@ package com.mem0.graph.impl;
 import com.mem0.store.GraphStore;
 import com.mem0.store.GraphStore.GraphNode;
 import com.mem0.store.GraphStore.GraphRelationship;
+import com.mem0.store.Page;
 import com.mem0.core.EnhancedMemory;
 
 import java.util.*;
@@ -27,6 +28,8 @@ public class InMemoryGraphStore implements GraphStore {
     // Graph storage
     private final Map<String, Map<String, Object>> nodes = new ConcurrentHashMap<>();
     private final Map<String, GraphRelationship> relationships = new ConcurrentHashMap<>();
+    private final NodePropertyIndex nodeIndex = new NodePropertyIndex();
+    private final AdjacencyIndex adjacency = new AdjacencyIndex();
     
     // Memory-specific storage
     private final Map<String, EnhancedMemory> memories = new ConcurrentHashMap<>();
@@ -151,6 +154,19 @@ public class InMemoryGraphStore implements GraphStore {
         });
     }
     
+    @Override
+    public CompletableFuture<Page<EnhancedMemory>> getUserMemoriesPage(String userId, String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return CompletableFuture.supplyAsync(() -> {
+            Set<String> userMems = userMemories.get(userId);
+            if (userMems == null || userMems.isEmpty()) {
+                return Page.<EnhancedMemory>empty();
+            }
+            return Page.select(userMems, memoryId -> memoryId, memories::containsKey, pageToken, pageSize)
+                .map(memories::get);
+        });
+    }
+    
     /**
      * 获取内存历史记录
      */
@@ -211,6 +227,7 @@ public class InMemoryGraphStore implements GraphStore {
                 GraphRelationship relationship = new GraphRelationship(relationshipId, relationshipType,
                                                                       fromMemoryId, toMemoryId, properties);
                 relationships.put(relationshipId, relationship);
+                adjacency.addEdge(relationshipId, fromMemoryId, toMemoryId, relationshipType);
                 
                 // Add to memory relationships index
                 memoryRelationships.compute(fromMemoryId, (k, v) -> {
@@ -248,6 +265,7 @@ public class InMemoryGraphStore implements GraphStore {
             Map<String, Object> nodeProps = new HashMap<>(properties);
             nodeProps.put("label", label);
             nodes.put(nodeId, nodeProps);
+            nodeIndex.add(nodeId, label, nodeProps);
             return nodeId;
         });
     }
@@ -260,6 +278,7 @@ public class InMemoryGraphStore implements GraphStore {
             GraphRelationship relationship = new GraphRelationship(relationshipId, relationshipType, 
                                                                    sourceNodeId, targetNodeId, properties);
             relationships.put(relationshipId, relationship);
+            adjacency.addEdge(relationshipId, sourceNodeId, targetNodeId, relationshipType);
             return relationshipId;
         });
     }
@@ -268,41 +287,73 @@ public class InMemoryGraphStore implements GraphStore {
     public CompletableFuture<GraphNode> getNode(String nodeId) {
         return CompletableFuture.supplyAsync(() -> {
             Map<String, Object> nodeProps = nodes.get(nodeId);
-            if (nodeProps == null) {
-                return null;
+            return nodeProps == null ? null : toGraphNode(nodeId, nodeProps);
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, GraphNode>> getNodes(Collection<String> nodeIds) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, GraphNode> result = new HashMap<>(nodeIds.size() * 2);
+            for (String nodeId : nodeIds) {
+                Map<String, Object> nodeProps = nodeId != null ? nodes.get(nodeId) : null;
+                if (nodeProps != null) {
+                    result.put(nodeId, toGraphNode(nodeId, nodeProps));
+                }
             }
-            String label = (String) nodeProps.get("label");
-            List<String> labels = label != null ? Collections.singletonList(label) : Collections.emptyList();
-            return new GraphNode(nodeId, labels, nodeProps);
+            return result;
         });
     }
     
+    private static GraphNode toGraphNode(String nodeId, Map<String, Object> nodeProps) {
+        String label = (String) nodeProps.get("label");
+        List<String> labels = label != null ? Collections.singletonList(label) : Collections.emptyList();
+        return new GraphNode(nodeId, labels, nodeProps);
+    }
+    
     @Override
     public CompletableFuture<List<GraphNode>> getNodesByLabel(String label, Map<String, Object> properties) {
         return CompletableFuture.supplyAsync(() -> {
-            List<GraphNode> result = new ArrayList<>();
-            for (Map.Entry<String, Map<String, Object>> entry : nodes.entrySet()) {
-                Map<String, Object> nodeProps = entry.getValue();
-                if (label.equals(nodeProps.get("label"))) {
-                    boolean matches = true;
-                    if (properties != null) {
-                        for (Map.Entry<String, Object> prop : properties.entrySet()) {
-                            if (!Objects.equals(nodeProps.get(prop.getKey()), prop.getValue())) {
-                                matches = false;
-                                break;
-                            }
-                        }
-                    }
-                    if (matches) {
-                        List<String> labels = Collections.singletonList(label);
-                        result.add(new GraphNode(entry.getKey(), labels, nodeProps));
-                    }
+            Collection<String> candidates = nodeIndex.candidates(label, properties);
+            if (candidates == null) {
+                candidates = nodes.keySet();
+            }
+            List<GraphNode> result = new ArrayList<>(candidates.size());
+            for (String nodeId : candidates) {
+                Map<String, Object> nodeProps = nodes.get(nodeId);
+                // 索引只覆盖标量谓词，最终以节点当前属性复核
+                if (nodeProps != null && label.equals(nodeProps.get("label"))
+                        && matchesProperties(nodeProps, properties)) {
+                    List<String> labels = Collections.singletonList(label);
+                    result.add(new GraphNode(nodeId, labels, nodeProps));
                 }
             }
             return result;
         });
     }
     
+    @Override
+    public CompletableFuture<Page<GraphNode>> getNodesByLabelPage(String label, Map<String, Object> properties,
+                                                                 String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return CompletableFuture.supplyAsync(() -> {
+            Collection<String> candidates = nodeIndex.candidates(label, properties);
+            if (candidates == null) {
+                candidates = nodes.keySet();
+            }
+            // 先在ID上选出一页，只为页内节点构建结果 / pick the page on ids, build nodes for it only
+            Page<String> ids = Page.select(candidates, nodeId -> nodeId, nodeId -> {
+                Map<String, Object> nodeProps = nodes.get(nodeId);
+                return nodeProps != null && label.equals(nodeProps.get("label"))
+                    && matchesProperties(nodeProps, properties);
+            }, pageToken, pageSize);
+            return ids.map(nodeId -> {
+                Map<String, Object> nodeProps = nodes.get(nodeId);
+                return nodeProps != null ? new GraphNode(nodeId, Collections.singletonList(label), nodeProps) : null;
+            });
+        });
+    }
+    
     @Override
     public CompletableFuture<List<GraphRelationship>> getRelationships(String nodeId, String relationshipType) {
         return CompletableFuture.supplyAsync(() -> {
@@ -341,12 +392,22 @@ public class InMemoryGraphStore implements GraphStore {
         });
     }
     
+    @Override
+    public CompletableFuture<Map<String, Double>> personalizedPageRank(Map<String, Double> seeds,
+                                                                      PageRankOptions options) {
+        return CompletableFuture.completedFuture(adjacency.personalizedPageRank(seeds, options));
+    }
+    
     @Override
     public CompletableFuture<Void> updateNode(String nodeId, Map<String, Object> properties) {
         return CompletableFuture.supplyAsync(() -> {
             Map<String, Object> existingProps = nodes.get(nodeId);
             if (existingProps != null) {
-                existingProps.putAll(properties);
+                synchronized (nodeIndex.lockFor(nodeId)) {
+                    nodeIndex.remove(nodeId, labelOf(existingProps), existingProps);
+                    existingProps.putAll(properties);
+                    nodeIndex.add(nodeId, labelOf(existingProps), existingProps);
+                }
             }
             return null;
         });
@@ -366,12 +427,18 @@ public class InMemoryGraphStore implements GraphStore {
     @Override
     public CompletableFuture<Void> deleteNode(String nodeId) {
         return CompletableFuture.supplyAsync(() -> {
-            nodes.remove(nodeId);
+            Map<String, Object> removed = nodes.remove(nodeId);
+            if (removed != null) {
+                synchronized (nodeIndex.lockFor(nodeId)) {
+                    nodeIndex.remove(nodeId, labelOf(removed), removed);
+                }
+            }
             // Also remove related relationships
             relationships.entrySet().removeIf(entry -> {
                 GraphRelationship rel = entry.getValue();
                 return rel.getSourceNodeId().equals(nodeId) || rel.getTargetNodeId().equals(nodeId);
             });
+            adjacency.removeNode(nodeId);
             return null;
         });
     }
@@ -380,6 +447,7 @@ public class InMemoryGraphStore implements GraphStore {
     public CompletableFuture<Void> deleteRelationship(String relationshipId) {
         return CompletableFuture.supplyAsync(() -> {
             relationships.remove(relationshipId);
+            adjacency.removeEdge(relationshipId);
             return null;
         });
     }
@@ -641,6 +709,22 @@ public class InMemoryGraphStore implements GraphStore {
         return true;
     }
     
+    private static boolean matchesProperties(Map<String, Object> nodeProps, Map<String, Object> properties) {
+        if (properties != null) {
+            for (Map.Entry<String, Object> prop : properties.entrySet()) {
+                if (!Objects.equals(nodeProps.get(prop.getKey()), prop.getValue())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static String labelOf(Map<String, Object> nodeProps) {
+        Object label = nodeProps.get("label");
+        return label instanceof String ? (String) label : null;
+    }
+    
     private Map<String, Object> buildReturnResult(String nodeId, Map<String, Object> nodeProps, String returnPart) {
         Map<String, Object> result = new HashMap<>();
         
@@ -670,7 +754,9 @@ public class InMemoryGraphStore implements GraphStore {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 nodes.clear();
+                nodeIndex.clear();
                 relationships.clear();
+                adjacency.clear();
                 memories.clear();
                 userMemories.clear();
                 memoryRelationships.clear();
@@ -0,0 +1,218 @@
+package com.mem0.graph.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 节点标签/属性复合索引 / Node Label and Property Index
+ *
+ * <p>为内存图存储维护三类倒排表：{@code (label)}、{@code (label, property, value)} 复合键，以及
+ * 不限标签的 {@code (property, value)}。查询时由 {@link #candidates(String, Map)} 规划：取出每个
+ * 可索引谓词对应的倒排表，从最小的一张开始逐个探测其余倒排表求交集，代价与最小倒排表成正比。
+ * 例如按 {@code (EnhancedMemory, userId)} 查询只触达该用户的节点，而不是所有租户的节点。</p>
+ *
+ * <p>倒排表为并发集合，读取无锁；倒排表的创建与清理通过 {@link ConcurrentHashMap#compute} 原子
+ * 完成。同一节点的“读旧值-写新值”序列需要调用方持有 {@link #lockFor(String)} 返回的分段锁，
+ * 不同节点的维护分布在多个分段上并发进行。</p>
+ *
+ * <p>Maintains three kinds of postings for in-memory graph stores: {@code (label)}, composite
+ * {@code (label, property, value)} keys and label-agnostic {@code (property, value)} keys.
+ * {@link #candidates(String, Map)} plans a lookup by fetching the posting of every indexable
+ * predicate and intersecting them starting from the smallest, so the cost follows the smallest
+ * posting. A lookup on {@code (EnhancedMemory, userId)} therefore touches that user's nodes rather
+ * than every tenant's.</p>
+ *
+ * <p>Postings are concurrent sets read without locking; they are created and dropped atomically via
+ * {@link ConcurrentHashMap#compute}. Callers hold the stripe from {@link #lockFor(String)} around a
+ * node's read-old/write-new sequence, so maintenance of different nodes proceeds in parallel.</p>
+ *
+ * <p>只有标量值（字符串、数字、布尔、字符、枚举）会被索引；其余谓词由调用方在候选集上校验。
+ * Only scalar values (strings, numbers, booleans, characters, enums) are indexed; callers verify
+ * remaining predicates against the candidates.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class NodePropertyIndex {
+
+    private static final int STRIPES = 64;
+
+    private final Object[] stripes = new Object[STRIPES];
+    private final ConcurrentHashMap<IndexKey, Set<String>> postings = new ConcurrentHashMap<>();
+
+    public NodePropertyIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * 节点对应的分段锁 / Stripe lock guarding a node's index maintenance.
+     */
+    public Object lockFor(String nodeId) {
+        int h = nodeId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * 索引节点 / Index a node.
+     *
+     * @param label 节点标签，可为null / node label, may be null
+     */
+    public void add(String nodeId, String label, Map<String, Object> properties) {
+        if (label != null) {
+            addPosting(new IndexKey(label, null, null), nodeId);
+        }
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            if (!isIndexable(entry.getValue())) {
+                continue;
+            }
+            addPosting(new IndexKey(null, entry.getKey(), entry.getValue()), nodeId);
+            if (label != null) {
+                addPosting(new IndexKey(label, entry.getKey(), entry.getValue()), nodeId);
+            }
+        }
+    }
+
+    /**
+     * 移除节点的索引项，参数须与索引时一致 / Remove a node's postings; arguments must match those
+     * it was indexed with.
+     */
+    public void remove(String nodeId, String label, Map<String, Object> properties) {
+        if (label != null) {
+            removePosting(new IndexKey(label, null, null), nodeId);
+        }
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            if (!isIndexable(entry.getValue())) {
+                continue;
+            }
+            removePosting(new IndexKey(null, entry.getKey(), entry.getValue()), nodeId);
+            if (label != null) {
+                removePosting(new IndexKey(label, entry.getKey(), entry.getValue()), nodeId);
+            }
+        }
+    }
+
+    /**
+     * 规划并执行索引交集 / Plan and run an index intersection.
+     *
+     * @param label      标签，null表示不限 / label, or null for any label
+     * @param predicates 等值谓词，可为null / equality predicates, may be null
+     * @return 满足标签与全部可索引谓词的节点ID；没有任何可用索引时返回null，表示需要全量扫描 /
+     *         node ids matching the label and every indexable predicate, or null when nothing is
+     *         indexable and the caller must scan
+     */
+    public Collection<String> candidates(String label, Map<String, Object> predicates) {
+        List<Set<String>> lists = new ArrayList<>();
+        if (predicates != null) {
+            for (Map.Entry<String, Object> entry : predicates.entrySet()) {
+                if (!isIndexable(entry.getValue())) {
+                    continue;
+                }
+                Set<String> posting = postings.get(new IndexKey(label, entry.getKey(), entry.getValue()));
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(posting);
+            }
+        }
+        if (lists.isEmpty()) {
+            if (label == null) {
+                return null;
+            }
+            Set<String> posting = postings.get(new IndexKey(label, null, null));
+            return posting == null ? new ArrayList<>() : new ArrayList<>(posting);
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<String>[] ordered = lists.toArray(new Set[0]);
+        Arrays.sort(ordered, Comparator.comparingInt(Set::size));
+        List<String> result = new ArrayList<>(ordered[0].size());
+        for (String nodeId : ordered[0]) {
+            boolean matches = true;
+            for (int i = 1; i < ordered.length && matches; i++) {
+                matches = ordered[i].contains(nodeId);
+            }
+            if (matches) {
+                result.add(nodeId);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * 倒排表数量 / Number of postings.
+     */
+    public int size() {
+        return postings.size();
+    }
+
+    private void addPosting(IndexKey key, String nodeId) {
+        postings.compute(key, (k, set) -> {
+            Set<String> posting = set != null ? set : ConcurrentHashMap.newKeySet();
+            posting.add(nodeId);
+            return posting;
+        });
+    }
+
+    private void removePosting(IndexKey key, String nodeId) {
+        postings.computeIfPresent(key, (k, set) -> {
+            set.remove(nodeId);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    static boolean isIndexable(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+            || value instanceof Character || value instanceof Enum;
+    }
+
+    /**
+     * 倒排表键；label为null表示不限标签，property为null表示标签倒排表 /
+     * Posting key; a null label means any label and a null property means the label posting.
+     */
+    private static final class IndexKey {
+        final String label;
+        final String property;
+        final Object value;
+        final int hash;
+
+        IndexKey(String label, String property, Object value) {
+            this.label = label;
+            this.property = property;
+            this.value = value;
+            this.hash = Objects.hash(label, property, value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IndexKey)) {
+                return false;
+            }
+            IndexKey other = (IndexKey) obj;
+            return Objects.equals(label, other.label)
+                && Objects.equals(property, other.property)
+                && Objects.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.mem0.graph.impl;
+
+import com.mem0.store.GraphStore.PageRankOptions;
+import com.mem0.util.IntBitmap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * 前推法个性化PageRank / Forward-Push Personalised PageRank
+ *
+ * <p>Andersen-Chung-Lang前推近似：每个节点维护估计值p与残差r，初始残差放在种子上；当
+ * {@code r(u) >= epsilon * deg(u)} 时推送——p(u)获得 {@code alpha * r(u)}，其余均分给邻居的残差。
+ * 总推送次数不超过 {@code 1 / (alpha * epsilon)}，只触达种子附近的节点，与图规模无关；另外受
+ * 推送次数与时间预算的硬上限约束，超时即返回当前估计值。</p>
+ *
+ * <p>Andersen-Chung-Lang forward push: every node keeps an estimate p and a residual r, with the
+ * initial residual on the seeds. A node is pushed while {@code r(u) >= epsilon * deg(u)}: p(u)
+ * gains {@code alpha * r(u)} and the rest is split over the neighbours' residuals. The number of
+ * pushes is bounded by {@code 1 / (alpha * epsilon)} and only nodes near the seeds are touched,
+ * independent of graph size; hard caps on pushes and wall time return the current estimates early.</p>
+ *
+ * <p>状态保存在int键的开放寻址数组中，一次运行只分配少量数组 / State lives in int-keyed
+ * open-addressing arrays, so a run allocates only a handful of arrays.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+final class PushPageRank implements IntConsumer {
+
+    private static final int DEADLINE_CHECK_INTERVAL = 32;
+
+    private final AdjacencyIndex.View view;
+    private final int type;
+    private final double epsilon;
+    private final IntDoubleMap estimates = new IntDoubleMap();
+    private final IntDoubleMap residuals = new IntDoubleMap();
+    private final IntBitmap queued = new IntBitmap();
+    private int[] queue = new int[64];
+    private int head;
+    private int tail;
+    // 当前推送分给每个邻居的残差 / residual handed to each neighbour by the current push
+    private double share;
+
+    private PushPageRank(AdjacencyIndex.View view, int type, double epsilon) {
+        this.view = view;
+        this.type = type;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * @param view    邻接视图，调用期间须保持稳定 / adjacency view, stable for the call
+     * @param nodeIds 节点ID到int编号 / node id to int id mapping of the view
+     * @param type    关系类型编号 / relationship type id
+     */
+    static Map<String, Double> run(AdjacencyIndex.View view, Map<String, Integer> nodeIds, int type,
+                                   Map<String, Double> seeds, PageRankOptions options) {
+        Map<String, Double> result = new HashMap<>();
+        double total = 0.0;
+        for (Double weight : seeds.values()) {
+            total += weight != null && weight > 0 ? weight : 0.0;
+        }
+        if (total == 0.0 || type == AdjacencyIndex.NO_TYPE) {
+            return result;
+        }
+
+        PushPageRank state = new PushPageRank(view, type, options.getEpsilon());
+        for (Map.Entry<String, Double> seed : seeds.entrySet()) {
+            Integer id = nodeIds.get(seed.getKey());
+            Double weight = seed.getValue();
+            if (id != null && weight != null && weight > 0) {
+                state.residuals.add(id, weight / total);
+                state.enqueue(id);
+            }
+        }
+        state.push(options.getRestartProbability(), options.getMaxPushes(),
+            System.nanoTime() + options.getTimeBudgetNanos());
+        state.estimates.forEach((node, value) -> result.put(view.nameOf(node), value));
+        return result;
+    }
+
+    private void push(double alpha, int maxPushes, long deadline) {
+        int pushes = 0;
+        while (head != tail && pushes < maxPushes) {
+            if (pushes % DEADLINE_CHECK_INTERVAL == 0 && pushes > 0 && System.nanoTime() > deadline) {
+                return;
+            }
+            int node = dequeue();
+            double residual = residuals.get(node);
+            int degree = view.degree(node, type, AdjacencyIndex.Direction.BOTH);
+            if (degree == 0) {
+                // 悬挂节点保留全部残差 / dangling nodes keep their whole residual
+                estimates.add(node, residual);
+                residuals.put(node, 0.0);
+                continue;
+            }
+            if (residual < epsilon * degree) {
+                continue;
+            }
+            pushes++;
+            estimates.add(node, alpha * residual);
+            residuals.put(node, 0.0);
+            share = (1.0 - alpha) * residual / degree;
+            view.forEachNeighbor(node, type, AdjacencyIndex.Direction.BOTH, this);
+        }
+    }
+
+    @Override
+    public void accept(int neighbor) {
+        double residual = residuals.add(neighbor, share);
+        if (residual >= epsilon * Math.max(1, view.degree(neighbor, type, AdjacencyIndex.Direction.BOTH))) {
+            enqueue(neighbor);
+        }
+    }
+
+    private void enqueue(int node) {
+        if (!queued.add(node)) {
+            return;
+        }
+        if (tail == queue.length) {
+            if (head > queue.length / 2) {
+                System.arraycopy(queue, head, queue, 0, tail - head);
+                tail -= head;
+                head = 0;
+            } else {
+                queue = Arrays.copyOf(queue, queue.length * 2);
+            }
+        }
+        queue[tail++] = node;
+    }
+
+    private int dequeue() {
+        int node = queue[head++];
+        queued.remove(node);
+        return node;
+    }
+
+    /**
+     * int到double的开放寻址表，键须非负 / Open-addressing int-to-double map for non-negative keys.
+     */
+    private static final class IntDoubleMap {
+        private static final int EMPTY = -1;
+
+        private int[] keys = newKeys(64);
+        private double[] values = new double[64];
+        private int size;
+
+        double get(int key) {
+            int slot = find(key);
+            return keys[slot] == key ? values[slot] : 0.0;
+        }
+
+        void put(int key, double value) {
+            int slot = slotFor(key);
+            values[slot] = value;
+        }
+
+        double add(int key, double delta) {
+            int slot = slotFor(key);
+            values[slot] += delta;
+            return values[slot];
+        }
+
+        void forEach(IntDoubleConsumer consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    consumer.accept(keys[i], values[i]);
+                }
+            }
+        }
+
+        private int slotFor(int key) {
+            int slot = find(key);
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = find(key);
+            }
+            keys[slot] = key;
+            values[slot] = 0.0;
+            size++;
+            return slot;
+        }
+
+        private int find(int key) {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new double[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int[] newKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+
+    private interface IntDoubleConsumer {
+        void accept(int key, double value);
+    }
+}
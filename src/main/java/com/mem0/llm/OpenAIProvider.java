@@ -2,6 +2,7 @@ package com.mem0.llm;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mem0.performance.VirtualThreadSupport;
 import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -147,7 +148,7 @@ public class OpenAIProvider implements LLMProvider {
             } catch (Exception e) {
                 throw new CompletionException("Failed to generate completion", e);
             }
-        });
+        }, VirtualThreadSupport.blockingIoExecutor());
     }
     
     @Override
@@ -208,7 +209,7 @@ public class OpenAIProvider implements LLMProvider {
             } catch (Exception e) {
                 throw new CompletionException("Failed to generate chat completion", e);
             }
-        });
+        }, VirtualThreadSupport.blockingIoExecutor());
     }
     
     @Override
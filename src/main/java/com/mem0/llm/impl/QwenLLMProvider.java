@@ -1,6 +1,7 @@
 package com.mem0.llm.impl;
 
 import com.mem0.llm.LLMProvider;
+import com.mem0.performance.VirtualThreadSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import okhttp3.*;
@@ -147,7 +148,7 @@ public class QwenLLMProvider implements LLMProvider {
                 logger.error("千问文本生成失败", e);
                 throw new RuntimeException("千问文本生成失败: " + e.getMessage(), e);
             }
-        });
+        }, VirtualThreadSupport.blockingIoExecutor());
     }
 
     @Override
@@ -184,7 +185,7 @@ public class QwenLLMProvider implements LLMProvider {
                 logger.error("千问对话失败", e);
                 throw new RuntimeException("千问对话失败: " + e.getMessage(), e);
             }
-        });
+        }, VirtualThreadSupport.blockingIoExecutor());
     }
 
     @Override
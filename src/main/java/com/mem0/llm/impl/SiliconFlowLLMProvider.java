@@ -1,6 +1,7 @@
 package com.mem0.llm.impl;
 
 import com.mem0.llm.LLMProvider;
+import com.mem0.performance.VirtualThreadSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import okhttp3.*;
@@ -156,7 +157,7 @@ public class SiliconFlowLLMProvider implements LLMProvider {
                 logger.error("硅基流动文本生成失败", e);
                 throw new RuntimeException("硅基流动文本生成失败: " + e.getMessage(), e);
             }
-        });
+        }, VirtualThreadSupport.blockingIoExecutor());
     }
 
     @Override
@@ -192,7 +193,7 @@ public class SiliconFlowLLMProvider implements LLMProvider {
                 logger.error("硅基流动对话失败", e);
                 throw new RuntimeException("硅基流动对话失败: " + e.getMessage(), e);
             }
-        });
+        }, VirtualThreadSupport.blockingIoExecutor());
     }
 
     @Override
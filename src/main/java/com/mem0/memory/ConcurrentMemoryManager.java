@@ -3,8 +3,10 @@ package com.mem0.memory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.mem0.concurrency.cache.HighPerformanceCache;
+import com.mem0.constants.MemoryConstants;
 import com.mem0.concurrency.ConcurrencyController;
 import com.mem0.concurrency.ResourcePool;
+import com.mem0.concurrency.SingleFlight;
 import com.mem0.pipeline.AsyncMemoryPipeline;
 import com.mem0.monitoring.PerformanceMonitor;
 import com.mem0.memory.MemoryShard.MemoryShardStats;
@@ -13,16 +15,18 @@ import com.mem0.core.EnhancedMemory;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * 并发内存管理器
  * 提供高性能的内存创建、更新、查询、删除和生命周期管理
  * 支持内存分片、负载均衡、冲突解决和一致性保证
+ * 分片按一致性哈希环（虚拟节点）路由，负载过高的分片可在线拆分并迁移一半数据
  */
 public class ConcurrentMemoryManager {
     
@@ -34,9 +38,13 @@ public class ConcurrentMemoryManager {
     private final PerformanceMonitor performanceMonitor;
     
     // 分片管理
-    private final int shardCount;
-    private final MemoryShard[] shards;
-    private final ReadWriteLock shardLock = new ReentrantReadWriteLock();
+    private final Map<Integer, MemoryShard> shards = new ConcurrentHashMap<>();
+    private final AtomicInteger nextShardId = new AtomicInteger(0);
+    private final AtomicBoolean splitting = new AtomicBoolean(false);
+    private final int virtualNodesPerShard;
+    private final int shardSplitThreshold;
+    private final int maxShards;
+    private volatile ShardRouting routing;
     
     // 缓存层
     private final HighPerformanceCache<String, EnhancedMemory> memoryCache;
@@ -58,6 +66,10 @@ public class ConcurrentMemoryManager {
     private final AtomicLong totalDeleted = new AtomicLong(0);
     private final AtomicInteger conflictsResolved = new AtomicInteger(0);
     
+    // 相同用户的相同检索在进行中时合并，合并的请求不再占用并发控制的名额
+    private final SingleFlight<List<EnhancedMemory>> searches =
+        new SingleFlight<>("memory-manager-search", ArrayList::new);
+    
     // 批处理队列
     private final Map<String, List<MemoryOperation>> batchQueues = new ConcurrentHashMap<>();
     private final ScheduledExecutorService batchProcessor;
@@ -79,15 +91,18 @@ public class ConcurrentMemoryManager {
         this.pipeline = pipeline;
         this.concurrencyController = concurrencyController;
         this.performanceMonitor = performanceMonitor;
-        this.shardCount = shardCount;
         this.memoryTtlMs = memoryTtlMs;
         this.cleanupIntervalMs = cleanupIntervalMs;
+        this.virtualNodesPerShard = MemoryConstants.DEFAULT_VIRTUAL_NODES_PER_SHARD;
+        this.shardSplitThreshold = MemoryConstants.DEFAULT_SHARD_SPLIT_THRESHOLD;
+        this.maxShards = Math.max(shardCount, MemoryConstants.DEFAULT_MAX_SHARDS);
         
-        // 初始化分片
-        this.shards = new MemoryShard[shardCount];
+        // 初始化分片与哈希环
         for (int i = 0; i < shardCount; i++) {
-            this.shards[i] = new MemoryShard(i);
+            int shardId = nextShardId.getAndIncrement();
+            this.shards.put(shardId, new MemoryShard(shardId));
         }
+        this.routing = new ShardRouting(ConsistentHashRing.of(shards.keySet(), virtualNodesPerShard), null);
         
         // 初始化缓存
         this.memoryCache = new HighPerformanceCache<>(50000, memoryTtlMs, cleanupIntervalMs);
@@ -160,6 +175,15 @@ public class ConcurrentMemoryManager {
             return performanceMonitor.measureTime("memory_manager.batch_create", () -> {
                 logger.info("开始批量创建内存，批次ID: {}, 数量: {}", batchId, requests.size());
                 
+                // 大批量导入整体交给管道的环形缓冲区通道，分组会把它切成达不到阈值的小批次
+                if (requests.size() >= MemoryConstants.DEFAULT_BULK_INGEST_THRESHOLD) {
+                    return processUserBatch(null, requests).thenApply(results -> {
+                        performanceMonitor.incrementCounter("memory_manager.batch_create.success");
+                        logger.info("批量内存导入完成，批次ID: {}, 数量: {}", batchId, results.size());
+                        return results;
+                    });
+                }
+                
                 // 按用户分组以优化冲突检测
                 Map<String, List<MemoryCreationRequest>> userGroups = requests.stream()
                     .collect(Collectors.groupingBy(req -> req.getUserId()));
@@ -279,9 +303,12 @@ public class ConcurrentMemoryManager {
         return concurrencyController.executeControlledRequest("system", "getMemory", () -> {
             performanceMonitor.incrementCounter("memory_manager.get.requests");
             
-            // 从分片查找
-            MemoryShard shard = getShardForMemory(memoryId);
-            EnhancedMemory memory = shard.getMemory(memoryId);
+            // 从分片查找（迁移期间回退到源分片）
+            ShardRouting current = routing;
+            EnhancedMemory memory = getShardForMemory(current, memoryId).getMemory(memoryId);
+            if (memory == null && current.migrationSource != null) {
+                memory = current.migrationSource.getMemory(memoryId);
+            }
             
             if (memory != null) {
                 memoryCache.put(memoryId, memory);
@@ -299,6 +326,19 @@ public class ConcurrentMemoryManager {
      */
     public CompletableFuture<List<EnhancedMemory>> searchSimilarMemories(String query, String userId, 
                                                                         int limit, float threshold) {
+        return searches.execute(userId, SingleFlight.key(query, limit, threshold),
+            () -> searchControlled(query, userId, limit, threshold));
+    }
+    
+    /**
+     * 相同检索合并统计 / Search deduplication statistics
+     */
+    public SingleFlight.Stats getSearchDedupStats() {
+        return searches.getStats();
+    }
+    
+    private CompletableFuture<List<EnhancedMemory>> searchControlled(String query, String userId,
+                                                                    int limit, float threshold) {
         return concurrencyController.executeControlledRequest(userId, "searchMemories", () -> {
             performanceMonitor.incrementCounter("memory_manager.search.requests");
             
@@ -346,17 +386,20 @@ public class ConcurrentMemoryManager {
         return concurrencyController.executeControlledRequest(userId, "getUserMemories", () -> {
             performanceMonitor.incrementCounter("memory_manager.get_user_memories.requests");
             
-            List<EnhancedMemory> userMemories = new ArrayList<>();
-            List<String> memoryIds = new ArrayList<>();
-            
-            // 从所有分片收集用户内存
-            for (MemoryShard shard : shards) {
-                List<EnhancedMemory> shardMemories = shard.getUserMemories(userId);
-                userMemories.addAll(shardMemories);
-                memoryIds.addAll(shardMemories.stream()
-                    .map(EnhancedMemory::getId)
-                    .collect(Collectors.toList()));
+            // 从所有分片收集用户内存；迁移期间同一内存可能同时在两个分片，以路由到的分片为准
+            ShardRouting current = routing;
+            Map<String, EnhancedMemory> collected = new LinkedHashMap<>();
+            for (MemoryShard shard : shards.values()) {
+                for (EnhancedMemory memory : shard.getUserMemories(userId)) {
+                    if (getShardForMemory(current, memory.getId()) == shard) {
+                        collected.put(memory.getId(), memory);
+                    } else {
+                        collected.putIfAbsent(memory.getId(), memory);
+                    }
+                }
             }
+            List<EnhancedMemory> userMemories = new ArrayList<>(collected.values());
+            List<String> memoryIds = new ArrayList<>(collected.keySet());
             
             // 缓存用户内存ID列表
             userMemoryCache.put(userId, memoryIds);
@@ -372,7 +415,7 @@ public class ConcurrentMemoryManager {
      * 获取管理器统计信息
      */
     public MemoryManagerStats getStats() {
-        List<MemoryShardStats> shardStats = Arrays.stream(shards)
+        List<MemoryShardStats> shardStats = shards.values().stream()
             .map(MemoryShard::getStats)
             .collect(Collectors.toList());
         
@@ -396,8 +439,8 @@ public class ConcurrentMemoryManager {
         List<String> issues = new ArrayList<>();
         
         // 检查分片健康状态
-        for (MemoryShard shard : shards) {
-            if (shard.getMemoryCount() > 10000) { // 单分片内存过多
+        for (MemoryShard shard : shards.values()) {
+            if (shard.getMemoryCount() > shardSplitThreshold) { // 单分片内存过多
                 issues.add("分片 " + shard.getId() + " 内存数过多: " + shard.getMemoryCount());
             }
         }
@@ -444,7 +487,7 @@ public class ConcurrentMemoryManager {
                 conflictCache.shutdown();
                 
                 // 清理分片
-                for (MemoryShard shard : shards) {
+                for (MemoryShard shard : shards.values()) {
                     shard.clear();
                 }
                 
@@ -467,38 +510,111 @@ public class ConcurrentMemoryManager {
         batchProcessor.scheduleAtFixedRate(this::processBatchQueues, 
             1000, 1000, TimeUnit.MILLISECONDS);
             
-        // 定期重新平衡分片
+        // 定期检查分片负载，过热的分片在线拆分
         lifecycleExecutor.scheduleAtFixedRate(this::rebalanceShards, 
-            1800000, 1800000, TimeUnit.MILLISECONDS); // 30分钟
+            cleanupIntervalMs, cleanupIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在线拆分分片：新分片接管原分片一半的哈希环区间，对应内存在后台迁移，
+     * 迁移期间读写不阻塞
+     *
+     * @return 新分片ID；已有拆分在进行、分片不存在或达到分片上限时为-1
+     */
+    public CompletableFuture<Integer> splitShard(int shardId) {
+        if (isShutdown || !shards.containsKey(shardId) || shards.size() >= maxShards
+                || !splitting.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(-1);
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return doSplit(shardId);
+            } finally {
+                splitting.set(false);
+            }
+        }, lifecycleExecutor);
+    }
+
+    /**
+     * 获取当前分片数
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    private int doSplit(int shardId) {
+        long startTime = System.currentTimeMillis();
+        MemoryShard source = shards.get(shardId);
+        int newShardId = nextShardId.getAndIncrement();
+        MemoryShard target = new MemoryShard(newShardId);
+        shards.put(newShardId, target);
+        
+        ShardRouting previous = routing;
+        ConsistentHashRing ring = previous.ring.split(shardId, newShardId);
+        routing = new ShardRouting(ring, source);
+        // 等待仍按旧路由写入的操作结束，之后源分片不会再收到属于新分片的写入
+        previous.awaitWriters();
+        
+        int moved = source.migrateTo(target, memoryId -> ring.shardFor(memoryId) == newShardId);
+        routing = new ShardRouting(ring, null);
+        
+        performanceMonitor.incrementCounter("memory_manager.shard.split");
+        logger.info("分片拆分完成: {} -> {}, 迁移内存数: {}, 耗时: {}ms, 当前分片数: {}",
+            shardId, newShardId, moved, System.currentTimeMillis() - startTime, shards.size());
+        return newShardId;
     }
 
-    private MemoryShard getShardForMemory(String memoryId) {
-        int shardIndex = Math.abs(memoryId.hashCode()) % shardCount;
-        return shards[shardIndex];
+    private MemoryShard getShardForMemory(ShardRouting current, String memoryId) {
+        return shards.get(current.ring.shardFor(memoryId));
     }
 
-    private MemoryShard getShardForUser(String userId) {
-        int shardIndex = Math.abs(userId.hashCode()) % shardCount;
-        return shards[shardIndex];
+    /**
+     * 在稳定的路由下执行本地写入：登记为当前路由的写者后再确认路由未被替换，
+     * 拆分替换路由后会等待旧路由的写者全部退出
+     */
+    private <T> T withRouting(Function<ShardRouting, T> write) {
+        while (true) {
+            ShardRouting current = routing;
+            current.writers.incrementAndGet();
+            try {
+                if (current == routing) {
+                    return write.apply(current);
+                }
+            } finally {
+                current.writers.decrementAndGet();
+            }
+        }
     }
 
     private void updateLocalState(EnhancedMemory memory) {
-        MemoryShard shard = getShardForMemory(memory.getId());
-        shard.addMemory(memory);
+        withRouting(current -> {
+            getShardForMemory(current, memory.getId()).addMemory(memory);
+            return null;
+        });
         memoryCache.put(memory.getId(), memory);
         
         // 清理用户内存缓存
         userMemoryCache.remove(memory.getUserId());
+        searches.invalidate(memory.getUserId());
     }
 
     private void removeFromLocalState(String memoryId) {
-        MemoryShard shard = getShardForMemory(memoryId);
-        EnhancedMemory memory = shard.removeMemory(memoryId);
+        EnhancedMemory memory = withRouting(current -> {
+            // 迁移期间先删源分片再删目标分片，正在迁移的内存不会在目标分片复活
+            EnhancedMemory removed = current.migrationSource != null
+                ? current.migrationSource.removeMemory(memoryId) : null;
+            EnhancedMemory routed = getShardForMemory(current, memoryId).removeMemory(memoryId);
+            return routed != null ? routed : removed;
+        });
         memoryCache.remove(memoryId);
         
         // 清理用户内存缓存
         if (memory != null) {
             userMemoryCache.remove(memory.getUserId());
+            searches.invalidate(memory.getUserId());
+        } else {
+            searches.invalidateAll();
         }
     }
 
@@ -570,7 +686,8 @@ public class ConcurrentMemoryManager {
             .map(req -> new AsyncMemoryPipeline.MemoryCreationRequest(req.getContent(), req.getUserId(), req.getMetadata()))
             .collect(Collectors.toList());
         
-        return pipeline.createMemoriesBatch(pipelineRequests);
+        return pipeline.createMemoriesBatch(pipelineRequests).whenComplete((ids, throwable) ->
+            requests.stream().map(MemoryCreationRequest::getUserId).distinct().forEach(searches::invalidate));
     }
 
     private List<EnhancedMemory> postProcessSearchResults(List<EnhancedMemory> memories, String userId) {
@@ -593,7 +710,7 @@ public class ConcurrentMemoryManager {
         logger.debug("开始清理过期内存");
         int cleaned = 0;
         
-        for (MemoryShard shard : shards) {
+        for (MemoryShard shard : shards.values()) {
             cleaned += shard.cleanupExpiredMemories(memoryTtlMs);
         }
         
@@ -611,47 +728,52 @@ public class ConcurrentMemoryManager {
     }
 
     private void rebalanceShards() {
-        if (isShutdown) {
+        if (isShutdown || splitting.get()) {
             return;
         }
         
-        logger.debug("开始分片重新平衡");
-        
-        // 统计各分片的负载
-        long totalShardMemories = 0;
-        int[] shardSizes = new int[shardCount];
+        logger.debug("开始检查分片负载");
         
-        for (int i = 0; i < shardCount; i++) {
-            shardSizes[i] = shards[i].getMemoryCount();
-            totalShardMemories += shardSizes[i];
-        }
-        
-        if (totalShardMemories == 0) {
-            return;
-        }
-        
-        // 计算平均负载
-        double averageLoad = (double) totalShardMemories / shardCount;
-        double threshold = averageLoad * 0.2; // 20%的阈值
-        
-        // 检查是否需要重新平衡
-        boolean needRebalance = false;
-        for (int shardSize : shardSizes) {
-            if (Math.abs(shardSize - averageLoad) > threshold) {
-                needRebalance = true;
-                break;
+        // 找出超过拆分阈值且负载最高的分片，每轮只拆分一个
+        MemoryShardStats hottest = null;
+        for (MemoryShard shard : shards.values()) {
+            MemoryShardStats stats = shard.getStats();
+            if (stats.getMemoryCount() > shardSplitThreshold
+                    && (hottest == null || stats.getMemoryCount() > hottest.getMemoryCount())) {
+                hottest = stats;
             }
         }
         
-        if (needRebalance) {
+        if (hottest != null) {
             performanceMonitor.incrementCounter("memory_manager.rebalance.triggered");
-            logger.info("分片负载不均衡，触发重新平衡。平均负载: {}", averageLoad);
-            // 在实际项目中，这里应该实现分片重新平衡的逻辑
+            logger.info("分片 {} 内存数 {} 超过阈值 {}，触发在线拆分", 
+                hottest.getShardId(), hottest.getMemoryCount(), shardSplitThreshold);
+            splitShard(hottest.getShardId());
         }
     }
 
     // 内部类声明
     
+    /**
+     * 不可变的路由快照：哈希环以及正在迁出数据的源分片
+     */
+    private static final class ShardRouting {
+        final ConsistentHashRing ring;
+        final MemoryShard migrationSource;
+        final AtomicInteger writers = new AtomicInteger(0);
+
+        ShardRouting(ConsistentHashRing ring, MemoryShard migrationSource) {
+            this.ring = ring;
+            this.migrationSource = migrationSource;
+        }
+
+        void awaitWriters() {
+            while (writers.get() > 0) {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+    }
+    
     public static class MemoryCreationRequest {
         private final String content;
         private final String userId;
@@ -0,0 +1,168 @@
+package com.mem0.memory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 带虚拟节点的一致性哈希环
+ * 每个分片在环上占据多个虚拟节点，键落在顺时针方向第一个虚拟节点所属的分片。
+ * 实例不可变，增加或拆分分片返回新环，路由方可以原子地替换引用。
+ */
+public final class ConsistentHashRing {
+
+    // 按有符号顺序升序排列的虚拟节点位置及其所属分片
+    private final long[] positions;
+    private final int[] owners;
+
+    private ConsistentHashRing(long[] positions, int[] owners) {
+        this.positions = positions;
+        this.owners = owners;
+    }
+
+    /**
+     * 为给定分片构建环
+     *
+     * @param shardIds     分片ID
+     * @param virtualNodes 每个分片的虚拟节点数
+     */
+    public static ConsistentHashRing of(Collection<Integer> shardIds, int virtualNodes) {
+        if (shardIds.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个分片");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("虚拟节点数必须为正数: " + virtualNodes);
+        }
+
+        long[] positions = new long[shardIds.size() * virtualNodes];
+        int[] owners = new int[positions.length];
+        int n = 0;
+        for (int shardId : shardIds) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                positions[n] = hash(shardId + "#" + replica);
+                owners[n] = shardId;
+                n++;
+            }
+        }
+        return sorted(positions, owners, n);
+    }
+
+    /**
+     * 键所属的分片
+     */
+    public int shardFor(String key) {
+        int index = Arrays.binarySearch(positions, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == positions.length ? 0 : index];
+    }
+
+    /**
+     * 拆分分片：在该分片每个虚拟节点与其前驱之间的中点插入新分片的虚拟节点，
+     * 新分片恰好接管原分片约一半的键空间，其他分片的键不移动
+     *
+     * @param shardId    被拆分的分片
+     * @param newShardId 新分片ID
+     */
+    public ConsistentHashRing split(int shardId, int newShardId) {
+        if (getShardIds().contains(newShardId)) {
+            throw new IllegalArgumentException("分片已存在: " + newShardId);
+        }
+
+        long[] newPositions = Arrays.copyOf(positions, positions.length * 2);
+        int[] newOwners = Arrays.copyOf(owners, owners.length * 2);
+        int n = positions.length;
+        for (int i = 0; i < positions.length; i++) {
+            if (owners[i] != shardId) {
+                continue;
+            }
+            long position = positions[i];
+            long predecessor = positions[i == 0 ? positions.length - 1 : i - 1];
+            // 无符号环距离的一半；环上只有一个虚拟节点时前驱就是自身，距离为整个环
+            long half = position == predecessor ? Long.MIN_VALUE : (position - predecessor) >>> 1;
+            if (half == 0) {
+                continue;
+            }
+            newPositions[n] = predecessor + half;
+            newOwners[n] = newShardId;
+            n++;
+        }
+        if (n == positions.length) {
+            throw new IllegalArgumentException("分片不在环上或无法再拆分: " + shardId);
+        }
+        return sorted(newPositions, newOwners, n);
+    }
+
+    /**
+     * 分片占有的键空间比例（0-1）
+     */
+    public double ownership(int shardId) {
+        double owned = 0.0;
+        for (int i = 0; i < positions.length; i++) {
+            if (owners[i] == shardId) {
+                long predecessor = positions[i == 0 ? positions.length - 1 : i - 1];
+                long distance = positions[i] - predecessor;
+                owned += positions.length == 1 ? 1.0 : unsignedFraction(distance);
+            }
+        }
+        return owned;
+    }
+
+    public Set<Integer> getShardIds() {
+        Set<Integer> shardIds = new TreeSet<>();
+        for (int owner : owners) {
+            shardIds.add(owner);
+        }
+        return Collections.unmodifiableSet(shardIds);
+    }
+
+    public int getVirtualNodeCount() {
+        return positions.length;
+    }
+
+    /**
+     * 64位哈希：FNV-1a后接murmur3的fmix64，使相近的键在环上充分分散
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static double unsignedFraction(long distance) {
+        double value = (double) (distance >>> 1) * 2.0 + (distance & 1);
+        return value / 18446744073709551616.0;
+    }
+
+    private static ConsistentHashRing sorted(long[] positions, int[] owners, int n) {
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        // 位置相同（极少见的哈希碰撞）时按分片ID决定，保证结果确定
+        Arrays.sort(order, (a, b) -> {
+            int byPosition = Long.compare(positions[a], positions[b]);
+            return byPosition != 0 ? byPosition : Integer.compare(owners[a], owners[b]);
+        });
+
+        long[] sortedPositions = new long[n];
+        int[] sortedOwners = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortedPositions[i] = positions[order[i]];
+            sortedOwners[i] = owners[order[i]];
+        }
+        return new ConsistentHashRing(sortedPositions, sortedOwners);
+    }
+}
@@ -7,15 +7,16 @@ import com.mem0.model.MemoryShardStats;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * 内存分片
  * 管理特定分片中的内存数据，提供线程安全的CRUD操作
+ * 无锁实现：主存储与用户索引的复合更新都在ConcurrentHashMap的compute中原子完成，
+ * 热点用户只争用各自的哈希桶而不会串行化整个分片
  */
 public class MemoryShard {
     
@@ -27,14 +28,11 @@ public class MemoryShard {
     private final Map<String, EnhancedMemory> memories = new ConcurrentHashMap<>();
     private final Map<String, Set<String>> userMemoryIndex = new ConcurrentHashMap<>();
     
-    // 访问统计
-    private final AtomicInteger memoryCount = new AtomicInteger(0);
-    private final AtomicLong totalAccesses = new AtomicLong(0);
+    // 访问统计（LongAdder分散高并发下的计数争用）
+    private final LongAdder memoryCount = new LongAdder();
+    private final LongAdder totalAccesses = new LongAdder();
     private final AtomicLong lastAccessTime = new AtomicLong(System.currentTimeMillis());
     
-    // 读写锁保护
-    private final ReadWriteLock shardLock = new ReentrantReadWriteLock();
-    
     public MemoryShard(int shardId) {
         this.shardId = shardId;
         logger.debug("内存分片初始化完成: {}", shardId);
@@ -48,29 +46,49 @@ public class MemoryShard {
             return;
         }
         
-        shardLock.writeLock().lock();
-        try {
-            String memoryId = memory.getId();
-            String userId = memory.getUserId();
-            
-            // 添加到主存储
-            EnhancedMemory existingMemory = memories.put(memoryId, memory);
-            
-            // 更新用户索引
-            userMemoryIndex.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(memoryId);
-            
-            // 更新统计
-            if (existingMemory == null) {
-                memoryCount.incrementAndGet();
+        String memoryId = memory.getId();
+        String userId = memory.getUserId();
+        boolean[] created = new boolean[1];
+        
+        // 主存储与用户索引在同一个compute中更新
+        memories.compute(memoryId, (id, existing) -> {
+            if (existing != null && !Objects.equals(existing.getUserId(), userId)) {
+                unindex(id, existing.getUserId());
             }
-            totalAccesses.incrementAndGet();
-            lastAccessTime.set(System.currentTimeMillis());
-            
-            logger.debug("内存添加到分片: {} - 内存ID: {}, 用户: {}", shardId, memoryId, userId);
-            
-        } finally {
-            shardLock.writeLock().unlock();
+            index(id, userId);
+            created[0] = existing == null;
+            return memory;
+        });
+        
+        // 更新统计
+        if (created[0]) {
+            memoryCount.increment();
+        }
+        totalAccesses.increment();
+        touch();
+        
+        logger.debug("内存添加到分片: {} - 内存ID: {}, 用户: {}", shardId, memoryId, userId);
+    }
+
+    /**
+     * 仅在分片中不存在该内存时添加，用于迁移时不覆盖更新的写入
+     */
+    public boolean addMemoryIfAbsent(EnhancedMemory memory) {
+        if (memory == null) {
+            return false;
+        }
+        
+        boolean[] added = new boolean[1];
+        memories.computeIfAbsent(memory.getId(), id -> {
+            index(id, memory.getUserId());
+            added[0] = true;
+            return memory;
+        });
+        
+        if (added[0]) {
+            memoryCount.increment();
         }
+        return added[0];
     }
 
     /**
@@ -81,24 +99,18 @@ public class MemoryShard {
             return null;
         }
         
-        shardLock.readLock().lock();
-        try {
-            EnhancedMemory memory = memories.get(memoryId);
-            
-            if (memory != null) {
-                // 更新访问时间
-                memory.updateAccessTime();
-                totalAccesses.incrementAndGet();
-                lastAccessTime.set(System.currentTimeMillis());
-                
-                logger.debug("从分片获取内存: {} - 内存ID: {}", shardId, memoryId);
-            }
-            
-            return memory;
+        EnhancedMemory memory = memories.get(memoryId);
+        
+        if (memory != null) {
+            // 更新访问时间
+            memory.updateAccessTime();
+            totalAccesses.increment();
+            touch();
             
-        } finally {
-            shardLock.readLock().unlock();
+            logger.debug("从分片获取内存: {} - 内存ID: {}", shardId, memoryId);
         }
+        
+        return memory;
     }
 
     /**
@@ -109,35 +121,14 @@ public class MemoryShard {
             return null;
         }
         
-        shardLock.writeLock().lock();
-        try {
-            EnhancedMemory removedMemory = memories.remove(memoryId);
-            
-            if (removedMemory != null) {
-                String userId = removedMemory.getUserId();
-                
-                // 从用户索引中移除
-                Set<String> userMemories = userMemoryIndex.get(userId);
-                if (userMemories != null) {
-                    userMemories.remove(memoryId);
-                    
-                    // 如果用户没有其他内存，移除用户索引
-                    if (userMemories.isEmpty()) {
-                        userMemoryIndex.remove(userId);
-                    }
-                }
-                
-                memoryCount.decrementAndGet();
-                lastAccessTime.set(System.currentTimeMillis());
-                
-                logger.debug("从分片移除内存: {} - 内存ID: {}, 用户: {}", shardId, memoryId, userId);
-            }
-            
-            return removedMemory;
-            
-        } finally {
-            shardLock.writeLock().unlock();
+        EnhancedMemory removedMemory = removeMemoryInternal(memoryId, null);
+        
+        if (removedMemory != null) {
+            touch();
+            logger.debug("从分片移除内存: {} - 内存ID: {}, 用户: {}", shardId, memoryId, removedMemory.getUserId());
         }
+        
+        return removedMemory;
     }
 
     /**
@@ -148,87 +139,61 @@ public class MemoryShard {
             return Collections.emptyList();
         }
         
-        shardLock.readLock().lock();
-        try {
-            Set<String> memoryIds = userMemoryIndex.get(userId);
-            if (memoryIds == null || memoryIds.isEmpty()) {
-                return Collections.emptyList();
-            }
-            
-            List<EnhancedMemory> userMemories = new ArrayList<>();
-            for (String memoryId : memoryIds) {
-                EnhancedMemory memory = memories.get(memoryId);
-                if (memory != null) {
-                    memory.updateAccessTime();
-                    userMemories.add(memory);
-                }
+        Set<String> memoryIds = userMemoryIndex.get(userId);
+        if (memoryIds == null || memoryIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<EnhancedMemory> userMemories = new ArrayList<>();
+        for (String memoryId : memoryIds) {
+            EnhancedMemory memory = memories.get(memoryId);
+            if (memory != null) {
+                memory.updateAccessTime();
+                userMemories.add(memory);
             }
-            
-            totalAccesses.addAndGet(userMemories.size());
-            lastAccessTime.set(System.currentTimeMillis());
-            
-            logger.debug("获取用户内存: 分片={}, 用户={}, 数量={}", shardId, userId, userMemories.size());
-            
-            return userMemories;
-            
-        } finally {
-            shardLock.readLock().unlock();
         }
+        
+        totalAccesses.add(userMemories.size());
+        touch();
+        
+        logger.debug("获取用户内存: 分片={}, 用户={}, 数量={}", shardId, userId, userMemories.size());
+        
+        return userMemories;
     }
 
     /**
      * 获取所有内存
      */
     public List<EnhancedMemory> getAllMemories() {
-        shardLock.readLock().lock();
-        try {
-            List<EnhancedMemory> allMemories = new ArrayList<>(memories.values());
-            
-            totalAccesses.addAndGet(allMemories.size());
-            lastAccessTime.set(System.currentTimeMillis());
-            
-            logger.debug("获取分片所有内存: {} - 数量: {}", shardId, allMemories.size());
-            
-            return allMemories;
-            
-        } finally {
-            shardLock.readLock().unlock();
-        }
+        List<EnhancedMemory> allMemories = new ArrayList<>(memories.values());
+        
+        totalAccesses.add(allMemories.size());
+        touch();
+        
+        logger.debug("获取分片所有内存: {} - 数量: {}", shardId, allMemories.size());
+        
+        return allMemories;
     }
 
     /**
      * 检查内存是否存在
      */
     public boolean containsMemory(String memoryId) {
-        if (memoryId == null) {
-            return false;
-        }
-        
-        shardLock.readLock().lock();
-        try {
-            return memories.containsKey(memoryId);
-        } finally {
-            shardLock.readLock().unlock();
-        }
+        return memoryId != null && memories.containsKey(memoryId);
     }
 
     /**
      * 获取分片中的内存数量
      */
     public int getMemoryCount() {
-        return memoryCount.get();
+        return memoryCount.intValue();
     }
 
     /**
      * 获取分片中的用户数量
      */
     public int getUserCount() {
-        shardLock.readLock().lock();
-        try {
-            return userMemoryIndex.size();
-        } finally {
-            shardLock.readLock().unlock();
-        }
+        return userMemoryIndex.size();
     }
 
     /**
@@ -239,38 +204,52 @@ public class MemoryShard {
             return 0;
         }
         
-        shardLock.writeLock().lock();
-        try {
-            long currentTime = System.currentTimeMillis();
-            List<String> expiredIds = new ArrayList<>();
-            
-            // 找出过期的内存
-            for (Map.Entry<String, EnhancedMemory> entry : memories.entrySet()) {
-                EnhancedMemory memory = entry.getValue();
-                if (memory.isExpired(ttlMs)) {
-                    expiredIds.add(entry.getKey());
-                }
+        // 逐条条件移除：扫描后被重新写入的内存不会被误删
+        int cleanedCount = 0;
+        for (EnhancedMemory memory : memories.values()) {
+            if (memory.isExpired(ttlMs) && removeMemoryInternal(memory.getId(), memory) != null) {
+                cleanedCount++;
             }
-            
-            // 移除过期内存
-            int cleanedCount = 0;
-            for (String memoryId : expiredIds) {
-                EnhancedMemory removed = removeMemoryInternal(memoryId);
-                if (removed != null) {
-                    cleanedCount++;
-                }
+        }
+        
+        if (cleanedCount > 0) {
+            logger.info("分片清理过期内存: {} - 清理数量: {}, 剩余数量: {}", 
+                       shardId, cleanedCount, memoryCount.sum());
+        }
+        
+        return cleanedCount;
+    }
+
+    /**
+     * 将满足条件的内存迁移到目标分片（在线拆分）
+     * 每条内存在源分片的compute中移出并写入目标分片，迁移期间并发的删除不会使其复活，
+     * 目标分片中已有的更新版本不会被旧版本覆盖
+     *
+     * @param target 目标分片
+     * @param moves  判断内存ID是否应迁移
+     * @return 迁移的内存数量
+     */
+    public int migrateTo(MemoryShard target, Predicate<String> moves) {
+        int moved = 0;
+        for (String memoryId : memories.keySet()) {
+            if (!moves.test(memoryId)) {
+                continue;
             }
-            
-            if (cleanedCount > 0) {
-                logger.info("分片清理过期内存: {} - 清理数量: {}, 剩余数量: {}", 
-                           shardId, cleanedCount, memoryCount.get());
+            boolean[] removed = new boolean[1];
+            memories.computeIfPresent(memoryId, (id, memory) -> {
+                target.addMemoryIfAbsent(memory);
+                unindex(id, memory.getUserId());
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                memoryCount.decrement();
+                moved++;
             }
-            
-            return cleanedCount;
-            
-        } finally {
-            shardLock.writeLock().unlock();
         }
+        
+        logger.info("分片迁移完成: {} -> {}, 迁移数量: {}", shardId, target.getId(), moved);
+        return moved;
     }
 
     /**
@@ -281,62 +260,46 @@ public class MemoryShard {
             return Collections.emptyList();
         }
         
-        shardLock.readLock().lock();
-        try {
-            List<EnhancedMemory> results = memories.values().stream()
-                .filter(memory -> matchesCriteria(memory, criteria))
-                .limit(criteria.getLimit())
-                .collect(Collectors.toList());
-            
-            totalAccesses.addAndGet(results.size());
-            lastAccessTime.set(System.currentTimeMillis());
-            
-            logger.debug("分片内存搜索: {} - 条件: {}, 结果数: {}", shardId, criteria, results.size());
-            
-            return results;
-            
-        } finally {
-            shardLock.readLock().unlock();
-        }
+        List<EnhancedMemory> results = memories.values().stream()
+            .filter(memory -> matchesCriteria(memory, criteria))
+            .limit(criteria.getLimit())
+            .collect(Collectors.toList());
+        
+        totalAccesses.add(results.size());
+        touch();
+        
+        logger.debug("分片内存搜索: {} - 条件: {}, 结果数: {}", shardId, criteria, results.size());
+        
+        return results;
     }
 
     /**
      * 清空分片
      */
     public void clear() {
-        shardLock.writeLock().lock();
-        try {
-            int removedCount = memoryCount.get();
-            
-            memories.clear();
-            userMemoryIndex.clear();
-            memoryCount.set(0);
-            
-            logger.info("分片清空完成: {} - 移除内存数: {}", shardId, removedCount);
-            
-        } finally {
-            shardLock.writeLock().unlock();
+        int removedCount = 0;
+        for (String memoryId : memories.keySet()) {
+            if (removeMemoryInternal(memoryId, null) != null) {
+                removedCount++;
+            }
         }
+        
+        logger.info("分片清空完成: {} - 移除内存数: {}", shardId, removedCount);
     }
 
     /**
      * 获取分片统计信息
      */
     public MemoryShardStats getStats() {
-        shardLock.readLock().lock();
-        try {
-            return new MemoryShardStats(
-                shardId,
-                memoryCount.get(),
-                userMemoryIndex.size(),
-                totalAccesses.get(),
-                lastAccessTime.get(),
-                calculateAverageMemoryAge(),
-                calculateMemoryDistribution()
-            );
-        } finally {
-            shardLock.readLock().unlock();
-        }
+        return new MemoryShardStats(
+            shardId,
+            memoryCount.intValue(),
+            userMemoryIndex.size(),
+            totalAccesses.sum(),
+            lastAccessTime.get(),
+            calculateAverageMemoryAge(),
+            calculateMemoryDistribution()
+        );
     }
 
     /**
@@ -348,26 +311,55 @@ public class MemoryShard {
 
     // 私有辅助方法
 
-    private EnhancedMemory removeMemoryInternal(String memoryId) {
-        EnhancedMemory removedMemory = memories.remove(memoryId);
-        
-        if (removedMemory != null) {
-            String userId = removedMemory.getUserId();
-            
-            // 从用户索引中移除
-            Set<String> userMemories = userMemoryIndex.get(userId);
-            if (userMemories != null) {
-                userMemories.remove(memoryId);
-                
-                if (userMemories.isEmpty()) {
-                    userMemoryIndex.remove(userId);
-                }
+    /**
+     * @param expected 非空时仅在当前值为该实例时移除
+     */
+    private EnhancedMemory removeMemoryInternal(String memoryId, EnhancedMemory expected) {
+        EnhancedMemory[] removed = new EnhancedMemory[1];
+        memories.computeIfPresent(memoryId, (id, existing) -> {
+            if (expected != null && existing != expected) {
+                return existing;
             }
-            
-            memoryCount.decrementAndGet();
+            unindex(id, existing.getUserId());
+            removed[0] = existing;
+            return null;
+        });
+        
+        if (removed[0] != null) {
+            memoryCount.decrement();
         }
         
-        return removedMemory;
+        return removed[0];
+    }
+
+    private void index(String memoryId, String userId) {
+        if (userId == null) {
+            return;
+        }
+        userMemoryIndex.compute(userId, (k, ids) -> {
+            Set<String> memoryIds = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            memoryIds.add(memoryId);
+            return memoryIds;
+        });
+    }
+
+    private void unindex(String memoryId, String userId) {
+        if (userId == null) {
+            return;
+        }
+        // 用户没有其他内存时移除用户索引，与index互斥因此不会丢失并发加入的ID
+        userMemoryIndex.computeIfPresent(userId, (k, ids) -> {
+            ids.remove(memoryId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private void touch() {
+        // 同一毫秒内不重复写，减少热点分片上的缓存行争用
+        long now = System.currentTimeMillis();
+        if (lastAccessTime.get() != now) {
+            lastAccessTime.lazySet(now);
+        }
     }
 
     private boolean matchesCriteria(EnhancedMemory memory, MemorySearchCriteria criteria) {
@@ -413,18 +405,17 @@ public class MemoryShard {
     }
 
     private long calculateAverageMemoryAge() {
-        if (memories.isEmpty()) {
-            return 0;
-        }
-        
         long currentTime = System.currentTimeMillis();
         long totalAge = 0;
+        int count = 0;
         
+        // 无锁遍历期间大小可能变化，按实际遍历的条数求平均
         for (EnhancedMemory memory : memories.values()) {
             totalAge += currentTime - memory.getCreatedAt().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+            count++;
         }
         
-        return totalAge / memories.size();
+        return count == 0 ? 0 : totalAge / count;
     }
 
     private Map<String, Integer> calculateMemoryDistribution() {
@@ -1,10 +1,12 @@
 package com.mem0.performance;
 
+import com.mem0.constants.MemoryConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
 
 /**
  * 高性能并发执行管理器
@@ -30,7 +32,11 @@ import java.util.concurrent.atomic.AtomicInteger;
  * - 向量操作线程池: 核心线程数的50% / Vector operations pool: 50% of core threads
  * - 嵌入操作线程池: 核心线程数的25% / Embedding operations pool: 25% of core threads
  * - 内存管理线程池: 核心线程数的25% / Memory management pool: 25% of core threads
- * - I/O操作线程池: 核心线程数的50% / I/O operations pool: 50% of core threads
+ * - I/O操作线程池: 核心线程数的50%，JDK 21上为每任务一个虚拟线程 / I/O operations pool: 50% of core threads,
+ *   one virtual thread per task on JDK 21
+ * - CPU扫描: 进程内共用的ForkJoinPool，并行度等于处理器数 / CPU scans: one process-wide ForkJoinPool
+ *   with one worker per processor
+ * - 超时与重试: 进程内共用的 {@link WheelTimer} / Timeouts and retries: the process-wide {@link WheelTimer}
  * - 默认线程保活时间: 60秒 / Default thread keep-alive: 60 seconds
  * - 智能负载均衡策略 / Intelligent load balancing strategy
  * 
@@ -65,6 +71,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  *     similarityFuture, embeddingFuture, memoryFuture, ioFuture
  * );
  * 
+ * // 按区间并行扫描 / Scan index ranges in parallel
+ * ConcurrentExecutionManager.parallelScan(vectors.length, (from, to) -> {
+ *     for (int i = from; i < to; i++) {
+ *         scores[i] = dot(query, vectors[i]);
+ *     }
+ * });
+ * 
  * // 带超时的操作执行 / Execute operation with timeout
  * CompletableFuture<String> timeoutFuture = manager.executeWithTimeout(
  *     () -> performSlowOperation(), 5, TimeUnit.SECONDS, "default-result"
@@ -103,12 +116,22 @@ public class ConcurrentExecutionManager implements AutoCloseable {
     private final AtomicInteger activeVectorOperations = new AtomicInteger(0);
     private final AtomicInteger activeEmbeddingOperations = new AtomicInteger(0);
     private final AtomicInteger activeMemoryOperations = new AtomicInteger(0);
+    private final AtomicInteger activeIOOperations = new AtomicInteger(0);
+    private final boolean virtualThreadIO;
     
     public ConcurrentExecutionManager() {
         this(detectOptimalThreadCount());
     }
     
     public ConcurrentExecutionManager(int threadCount) {
+        this(threadCount, VirtualThreadSupport.isEnabled());
+    }
+    
+    /**
+     * @param useVirtualThreads I/O操作是否使用虚拟线程；当前JDK不支持时忽略
+     *                          / run I/O operations on virtual threads; ignored when the JDK lacks them
+     */
+    public ConcurrentExecutionManager(int threadCount, boolean useVirtualThreads) {
         this.corePoolSize = threadCount;
         this.maxPoolSize = threadCount * 2;
         this.keepAliveTime = 60L; // seconds
@@ -140,8 +163,12 @@ public class ConcurrentExecutionManager implements AutoCloseable {
             new ThreadPoolExecutor.CallerRunsPolicy()
         );
         
-        // I/O operations pool - for database operations
-        this.ioOperationsPool = new ThreadPoolExecutor(
+        // I/O operations pool - for database operations; blocking calls park a virtual thread
+        // instead of holding a pool thread when the JDK supports it
+        ExecutorService virtualIOPool = useVirtualThreads
+            ? VirtualThreadSupport.newVirtualThreadPerTaskExecutor("mem0-io-virtual") : null;
+        this.virtualThreadIO = virtualIOPool != null;
+        this.ioOperationsPool = virtualIOPool != null ? virtualIOPool : new ThreadPoolExecutor(
             corePoolSize / 2, maxPoolSize,
             keepAliveTime, TimeUnit.SECONDS,
             new LinkedBlockingQueue<>(2000),
@@ -210,15 +237,34 @@ public class ConcurrentExecutionManager implements AutoCloseable {
      * Execute I/O operations (database reads/writes)
      */
     public <T> CompletableFuture<T> executeIOOperation(Callable<T> operation) {
+        // 在任务内计数：被拒绝或关闭后被丢弃的任务不会留下计数 / counted inside the task, so a task that is
+        // rejected or discarded after shutdown leaves no count behind
         return CompletableFuture.supplyAsync(() -> {
+            activeIOOperations.incrementAndGet();
             try {
                 return operation.call();
             } catch (Exception e) {
                 throw new RuntimeException("I/O operation failed", e);
+            } finally {
+                activeIOOperations.decrementAndGet();
             }
         }, ioOperationsPool);
     }
     
+    /**
+     * 正在执行的I/O操作数 / I/O operations currently running
+     */
+    public int getActiveIOOperations() {
+        return activeIOOperations.get();
+    }
+    
+    /**
+     * I/O操作是否运行在虚拟线程上 / Whether I/O operations run on virtual threads
+     */
+    public boolean isVirtualThreadIO() {
+        return virtualThreadIO;
+    }
+    
     /**
      * Schedule recurring tasks (cleanup, maintenance, etc.)
      */
@@ -247,15 +293,78 @@ public class ConcurrentExecutionManager implements AutoCloseable {
             }
         }, vectorOperationsPool);
         
-        // Java 8 compatible timeout implementation
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.schedule(() -> {
-            future.complete(fallback);
-        }, timeout, unit);
+        // Java 8 compatible timeout implementation on the shared timer; cancelled once the operation finishes
+        WheelTimer.Timeout timer = WheelTimer.shared().newTimeout(() -> future.complete(fallback), timeout, unit);
+        future.whenComplete((value, error) -> timer.cancel());
         
         return future;
     }
     
+    /**
+     * 在共用的CPU线程池上按区间并行扫描 [0, n)
+     * Scan [0, n) in parallel ranges on the shared CPU pool
+     * 
+     * <p>区间按处理器数切分，每段不少于 {@value MemoryConstants#DEFAULT_PARALLEL_SCAN_MIN_GRAIN} 个元素；
+     * 规模较小、只有一个处理器或已在CPU线程池内时在调用线程上直接执行。调用线程等待所有区间完成。</p>
+     * 
+     * <p>Ranges are split by processor count with at least
+     * {@value MemoryConstants#DEFAULT_PARALLEL_SCAN_MIN_GRAIN} elements each; small scans and single
+     * processor hosts run on the calling thread, and scans from inside the CPU pool fork in place. The
+     * caller waits for every range.</p>
+     */
+    public static void parallelScan(int n, IntRangeTask task) {
+        parallelScan(n, MemoryConstants.DEFAULT_PARALLEL_SCAN_MIN_GRAIN, task);
+    }
+    
+    /**
+     * @param minGrain 每个区间的最少元素数，单个元素代价高时（如文本向量化）取较小值
+     *                 / minimum elements per range; use a small value when each element is expensive
+     */
+    public static void parallelScan(int n, int minGrain, IntRangeTask task) {
+        parallelScan(n, minGrain, (from, to) -> {
+            task.run(from, to);
+            return null;
+        }, (left, right) -> null);
+    }
+    
+    /**
+     * 按区间并行计算并按下标顺序合并结果，如每段各自维护top-K再合并
+     * Compute per range in parallel and merge results in index order, e.g. per-range top-K heaps
+     */
+    public static <R> R parallelScan(int n, IntRangeFunction<R> function, BinaryOperator<R> combiner) {
+        return parallelScan(n, MemoryConstants.DEFAULT_PARALLEL_SCAN_MIN_GRAIN, function, combiner);
+    }
+    
+    public static <R> R parallelScan(int n, int minGrain, IntRangeFunction<R> function, BinaryOperator<R> combiner) {
+        ForkJoinPool pool = cpuPool();
+        int parallelism = pool.getParallelism();
+        int grain = Math.max(Math.max(1, minGrain), (n + parallelism * 4 - 1) / (parallelism * 4));
+        if (n <= grain || parallelism == 1) {
+            return function.apply(0, Math.max(0, n));
+        }
+        ScanTask<R> scan = new ScanTask<>(function, combiner, 0, n, grain);
+        if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+            return scan.invoke();
+        }
+        return pool.invoke(scan);
+    }
+    
+    /**
+     * 在CPU线程池上异步扫描，调用线程不等待
+     * Scan on the CPU pool without blocking the caller
+     */
+    public static CompletableFuture<Void> parallelScanAsync(int n, int minGrain, IntRangeTask task) {
+        return CompletableFuture.runAsync(() -> parallelScan(n, minGrain, task), cpuPool());
+    }
+    
+    /**
+     * 进程内共用的CPU线程池，向量打分、检索与TF-IDF批处理共用，不与I/O线程池竞争
+     * The process-wide CPU pool shared by vector scoring, search and TF-IDF batches, apart from I/O pools
+     */
+    public static ForkJoinPool cpuPool() {
+        return CpuPoolHolder.POOL;
+    }
+    
     /**
      * Get current performance metrics
      */
@@ -281,8 +390,13 @@ public class ConcurrentExecutionManager implements AutoCloseable {
         logger.info("  Vector operations: {}-{} threads", corePoolSize / 2, maxPoolSize / 2);
         logger.info("  Embedding operations: {}-{} threads", corePoolSize / 4, maxPoolSize / 4);
         logger.info("  Memory management: {}-{} threads", corePoolSize / 4, maxPoolSize / 4);
-        logger.info("  I/O operations: {}-{} threads", corePoolSize / 2, maxPoolSize);
+        if (virtualThreadIO) {
+            logger.info("  I/O operations: virtual thread per task");
+        } else {
+            logger.info("  I/O operations: {}-{} threads", corePoolSize / 2, maxPoolSize);
+        }
         logger.info("  Scheduled operations: 2 threads");
+        logger.info("  CPU scans: shared pool of {} threads", cpuPool().getParallelism());
     }
     
     private QueueMetrics getQueueSizes() {
@@ -371,6 +485,59 @@ public class ConcurrentExecutionManager implements AutoCloseable {
         }
     }
     
+    /**
+     * 并行扫描的区间任务 / Range task of a parallel scan
+     */
+    @FunctionalInterface
+    public interface IntRangeTask {
+        void run(int from, int to);
+    }
+    
+    /**
+     * 并行扫描的区间计算，返回该区间的部分结果 / Range computation returning the partial result of the range
+     */
+    @FunctionalInterface
+    public interface IntRangeFunction<R> {
+        R apply(int from, int to);
+    }
+    
+    private static final class ScanTask<R> extends RecursiveTask<R> {
+        private final IntRangeFunction<R> function;
+        private final BinaryOperator<R> combiner;
+        private final int from;
+        private final int to;
+        private final int grain;
+        
+        ScanTask(IntRangeFunction<R> function, BinaryOperator<R> combiner, int from, int to, int grain) {
+            this.function = function;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+        
+        @Override
+        protected R compute() {
+            if (to - from <= grain) {
+                return function.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask<R> right = new ScanTask<>(function, combiner, mid, to, grain);
+            right.fork();
+            R left = new ScanTask<>(function, combiner, from, mid, grain).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+    
+    private static final class CpuPoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("mem0-cpu-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, (thread, error) -> logger.error("Uncaught exception in {}", thread.getName(), error), false);
+    }
+    
     // Performance metrics classes
     public static class PerformanceMetrics {
         private final int activeVectorOps;
@@ -0,0 +1,145 @@
+package com.mem0.performance;
+
+/**
+ * 有界top-K选择器 / Bounded Top-K Selector
+ *
+ * <p>以得分为键的定长小顶堆，只保留得分最高的K个元素，插入为O(log K)。配合
+ * {@link ConcurrentExecutionManager#parallelScan(int, ConcurrentExecutionManager.IntRangeFunction,
+ * java.util.function.BinaryOperator)} 使用时，每个区间各自维护一个选择器，最后用 {@link #merge(TopK)}
+ * 合并，代替先为全部候选创建结果对象、整体排序再截断。</p>
+ *
+ * <p>A fixed-size min-heap keyed by score that keeps only the K highest-scoring elements, with
+ * O(log K) inserts. With {@link ConcurrentExecutionManager#parallelScan(int,
+ * ConcurrentExecutionManager.IntRangeFunction, java.util.function.BinaryOperator)} each range keeps
+ * its own selector and the ranges are combined with {@link #merge(TopK)}, instead of building a result
+ * object for every candidate and sorting them all before truncating.</p>
+ *
+ * <p>非线程安全，每个区间使用独立的实例。</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class TopK<T> {
+
+    private final int capacity;
+    private final float[] scores;
+    private final Object[] items;
+    private int size;
+    private boolean sorted;
+
+    public TopK(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity必须为非负数: " + capacity);
+        }
+        this.capacity = capacity;
+        this.scores = new float[capacity];
+        this.items = new Object[capacity];
+    }
+
+    /**
+     * 得分高于当前第K名时收下元素 / Keep the element if it beats the current K-th score
+     */
+    public void offer(float score, T item) {
+        if (sorted) {
+            throw new IllegalStateException("排序后不能再加入元素");
+        }
+        if (size < capacity) {
+            scores[size] = score;
+            items[size] = item;
+            siftUp(size++);
+        } else if (capacity > 0 && score > scores[0]) {
+            scores[0] = score;
+            items[0] = item;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * 把另一个选择器的元素并入本选择器并返回本选择器 / Fold another selector into this one and return this
+     */
+    @SuppressWarnings("unchecked")
+    public TopK<T> merge(TopK<T> other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.scores[i], (T) other.items[i]);
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按得分从高到低原地排序，之后可用 {@link #score(int)} 与 {@link #item(int)} 按名次读取
+     * Sort in place by descending score; read ranks with {@link #score(int)} and {@link #item(int)}
+     */
+    public TopK<T> sortDescending() {
+        if (!sorted) {
+            // 小顶堆的堆排序：每次把最小值换到末尾，得到降序
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            sorted = true;
+        }
+        return this;
+    }
+
+    public float score(int rank) {
+        checkRank(rank);
+        return scores[rank];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T item(int rank) {
+        checkRank(rank);
+        return (T) items[rank];
+    }
+
+    private void checkRank(int rank) {
+        if (!sorted) {
+            throw new IllegalStateException("读取名次前需要先调用sortDescending()");
+        }
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("rank: " + rank + ", size: " + size);
+        }
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int end) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= end) {
+                return;
+            }
+            if (child + 1 < end && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (scores[index] <= scores[child]) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        Object item = items[a];
+        items[a] = items[b];
+        items[b] = item;
+    }
+}
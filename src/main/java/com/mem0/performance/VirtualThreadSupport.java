@@ -0,0 +1,125 @@
+package com.mem0.performance;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持 / Virtual Thread Support
+ *
+ * <p>阻塞I/O（提供者的HTTP调用、数据库会话、文件读写）在平台线程池上执行时，在途请求数受线程数限制，
+ * 远端变慢时线程池很快耗尽。运行在JDK 21及以上时，这里为每个阻塞任务创建一个虚拟线程，在途请求数
+ * 只受内存限制；在更早的JDK上返回 {@code null} 或原有的执行器，行为与之前相同。</p>
+ *
+ * <p>Blocking I/O (provider HTTP calls, database sessions, file reads) on platform thread pools caps
+ * the number of in-flight requests at the thread count, and a slow remote exhausts the pool quickly.
+ * On JDK 21 or later this creates one virtual thread per blocking task, so in-flight requests are only
+ * bounded by memory; on older JDKs it returns {@code null} or the previous executor and behaviour is
+ * unchanged.</p>
+ *
+ * <p>项目以Java 8为编译目标，虚拟线程API通过反射在类加载时查找一次，同一个构件可以在Java 8与
+ * JDK 21上运行。设置系统属性 {@code mem0.virtualThreads=false} 可以在JDK 21上关闭。</p>
+ *
+ * <p>The project targets Java 8, so the virtual thread API is looked up once by reflection when the
+ * class loads and the same artifact runs on Java 8 and JDK 21. Set the system property
+ * {@code mem0.virtualThreads=false} to turn it off on JDK 21.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class VirtualThreadSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadSupport.class);
+
+    public static final String ENABLED_PROPERTY = "mem0.virtualThreads";
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+    private static final boolean ENABLED;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method perTaskExecutor = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            builderName = builder.getMethod("name", String.class, long.class);
+            builderFactory = builder.getMethod("factory");
+            perTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            // JDK 19/20 中虚拟线程是预览特性，未开启预览时调用会失败
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = perTaskExecutor;
+        ENABLED = OF_VIRTUAL != null && !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+        logger.debug("Virtual threads supported: {}, enabled: {}", OF_VIRTUAL != null, ENABLED);
+    }
+
+    private VirtualThreadSupport() {
+    }
+
+    /**
+     * 当前JDK是否提供虚拟线程
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 虚拟线程是否可用且未被系统属性关闭
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器，线程名为 {@code namePrefix-N}
+     *
+     * @return 虚拟线程执行器；不可用时返回 {@code null}，由调用方使用平台线程池
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!ENABLED) {
+            return null;
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Failed to create virtual thread executor, falling back to platform threads", e);
+            return null;
+        }
+    }
+
+    /**
+     * 提供者阻塞调用共用的执行器：虚拟线程可用时为每次调用创建虚拟线程，否则使用
+     * {@code CompletableFuture.supplyAsync} 原来的默认异步执行器
+     */
+    public static Executor blockingIoExecutor() {
+        return BlockingIoHolder.EXECUTOR;
+    }
+
+    private static final class BlockingIoHolder {
+        static final Executor EXECUTOR;
+
+        static {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor("mem0-provider-io");
+            EXECUTOR = virtual != null ? virtual : CompletableFuture::runAsync;
+        }
+    }
+}
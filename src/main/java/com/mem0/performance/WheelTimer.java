@@ -0,0 +1,250 @@
+package com.mem0.performance;
+
+import com.mem0.constants.MemoryConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 哈希时间轮定时器 / Hashed Wheel Timer
+ *
+ * <p>请求超时、截止时间、对冲延迟与重试退避都是大量短期、多数在到期前被取消的定时任务。
+ * 这里用一个守护线程按固定刻度转动时间轮，登记与取消都是O(1)，不再为每类组件甚至每次调用
+ * 各建一个调度线程池。进程内的组件通过 {@link #shared()} 共用同一个实例。</p>
+ *
+ * <p>Request timeouts, deadlines, hedge delays and retry backoffs are many short-lived timers, most of
+ * which are cancelled before they fire. A single daemon thread turns a wheel at a fixed tick, so
+ * scheduling and cancelling are O(1) and no component, let alone a single call, needs its own
+ * scheduled thread pool. Components in the process share one instance through {@link #shared()}.</p>
+ *
+ * <p>到期精度为一个刻度（默认 {@value MemoryConstants#DEFAULT_TIMER_TICK_MS}ms），任务不会提前执行。
+ * 任务在定时器线程上运行，只能做完成future、发起异步调用这类轻量工作；较重的工作应转交给执行器。
+ * 没有待执行的任务时线程挂起，不会按刻度空转。</p>
+ *
+ * <p>Timers fire within one tick (by default {@value MemoryConstants#DEFAULT_TIMER_TICK_MS}ms) and never
+ * early. Tasks run on the timer thread and must stay light, such as completing a future or starting an
+ * asynchronous call; heavier work should be handed to an executor. The thread parks while nothing is
+ * pending instead of waking every tick.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class WheelTimer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WheelTimer.class);
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Timeout>[] wheel;
+    private final Queue<Timeout> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+    private final long startNanos;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    // 下一个待处理的刻度，仅由定时器线程访问
+    private long tick;
+
+    /**
+     * @param name          定时器线程名 / timer thread name
+     * @param tickDuration  刻度长度 / tick length
+     * @param ticksPerWheel 时间轮槽数，向上取整为2的幂 / wheel slots, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public WheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("刻度长度与槽数必须为正数");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 进程内共用的定时器 / The timer shared by the whole process
+     */
+    public static WheelTimer shared() {
+        return SharedHolder.TIMER;
+    }
+
+    /**
+     * 在延迟之后执行任务 / Run the task after the delay
+     *
+     * @return 可取消的句柄 / a handle that cancels the task
+     * @throws RejectedExecutionException 定时器已关闭 / the timer has been closed
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new RejectedExecutionException("定时器已关闭");
+        }
+        long delayNanos = Math.max(0, unit.toNanos(delay));
+        long deadline = System.nanoTime() - startNanos;
+        // 超长延迟截断，避免刻度计算溢出
+        deadline = delayNanos >= Long.MAX_VALUE - deadline ? Long.MAX_VALUE - tickNanos : deadline + delayNanos;
+
+        Timeout timeout = new Timeout(this, task, (deadline + tickNanos - 1) / tickNanos);
+        pendingTimeouts.incrementAndGet();
+        pendingAdds.add(timeout);
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+        return timeout;
+    }
+
+    /**
+     * 尚未到期且未取消的任务数 / Timers neither fired nor cancelled
+     */
+    public int getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * 停止定时器，未到期的任务不再执行 / Stop the timer; pending tasks never run
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (running) {
+            long due = (System.nanoTime() - startNanos) / tickNanos;
+            transferPending();
+            if (due >= tick) {
+                // 长时间挂起后醒来时，转过一整圈即可覆盖所有槽
+                for (long t = Math.max(tick, due - mask); t <= due; t++) {
+                    expire(wheel[(int) (t & mask)], due);
+                }
+                tick = due + 1;
+            }
+            awaitNextTick();
+        }
+        logger.debug("Wheel timer {} stopped", worker.getName());
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pendingAdds.poll()) != null) {
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue;
+            }
+            // 已经错过的刻度放到下一个要处理的槽
+            long target = Math.max(timeout.deadlineTick, tick);
+            wheel[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 执行槽内到期的任务，同时移除已取消的任务
+     */
+    private void expire(List<Timeout> bucket, long due) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.state.get() != Timeout.PENDING) {
+                continue;
+            }
+            if (timeout.deadlineTick <= due) {
+                timeout.expire();
+            } else {
+                bucket.set(kept++, timeout);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    private void awaitNextTick() {
+        if (pendingTimeouts.get() == 0) {
+            idle = true;
+            // 先声明空闲再检查新任务，登记方看到空闲标记时负责唤醒
+            if (pendingAdds.isEmpty() && running) {
+                LockSupport.park(this);
+            }
+            idle = false;
+            return;
+        }
+        long sleepNanos = startNanos + tick * tickNanos - System.nanoTime();
+        if (sleepNanos > 0) {
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+    }
+
+    /**
+     * 定时任务句柄 / Handle of a scheduled task
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final WheelTimer timer;
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Timeout(WheelTimer timer, Runnable task, long deadlineTick) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * 取消尚未执行的任务；已取消的任务在时间轮下次转到它所在的槽时移除
+         *
+         * @return 任务此前未执行也未取消 / the task had neither run nor been cancelled
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                timer.pendingTimeouts.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            timer.pendingTimeouts.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.warn("Timer task threw an exception", t);
+            }
+        }
+    }
+
+    private static final class SharedHolder {
+        static final WheelTimer TIMER = new WheelTimer("mem0-timer",
+            MemoryConstants.DEFAULT_TIMER_TICK_MS, TimeUnit.MILLISECONDS, MemoryConstants.DEFAULT_TIMER_WHEEL_SIZE);
+    }
+}
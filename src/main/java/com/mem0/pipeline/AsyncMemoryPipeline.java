@@ -8,14 +8,17 @@ import com.mem0.store.VectorStore;
 import com.mem0.store.GraphStore;
 import com.mem0.memory.Memory;
 import com.mem0.core.EnhancedMemory;
+import com.mem0.core.MemoryType;
 import com.mem0.concurrency.cache.HighPerformanceCache;
+import com.mem0.concurrency.SingleFlight;
+import com.mem0.concurrency.VersionedResultCache;
+import com.mem0.constants.MemoryConstants;
 import com.mem0.monitoring.PerformanceMonitor;
+import com.mem0.performance.WheelTimer;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -38,28 +41,35 @@ import java.util.stream.Collectors;
  * 
  * <h3>管道架构 / Pipeline Architecture:</h3>
  * <pre>
- * ┌─────────────────┐    ┌──────────────────┐    ┌─────────────────┐
- * │   Client API    │───→│ Operation Queue  │───→│  Batch Processor│
- * │   (客户端API)    │    │  (操作队列)       │    │   (批处理器)     │
- * └─────────────────┘    └──────────────────┘    └─────────────────┘
- *          │                       │                       │
- *          │                       ▼                       ▼
- * ┌─────────────────┐    ┌──────────────────┐    ┌─────────────────┐
- * │ Memory Cache    │    │ Semaphore Control│    │  Retry Manager  │
- * │  (内存缓存)      │    │  (信号量控制)     │    │  (重试管理器)    │
- * └─────────────────┘    └──────────────────┘    └─────────────────┘
- *          │                       │                       │
- *          ▼                       ▼                       ▼
- * ┌─────────────────┐    ┌──────────────────┐    ┌─────────────────┐
- * │  Vector Store   │    │   Graph Store    │    │  Performance    │
- * │  (向量存储)      │    │   (图存储)        │    │   Monitor       │
- * └─────────────────┘    └──────────────────┘    └─────────────────┘
+ * ┌─────────────┐   ┌─────────────┐   ┌─────────────┐   ┌─────────────┐   ┌─────────────┐
+ * │ Client API  │──→│    embed    │──→│ vector write│──→│ graph write │──→│ cache update│
+ * │ (客户端API)  │   │ (批量嵌入)   │   │ (向量写入)   │   │ (图写入)     │   │ (缓存更新)   │
+ * └─────────────┘   └─────────────┘   └─────────────┘   └─────────────┘   └─────────────┘
+ *        │           每个阶段：有界队列 + 工作预算 + 入队唤醒（无轮询）
+ *        │           each stage: bounded queue + worker budget + wake on enqueue (no polling)
+ *        ▼
+ * ┌─────────────────────────┐    ┌──────────────────┐
+ * │ operations (查询/更新/删除) │───→│  Retry Scheduler │
+ * └─────────────────────────┘    └──────────────────┘
  * </pre>
  * 
+ * <p>创建请求依次经过四个阶段，每个阶段在把结果交给下游并被接纳之后才释放自己的工作预算，
+ * 因此下游拥塞会逐级传回入口；入口队列满时调用方得到一个等待接纳的future，等待者也满时请求以
+ * {@link java.util.concurrent.RejectedExecutionException} 失败。嵌入阶段把同时排队的请求合并为
+ * 一次批量嵌入调用。重试通过调度器延迟执行，不阻塞任何线程。</p>
+ * 
+ * <p>Creates flow through four stages. A stage releases its worker budget only after the next stage
+ * has admitted its output, so downstream congestion propagates back to the entry. When the entry
+ * queue is full callers get a future that completes on admission, and once the waiters are full too
+ * the request fails with {@link java.util.concurrent.RejectedExecutionException}. The embed stage
+ * coalesces concurrently queued requests into one batch embedding call. Retries are delayed on a
+ * scheduler and never block a thread.</p>
+ * 
  * <h3>管道规格 / Pipeline Specifications:</h3>
  * <ul>
  *   <li><b>批处理大小</b>: 可配置，默认50个操作/批次 / Batch size: configurable, default 50 operations/batch</li>
  *   <li><b>并发限制</b>: 可配置，默认100个并发操作 / Concurrency limit: configurable, default 100 concurrent operations</li>
+ *   <li><b>阶段队列</b>: 每阶段有界，默认1024 / Stage queues: bounded per stage, default 1024</li>
  *   <li><b>重试策略</b>: 指数退避，最大3次重试 / Retry strategy: exponential backoff, max 3 retries</li>
  *   <li><b>缓存策略</b>: 双级缓存(内存+查询缓存) / Cache strategy: dual-level cache (memory + query cache)</li>
  *   <li><b>监控指标</b>: 吞吐量、延迟、错误率、缓存命中率 / Monitoring metrics: throughput, latency, error rate, cache hit rate</li>
@@ -109,10 +119,10 @@ import java.util.stream.Collectors;
  * <h3>性能优化策略 / Performance Optimization Strategies:</h3>
  * <ul>
  *   <li><b>批处理优化</b>: 自动批量处理相同类型操作 / Batch optimization: automatic batching of same-type operations</li>
- *   <li><b>并行执行</b>: 向量和图存储并行写入 / Parallel execution: concurrent vector and graph store writes</li>
+ *   <li><b>流水线执行</b>: 各阶段独立并发，互不占用工作预算 / Pipelined execution: stages run concurrently on separate worker budgets</li>
  *   <li><b>缓存策略</b>: 智能缓存热点数据减少重复计算 / Cache strategy: intelligent caching of hot data to reduce redundant computation</li>
  *   <li><b>资源池化</b>: 连接池和线程池复用 / Resource pooling: connection pool and thread pool reuse</li>
- *   <li><b>背压控制</b>: 信号量控制防止资源耗尽 / Backpressure control: semaphore control to prevent resource exhaustion</li>
+ *   <li><b>背压控制</b>: 有界阶段队列与非阻塞接纳防止资源耗尽 / Backpressure control: bounded stage queues with non-blocking admission prevent resource exhaustion</li>
  * </ul>
  * 
  * <h3>线程安全性 / Thread Safety:</h3>
@@ -146,21 +156,30 @@ public class AsyncMemoryPipeline {
     
     // 缓存层
     private final HighPerformanceCache<String, EnhancedMemory> memoryCache;
-    private final HighPerformanceCache<String, List<EnhancedMemory>> queryCache;
+    // 检索结果按用户版本失效，用户的任何写入之后不再返回写入之前的结果
+    private final VersionedResultCache<Object, List<EnhancedMemory>> queryCache;
+    // 相同用户的相同检索在进行中时合并为一次，结果缓存仍由queryCache负责
+    private final SingleFlight<List<EnhancedMemory>> searches = new SingleFlight<>("pipeline-search", ArrayList::new);
+    
+    // 管道阶段：创建依次经过 embed → vector → graph → cache，其他操作经过 operations
+    private final PipelineStage<CreateTask, Void> embedStage;
+    private final PipelineStage<CreateTask, Void> vectorStage;
+    private final PipelineStage<CreateTask, Void> graphStage;
+    private final PipelineStage<CreateTask, Void> cacheStage;
+    private final PipelineStage<PipelineOperation<?>, Void> operationStage;
+    private final List<PipelineStage<?, ?>> stages;
     
-    // 并发控制
-    private final Semaphore operationSemaphore;
+    // 大批量导入的环形缓冲区通道，首次使用时创建
+    private volatile MemoryIngestRing ingestRing;
     private final CompletableFuture<Void> shutdownFuture = new CompletableFuture<>();
     
     // 统计信息
     private final AtomicLong totalOperations = new AtomicLong(0);
     private final AtomicLong successfulOperations = new AtomicLong(0);
     private final AtomicLong failedOperations = new AtomicLong(0);
-    private final AtomicInteger activeBatches = new AtomicInteger(0);
     
-    // 批处理队列
-    private final BlockingQueue<PipelineOperation<?>> operationQueue;
-    private final ScheduledExecutorService batchProcessor;
+    // 重试在共用定时器上调度，关闭流程排空各阶段后不再接受新的重试
+    private volatile boolean retriesStopped = false;
     private volatile boolean isShutdown = false;
 
     public AsyncMemoryPipeline(EmbeddingProvider embeddingProvider,
@@ -193,128 +212,129 @@ public class AsyncMemoryPipeline {
         
         // 初始化缓存
         this.memoryCache = new HighPerformanceCache<>(10000, 1800000, 300000); // 30分钟TTL
-        this.queryCache = new HighPerformanceCache<>(5000, 600000, 120000);    // 10分钟TTL
+        this.queryCache = new VersionedResultCache<>("pipeline-search",
+            MemoryConstants.DEFAULT_SEARCH_CACHE_MAX_ENTRIES, MemoryConstants.DEFAULT_SEARCH_CACHE_TTL_MS, ArrayList::new);
         
-        // 初始化并发控制
-        this.operationSemaphore = new Semaphore(maxConcurrentOperations);
-        
-        // 初始化批处理
-        this.operationQueue = new LinkedBlockingQueue<>();
-        this.batchProcessor = Executors.newScheduledThreadPool(2, r -> {
-            Thread t = new Thread(r, "mem0-pipeline-batch-processor");
-            t.setDaemon(true);
-            return t;
-        });
+        // 初始化管道阶段：写入阶段各分一半并发预算，嵌入按批处理所需预算较少
+        int capacity = MemoryConstants.DEFAULT_PIPELINE_STAGE_CAPACITY;
+        int writeConcurrency = Math.max(1, maxConcurrentOperations / 2);
+        Executor workers = ForkJoinPool.commonPool();
+        this.embedStage = PipelineStage.batched("embed", capacity, Math.max(1, writeConcurrency / 4),
+            maxBatchSize, this::embedBatch, workers);
+        this.vectorStage = PipelineStage.of("vector", capacity, writeConcurrency, this::writeVector, workers);
+        this.graphStage = PipelineStage.of("graph", capacity, writeConcurrency, this::writeGraph, workers);
+        this.cacheStage = PipelineStage.of("cache", capacity, writeConcurrency, this::updateCache, workers);
+        this.operationStage = PipelineStage.of("operations", capacity, maxConcurrentOperations,
+            this::runOperation, workers);
+        this.stages = Arrays.asList(embedStage, vectorStage, graphStage, cacheStage, operationStage);
         
-        startBatchProcessor();
         logger.info("异步内存管道初始化完成 - 最大批大小: {}, 最大并发: {}", maxBatchSize, maxConcurrentOperations);
     }
 
     /**
      * 异步创建内存
+     * 入口队列已满时返回的future在被接纳后继续处理，等待接纳的请求也已满时以
+     * RejectedExecutionException失败
      */
     public CompletableFuture<String> createMemoryAsync(String content, String userId, Map<String, Object> metadata) {
-        return executeWithPipeline("createMemory", () -> {
-            performanceMonitor.incrementCounter("pipeline.memory.create.requests");
-            
-            return performanceMonitor.measureTime("pipeline.memory.create", () -> {
-                // 1. 生成嵌入向量
-                CompletableFuture<List<Float>> embeddingFuture = embeddingProvider.embed(content);
-                
-                // 2. 创建内存对象
-                String memoryId = generateMemoryId();
-                EnhancedMemory memory = new EnhancedMemory(memoryId, content, userId, metadata);
-                
-                return embeddingFuture.thenCompose(embedding -> {
-                    // 3. 并行存储到向量数据库和图数据库
-                    Map<String, Object> vectorMetadata = new HashMap<>(metadata);
-                    vectorMetadata.put("userId", userId);
-                    vectorMetadata.put("memoryId", memoryId);
-                    
-                    CompletableFuture<String> vectorStoreFuture = 
-                        vectorStore.insert(defaultCollection, embedding, vectorMetadata);
-                    
-                    Map<String, Object> nodeProperties = new HashMap<>();
-                    nodeProperties.put("content", memory.getContent());
-                    nodeProperties.put("userId", memory.getUserId());
-                    nodeProperties.put("memoryType", memory.getType() != null ? memory.getType().toString() : "UNKNOWN");
-                    nodeProperties.put("createdAt", memory.getCreatedAt());
-                    
-                    CompletableFuture<Void> graphStoreFuture = 
-                        createGraphNode(memoryId, nodeProperties);
-                    
-                    return CompletableFuture.allOf(vectorStoreFuture, graphStoreFuture)
-                        .thenApply(v -> {
-                            // 4. 更新缓存
-                            memoryCache.put(memoryId, memory);
-                            
-                            performanceMonitor.incrementCounter("pipeline.memory.create.success");
-                            logger.debug("内存创建成功: {}", memoryId);
-                            
-                            return memoryId;
-                        });
-                });
-            });
+        if (isShutdown) {
+            return failedShutdown();
+        }
+        
+        performanceMonitor.incrementCounter("pipeline.memory.create.requests");
+        CompletableFuture<String> result = submitCreate(content, userId, metadata);
+        trackCompletion("createMemory", result);
+        return result.whenComplete((memoryId, throwable) -> {
+            if (throwable == null) {
+                performanceMonitor.incrementCounter("pipeline.memory.create.success");
+            }
         });
     }
 
     /**
      * 批量创建内存
+     * 各请求独立进入管道，嵌入阶段会把同时排队的请求合并为批量嵌入；单个失败的请求在结果中为null。
+     * 数量达到 {@link MemoryConstants#DEFAULT_BULK_INGEST_THRESHOLD} 的批次改走环形缓冲区导入通道，
+     * 按组提交且不写入内存缓存
      */
     public CompletableFuture<List<String>> createMemoriesBatch(List<MemoryCreationRequest> requests) {
-        return executeWithPipeline("createMemoriesBatch", () -> {
-            performanceMonitor.incrementCounter("pipeline.memory.batch_create.requests");
-            
-            return performanceMonitor.measureTime("pipeline.memory.batch_create", () -> {
-                logger.info("开始批量创建内存，数量: {}", requests.size());
-                
-                // 分批处理
-                List<CompletableFuture<List<String>>> batchFutures = new ArrayList<>();
-                
-                for (int i = 0; i < requests.size(); i += maxBatchSize) {
-                    int endIndex = Math.min(i + maxBatchSize, requests.size());
-                    List<MemoryCreationRequest> batch = requests.subList(i, endIndex);
-                    
-                    CompletableFuture<List<String>> batchFuture = processBatch(batch);
-                    batchFutures.add(batchFuture);
+        if (isShutdown) {
+            return failedShutdown();
+        }
+        
+        performanceMonitor.incrementCounter("pipeline.memory.batch_create.requests");
+        logger.info("开始批量创建内存，数量: {}", requests.size());
+        long startTime = System.currentTimeMillis();
+        
+        if (requests.size() >= MemoryConstants.DEFAULT_BULK_INGEST_THRESHOLD) {
+            CompletableFuture<List<String>> result = ingestRing().ingest(requests)
+                .whenComplete((results, throwable) -> {
+                    requests.stream().map(MemoryCreationRequest::getUserId).distinct().forEach(this::invalidateQueryCache);
+                    if (throwable == null) {
+                        performanceMonitor.recordTimer("pipeline.memory.batch_create", System.currentTimeMillis() - startTime);
+                        performanceMonitor.incrementCounter("pipeline.memory.batch_create.success");
+                        logger.info("批量内存导入完成，总计: {}", results.size());
+                    }
+                });
+            trackCompletion("createMemoriesBatch", result);
+            return result;
+        }
+        
+        List<CompletableFuture<String>> creationFutures = new ArrayList<>(requests.size());
+        for (MemoryCreationRequest request : requests) {
+            creationFutures.add(submitCreate(request.getContent(), request.getUserId(), request.getMetadata(),
+                request.getMemoryType()));
+        }
+        
+        CompletableFuture<List<String>> result = CompletableFuture.allOf(
+                creationFutures.stream().map(f -> f.exceptionally(throwable -> null)).toArray(CompletableFuture[]::new))
+            .thenApply(v -> {
+                List<String> results = new ArrayList<>(creationFutures.size());
+                for (CompletableFuture<String> future : creationFutures) {
+                    try {
+                        results.add(future.join());
+                    } catch (CompletionException e) {
+                        logger.error("单个内存创建失败", e.getCause());
+                        results.add(null);
+                    }
                 }
                 
-                // 等待所有批次完成
-                return CompletableFuture.allOf(batchFutures.toArray(new CompletableFuture[0]))
-                    .thenApply(v -> {
-                        List<String> allResults = new ArrayList<>();
-                        for (CompletableFuture<List<String>> batchFuture : batchFutures) {
-                            try {
-                                allResults.addAll(batchFuture.get());
-                            } catch (Exception e) {
-                                logger.error("批处理失败", e);
-                            }
-                        }
-                        
-                        performanceMonitor.incrementCounter("pipeline.memory.batch_create.success");
-                        logger.info("批量内存创建完成，总计: {}", allResults.size());
-                        
-                        return allResults;
-                    });
+                performanceMonitor.recordTimer("pipeline.memory.batch_create", System.currentTimeMillis() - startTime);
+                performanceMonitor.incrementCounter("pipeline.memory.batch_create.success");
+                logger.info("批量内存创建完成，总计: {}", results.size());
+                
+                return results;
             });
-        });
+        trackCompletion("createMemoriesBatch", result);
+        return result;
     }
 
     /**
      * 异步查询相似内存
      */
     public CompletableFuture<List<EnhancedMemory>> searchSimilarMemoriesAsync(String query, String userId, int limit, float threshold) {
-        String cacheKey = generateSearchCacheKey(query, userId, limit, threshold);
+        // 规范化后的查询文本与参数本身作为键，不使用可能冲突的哈希
+        Object cacheKey = SingleFlight.key(query, limit, threshold);
         
         // 检查缓存
-        List<EnhancedMemory> cached = queryCache.get(cacheKey);
+        List<EnhancedMemory> cached = queryCache.get(userId, cacheKey);
         if (cached != null) {
             performanceMonitor.incrementCounter("pipeline.search.cache_hits");
             return CompletableFuture.completedFuture(cached);
         }
         
+        // 缓存未命中的相同检索只执行一次，pipeline.search.requests 只统计实际执行的检索
+        performanceMonitor.incrementCounter("pipeline.search.calls");
+        return searches.execute(userId, cacheKey,
+            () -> searchUncached(query, userId, limit, threshold, cacheKey));
+    }
+    
+    private CompletableFuture<List<EnhancedMemory>> searchUncached(String query, String userId, int limit,
+                                                                   float threshold, Object cacheKey) {
         return executeWithPipeline("searchSimilarMemories", () -> {
             performanceMonitor.incrementCounter("pipeline.search.requests");
+            // 先取版本再开始检索，检索期间发生的写入会使这次的结果不被缓存
+            long version = queryCache.version(userId);
             
             return performanceMonitor.measureTime("pipeline.search", () -> {
                 // 1. 生成查询嵌入
@@ -342,7 +362,7 @@ public class AsyncMemoryPipeline {
                             })
                             .thenApply(memories -> {
                                 // 5. 缓存结果
-                                queryCache.put(cacheKey, memories);
+                                queryCache.put(userId, cacheKey, version, memories);
                                 
                                 performanceMonitor.incrementCounter("pipeline.search.success");
                                 logger.debug("相似内存搜索完成，查询: {}, 结果数: {}", query, memories.size());
@@ -458,18 +478,34 @@ public class AsyncMemoryPipeline {
      * 获取管道统计信息
      */
     public PipelineStats getStats() {
+        Map<String, PipelineStage.StageStats> stageStats = new LinkedHashMap<>();
+        int queueSize = 0;
+        for (PipelineStage<?, ?> stage : stages) {
+            PipelineStage.StageStats stats = stage.getStats();
+            stageStats.put(stats.getName(), stats);
+            queueSize += stats.getDepth();
+        }
+        
         return new PipelineStats(
             totalOperations.get(),
             successfulOperations.get(),
             failedOperations.get(),
-            activeBatches.get(),
-            operationQueue.size(),
-            operationSemaphore.availablePermits(),
+            embedStage.getActive(),
+            queueSize,
+            operationStage.getConcurrency() - operationStage.getActive(),
             memoryCache.getStats(),
-            queryCache.getStats()
+            queryCache.getStats(),
+            stageStats
         );
     }
 
+    /**
+     * 相同检索合并统计 / Search deduplication statistics
+     */
+    public SingleFlight.Stats getSearchDedupStats() {
+        return searches.getStats();
+    }
+
     /**
      * 预热管道
      */
@@ -484,6 +520,14 @@ public class AsyncMemoryPipeline {
             .thenRun(() -> logger.info("管道预热完成"));
     }
 
+    /**
+     * 获取批量导入通道统计信息，尚未使用过导入通道时返回null
+     */
+    public MemoryIngestRing.IngestStats getIngestStats() {
+        MemoryIngestRing ring = ingestRing;
+        return ring != null ? ring.getStats() : null;
+    }
+
     /**
      * 关闭管道
      */
@@ -493,20 +537,23 @@ public class AsyncMemoryPipeline {
         
         return CompletableFuture.runAsync(() -> {
             try {
-                // 停止批处理器
-                batchProcessor.shutdown();
-                if (!batchProcessor.awaitTermination(30, TimeUnit.SECONDS)) {
-                    batchProcessor.shutdownNow();
+                // 等待已接纳的请求流过所有阶段，最多30秒
+                long deadline = System.currentTimeMillis() + 30000;
+                while (!stages.stream().allMatch(PipelineStage::isIdle) && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
                 }
-                
-                // 等待所有操作完成
-                while (operationSemaphore.availablePermits() < maxConcurrentOperations) {
-                    Thread.sleep(100);
+                stages.forEach(PipelineStage::close);
+                MemoryIngestRing ring = ingestRing;
+                if (ring != null) {
+                    ring.close();
                 }
                 
+                // 停止重试调度
+                retriesStopped = true;
+                
                 // 关闭缓存
                 memoryCache.shutdown();
-                queryCache.shutdown();
+                queryCache.invalidateAll();
                 
                 logger.info("异步内存管道关闭完成");
                 shutdownFuture.complete(null);
@@ -520,195 +567,150 @@ public class AsyncMemoryPipeline {
 
     // 私有辅助方法
 
-    private void startBatchProcessor() {
-        batchProcessor.scheduleAtFixedRate(this::processPendingOperations, 100, 100, TimeUnit.MILLISECONDS);
+    private CompletableFuture<String> submitCreate(String content, String userId, Map<String, Object> metadata) {
+        return submitCreate(content, userId, metadata, null);
     }
 
-    private void processPendingOperations() {
-        if (isShutdown || operationQueue.isEmpty()) {
-            return;
+    private CompletableFuture<String> submitCreate(String content, String userId, Map<String, Object> metadata,
+                                                   MemoryType memoryType) {
+        String memoryId = generateMemoryId();
+        EnhancedMemory memory = new EnhancedMemory(memoryId, content, userId, metadata);
+        if (memoryType != null) {
+            memory.setType(memoryType);
         }
+        CreateTask task = new CreateTask(memory, metadata);
+        embedStage.submit(task).whenComplete((v, throwable) -> task.failOn(throwable));
+        return task.result;
+    }
 
-        List<PipelineOperation<?>> batch = new ArrayList<>();
-        operationQueue.drainTo(batch, maxBatchSize);
+    /**
+     * 把任务交给下游阶段；返回的future在下游接纳时完成，上游阶段据此释放工作预算
+     */
+    private CompletableFuture<Void> handOff(PipelineStage<CreateTask, Void> next, CreateTask task) {
+        return next.enqueue(task).thenAccept(done -> done.whenComplete((v, throwable) -> task.failOn(throwable)));
+    }
 
-        if (!batch.isEmpty()) {
-            activeBatches.incrementAndGet();
-            CompletableFuture.runAsync(() -> {
-                try {
-                    // 按操作类型分组并并行执行
-                    Map<String, List<PipelineOperation<?>>> groupedOps = batch.stream()
-                        .collect(Collectors.groupingBy(op -> op.operationType));
+    private CompletableFuture<List<Void>> embedBatch(List<CreateTask> tasks) {
+        logger.debug("处理内存嵌入批次，大小: {}", tasks.size());
+        List<String> contents = tasks.stream()
+            .map(task -> task.memory.getContent())
+            .collect(Collectors.toList());
+        
+        return executeWithRetry("embed", () -> embeddingProvider.embedBatch(contents))
+            .thenCompose(embeddings -> {
+                List<CompletableFuture<Void>> handOffs = new ArrayList<>(tasks.size());
+                for (int i = 0; i < tasks.size(); i++) {
+                    CreateTask task = tasks.get(i);
+                    task.embedding = embeddings.get(i);
+                    handOffs.add(handOff(vectorStage, task));
+                }
+                return CompletableFuture.allOf(handOffs.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> Collections.<Void>nCopies(tasks.size(), null));
+            });
+    }
 
-                    List<CompletableFuture<Void>> groupFutures = groupedOps.entrySet().stream()
-                        .map(entry -> executeOperationGroup(entry.getKey(), entry.getValue()))
-                        .collect(Collectors.toList());
+    private CompletableFuture<Void> writeVector(CreateTask task) {
+        Map<String, Object> vectorMetadata = new HashMap<>(task.metadata);
+        vectorMetadata.put("userId", task.memory.getUserId());
+        vectorMetadata.put("memoryId", task.memory.getId());
+        
+        return executeWithRetry("vectorWrite", () -> vectorStore.insert(defaultCollection, task.embedding, vectorMetadata))
+            .thenCompose(id -> handOff(graphStage, task));
+    }
 
-                    CompletableFuture.allOf(groupFutures.toArray(new CompletableFuture[0])).join();
+    private CompletableFuture<Void> writeGraph(CreateTask task) {
+        EnhancedMemory memory = task.memory;
+        Map<String, Object> nodeProps = new HashMap<>();
+        nodeProps.put("id", memory.getId());
+        nodeProps.put("content", memory.getContent());
+        nodeProps.put("userId", memory.getUserId());
+        nodeProps.put("memoryType", memory.getType() != null ? memory.getType().toString() : "UNKNOWN");
+        nodeProps.put("createdAt", memory.getCreatedAt());
+        
+        return executeWithRetry("graphWrite", () -> createGraphNode(memory.getId(), nodeProps))
+            .thenCompose(v -> handOff(cacheStage, task));
+    }
 
-                } catch (Exception e) {
-                    logger.error("批处理操作失败", e);
-                } finally {
-                    activeBatches.decrementAndGet();
-                }
-            });
-        }
+    private CompletableFuture<Void> updateCache(CreateTask task) {
+        memoryCache.put(task.memory.getId(), task.memory);
+        invalidateQueryCache(task.memory.getUserId());
+        performanceMonitor.recordTimer("pipeline.memory.create",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.startNanos));
+        logger.debug("内存创建成功: {}", task.memory.getId());
+        task.result.complete(task.memory.getId());
+        return CompletableFuture.completedFuture(null);
     }
 
-    private CompletableFuture<Void> executeOperationGroup(String operationType, List<PipelineOperation<?>> operations) {
-        return CompletableFuture.runAsync(() -> {
-            logger.debug("执行操作组: {}, 操作数: {}", operationType, operations.size());
-            
-            for (PipelineOperation<?> operation : operations) {
-                try {
-                    operation.execute();
-                } catch (Exception e) {
-                    logger.error("操作执行失败: " + operationType, e);
-                    operation.completeExceptionally(e);
-                }
-            }
-        });
+    private CompletableFuture<Void> runOperation(PipelineOperation<?> operation) {
+        return operation.start();
     }
 
     private <T> CompletableFuture<T> executeWithPipeline(String operationType, Callable<CompletableFuture<T>> operation) {
         if (isShutdown) {
-            CompletableFuture<T> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(new IllegalStateException("管道已关闭"));
-            return failedFuture;
+            return failedShutdown();
         }
 
-        totalOperations.incrementAndGet();
+        PipelineOperation<T> pipelineOperation = new PipelineOperation<>(operationType, operation);
+        operationStage.submit(pipelineOperation)
+            .whenComplete((v, throwable) -> {
+                if (throwable != null) {
+                    pipelineOperation.completeExceptionally(throwable);
+                }
+            });
+        trackCompletion(operationType, pipelineOperation.future);
+        return pipelineOperation.future;
+    }
 
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                operationSemaphore.acquire();
-                
-                return executeWithRetry(operationType, operation)
-                    .whenComplete((result, throwable) -> {
-                        operationSemaphore.release();
-                        
-                        if (throwable == null) {
-                            successfulOperations.incrementAndGet();
-                        } else {
-                            failedOperations.incrementAndGet();
-                            logger.error("管道操作失败: " + operationType, throwable);
-                        }
-                    });
-                    
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("操作被中断", e);
+    private void trackCompletion(String operationType, CompletableFuture<?> future) {
+        totalOperations.incrementAndGet();
+        future.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                successfulOperations.incrementAndGet();
+            } else {
+                failedOperations.incrementAndGet();
+                logger.error("管道操作失败: " + operationType, throwable);
             }
-        }).thenCompose(Function.identity());
+        });
     }
 
     private <T> CompletableFuture<T> executeWithRetry(String operationType, Callable<CompletableFuture<T>> operation) {
-        return executeWithRetry(operationType, operation, 0);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(operationType, operation, 0, result);
+        return result;
     }
 
-    private <T> CompletableFuture<T> executeWithRetry(String operationType, Callable<CompletableFuture<T>> operation, int attempt) {
+    private <T> void attempt(String operationType, Callable<CompletableFuture<T>> operation, int attempt,
+                             CompletableFuture<T> result) {
+        CompletableFuture<T> future;
         try {
-            return operation.call().exceptionally(throwable -> {
-                if (attempt < maxRetries) {
-                    logger.warn("操作失败，准备重试 ({}/{}): {}", attempt + 1, maxRetries, operationType);
-                    
-                    try {
-                        Thread.sleep(retryDelayMs * (attempt + 1)); // 指数退避
-                        return executeWithRetry(operationType, operation, attempt + 1).join();
-                    } catch (Exception e) {
-                        throw new RuntimeException("重试失败", e);
-                    }
-                } else {
-                    throw new RuntimeException("操作达到最大重试次数: " + operationType, throwable);
-                }
-            });
+            future = operation.call();
         } catch (Exception e) {
-            CompletableFuture<T> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(e);
-            return failedFuture;
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
         }
-    }
-
-    private CompletableFuture<List<String>> processBatch(List<MemoryCreationRequest> batch) {
-        activeBatches.incrementAndGet();
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.debug("处理内存创建批次，大小: {}", batch.size());
-                
-                // 批量生成嵌入
-                List<String> contents = batch.stream()
-                    .map(MemoryCreationRequest::getContent)
-                    .collect(Collectors.toList());
-                
-                return embeddingProvider.embedBatch(contents)
-                    .thenCompose(embeddings -> {
-                        // 并行创建内存
-                        List<CompletableFuture<String>> creationFutures = new ArrayList<>();
-                        
-                        for (int i = 0; i < batch.size(); i++) {
-                            MemoryCreationRequest request = batch.get(i);
-                            List<Float> embedding = embeddings.get(i);
-                            
-                            CompletableFuture<String> future = createSingleMemory(request, embedding);
-                            creationFutures.add(future);
-                        }
-                        
-                        return CompletableFuture.allOf(creationFutures.toArray(new CompletableFuture[0]))
-                            .thenApply(v -> {
-                                List<String> results = new ArrayList<>();
-                                for (CompletableFuture<String> future : creationFutures) {
-                                    try {
-                                        results.add(future.get());
-                                    } catch (Exception e) {
-                                        logger.error("单个内存创建失败", e);
-                                        results.add(null);
-                                    }
-                                }
-                                return results;
-                            });
-                    }).join();
-                    
-            } finally {
-                activeBatches.decrementAndGet();
+        future.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                result.complete(value);
+            } else if (attempt < maxRetries && !retriesStopped) {
+                logger.warn("操作失败，准备重试 ({}/{}): {}", attempt + 1, maxRetries, operationType);
+                try {
+                    // 延迟由定时器触发，不占用任何线程 / delayed on the timer, holding no thread
+                    WheelTimer.shared().newTimeout(() -> attempt(operationType, operation, attempt + 1, result),
+                        retryDelayMs * (attempt + 1), TimeUnit.MILLISECONDS); // 递增退避
+                } catch (RejectedExecutionException e) {
+                    result.completeExceptionally(new RuntimeException("操作达到最大重试次数: " + operationType, throwable));
+                }
+            } else {
+                result.completeExceptionally(new RuntimeException("操作达到最大重试次数: " + operationType, throwable));
             }
         });
     }
 
-    private CompletableFuture<String> createSingleMemory(MemoryCreationRequest request, List<Float> embedding) {
-        String memoryId = generateMemoryId();
-        EnhancedMemory memory = new EnhancedMemory(memoryId, request.getContent(), request.getUserId(), request.getMetadata());
-        
-        Map<String, Object> vectorMetadata = new HashMap<>(request.getMetadata());
-        vectorMetadata.put("userId", request.getUserId());
-        vectorMetadata.put("memoryId", memoryId);
-        
-        CompletableFuture<String> vectorStoreFuture = 
-            vectorStore.insert(defaultCollection, embedding, vectorMetadata);
-        
-        Map<String, Object> nodeProps = new HashMap<>();
-        nodeProps.put("id", memoryId); // 添加ID属性
-        nodeProps.put("content", memory.getContent());
-        nodeProps.put("userId", memory.getUserId());
-        nodeProps.put("memoryType", memory.getType() != null ? memory.getType().toString() : "UNKNOWN");
-        nodeProps.put("createdAt", memory.getCreatedAt());
-        
-        logger.debug("准备创建图节点: {}", memoryId);
-        
-        // 直接创建节点，使用memoryId作为节点ID
-        CompletableFuture<Void> graphStoreFuture = 
-            createGraphNode(memoryId, nodeProps);
-        
-        return CompletableFuture.allOf(vectorStoreFuture.thenApply(id -> null), graphStoreFuture)
-            .thenApply(v -> {
-                logger.debug("内存创建完成: {}", memoryId);
-                memoryCache.put(memoryId, memory);
-                return memoryId;
-            })
-            .exceptionally(throwable -> {
-                logger.error("内存创建失败: {}", memoryId, throwable);
-                throw new RuntimeException("内存创建失败", throwable);
-            });
+    private static <T> CompletableFuture<T> failedShutdown() {
+        CompletableFuture<T> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new IllegalStateException("管道已关闭"));
+        return failedFuture;
     }
     
     private CompletableFuture<Void> createGraphNode(String nodeId, Map<String, Object> properties) {
@@ -777,41 +779,61 @@ public class AsyncMemoryPipeline {
             });
     }
 
-    private String generateMemoryId() {
-        return "mem_" + System.currentTimeMillis() + "_" + Math.abs(UUID.randomUUID().hashCode());
+    private MemoryIngestRing ingestRing() {
+        MemoryIngestRing ring = ingestRing;
+        if (ring == null) {
+            synchronized (this) {
+                ring = ingestRing;
+                if (ring == null) {
+                    ring = new MemoryIngestRing(embeddingProvider, vectorStore, graphStore, defaultCollection,
+                        this::generateMemoryId, MemoryConstants.DEFAULT_INGEST_RING_SIZE,
+                        MemoryConstants.DEFAULT_INGEST_EMBED_BATCH_SIZE, MemoryConstants.DEFAULT_INGEST_WRITE_BATCH_SIZE);
+                    ingestRing = ring;
+                }
+            }
+        }
+        return ring;
     }
 
-    private String generateSearchCacheKey(String query, String userId, int limit, float threshold) {
-        return String.format("search_%s_%s_%d_%.2f", 
-            Integer.toHexString(query.hashCode()), userId, limit, threshold);
+    private String generateMemoryId() {
+        return "mem_" + System.currentTimeMillis() + "_" + Math.abs(UUID.randomUUID().hashCode());
     }
 
+    /**
+     * 用户发生写入后调用，只使该用户的检索结果失效
+     */
     private void invalidateQueryCache(String userId) {
-        // 简化实现：清空整个查询缓存
-        // 在生产环境中，应该只清理特定用户的缓存
-        queryCache.clear();
+        searches.invalidate(userId);
+        if (userId != null) {
+            queryCache.invalidate(userId);
+        } else {
+            queryCache.invalidateAll();
+        }
     }
 
     // 内部类
 
-    private static class PipelineOperation<T> {
+    private class PipelineOperation<T> {
         private final String operationType;
-        private final Callable<T> operation;
+        private final Callable<CompletableFuture<T>> operation;
         private final CompletableFuture<T> future;
 
-        public PipelineOperation(String operationType, Callable<T> operation) {
+        public PipelineOperation(String operationType, Callable<CompletableFuture<T>> operation) {
             this.operationType = operationType;
             this.operation = operation;
             this.future = new CompletableFuture<>();
         }
 
-        public void execute() {
-            try {
-                T result = operation.call();
-                future.complete(result);
-            } catch (Exception e) {
-                future.completeExceptionally(e);
-            }
+        public CompletableFuture<Void> start() {
+            return executeWithRetry(operationType, operation)
+                .handle((result, throwable) -> {
+                    if (throwable != null) {
+                        future.completeExceptionally(throwable);
+                    } else {
+                        future.complete(result);
+                    }
+                    return null;
+                });
         }
 
         public void completeExceptionally(Throwable throwable) {
@@ -819,20 +841,54 @@ public class AsyncMemoryPipeline {
         }
     }
 
+    /**
+     * 流经创建阶段的任务，各阶段依次填充结果
+     */
+    private static final class CreateTask {
+        final EnhancedMemory memory;
+        final Map<String, Object> metadata;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        final long startNanos = System.nanoTime();
+        volatile List<Float> embedding;
+
+        CreateTask(EnhancedMemory memory, Map<String, Object> metadata) {
+            this.memory = memory;
+            this.metadata = metadata != null ? metadata : new HashMap<>();
+        }
+
+        void failOn(Throwable throwable) {
+            if (throwable != null) {
+                result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable);
+            }
+        }
+    }
+
     public static class MemoryCreationRequest {
         private final String content;
         private final String userId;
         private final Map<String, Object> metadata;
+        private final MemoryType memoryType;
 
         public MemoryCreationRequest(String content, String userId, Map<String, Object> metadata) {
+            this(content, userId, metadata, null);
+        }
+
+        /**
+         * @param memoryType 记忆类型，为null时使用 {@link EnhancedMemory} 的默认类型
+         */
+        public MemoryCreationRequest(String content, String userId, Map<String, Object> metadata,
+                                     MemoryType memoryType) {
             this.content = content;
             this.userId = userId;
             this.metadata = metadata != null ? metadata : new HashMap<>();
+            this.memoryType = memoryType;
         }
 
         public String getContent() { return content; }
         public String getUserId() { return userId; }
         public Map<String, Object> getMetadata() { return metadata; }
+        public MemoryType getMemoryType() { return memoryType; }
     }
 
     public static class PipelineStats {
@@ -843,12 +899,22 @@ public class AsyncMemoryPipeline {
         private final int queueSize;
         private final int availablePermits;
         private final HighPerformanceCache.CacheStats memoryCacheStats;
-        private final HighPerformanceCache.CacheStats queryCacheStats;
+        private final VersionedResultCache.Stats queryCacheStats;
+        private final Map<String, PipelineStage.StageStats> stageStats;
+
+        public PipelineStats(long totalOperations, long successfulOperations, long failedOperations,
+                           int activeBatches, int queueSize, int availablePermits,
+                           HighPerformanceCache.CacheStats memoryCacheStats,
+                           VersionedResultCache.Stats queryCacheStats) {
+            this(totalOperations, successfulOperations, failedOperations, activeBatches, queueSize,
+                availablePermits, memoryCacheStats, queryCacheStats, Collections.emptyMap());
+        }
 
         public PipelineStats(long totalOperations, long successfulOperations, long failedOperations,
                            int activeBatches, int queueSize, int availablePermits,
                            HighPerformanceCache.CacheStats memoryCacheStats,
-                           HighPerformanceCache.CacheStats queryCacheStats) {
+                           VersionedResultCache.Stats queryCacheStats,
+                           Map<String, PipelineStage.StageStats> stageStats) {
             this.totalOperations = totalOperations;
             this.successfulOperations = successfulOperations;
             this.failedOperations = failedOperations;
@@ -857,6 +923,7 @@ public class AsyncMemoryPipeline {
             this.availablePermits = availablePermits;
             this.memoryCacheStats = memoryCacheStats;
             this.queryCacheStats = queryCacheStats;
+            this.stageStats = new LinkedHashMap<>(stageStats);
         }
 
         public long getTotalOperations() { return totalOperations; }
@@ -866,7 +933,8 @@ public class AsyncMemoryPipeline {
         public int getQueueSize() { return queueSize; }
         public int getAvailablePermits() { return availablePermits; }
         public HighPerformanceCache.CacheStats getMemoryCacheStats() { return memoryCacheStats; }
-        public HighPerformanceCache.CacheStats getQueryCacheStats() { return queryCacheStats; }
+        public VersionedResultCache.Stats getQueryCacheStats() { return queryCacheStats; }
+        public Map<String, PipelineStage.StageStats> getStageStats() { return Collections.unmodifiableMap(stageStats); }
 
         public double getSuccessRate() {
             return totalOperations == 0 ? 0.0 : (double) successfulOperations / totalOperations;
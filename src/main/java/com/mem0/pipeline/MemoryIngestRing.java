@@ -0,0 +1,633 @@
+package com.mem0.pipeline;
+
+import com.mem0.core.MemoryType;
+import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.graph.impl.HighPerformanceGraphStore;
+import com.mem0.store.GraphStore;
+import com.mem0.store.VectorStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 环形缓冲区批量导入通道 / Ring-Buffer Bulk Ingest Path
+ *
+ * <p>面向大批量导入（例如数百万条对话）的高吞吐写入通道，采用Disruptor式的预分配环形缓冲区与
+ * 序列屏障：发布线程按序列号认领槽位并填充后发布；单写者的嵌入线程沿已发布序列取出一批调用一次
+ * {@code embedBatch}；向量写入线程跟随嵌入序列、图写入线程跟随向量序列，各自把可用的槽位成组提交。
+ * 图序列即为提交序列，它同时决定槽位何时可被发布线程复用。{@link #ingest} 只把批次交给发布线程
+ * 后立即返回，环满时等待的是发布线程而不是调用方；每次调用只分配一个future，在提交序列越过该批
+ * 最后一个槽位时完成，而不是每条记忆一个future。</p>
+ *
+ * <p>A high-throughput write path for bulk imports, such as millions of chat turns, built on a
+ * Disruptor-style preallocated ring with sequence barriers. A publisher thread claims sequence
+ * numbers, fills the slots and publishes them. A single-writer embed thread takes a run of published slots and makes
+ * one {@code embedBatch} call. The vector writer follows the embed sequence and the graph writer follows
+ * the vector sequence, each committing whatever is available as a group. The graph sequence is the
+ * commit sequence, which also gates when the publisher may reuse a slot. {@link #ingest} only hands
+ * the batch to the publisher and returns, so a full ring makes the publisher wait rather than the
+ * caller. Each call allocates one future, completed when the commit sequence passes the batch's last
+ * slot, rather than one future per memory.</p>
+ *
+ * <p>线程空闲时只短暂自旋与让出，随后无超时地挂起；推进某个序列的线程负责唤醒等待该序列的
+ * 下一个线程，因此导入结束后通道不再占用CPU，也没有定时唤醒。</p>
+ *
+ * <p>An idle thread spins and yields only briefly and then parks without a timeout. Whichever thread
+ * advances a sequence wakes the one thread waiting on it, so once an import is done the path uses no
+ * CPU and has no timed wakeups.</p>
+ *
+ * <p>失败按组记录在槽位的状态中：某组嵌入或写入失败时，该组内的记忆在结果中为null，其余记忆不受影响。
+ * 图写入只处理向量已写入的槽位；图组提交失败时删除该组已创建的节点与已写入的向量，两个存储不会
+ * 留下孤立数据。导入的记忆不写入管道的内存缓存，以免大批量导入冲掉热点数据。</p>
+ *
+ * <p>Failures are recorded per group in the slot status: memories in a group whose embedding or write
+ * fails are null in the result and the others are unaffected. The graph writer only handles slots whose
+ * vectors were written; when a graph group fails, the nodes it created and its vectors are deleted, so
+ * neither store is left with orphans. Ingested memories are not put in the pipeline's memory cache, so a
+ * bulk import does not evict hot entries.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class MemoryIngestRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryIngestRing.class);
+
+    private static final int SPIN_TRIES = 200;
+
+    private final EmbeddingProvider embeddingProvider;
+    private final VectorStore vectorStore;
+    private final GraphStore graphStore;
+    private final String collection;
+    private final Supplier<String> idGenerator;
+    private final int embedBatchSize;
+    private final int writeBatchSize;
+
+    // 预分配的槽位与按轮次记录的发布标记 / preallocated slots and per-round publish flags
+    private final Slot[] slots;
+    private final int mask;
+    private final int indexShift;
+    private final AtomicIntegerArray published;
+
+    // 序列：认领 → 嵌入 → 向量写入 → 图写入 / sequences: claim → embed → vector write → graph write
+    private final AtomicLong claimSequence = new AtomicLong(-1);
+    private final AtomicLong embedSequence = new AtomicLong(-1);
+    private final AtomicLong vectorSequence = new AtomicLong(-1);
+    private final AtomicLong graphSequence = new AtomicLong(-1);
+
+    // 等待发布的批次与按最后一个序列号登记的待完成批次 / batches waiting to be published and pending
+    // batches keyed by their last sequence
+    private final Queue<Submission> submissions = new ConcurrentLinkedQueue<>();
+    private final ConcurrentSkipListMap<Long, IngestBatch> pendingBatches = new ConcurrentSkipListMap<>();
+
+    private final Thread publishThread;
+    private final Thread embedThread;
+    private final Thread vectorThread;
+    private final Thread graphThread;
+    private volatile boolean running = true;
+
+    // 统计 / statistics
+    private final LongAdder ingested = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder embedBatches = new LongAdder();
+    private final LongAdder vectorGroups = new LongAdder();
+    private final LongAdder graphGroups = new LongAdder();
+
+    /**
+     * @param bufferSize     环大小，向上取整为2的幂 / ring size, rounded up to a power of two
+     * @param embedBatchSize 每次嵌入调用的最大条数 / maximum texts per embedding call
+     * @param writeBatchSize 每组提交的最大条数 / maximum slots per group commit
+     */
+    public MemoryIngestRing(EmbeddingProvider embeddingProvider, VectorStore vectorStore, GraphStore graphStore,
+                            String collection, Supplier<String> idGenerator,
+                            int bufferSize, int embedBatchSize, int writeBatchSize) {
+        if (bufferSize < 2 || embedBatchSize <= 0 || writeBatchSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be at least 2 and batch sizes positive");
+        }
+        this.embeddingProvider = embeddingProvider;
+        this.vectorStore = vectorStore;
+        this.graphStore = graphStore;
+        this.collection = collection;
+        this.idGenerator = idGenerator;
+        this.embedBatchSize = embedBatchSize;
+        this.writeBatchSize = writeBatchSize;
+
+        int size = Integer.highestOneBit(bufferSize - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(size);
+        this.published = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+
+        // 全部创建后再启动，线程唤醒下游时总能看到对方 / start only after all are created, so every thread
+        // sees the thread it wakes
+        this.publishThread = newThread("mem0-ingest-publish", this::runPublisher);
+        this.embedThread = newThread("mem0-ingest-embed", this::runEmbedder);
+        this.vectorThread = newThread("mem0-ingest-vector", () -> runWriter(embedSequence, vectorSequence, true));
+        this.graphThread = newThread("mem0-ingest-graph", () -> runWriter(vectorSequence, graphSequence, false));
+        for (Thread thread : Arrays.asList(publishThread, embedThread, vectorThread, graphThread)) {
+            thread.start();
+        }
+        logger.info("环形导入通道初始化完成 - 环大小: {}, 嵌入批大小: {}, 写入组大小: {}", size, embedBatchSize, writeBatchSize);
+    }
+
+    /**
+     * 导入一批记忆 / Ingest a batch of memories.
+     *
+     * @return 与请求一一对应的记忆ID，失败的为null；整批提交后完成 / memory ids matching the requests,
+     *         null where a memory failed, completed once the whole batch has been committed
+     */
+    public CompletableFuture<List<String>> ingest(List<AsyncMemoryPipeline.MemoryCreationRequest> requests) {
+        if (!running) {
+            return closedFuture();
+        }
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        Submission submission = new Submission(requests);
+        submissions.add(submission);
+        LockSupport.unpark(publishThread);
+        // 与close()并发时，close()可能已经清空了队列 / close() may already have drained the queue
+        if (!running && submissions.remove(submission)) {
+            submission.batch.future.completeExceptionally(new IllegalStateException("导入通道已关闭"));
+        }
+        return submission.batch.future;
+    }
+
+    private static CompletableFuture<List<String>> closedFuture() {
+        CompletableFuture<List<String>> closed = new CompletableFuture<>();
+        closed.completeExceptionally(new IllegalStateException("导入通道已关闭"));
+        return closed;
+    }
+
+    public IngestStats getStats() {
+        long claimed = claimSequence.get() + 1;
+        long committed = committedSequence() + 1;
+        return new IngestStats(ingested.sum(), failed.sum(), claimed - committed, slots.length,
+            embedBatches.sum(), vectorGroups.sum(), graphGroups.sum());
+    }
+
+    /**
+     * 停止处理线程并使未完成的批次失败 / Stop the worker threads and fail unfinished batches.
+     */
+    public void close() {
+        running = false;
+        for (Thread thread : Arrays.asList(publishThread, embedThread, vectorThread, graphThread)) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        IllegalStateException closed = new IllegalStateException("导入通道已关闭");
+        Submission submission;
+        while ((submission = submissions.poll()) != null) {
+            submission.batch.future.completeExceptionally(closed);
+        }
+        Map.Entry<Long, IngestBatch> entry;
+        while ((entry = pendingBatches.pollFirstEntry()) != null) {
+            entry.getValue().future.completeExceptionally(closed);
+        }
+        logger.info("环形导入通道已关闭 - {}", getStats());
+    }
+
+    // 处理线程 / worker threads
+
+    private void runPublisher() {
+        int idle = 0;
+        while (running) {
+            Submission submission = submissions.poll();
+            if (submission == null) {
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            publish(submission);
+        }
+    }
+
+    /**
+     * 分段认领、填充并发布一个批次，环满时等待提交序列；只在发布线程执行
+     * Claim, fill and publish a batch in chunks, waiting for the commit sequence when the ring is full;
+     * runs on the publisher only.
+     */
+    private void publish(Submission submission) {
+        List<AsyncMemoryPipeline.MemoryCreationRequest> requests = submission.requests;
+        IngestBatch batch = submission.batch;
+        int chunkSize = Math.max(1, slots.length / 2);
+        int offset = 0;
+        while (offset < requests.size()) {
+            int n = Math.min(chunkSize, requests.size() - offset);
+            long hi = claimSequence.get() + n;
+            long lo = hi - n + 1;
+            if (!awaitCapacity(hi)) {
+                batch.future.completeExceptionally(new IllegalStateException("导入通道已关闭"));
+                return;
+            }
+
+            for (long sequence = lo; sequence <= hi; sequence++) {
+                int index = offset + (int) (sequence - lo);
+                AsyncMemoryPipeline.MemoryCreationRequest request = requests.get(index);
+                String memoryId = idGenerator.get();
+                batch.ids[index] = memoryId;
+                slots[(int) sequence & mask].fill(memoryId, request, batch, index);
+            }
+            offset += n;
+            if (offset == requests.size()) {
+                // 最后一段发布之前登记，提交序列不可能已越过该批 / registered before the last chunk is
+                // published, so the commit sequence cannot already be past the batch
+                pendingBatches.put(hi, batch);
+            }
+            claimSequence.set(hi);
+            for (long sequence = lo; sequence <= hi; sequence++) {
+                published.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+            }
+            LockSupport.unpark(embedThread);
+        }
+    }
+
+    private void runEmbedder() {
+        long next = embedSequence.get() + 1;
+        int idle = 0;
+        while (running) {
+            long available = highestPublished(next, claimSequence.get());
+            if (available < next) {
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            long end = Math.min(available, next + embedBatchSize - 1);
+
+            List<String> contents = new ArrayList<>((int) (end - next + 1));
+            for (long sequence = next; sequence <= end; sequence++) {
+                contents.add(slots[(int) sequence & mask].content);
+            }
+            try {
+                List<List<Float>> embeddings = embeddingProvider.embedBatch(contents).join();
+                if (embeddings == null || embeddings.size() != contents.size()) {
+                    throw new IllegalStateException("嵌入结果数量与输入不一致");
+                }
+                for (long sequence = next; sequence <= end; sequence++) {
+                    slots[(int) sequence & mask].embedding = embeddings.get((int) (sequence - next));
+                }
+            } catch (RuntimeException e) {
+                logger.error("批量嵌入失败，序列 {}-{}", next, end, e);
+                for (long sequence = next; sequence <= end; sequence++) {
+                    slots[(int) sequence & mask].failed = true;
+                }
+            }
+            embedBatches.increment();
+            embedSequence.set(end);
+            LockSupport.unpark(vectorThread);
+            next = end + 1;
+        }
+    }
+
+    private void runWriter(AtomicLong upstream, AtomicLong own, boolean vector) {
+        long next = own.get() + 1;
+        int idle = 0;
+        while (running) {
+            long available = upstream.get();
+            if (available < next) {
+                idle = idle(idle);
+                continue;
+            }
+            idle = 0;
+            long end = Math.min(available, next + writeBatchSize - 1);
+            if (vector) {
+                commitVectors(next, end);
+                vectorGroups.increment();
+                own.set(end);
+                LockSupport.unpark(graphThread);
+            } else {
+                commitNodes(next, end);
+                graphGroups.increment();
+                settle(next, end);
+                own.set(end);
+                // 槽位已可复用 / the slots can be reused now
+                LockSupport.unpark(publishThread);
+                completeBatches();
+            }
+            next = end + 1;
+        }
+    }
+
+    private void commitVectors(long from, long to) {
+        List<Slot> group = new ArrayList<>((int) (to - from + 1));
+        List<List<Float>> vectors = new ArrayList<>(group.size());
+        List<Map<String, Object>> metadataList = new ArrayList<>(group.size());
+        for (long sequence = from; sequence <= to; sequence++) {
+            Slot slot = slots[(int) sequence & mask];
+            if (slot.failed) {
+                continue;
+            }
+            Map<String, Object> metadata = new HashMap<>(slot.metadata);
+            metadata.put("userId", slot.userId);
+            metadata.put("memoryId", slot.memoryId);
+            group.add(slot);
+            vectors.add(slot.embedding);
+            metadataList.add(metadata);
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> vectorIds = vectorStore.batchInsert(collection, vectors, metadataList).join();
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).vectorId = vectorIds != null && i < vectorIds.size() ? vectorIds.get(i) : null;
+            }
+        } catch (RuntimeException e) {
+            logger.error("向量组提交失败，序列 {}-{}", from, to, e);
+            group.forEach(slot -> slot.failed = true);
+        }
+    }
+
+    private void commitNodes(long from, long to) {
+        List<Slot> group = new ArrayList<>((int) (to - from + 1));
+        List<Map<String, Object>> nodes = new ArrayList<>(group.size());
+        for (long sequence = from; sequence <= to; sequence++) {
+            Slot slot = slots[(int) sequence & mask];
+            if (slot.failed) {
+                continue;
+            }
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("id", slot.memoryId);
+            properties.put("content", slot.content);
+            properties.put("userId", slot.userId);
+            properties.put("memoryType", slot.memoryType.toString());
+            properties.put("createdAt", slot.createdAt);
+            group.add(slot);
+            nodes.add(properties);
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+        List<String> createdNodes = new ArrayList<>(nodes.size());
+        try {
+            createNodes(nodes, createdNodes);
+        } catch (RuntimeException e) {
+            logger.error("图节点组提交失败，回滚该组的节点与向量，序列 {}-{}", from, to, e);
+            rollback(group, createdNodes);
+            group.forEach(slot -> slot.failed = true);
+        }
+    }
+
+    private void createNodes(List<Map<String, Object>> nodes, List<String> createdNodes) {
+        if (graphStore instanceof HighPerformanceGraphStore) {
+            HighPerformanceGraphStore store = (HighPerformanceGraphStore) graphStore;
+            for (Map<String, Object> properties : nodes) {
+                String nodeId = (String) properties.get("id");
+                store.createNodeWithId(nodeId, properties);
+                createdNodes.add(nodeId);
+            }
+            return;
+        }
+        List<CompletableFuture<String>> futures = new ArrayList<>(nodes.size());
+        for (Map<String, Object> properties : nodes) {
+            futures.add(graphStore.createNode("Memory", properties));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            // allOf在全部完成后才结束，此时可以区分成功创建的节点 / allOf settles once every creation has
+            for (CompletableFuture<String> future : futures) {
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    createdNodes.add(future.join());
+                }
+            }
+        }
+    }
+
+    /**
+     * 尽力删除失败组已写入的节点与向量 / Best-effort delete of the nodes and vectors a failed group wrote.
+     */
+    private void rollback(List<Slot> group, List<String> createdNodes) {
+        for (String nodeId : createdNodes) {
+            try {
+                graphStore.deleteNode(nodeId).join();
+            } catch (RuntimeException e) {
+                logger.warn("回滚图节点失败: {}", nodeId, e);
+            }
+        }
+        for (Slot slot : group) {
+            if (slot.vectorId == null) {
+                continue;
+            }
+            try {
+                vectorStore.delete(collection, slot.vectorId).join();
+            } catch (RuntimeException e) {
+                logger.warn("回滚向量失败: {}", slot.vectorId, e);
+            }
+        }
+    }
+
+    /**
+     * 提交序列前进之前，把失败槽位的结果置为null；只在图写入线程执行
+     * Null out the results of failed slots before the commit sequence moves; runs on the graph writer only.
+     */
+    private void settle(long from, long to) {
+        for (long sequence = from; sequence <= to; sequence++) {
+            Slot slot = slots[(int) sequence & mask];
+            if (slot.failed) {
+                slot.batch.ids[slot.index] = null;
+            }
+        }
+    }
+
+    /**
+     * 由图写入线程在提交序列前进后调用 / Called by the graph writer after the commit sequence moves.
+     */
+    private void completeBatches() {
+        long committed = committedSequence();
+        Map.Entry<Long, IngestBatch> entry;
+        while ((entry = pendingBatches.firstEntry()) != null && entry.getKey() <= committed) {
+            if (pendingBatches.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().complete(this);
+            }
+        }
+    }
+
+    // 序列屏障 / sequence barriers
+
+    private long committedSequence() {
+        // 图写入跟随向量写入，图序列不会超过向量序列 / the graph writer follows the vector writer
+        return graphSequence.get();
+    }
+
+    private long highestPublished(long from, long claimed) {
+        for (long sequence = from; sequence <= claimed; sequence++) {
+            if (published.get((int) sequence & mask) != (int) (sequence >>> indexShift)) {
+                return sequence - 1;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * 等待序列hi所用槽位的上一轮被提交；通道关闭时返回false
+     * Wait until the previous round of the slot used by sequence hi is committed; false once closed.
+     */
+    private boolean awaitCapacity(long hi) {
+        int idle = 0;
+        while (hi - slots.length > committedSequence()) {
+            if (!running) {
+                return false;
+            }
+            idle = idle(idle);
+        }
+        return true;
+    }
+
+    /**
+     * 短暂自旋与让出后无超时挂起；调用方醒来后重新检查条件，唤醒许可保证检查与挂起之间的推进不会丢失
+     * Spin and yield briefly, then park without a timeout; callers re-check their condition on return, and
+     * the unpark permit keeps an advance between the check and the park from being lost.
+     */
+    private int idle(int idle) {
+        if (idle < SPIN_TRIES) {
+            // 自旋：等待的序列通常在微秒内推进 / spin: the awaited sequence usually moves within microseconds
+        } else if (idle < SPIN_TRIES * 2) {
+            Thread.yield();
+        } else {
+            LockSupport.park(this);
+        }
+        return idle + 1;
+    }
+
+    private static Thread newThread(String name, Runnable loop) {
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // 内部类 / nested types
+
+    /**
+     * 可复用的槽位；字段在发布标记（发布线程）或序列（处理线程）的写读之间传递可见性。各阶段依次处理
+     * 同一槽位，任一时刻只有一个线程写入它；失败记录在 {@code failed} 中，共享字段不会被清空
+     * Reusable slot; visibility is carried by the publish flag (publisher) or the sequences (workers).
+     * The stages handle a slot one after another, so only one thread writes it at a time; failure is
+     * recorded in {@code failed} and shared fields are never cleared.
+     */
+    private static final class Slot {
+        String memoryId;
+        String content;
+        String userId;
+        Map<String, Object> metadata;
+        MemoryType memoryType;
+        LocalDateTime createdAt;
+        IngestBatch batch;
+        int index;
+        List<Float> embedding;
+        String vectorId;
+        boolean failed;
+
+        void fill(String memoryId, AsyncMemoryPipeline.MemoryCreationRequest request, IngestBatch batch, int index) {
+            this.memoryId = memoryId;
+            this.content = request.getContent();
+            this.userId = request.getUserId();
+            this.metadata = request.getMetadata();
+            this.memoryType = request.getMemoryType() != null ? request.getMemoryType() : MemoryType.SEMANTIC;
+            this.createdAt = LocalDateTime.now();
+            this.batch = batch;
+            this.index = index;
+            this.embedding = null;
+            this.vectorId = null;
+            this.failed = false;
+        }
+    }
+
+    private static final class Submission {
+        final List<AsyncMemoryPipeline.MemoryCreationRequest> requests;
+        final IngestBatch batch;
+
+        Submission(List<AsyncMemoryPipeline.MemoryCreationRequest> requests) {
+            // 调用方在返回后可能修改列表 / the caller may modify the list after ingest returns
+            this.requests = new ArrayList<>(requests);
+            this.batch = new IngestBatch(requests.size());
+        }
+    }
+
+    private static final class IngestBatch {
+        final String[] ids;
+        final CompletableFuture<List<String>> future = new CompletableFuture<>();
+
+        IngestBatch(int size) {
+            this.ids = new String[size];
+        }
+
+        void complete(MemoryIngestRing ring) {
+            int failures = 0;
+            for (String id : ids) {
+                if (id == null) {
+                    failures++;
+                }
+            }
+            ring.ingested.add(ids.length - failures);
+            ring.failed.add(failures);
+            future.complete(Arrays.asList(ids));
+        }
+    }
+
+    /**
+     * 导入通道统计信息 / Ingest statistics
+     */
+    public static final class IngestStats {
+        private final long ingested;
+        private final long failed;
+        private final long inFlight;
+        private final int bufferSize;
+        private final long embedBatches;
+        private final long vectorGroups;
+        private final long graphGroups;
+
+        public IngestStats(long ingested, long failed, long inFlight, int bufferSize,
+                           long embedBatches, long vectorGroups, long graphGroups) {
+            this.ingested = ingested;
+            this.failed = failed;
+            this.inFlight = inFlight;
+            this.bufferSize = bufferSize;
+            this.embedBatches = embedBatches;
+            this.vectorGroups = vectorGroups;
+            this.graphGroups = graphGroups;
+        }
+
+        public long getIngested() { return ingested; }
+        public long getFailed() { return failed; }
+        public long getInFlight() { return inFlight; }
+        public int getBufferSize() { return bufferSize; }
+        public long getEmbedBatches() { return embedBatches; }
+        public long getVectorGroups() { return vectorGroups; }
+        public long getGraphGroups() { return graphGroups; }
+
+        @Override
+        public String toString() {
+            return String.format("IngestStats{已导入=%d, 失败=%d, 在途=%d/%d, 嵌入批次=%d, 向量组=%d, 图组=%d}",
+                ingested, failed, inFlight, bufferSize, embedBatches, vectorGroups, graphGroups);
+        }
+    }
+}
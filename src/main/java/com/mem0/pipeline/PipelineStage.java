@@ -0,0 +1,394 @@
+package com.mem0.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有界异步管道阶段 / Bounded Asynchronous Pipeline Stage
+ *
+ * <p>每个阶段拥有一个有界的多生产者队列和固定的工作预算（同时执行的处理批次数）。入队时直接
+ * 唤醒空闲的工作预算，不做定时轮询；处理函数返回future，执行期间不占用线程。处理函数返回的
+ * future完成时才释放工作预算，因此当处理函数把结果交给下游阶段并等待其接纳时，下游的拥塞会
+ * 逐级传回上游。</p>
+ *
+ * <p>Each stage owns a bounded multi-producer queue and a fixed worker budget (the number of
+ * batches handled at once). Enqueueing wakes an idle worker directly instead of polling on a timer,
+ * and handlers return futures so no thread is held while they run. The worker budget is released
+ * only when the handler's future completes, so a handler that hands its output to the next stage and
+ * waits for admission propagates downstream congestion upstream.</p>
+ *
+ * <p>背压是非阻塞的：{@link #offer} 在队列已满时立即以 {@link RejectedExecutionException} 失败；
+ * {@link #enqueue} 返回一个在被接纳时完成的future，等待接纳的请求数同样有上限，超过后拒绝。</p>
+ *
+ * <p>Backpressure is non-blocking: {@link #offer} fails immediately with
+ * {@link RejectedExecutionException} when the queue is full, while {@link #enqueue} returns a future
+ * that completes on admission. The number of submissions waiting for admission is bounded as well
+ * and rejected beyond it.</p>
+ *
+ * @param <I> 输入类型 / input type
+ * @param <O> 输出类型 / output type
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class PipelineStage<I, O> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    private final String name;
+    private final int capacity;
+    private final int concurrency;
+    private final int maxBatchSize;
+    private final Function<List<I>, CompletableFuture<List<O>>> handler;
+    private final Executor executor;
+
+    private final Queue<Item<I, O>> queue = new ConcurrentLinkedQueue<>();
+    private final Queue<Item<I, O>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    // 指标 / metrics
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder serviceNanos = new LongAdder();
+
+    private PipelineStage(String name, int capacity, int concurrency, int maxBatchSize,
+                          Function<List<I>, CompletableFuture<List<O>>> handler, Executor executor) {
+        if (capacity <= 0 || concurrency <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("capacity, concurrency and maxBatchSize must be positive");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.concurrency = concurrency;
+        this.maxBatchSize = maxBatchSize;
+        this.handler = handler;
+        this.executor = executor;
+    }
+
+    /**
+     * 逐条处理的阶段 / Stage that handles one item at a time.
+     */
+    public static <I, O> PipelineStage<I, O> of(String name, int capacity, int concurrency,
+                                                Function<I, CompletableFuture<O>> handler, Executor executor) {
+        return new PipelineStage<>(name, capacity, concurrency, 1,
+            items -> handler.apply(items.get(0)).thenApply(Collections::singletonList), executor);
+    }
+
+    /**
+     * 成批处理的阶段：一个工作预算一次取出最多maxBatchSize条 / Stage whose workers take up to
+     * maxBatchSize queued items at once.
+     *
+     * @param handler 返回与输入等长、顺序一致的结果 / returns one output per input, in order
+     */
+    public static <I, O> PipelineStage<I, O> batched(String name, int capacity, int concurrency, int maxBatchSize,
+                                                     Function<List<I>, CompletableFuture<List<O>>> handler,
+                                                     Executor executor) {
+        return new PipelineStage<>(name, capacity, concurrency, maxBatchSize, handler, executor);
+    }
+
+    /**
+     * 入队，队列已满时立即拒绝 / Enqueue, rejecting immediately when the queue is full.
+     *
+     * @return 处理结果 / the item's result
+     */
+    public CompletableFuture<O> offer(I input) {
+        submitted.increment();
+        Item<I, O> item = new Item<>(input);
+        if (closed || !tryReserve()) {
+            reject(item);
+        } else {
+            append(item);
+            dispatch();
+        }
+        return item.result;
+    }
+
+    /**
+     * 入队，队列已满时等待接纳 / Enqueue, waiting for admission when the queue is full.
+     *
+     * @return 被接纳时完成的future，其值为处理结果；等待接纳的请求过多时以
+     *         {@link RejectedExecutionException} 失败 / a future completed on admission with the item's
+     *         result, failed with {@link RejectedExecutionException} when too many submissions wait
+     */
+    public CompletableFuture<CompletableFuture<O>> enqueue(I input) {
+        submitted.increment();
+        Item<I, O> item = new Item<>(input);
+        if (closed) {
+            reject(item);
+        } else if (tryReserve()) {
+            append(item);
+            dispatch();
+        } else if (waiting.incrementAndGet() > capacity) {
+            waiting.decrementAndGet();
+            reject(item);
+        } else {
+            waiters.add(item);
+            // 登记后重新检查，避免与释放容量的线程错过彼此 / re-check after registering so a
+            // concurrent release cannot be missed
+            admitWaiters();
+            dispatch();
+        }
+        return item.admitted;
+    }
+
+    /**
+     * 入队并返回处理结果，队列已满时等待接纳 / Enqueue and return the result, waiting for admission
+     * when the queue is full.
+     */
+    public CompletableFuture<O> submit(I input) {
+        return enqueue(input).thenCompose(result -> result);
+    }
+
+    /**
+     * 停止接收新请求并拒绝仍在等待接纳的请求；已入队的请求继续处理
+     * Stop accepting new items and reject those still waiting for admission; queued items still run.
+     */
+    public void close() {
+        closed = true;
+        Item<I, O> item;
+        while ((item = waiters.poll()) != null) {
+            waiting.decrementAndGet();
+            reject(item);
+        }
+    }
+
+    public boolean isIdle() {
+        return depth.get() == 0 && active.get() == 0 && waiting.get() == 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public StageStats getStats() {
+        long handled = completed.sum() + failed.sum();
+        long batchCount = batches.sum();
+        return new StageStats(
+            name, depth.get(), capacity, waiting.get(), active.get(), concurrency,
+            submitted.sum(), completed.sum(), failed.sum(), rejected.sum(),
+            handled == 0 ? 0.0 : queueNanos.sum() / 1_000_000.0 / handled,
+            batchCount == 0 ? 0.0 : serviceNanos.sum() / 1_000_000.0 / batchCount
+        );
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            int current = depth.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (depth.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void append(Item<I, O> item) {
+        item.enqueuedAt = System.nanoTime();
+        queue.add(item);
+        item.admitted.complete(item.result);
+    }
+
+    private void reject(Item<I, O> item) {
+        rejected.increment();
+        RejectedExecutionException error = new RejectedExecutionException(
+            closed ? "管道阶段已关闭: " + name : "管道阶段队列已满: " + name + " (" + capacity + ")");
+        item.admitted.completeExceptionally(error);
+        item.result.completeExceptionally(error);
+    }
+
+    private void admitWaiters() {
+        while (!waiters.isEmpty() && tryReserve()) {
+            Item<I, O> item = waiters.poll();
+            if (item == null) {
+                depth.decrementAndGet();
+                return;
+            }
+            waiting.decrementAndGet();
+            append(item);
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            int current = active.get();
+            if (current >= concurrency || queue.isEmpty()) {
+                return;
+            }
+            if (!active.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            List<Item<I, O>> batch = drain();
+            if (batch.isEmpty()) {
+                active.decrementAndGet();
+                continue;
+            }
+            run(batch);
+        }
+    }
+
+    private List<Item<I, O>> drain() {
+        List<Item<I, O>> batch = new ArrayList<>(Math.min(maxBatchSize, 16));
+        Item<I, O> item;
+        while (batch.size() < maxBatchSize && (item = queue.poll()) != null) {
+            depth.decrementAndGet();
+            batch.add(item);
+        }
+        if (!batch.isEmpty()) {
+            admitWaiters();
+        }
+        return batch;
+    }
+
+    private void run(List<Item<I, O>> batch) {
+        try {
+            executor.execute(() -> handle(batch));
+        } catch (RejectedExecutionException e) {
+            active.decrementAndGet();
+            fail(batch, e);
+        }
+    }
+
+    private void handle(List<Item<I, O>> batch) {
+        long start = System.nanoTime();
+        List<I> inputs = new ArrayList<>(batch.size());
+        for (Item<I, O> item : batch) {
+            queueNanos.add(start - item.enqueuedAt);
+            inputs.add(item.input);
+        }
+
+        CompletableFuture<List<O>> future;
+        try {
+            future = handler.apply(inputs);
+            if (future == null) {
+                throw new IllegalStateException("阶段处理函数返回了null: " + name);
+            }
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((outputs, error) -> {
+            serviceNanos.add(System.nanoTime() - start);
+            batches.increment();
+            active.decrementAndGet();
+            dispatch();
+
+            if (error == null && (outputs == null || outputs.size() != batch.size())) {
+                error = new IllegalStateException("阶段 " + name + " 返回的结果数与输入数不一致");
+            }
+            if (error != null) {
+                logger.debug("管道阶段处理失败: {}, 批大小: {}", name, batch.size(), error);
+                fail(batch, error);
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                completed.increment();
+                batch.get(i).result.complete(outputs.get(i));
+            }
+        });
+    }
+
+    private void fail(List<Item<I, O>> batch, Throwable error) {
+        for (Item<I, O> item : batch) {
+            failed.increment();
+            item.result.completeExceptionally(error);
+        }
+    }
+
+    private static final class Item<I, O> {
+        final I input;
+        final CompletableFuture<O> result = new CompletableFuture<>();
+        final CompletableFuture<CompletableFuture<O>> admitted = new CompletableFuture<>();
+        volatile long enqueuedAt;
+
+        Item(I input) {
+            this.input = input;
+        }
+    }
+
+    /**
+     * 阶段统计信息 / Stage statistics
+     */
+    public static final class StageStats {
+        private final String name;
+        private final int depth;
+        private final int capacity;
+        private final int waiting;
+        private final int active;
+        private final int concurrency;
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+        private final long rejected;
+        private final double averageQueueMillis;
+        private final double averageServiceMillis;
+
+        public StageStats(String name, int depth, int capacity, int waiting, int active, int concurrency,
+                          long submitted, long completed, long failed, long rejected,
+                          double averageQueueMillis, double averageServiceMillis) {
+            this.name = name;
+            this.depth = depth;
+            this.capacity = capacity;
+            this.waiting = waiting;
+            this.active = active;
+            this.concurrency = concurrency;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.averageQueueMillis = averageQueueMillis;
+            this.averageServiceMillis = averageServiceMillis;
+        }
+
+        public String getName() { return name; }
+        public int getDepth() { return depth; }
+        public int getCapacity() { return capacity; }
+        public int getWaiting() { return waiting; }
+        public int getActive() { return active; }
+        public int getConcurrency() { return concurrency; }
+        public long getSubmitted() { return submitted; }
+        public long getCompleted() { return completed; }
+        public long getFailed() { return failed; }
+        public long getRejected() { return rejected; }
+        public double getAverageQueueMillis() { return averageQueueMillis; }
+        public double getAverageServiceMillis() { return averageServiceMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("StageStats{阶段=%s, 队列=%d/%d, 等待接纳=%d, 执行中=%d/%d, 完成=%d, 失败=%d, 拒绝=%d, 平均排队=%.2fms, 平均处理=%.2fms}",
+                name, depth, capacity, waiting, active, concurrency, completed, failed, rejected,
+                averageQueueMillis, averageServiceMillis);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.mem0.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器 / Circuit Breaker
+ *
+ * <p>在最近N次调用的滑动窗口上统计失败率。窗口内调用数达到最小值且失败率超过阈值时熔断（OPEN），
+ * 此后的调用立即被拒绝，不再占用线程等待一个已经降级的端点；熔断持续一段时间后进入半开（HALF_OPEN），
+ * 放行少量试探调用，全部成功则闭合（CLOSED）并清空窗口，任何一次失败则重新熔断。</p>
+ *
+ * <p>Tracks the failure rate over a sliding window of the last N calls. Once the window holds the
+ * minimum number of calls and the failure rate reaches the threshold, the breaker opens and rejects
+ * calls immediately instead of tying up threads on a degraded endpoint. After the open duration it
+ * goes half-open and lets a few trial calls through: if all succeed it closes with an empty window,
+ * and any failure opens it again.</p>
+ *
+ * <p>状态在对象锁内更新，每次调用只有常数次操作。</p>
+ *
+ * <p>State is updated under the object's lock with a constant amount of work per call.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenPermits;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAtNanos;
+    private int trialsStarted;
+    private int trialsSucceeded;
+    private long rejected;
+
+    /**
+     * @param windowSize           滑动窗口的调用数 / number of calls in the sliding window
+     * @param minimumCalls         计算失败率前窗口至少要有的调用数 / calls required before the rate counts
+     * @param failureRateThreshold 熔断的失败率阈值，取值(0, 1] / failure rate that opens the breaker
+     * @param openDurationMs       熔断持续时间 / how long the breaker stays open
+     * @param halfOpenPermits      半开状态放行的试探调用数 / trial calls allowed while half-open
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMs, int halfOpenPermits) {
+        if (windowSize <= 0 || minimumCalls <= 0 || halfOpenPermits <= 0) {
+            throw new IllegalArgumentException("熔断器窗口与试探调用数必须为正数");
+        }
+        if (failureRateThreshold <= 0.0 || failureRateThreshold > 1.0) {
+            throw new IllegalArgumentException("失败率阈值必须在(0, 1]内: " + failureRateThreshold);
+        }
+        this.name = name;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenPermits = halfOpenPermits;
+    }
+
+    /**
+     * 是否放行一次调用；放行的调用必须以 {@link #onSuccess()}、{@link #onFailure()} 或
+     * {@link #onIgnore()} 之一结束
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                rejected++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenPermits) {
+                rejected++;
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= halfOpenPermits) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * 调用被取消（如对冲中落败的请求），不计入统计，只归还半开状态的试探名额
+     */
+    public synchronized void onIgnore() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+            trialsStarted--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0.0 : (double) failures / recorded;
+    }
+
+    public synchronized long getRejectedCalls() {
+        return rejected;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CircuitBreaker{名称=%s, 状态=%s, 失败率=%.2f, 窗口=%d/%d, 拒绝=%d}",
+            name, getState(), getFailureRate(), recorded, outcomes.length, rejected);
+    }
+}
@@ -0,0 +1,170 @@
+package com.mem0.resilience;
+
+import com.mem0.exception.DeadlineExceededException;
+import com.mem0.performance.WheelTimer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 请求截止时间 / Request Deadline
+ *
+ * <p>不可变的绝对截止时刻，由 {@code Mem0} 的入口方法按调用方的时间预算创建，并显式传给后续的每个阶段。
+ * 阶段开始前调用 {@link #check(String)}，预算用完时不再启动新的工作；{@link #bound(CompletableFuture, String)}
+ * 让future在截止时刻以 {@link DeadlineExceededException} 失败，尚未开始的后续阶段不再执行。</p>
+ *
+ * <p>An immutable absolute point in time, created by the {@code Mem0} entry points from the caller's
+ * budget and passed explicitly to every later stage. Stages call {@link #check(String)} before they
+ * start, so no new work begins once the budget is spent; {@link #bound(CompletableFuture, String)}
+ * fails the future with {@link DeadlineExceededException} at the deadline, so stages that have not
+ * started yet never run.</p>
+ *
+ * <p>提供者接口没有截止时间参数，因此 {@link #callWith(Deadline, Supplier)} 只在同步调用提供者方法的
+ * 期间把截止时间放入线程局部变量，容错装饰器在调用开始时用 {@link #current()} 取得它。</p>
+ *
+ * <p>Provider interfaces take no deadline, so {@link #callWith(Deadline, Supplier)} puts it in a
+ * thread-local only while the provider method is invoked synchronously; the resilient decorators pick
+ * it up with {@link #current()} when the call starts.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    // System.nanoTime() 下的截止时刻，Long.MAX_VALUE 表示没有截止时间
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long timeout, TimeUnit unit) {
+        long now = System.nanoTime();
+        long budget = unit.toNanos(Math.max(0, timeout));
+        // 超长的预算视为没有截止时间，避免溢出
+        return budget >= Long.MAX_VALUE - now ? NONE : new Deadline(now + budget);
+    }
+
+    public static Deadline afterMillis(long timeoutMs) {
+        return after(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * 当前线程正在调用的提供者方法所属请求的截止时间，没有时返回 {@link #none()}
+     */
+    public static Deadline current() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null ? deadline : NONE;
+    }
+
+    /**
+     * 在截止时间作为 {@link #current()} 的范围内同步执行调用
+     */
+    public static <T> T callWith(Deadline deadline, Supplier<T> call) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public boolean isBounded() {
+        return deadlineNanos != Long.MAX_VALUE;
+    }
+
+    public boolean isExpired() {
+        return isBounded() && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * 剩余时间，已过期时为0，没有截止时间时为 {@link Long#MAX_VALUE}
+     */
+    public long remainingNanos() {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public long remainingMillis() {
+        return isBounded() ? TimeUnit.NANOSECONDS.toMillis(remainingNanos()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * 取本截止时间与给定预算中较早的一个
+     */
+    public Deadline earliest(long timeout, TimeUnit unit) {
+        Deadline other = after(timeout, unit);
+        return !isBounded() || (other.isBounded() && other.deadlineNanos - deadlineNanos < 0) ? other : this;
+    }
+
+    /**
+     * 预算已用完时抛出 {@link DeadlineExceededException}
+     *
+     * @param stage 即将开始的阶段，用于错误信息
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw expired(stage);
+        }
+    }
+
+    /**
+     * 截止时刻未完成时让原future与返回的future以超时失败；没有截止时间时原样返回
+     */
+    public <T> CompletableFuture<T> bound(CompletableFuture<T> future, String stage) {
+        if (!isBounded() || future.isDone()) {
+            return future;
+        }
+        if (isExpired()) {
+            future.completeExceptionally(expired(stage));
+            return failed(stage);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // 先让原future失败，使依赖它的后续阶段不再执行，再完成返回的future
+        WheelTimer.Timeout timeout = WheelTimer.shared().newTimeout(() -> {
+            DeadlineExceededException expired = expired(stage);
+            future.completeExceptionally(expired);
+            result.completeExceptionally(expired);
+        }, remainingNanos(), TimeUnit.NANOSECONDS);
+        future.whenComplete((value, error) -> {
+            timeout.cancel();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    public <T> CompletableFuture<T> failed(String stage) {
+        CompletableFuture<T> failed = new CompletableFuture<>();
+        failed.completeExceptionally(expired(stage));
+        return failed;
+    }
+
+    private DeadlineExceededException expired(String stage) {
+        return new DeadlineExceededException("请求预算已用完，未完成阶段: " + stage);
+    }
+
+    @Override
+    public String toString() {
+        return isBounded() ? "Deadline{剩余=" + remainingMillis() + "ms}" : "Deadline{无}";
+    }
+}
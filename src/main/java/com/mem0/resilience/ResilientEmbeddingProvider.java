@@ -0,0 +1,78 @@
+package com.mem0.resilience;
+
+import com.mem0.embedding.EmbeddingProvider;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 容错嵌入提供者 / Resilient Embedding Provider
+ *
+ * <p>用 {@link ResilientExecutor} 包装远程嵌入提供者：熔断、对冲、抖动退避重试，并遵守调用方通过
+ * {@link Deadline#callWith(Deadline, java.util.function.Supplier)} 传入的截止时间。被包装的提供者
+ * 应关闭自身的重试，否则重试次数会相乘。</p>
+ *
+ * <p>Wraps a remote embedding provider with a {@link ResilientExecutor}: circuit breaking, hedging and
+ * jittered retries, honouring the deadline the caller passes through
+ * {@link Deadline#callWith(Deadline, java.util.function.Supplier)}. The wrapped provider should have its
+ * own retries turned off, otherwise the attempts multiply.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public class ResilientEmbeddingProvider implements EmbeddingProvider {
+
+    private final EmbeddingProvider delegate;
+    private final ResilientExecutor executor;
+
+    public ResilientEmbeddingProvider(EmbeddingProvider delegate) {
+        this(delegate, ResilientExecutor.Options.defaults());
+    }
+
+    public ResilientEmbeddingProvider(EmbeddingProvider delegate, ResilientExecutor.Options options) {
+        this.delegate = delegate;
+        this.executor = new ResilientExecutor(delegate.getProviderName(), options);
+    }
+
+    @Override
+    public CompletableFuture<List<Float>> embed(String text) {
+        return executor.execute("embed", () -> delegate.embed(text), Deadline.current());
+    }
+
+    @Override
+    public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
+        return executor.execute("embedBatch", () -> delegate.embedBatch(texts), Deadline.current());
+    }
+
+    @Override
+    public int getDimension() {
+        return delegate.getDimension();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    /**
+     * 熔断器打开期间视为不健康
+     */
+    @Override
+    public boolean isHealthy() {
+        return delegate.isHealthy() && executor.getCircuitBreaker().getState() != CircuitBreaker.State.OPEN;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    public EmbeddingProvider getDelegate() {
+        return delegate;
+    }
+
+    public ResilientExecutor.ResilienceStats getResilienceStats() {
+        return executor.getStats();
+    }
+}
@@ -0,0 +1,504 @@
+package com.mem0.resilience;
+
+import com.mem0.exception.CircuitBreakerOpenException;
+import com.mem0.exception.DeadlineExceededException;
+import com.mem0.performance.WheelTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 容错执行器 / Resilient Executor
+ *
+ * <p>为一个远程提供者的异步调用组合四种机制：</p>
+ * <ul>
+ *   <li>截止时间：每次尝试前检查，预算不足以等待下一次退避时直接失败，截止时刻取消进行中的调用</li>
+ *   <li>熔断器：失败率过高时快速失败，不再把请求发往已降级的端点</li>
+ *   <li>对冲请求：一次尝试超过最近延迟的p95仍未返回时再发一个相同请求，先成功的结果胜出，另一个被取消</li>
+ *   <li>重试：全抖动的指数退避，由共享定时器调度，不阻塞任何线程</li>
+ * </ul>
+ *
+ * <p>Combines four mechanisms around the asynchronous calls of one remote provider:</p>
+ * <ul>
+ *   <li>Deadline: checked before every attempt; when the budget cannot cover the next backoff the call
+ *       fails at once, and calls still in flight are cancelled at the deadline</li>
+ *   <li>Circuit breaker: fails fast while the failure rate is high instead of sending more requests to
+ *       a degraded endpoint</li>
+ *   <li>Hedging: when an attempt has not returned after the recent p95 latency, a duplicate request is
+ *       sent; the first success wins and the other is cancelled</li>
+ *   <li>Retry: exponential backoff with full jitter, scheduled on a shared timer so no thread sleeps</li>
+ * </ul>
+ *
+ * <p>取消只作用于调用返回的 {@link CompletableFuture}：现有的HTTP提供者在 {@code supplyAsync} 中阻塞执行
+ * OkHttp的 {@code Call.execute()}，{@code cancel(true)} 不会中断该线程，也不会取消底层请求。因此被对冲淘汰
+ * 或超过截止时间的尝试仍会在后台执行完毕，并照常消耗提供者的配额；对按调用计费的端点启用对冲前应考虑
+ * 这部分开销。</p>
+ *
+ * <p>Cancellation only reaches the {@link CompletableFuture} the call returned. The existing HTTP providers
+ * block on OkHttp's {@code Call.execute()} inside {@code supplyAsync}, and {@code cancel(true)} neither
+ * interrupts that thread nor cancels the request. An attempt that loses a hedge or outlives its deadline
+ * therefore runs to completion in the background and still uses provider quota; weigh that cost before
+ * enabling hedging on endpoints billed per call.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ResilientExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientExecutor.class);
+
+    private final String name;
+    private final Options options;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyWindow latencies;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    public ResilientExecutor(String name) {
+        this(name, Options.defaults());
+    }
+
+    public ResilientExecutor(String name, Options options) {
+        this.name = name;
+        this.options = options;
+        this.circuitBreaker = new CircuitBreaker(name, options.breakerWindowSize, options.breakerMinimumCalls,
+            options.breakerFailureRate, options.breakerOpenMs, options.breakerHalfOpenPermits);
+        this.latencies = new LatencyWindow(options.latencyWindowSize);
+    }
+
+    /**
+     * 在截止时间内以容错方式执行调用
+     *
+     * @param operation 操作名，用于日志与错误信息
+     * @param call      每次尝试（包括对冲）调用一次，返回新的异步结果
+     * @param deadline  调用方的截止时间
+     */
+    public <T> CompletableFuture<T> execute(String operation, Supplier<CompletableFuture<T>> call, Deadline deadline) {
+        calls.incrementAndGet();
+        if (deadline.isExpired()) {
+            return deadline.failed(name + "." + operation);
+        }
+        Invocation<T> invocation = new Invocation<>(operation, call, deadline);
+        invocation.attempt(0);
+        return invocation.result;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public ResilienceStats getStats() {
+        return new ResilienceStats(name, calls.get(), retries.get(), hedges.get(), hedgeWins.get(),
+            circuitBreaker.getRejectedCalls(), circuitBreaker.getState(), latencies.percentileNanos(0.95));
+    }
+
+    /**
+     * 一次调用的全部尝试
+     */
+    private final class Invocation<T> {
+        final String operation;
+        final Supplier<CompletableFuture<T>> call;
+        final Deadline deadline;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Set<CompletableFuture<T>> inFlight = ConcurrentHashMap.newKeySet();
+
+        Invocation(String operation, Supplier<CompletableFuture<T>> call, Deadline deadline) {
+            this.operation = operation;
+            this.call = call;
+            this.deadline = deadline;
+            // 截止时刻先取消所有进行中的尝试，再让结果失败
+            if (deadline.isBounded()) {
+                WheelTimer.Timeout expiry = WheelTimer.shared().newTimeout(() -> {
+                    inFlight.forEach(future -> future.cancel(true));
+                    result.completeExceptionally(expired());
+                }, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                result.whenComplete((value, error) -> expiry.cancel());
+            }
+            // 调用方取消时同样取消进行中的尝试
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    inFlight.forEach(future -> future.cancel(true));
+                }
+            });
+        }
+
+        void attempt(int attemptNumber) {
+            if (result.isDone()) {
+                return;
+            }
+            if (deadline.isExpired()) {
+                result.completeExceptionally(expired());
+                return;
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                result.completeExceptionally(new CircuitBreakerOpenException(
+                    "熔断器已打开，拒绝调用: " + name + "." + operation));
+                return;
+            }
+
+            Attempt attempt = new Attempt(attemptNumber);
+            launch(attempt, false);
+
+            long hedgeDelay = hedgeDelayNanos();
+            if (hedgeDelay > 0 && hedgeDelay < deadline.remainingNanos()) {
+                attempt.hedgeTimer = WheelTimer.shared().newTimeout(() -> hedge(attempt),
+                    hedgeDelay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private DeadlineExceededException expired() {
+            return new DeadlineExceededException("请求预算已用完，未完成阶段: " + name + "." + operation);
+        }
+
+        private void hedge(Attempt attempt) {
+            if (attempt.settled.get() || result.isDone()) {
+                return;
+            }
+            attempt.outstanding.incrementAndGet();
+            if (attempt.settled.get() || !circuitBreaker.tryAcquire()) {
+                attempt.outstanding.decrementAndGet();
+                return;
+            }
+            hedges.incrementAndGet();
+            logger.debug("{}.{} 超过p95延迟未返回，发出对冲请求", name, operation);
+            launch(attempt, true);
+        }
+
+        private void launch(Attempt attempt, boolean hedge) {
+            long start = System.nanoTime();
+            CompletableFuture<T> underlying = invoke();
+            CompletableFuture<T> future = boundAttempt(underlying);
+            inFlight.add(future);
+            future.whenComplete((value, error) -> {
+                inFlight.remove(future);
+                // 超时或落败被取消时先取消底层调用
+                if (error != null && !underlying.isDone()) {
+                    underlying.cancel(true);
+                }
+                if (error == null) {
+                    onSuccess(attempt, hedge, value, System.nanoTime() - start);
+                } else {
+                    onFailure(attempt, unwrap(error));
+                }
+            });
+        }
+
+        private CompletableFuture<T> invoke() {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                CompletableFuture<T> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        }
+
+        private CompletableFuture<T> boundAttempt(CompletableFuture<T> future) {
+            if (future.isDone()) {
+                return future;
+            }
+            CompletableFuture<T> bounded = new CompletableFuture<>();
+            WheelTimer.Timeout timeout = WheelTimer.shared().newTimeout(() -> bounded.completeExceptionally(
+                new TimeoutException(name + "." + operation + " 单次调用超时")),
+                options.attemptTimeoutNanos, TimeUnit.NANOSECONDS);
+            future.whenComplete((value, error) -> {
+                timeout.cancel();
+                if (error != null) {
+                    bounded.completeExceptionally(error);
+                } else {
+                    bounded.complete(value);
+                }
+            });
+            return bounded;
+        }
+
+        private void onSuccess(Attempt attempt, boolean hedge, T value, long latencyNanos) {
+            circuitBreaker.onSuccess();
+            latencies.record(latencyNanos);
+            if (attempt.settled.compareAndSet(false, true)) {
+                attempt.cancelHedge();
+                if (hedge) {
+                    hedgeWins.incrementAndGet();
+                }
+                inFlight.forEach(future -> future.cancel(true));
+                result.complete(value);
+            }
+        }
+
+        private void onFailure(Attempt attempt, Throwable error) {
+            if (error instanceof CancellationException || result.isDone()) {
+                circuitBreaker.onIgnore();
+            } else {
+                circuitBreaker.onFailure();
+            }
+            if (attempt.outstanding.decrementAndGet() > 0 || !attempt.settled.compareAndSet(false, true)) {
+                return;
+            }
+            attempt.cancelHedge();
+            retryOrFail(attempt.number, error);
+        }
+
+        private void retryOrFail(int attemptNumber, Throwable error) {
+            if (result.isDone()) {
+                return;
+            }
+            if (deadline.isExpired()) {
+                result.completeExceptionally(expired());
+                return;
+            }
+            if (attemptNumber + 1 >= options.maxAttempts || !isRetryable(error)) {
+                result.completeExceptionally(error);
+                return;
+            }
+            long backoff = backoffNanos(attemptNumber);
+            if (backoff >= deadline.remainingNanos()) {
+                logger.warn("{}.{} 剩余预算不足以重试: {}", name, operation, error.getMessage());
+                result.completeExceptionally(error);
+                return;
+            }
+            retries.incrementAndGet();
+            logger.warn("{}.{} 第{}次尝试失败，{}ms后重试: {}", name, operation, attemptNumber + 1,
+                TimeUnit.NANOSECONDS.toMillis(backoff), error.getMessage());
+            WheelTimer.shared().newTimeout(() -> attempt(attemptNumber + 1), backoff, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 一次尝试及其对冲请求共享的状态
+     */
+    private static final class Attempt {
+        final int number;
+        final AtomicInteger outstanding = new AtomicInteger(1);
+        final AtomicBoolean settled = new AtomicBoolean();
+        volatile WheelTimer.Timeout hedgeTimer;
+
+        Attempt(int number) {
+            this.number = number;
+        }
+
+        void cancelHedge() {
+            WheelTimer.Timeout timer = hedgeTimer;
+            if (timer != null) {
+                timer.cancel();
+            }
+        }
+    }
+
+    // 私有辅助方法
+
+    /**
+     * 对冲延迟取最近延迟的p95，样本不足或关闭对冲时返回0
+     */
+    private long hedgeDelayNanos() {
+        if (!options.hedgingEnabled || latencies.size() < options.hedgeMinimumSamples) {
+            return 0;
+        }
+        return Math.max(options.minHedgeDelayNanos, latencies.percentileNanos(0.95));
+    }
+
+    /**
+     * 全抖动：在 [0, min(上限, 基数 * 2^n)] 内均匀取值，避免大量客户端同时重试
+     */
+    private long backoffNanos(int attemptNumber) {
+        long ceiling = Math.min(options.maxBackoffNanos, options.baseBackoffNanos << Math.min(attemptNumber, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        return !(error instanceof DeadlineExceededException
+            || error instanceof CircuitBreakerOpenException
+            || error instanceof CancellationException
+            || error instanceof IllegalArgumentException);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * 最近若干次成功调用的延迟环形缓冲，百分位按需排序副本计算
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private final AtomicLong count = new AtomicLong();
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        void record(long latencyNanos) {
+            long index = count.getAndIncrement();
+            samples[(int) (index % samples.length)] = latencyNanos;
+        }
+
+        int size() {
+            return (int) Math.min(count.get(), samples.length);
+        }
+
+        long percentileNanos(double percentile) {
+            int size = size();
+            if (size == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+        }
+    }
+
+    /**
+     * 容错参数 / Resilience options
+     */
+    public static final class Options {
+        public static final int DEFAULT_MAX_ATTEMPTS = 3;
+        public static final long DEFAULT_BASE_BACKOFF_MS = 200;
+        public static final long DEFAULT_MAX_BACKOFF_MS = 5_000;
+        public static final long DEFAULT_ATTEMPT_TIMEOUT_MS = 30_000;
+        public static final long DEFAULT_MIN_HEDGE_DELAY_MS = 10;
+
+        private static final Options DEFAULTS = new Options(DEFAULT_MAX_ATTEMPTS,
+            TimeUnit.MILLISECONDS.toNanos(DEFAULT_BASE_BACKOFF_MS), TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_BACKOFF_MS),
+            TimeUnit.MILLISECONDS.toNanos(DEFAULT_ATTEMPT_TIMEOUT_MS), true,
+            TimeUnit.MILLISECONDS.toNanos(DEFAULT_MIN_HEDGE_DELAY_MS), 20, 128,
+            50, 20, 0.5, 30_000, 3);
+
+        private final int maxAttempts;
+        private final long baseBackoffNanos;
+        private final long maxBackoffNanos;
+        private final long attemptTimeoutNanos;
+        private final boolean hedgingEnabled;
+        private final long minHedgeDelayNanos;
+        private final int hedgeMinimumSamples;
+        private final int latencyWindowSize;
+        private final int breakerWindowSize;
+        private final int breakerMinimumCalls;
+        private final double breakerFailureRate;
+        private final long breakerOpenMs;
+        private final int breakerHalfOpenPermits;
+
+        private Options(int maxAttempts, long baseBackoffNanos, long maxBackoffNanos, long attemptTimeoutNanos,
+                        boolean hedgingEnabled, long minHedgeDelayNanos, int hedgeMinimumSamples, int latencyWindowSize,
+                        int breakerWindowSize, int breakerMinimumCalls, double breakerFailureRate,
+                        long breakerOpenMs, int breakerHalfOpenPermits) {
+            this.maxAttempts = maxAttempts;
+            this.baseBackoffNanos = baseBackoffNanos;
+            this.maxBackoffNanos = maxBackoffNanos;
+            this.attemptTimeoutNanos = attemptTimeoutNanos;
+            this.hedgingEnabled = hedgingEnabled;
+            this.minHedgeDelayNanos = minHedgeDelayNanos;
+            this.hedgeMinimumSamples = hedgeMinimumSamples;
+            this.latencyWindowSize = latencyWindowSize;
+            this.breakerWindowSize = breakerWindowSize;
+            this.breakerMinimumCalls = breakerMinimumCalls;
+            this.breakerFailureRate = breakerFailureRate;
+            this.breakerOpenMs = breakerOpenMs;
+            this.breakerHalfOpenPermits = breakerHalfOpenPermits;
+        }
+
+        public static Options defaults() {
+            return DEFAULTS;
+        }
+
+        public Options withRetry(int maxAttempts, long baseBackoff, long maxBackoff, TimeUnit unit) {
+            if (maxAttempts <= 0 || baseBackoff <= 0 || maxBackoff < baseBackoff) {
+                throw new IllegalArgumentException("重试参数无效: " + maxAttempts + ", " + baseBackoff + ", " + maxBackoff);
+            }
+            return new Options(maxAttempts, unit.toNanos(baseBackoff), unit.toNanos(maxBackoff), attemptTimeoutNanos,
+                hedgingEnabled, minHedgeDelayNanos, hedgeMinimumSamples, latencyWindowSize, breakerWindowSize,
+                breakerMinimumCalls, breakerFailureRate, breakerOpenMs, breakerHalfOpenPermits);
+        }
+
+        public Options withAttemptTimeout(long timeout, TimeUnit unit) {
+            if (timeout <= 0) {
+                throw new IllegalArgumentException("单次调用超时必须为正数: " + timeout);
+            }
+            return new Options(maxAttempts, baseBackoffNanos, maxBackoffNanos, unit.toNanos(timeout),
+                hedgingEnabled, minHedgeDelayNanos, hedgeMinimumSamples, latencyWindowSize, breakerWindowSize,
+                breakerMinimumCalls, breakerFailureRate, breakerOpenMs, breakerHalfOpenPermits);
+        }
+
+        /**
+         * 被淘汰的对冲请求不会在服务端取消，仍计入提供者配额 / losing hedges are not cancelled at the
+         * provider and still count against its quota
+         *
+         * @param minimumSamples 开始对冲前至少需要的延迟样本数
+         * @param minDelay       对冲延迟的下限，p95更小时使用该值
+         */
+        public Options withHedging(boolean enabled, int minimumSamples, long minDelay, TimeUnit unit) {
+            if (minimumSamples <= 0 || minDelay < 0) {
+                throw new IllegalArgumentException("对冲参数无效: " + minimumSamples + ", " + minDelay);
+            }
+            return new Options(maxAttempts, baseBackoffNanos, maxBackoffNanos, attemptTimeoutNanos,
+                enabled, unit.toNanos(minDelay), minimumSamples, Math.max(latencyWindowSize, minimumSamples),
+                breakerWindowSize, breakerMinimumCalls, breakerFailureRate, breakerOpenMs, breakerHalfOpenPermits);
+        }
+
+        public Options withCircuitBreaker(int windowSize, int minimumCalls, double failureRate,
+                                          long openDurationMs, int halfOpenPermits) {
+            return new Options(maxAttempts, baseBackoffNanos, maxBackoffNanos, attemptTimeoutNanos,
+                hedgingEnabled, minHedgeDelayNanos, hedgeMinimumSamples, latencyWindowSize,
+                windowSize, minimumCalls, failureRate, openDurationMs, halfOpenPermits);
+        }
+    }
+
+    /**
+     * 容错统计 / Resilience statistics
+     */
+    public static final class ResilienceStats {
+        private final String name;
+        private final long calls;
+        private final long retries;
+        private final long hedges;
+        private final long hedgeWins;
+        private final long rejectedCalls;
+        private final CircuitBreaker.State breakerState;
+        private final long p95LatencyNanos;
+
+        public ResilienceStats(String name, long calls, long retries, long hedges, long hedgeWins,
+                               long rejectedCalls, CircuitBreaker.State breakerState, long p95LatencyNanos) {
+            this.name = name;
+            this.calls = calls;
+            this.retries = retries;
+            this.hedges = hedges;
+            this.hedgeWins = hedgeWins;
+            this.rejectedCalls = rejectedCalls;
+            this.breakerState = breakerState;
+            this.p95LatencyNanos = p95LatencyNanos;
+        }
+
+        public String getName() { return name; }
+        public long getCalls() { return calls; }
+        public long getRetries() { return retries; }
+        public long getHedges() { return hedges; }
+        public long getHedgeWins() { return hedgeWins; }
+        public long getRejectedCalls() { return rejectedCalls; }
+        public CircuitBreaker.State getBreakerState() { return breakerState; }
+        public long getP95LatencyNanos() { return p95LatencyNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("ResilienceStats{名称=%s, 调用=%d, 重试=%d, 对冲=%d, 对冲胜出=%d, 熔断拒绝=%d, 熔断器=%s, p95=%.1fms}",
+                name, calls, retries, hedges, hedgeWins, rejectedCalls, breakerState, p95LatencyNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.mem0.resilience;
+
+import com.mem0.llm.LLMProvider;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 容错LLM提供者 / Resilient LLM Provider
+ *
+ * <p>用 {@link ResilientExecutor} 包装远程LLM提供者，行为与 {@link ResilientEmbeddingProvider} 相同。
+ * LLM调用延迟差异大，对冲使用该提供者自己的延迟分布。</p>
+ *
+ * <p>Wraps a remote LLM provider with a {@link ResilientExecutor}, behaving like
+ * {@link ResilientEmbeddingProvider}. LLM latency varies widely, so hedging uses this provider's own
+ * latency distribution.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public class ResilientLLMProvider implements LLMProvider {
+
+    private final LLMProvider delegate;
+    private final ResilientExecutor executor;
+
+    public ResilientLLMProvider(LLMProvider delegate) {
+        this(delegate, ResilientExecutor.Options.defaults());
+    }
+
+    public ResilientLLMProvider(LLMProvider delegate, ResilientExecutor.Options options) {
+        this.delegate = delegate;
+        this.executor = new ResilientExecutor(delegate.getProviderName(), options);
+    }
+
+    @Override
+    public CompletableFuture<LLMResponse> generateCompletion(LLMRequest request) {
+        return executor.execute("completion", () -> delegate.generateCompletion(request), Deadline.current());
+    }
+
+    @Override
+    public CompletableFuture<LLMResponse> generateChatCompletion(List<ChatMessage> messages, LLMConfig config) {
+        return executor.execute("chatCompletion", () -> delegate.generateChatCompletion(messages, config),
+            Deadline.current());
+    }
+
+    @Override
+    public CompletableFuture<LLMResponse> generate(String prompt, double temperature, int maxTokens) {
+        return executor.execute("generate", () -> delegate.generate(prompt, temperature, maxTokens),
+            Deadline.current());
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return delegate.supportsStreaming();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    public LLMProvider getDelegate() {
+        return delegate;
+    }
+
+    public ResilientExecutor.ResilienceStats getResilienceStats() {
+        return executor.getStats();
+    }
+}
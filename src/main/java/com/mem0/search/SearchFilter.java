@@ -1,6 +1,8 @@
 package com.mem0.search;
 
 import com.mem0.memory.Memory;
+import com.mem0.performance.ConcurrentExecutionManager;
+import com.mem0.util.IntBitmap;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +12,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -36,11 +40,23 @@ public class SearchFilter {
     private static final Logger logger = LoggerFactory.getLogger(SearchFilter.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
     
+    // 正则缓存上限，超过后整体清空
+    private static final int MAX_CACHED_PATTERNS = 256;
+    // 候选集远小于谓词基数时，改为在候选上逐条评估而不是物化位图
+    private static final int RESIDUAL_SWITCH_FACTOR = 8;
+    // 已删除槽位超过该数量且多于存活槽位时压缩重建
+    private static final int COMPACTION_MIN_DEAD_SLOTS = 1024;
+    
     // 过滤器配置
     private final FilterConfiguration configuration;
     private final Map<String, FilterIndex> filterIndices;
     private final FilterStatistics statistics;
     
+    // 索引状态
+    private final SlotRegistry slotRegistry;
+    private final ReentrantReadWriteLock indexLock;
+    private final Map<String, Pattern> patternCache;
+    
     /**
      * 过滤器配置
      */
@@ -224,44 +240,201 @@ public class SearchFilter {
     
     /**
      * 过滤器索引
+     * 
+     * 维护 值 -> 槽位位图 的倒排索引，槽位由所属过滤器的槽位注册表统一分配，
+     * 因此同一过滤器下的不同索引可以直接做位图交并运算。有序索引（重要性、创建时间）
+     * 额外支持范围查询。
      */
     public static class FilterIndex {
         private final String indexName;
-        private final Map<Object, Set<String>> valueToMemoryIds;
-        private final Map<String, Object> memoryIdToValue;
+        private final SlotRegistry registry;
+        private final Map<Object, IntBitmap> valueToSlots;
+        private final Map<String, List<Object>> memoryIdToValues;
         
         public FilterIndex(String indexName) {
+            this(indexName, new SlotRegistry(), false);
+        }
+        
+        FilterIndex(String indexName, SlotRegistry registry, boolean ordered) {
             this.indexName = indexName;
-            this.valueToMemoryIds = new HashMap<>();
-            this.memoryIdToValue = new HashMap<>();
+            this.registry = registry;
+            this.valueToSlots = ordered ? new TreeMap<>() : new HashMap<>();
+            this.memoryIdToValues = new HashMap<>();
         }
         
         public void addEntry(String memoryId, Object value) {
-            valueToMemoryIds.computeIfAbsent(value, k -> new HashSet<>()).add(memoryId);
-            memoryIdToValue.put(memoryId, value);
+            int slot = registry.slotOf(memoryId);
+            if (slot < 0) {
+                slot = registry.assign(memoryId, null);
+            }
+            valueToSlots.computeIfAbsent(value, k -> new IntBitmap()).add(slot);
+            memoryIdToValues.computeIfAbsent(memoryId, k -> new ArrayList<>(1)).add(value);
         }
         
         public Set<String> getMemoryIds(Object value) {
-            return valueToMemoryIds.getOrDefault(value, new HashSet<>());
+            IntBitmap slots = valueToSlots.get(value);
+            Set<String> memoryIds = new HashSet<>();
+            if (slots != null) {
+                slots.forEach(slot -> memoryIds.add(registry.memoryIdAt(slot)));
+            }
+            return memoryIds;
         }
         
         public void removeEntry(String memoryId) {
-            Object value = memoryIdToValue.remove(memoryId);
-            if (value != null) {
-                Set<String> ids = valueToMemoryIds.get(value);
-                if (ids != null) {
-                    ids.remove(memoryId);
-                    if (ids.isEmpty()) {
-                        valueToMemoryIds.remove(value);
+            List<Object> values = memoryIdToValues.remove(memoryId);
+            int slot = registry.slotOf(memoryId);
+            if (values == null || slot < 0) {
+                return;
+            }
+            for (Object value : values) {
+                IntBitmap slots = valueToSlots.get(value);
+                if (slots != null) {
+                    slots.remove(slot);
+                    if (slots.isEmpty()) {
+                        valueToSlots.remove(value);
                     }
                 }
             }
         }
         
+        /**
+         * 获取值对应的槽位位图，不存在时返回null。返回的位图只读。
+         */
+        IntBitmap getSlots(Object value) {
+            return valueToSlots.get(value);
+        }
+        
+        int cardinality(Object value) {
+            IntBitmap slots = valueToSlots.get(value);
+            return slots != null ? slots.getCardinality() : 0;
+        }
+        
+        /**
+         * 有序索引的范围视图，from/to为null表示不设界
+         */
+        @SuppressWarnings("unchecked")
+        NavigableMap<Object, IntBitmap> range(Object from, Object to) {
+            NavigableMap<Object, IntBitmap> ordered = (NavigableMap<Object, IntBitmap>) valueToSlots;
+            if (from != null && to != null) {
+                if (((Comparable<Object>) from).compareTo(to) > 0) {
+                    return Collections.emptyNavigableMap();
+                }
+                return ordered.subMap(from, true, to, true);
+            } else if (from != null) {
+                return ordered.tailMap(from, true);
+            } else if (to != null) {
+                return ordered.headMap(to, true);
+            }
+            return ordered;
+        }
+        
+        void clear() {
+            valueToSlots.clear();
+            memoryIdToValues.clear();
+        }
+        
         // Getters
         public String getIndexName() { return indexName; }
-        public Set<Object> getDistinctValues() { return valueToMemoryIds.keySet(); }
-        public int getSize() { return memoryIdToValue.size(); }
+        public Set<Object> getDistinctValues() { return valueToSlots.keySet(); }
+        public int getSize() { return memoryIdToValues.size(); }
+    }
+    
+    /**
+     * 槽位注册表
+     * 
+     * 为每个被索引的内存分配单调递增的int槽位号，槽位顺序即索引顺序，
+     * 所以按位图升序遍历候选集时结果保持原始列表顺序。删除的槽位不复用，
+     * 空洞过多时由过滤器整体重建压缩。
+     */
+    static final class SlotRegistry {
+        private final Map<String, Integer> slotsById = new HashMap<>();
+        private final List<String> memoryIds = new ArrayList<>();
+        private final List<Memory> memories = new ArrayList<>();
+        private final IntBitmap liveSlots = new IntBitmap();
+        
+        int assign(String memoryId, Memory memory) {
+            int slot = memoryIds.size();
+            memoryIds.add(memoryId);
+            memories.add(memory);
+            slotsById.put(memoryId, slot);
+            liveSlots.add(slot);
+            return slot;
+        }
+        
+        int slotOf(String memoryId) {
+            Integer slot = slotsById.get(memoryId);
+            return slot != null ? slot : -1;
+        }
+        
+        void release(String memoryId) {
+            Integer slot = slotsById.remove(memoryId);
+            if (slot != null) {
+                memoryIds.set(slot, null);
+                memories.set(slot, null);
+                liveSlots.remove(slot);
+            }
+        }
+        
+        String memoryIdAt(int slot) { return memoryIds.get(slot); }
+        Memory memoryAt(int slot) { return memories.get(slot); }
+        IntBitmap getLiveSlots() { return liveSlots; }
+        int liveCount() { return slotsById.size(); }
+        int allocatedCount() { return memoryIds.size(); }
+        
+        List<Memory> liveMemories() {
+            List<Memory> live = new ArrayList<>(slotsById.size());
+            for (Memory memory : memories) {
+                if (memory != null) {
+                    live.add(memory);
+                }
+            }
+            return live;
+        }
+        
+        void clear() {
+            slotsById.clear();
+            memoryIds.clear();
+            memories.clear();
+            liveSlots.clear();
+        }
+    }
+    
+    /**
+     * 可由索引求值的谓词
+     */
+    private abstract static class IndexedPredicate {
+        private final Map<String, Object> conditions;
+        private final int estimatedCardinality;
+        
+        IndexedPredicate(Map<String, Object> conditions, int estimatedCardinality) {
+            this.conditions = conditions;
+            this.estimatedCardinality = estimatedCardinality;
+        }
+        
+        /** 谓词对应的完整槽位集合 */
+        abstract IntBitmap materialize();
+        
+        /** 与候选集求交，默认先物化再求交 */
+        IntBitmap intersect(IntBitmap candidates) {
+            return candidates.and(materialize());
+        }
+        
+        /** 谓词覆盖的原始条件，退回逐条评估时使用 */
+        Map<String, Object> getConditions() { return conditions; }
+        int getEstimatedCardinality() { return estimatedCardinality; }
+    }
+    
+    /**
+     * 查询计划：按选择度升序排列的索引谓词 + 需要逐条评估的剩余条件
+     */
+    private static final class QueryPlan {
+        private final List<IndexedPredicate> indexedPredicates;
+        private final Map<String, Object> residualConditions;
+        
+        QueryPlan(List<IndexedPredicate> indexedPredicates, Map<String, Object> residualConditions) {
+            this.indexedPredicates = indexedPredicates;
+            this.residualConditions = residualConditions;
+        }
     }
     
     /**
@@ -316,6 +489,9 @@ public class SearchFilter {
         this.configuration = configuration != null ? configuration : new FilterConfiguration();
         this.filterIndices = new HashMap<>();
         this.statistics = new FilterStatistics();
+        this.slotRegistry = new SlotRegistry();
+        this.indexLock = new ReentrantReadWriteLock();
+        this.patternCache = new ConcurrentHashMap<>();
         
         // 初始化常用索引
         initializeDefaultIndices();
@@ -335,10 +511,12 @@ public class SearchFilter {
      */
     private void initializeDefaultIndices() {
         if (configuration.isEnableIndexOptimization()) {
-            filterIndices.put("userId", new FilterIndex("userId"));
-            filterIndices.put("sessionId", new FilterIndex("sessionId"));
-            filterIndices.put("contentType", new FilterIndex("contentType"));
-            filterIndices.put("importanceLevel", new FilterIndex("importanceLevel"));
+            filterIndices.put("userId", new FilterIndex("userId", slotRegistry, false));
+            filterIndices.put("sessionId", new FilterIndex("sessionId", slotRegistry, false));
+            filterIndices.put("contentType", new FilterIndex("contentType", slotRegistry, false));
+            filterIndices.put("importanceLevel", new FilterIndex("importanceLevel", slotRegistry, true));
+            filterIndices.put("tags", new FilterIndex("tags", slotRegistry, false));
+            filterIndices.put("createdAt", new FilterIndex("createdAt", slotRegistry, true));
             
             logger.info("Initialized {} default filter indices", filterIndices.size());
         }
@@ -347,6 +525,8 @@ public class SearchFilter {
     /**
      * 构建过滤器索引
      * 
+     * 先清空已有索引再按给定列表重建，之后 {@link #filterIndexed(FilterCriteria)} 只返回该列表中的内存。
+     * 
      * @param memories 内存数据列表
      * @return 异步构建任务
      */
@@ -358,28 +538,14 @@ public class SearchFilter {
             
             long startTime = System.currentTimeMillis();
             
+            indexLock.writeLock().lock();
             try {
+                for (FilterIndex index : filterIndices.values()) {
+                    index.clear();
+                }
+                slotRegistry.clear();
                 for (Memory memory : memories) {
-                    // 构建用户ID索引
-                    if (memory.getUserId() != null) {
-                        filterIndices.get("userId").addEntry(memory.getId(), memory.getUserId());
-                    }
-                    
-                    // 构建会话ID索引
-                    if (memory.getSessionId() != null) {
-                        filterIndices.get("sessionId").addEntry(memory.getId(), memory.getSessionId());
-                    }
-                    
-                    // 构建内容类型索引
-                    Map<String, Object> metadata = memory.getMetadata();
-                    if (metadata.containsKey("contentType")) {
-                        filterIndices.get("contentType").addEntry(memory.getId(), metadata.get("contentType"));
-                    }
-                    
-                    // 构建重要性级别索引
-                    if (metadata.containsKey("importanceLevel")) {
-                        filterIndices.get("importanceLevel").addEntry(memory.getId(), metadata.get("importanceLevel"));
-                    }
+                    indexMemoryInternal(memory);
                 }
                 
                 long duration = System.currentTimeMillis() - startTime;
@@ -388,13 +554,138 @@ public class SearchFilter {
             } catch (Exception e) {
                 logger.error("Error building filter indices", e);
                 throw new RuntimeException("Failed to build filter indices", e);
+            } finally {
+                indexLock.writeLock().unlock();
             }
         });
     }
     
+    /**
+     * 索引单个内存，已存在时按最新内容重新索引
+     * 
+     * @param memory 内存对象
+     */
+    public void indexMemory(Memory memory) {
+        if (!configuration.isEnableIndexOptimization() || memory == null || memory.getId() == null) {
+            return;
+        }
+        indexLock.writeLock().lock();
+        try {
+            indexMemoryInternal(memory);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 从索引中移除内存
+     * 
+     * @param memoryId 内存ID
+     */
+    public void removeFromIndex(String memoryId) {
+        if (!configuration.isEnableIndexOptimization() || memoryId == null) {
+            return;
+        }
+        indexLock.writeLock().lock();
+        try {
+            removeFromIndexInternal(memoryId);
+            
+            int deadSlots = slotRegistry.allocatedCount() - slotRegistry.liveCount();
+            if (deadSlots > COMPACTION_MIN_DEAD_SLOTS && deadSlots > slotRegistry.liveCount()) {
+                compactIndices();
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 清空所有索引
+     */
+    public void clearFilterIndices() {
+        indexLock.writeLock().lock();
+        try {
+            for (FilterIndex index : filterIndices.values()) {
+                index.clear();
+            }
+            slotRegistry.clear();
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+    
+    private void indexMemoryInternal(Memory memory) {
+        if (memory.getId() == null) {
+            return;
+        }
+        if (slotRegistry.slotOf(memory.getId()) >= 0) {
+            removeFromIndexInternal(memory.getId());
+        }
+        slotRegistry.assign(memory.getId(), memory);
+        
+        // 构建用户ID索引
+        if (memory.getUserId() != null) {
+            filterIndices.get("userId").addEntry(memory.getId(), memory.getUserId());
+        }
+        
+        // 构建会话ID索引
+        if (memory.getSessionId() != null) {
+            filterIndices.get("sessionId").addEntry(memory.getId(), memory.getSessionId());
+        }
+        
+        // 构建内容类型索引
+        Map<String, Object> metadata = memory.getMetadata();
+        if (metadata.get("contentType") != null) {
+            filterIndices.get("contentType").addEntry(memory.getId(), metadata.get("contentType"));
+        }
+        
+        // 构建重要性级别索引（有序索引只接受Integer，与evaluateCondition的类型约定一致）
+        if (metadata.get("importanceLevel") instanceof Integer) {
+            filterIndices.get("importanceLevel").addEntry(memory.getId(), metadata.get("importanceLevel"));
+        }
+        
+        // 构建标签索引（多值）
+        Object tags = metadata.get("tags");
+        if (tags instanceof List) {
+            FilterIndex tagIndex = filterIndices.get("tags");
+            for (Object tag : new LinkedHashSet<>((List<?>) tags)) {
+                if (tag != null) {
+                    tagIndex.addEntry(memory.getId(), tag);
+                }
+            }
+        }
+        
+        // 构建创建时间索引
+        if (memory.getCreatedAt() != null) {
+            filterIndices.get("createdAt").addEntry(memory.getId(), memory.getCreatedAt());
+        }
+    }
+    
+    private void removeFromIndexInternal(String memoryId) {
+        for (FilterIndex index : filterIndices.values()) {
+            index.removeEntry(memoryId);
+        }
+        slotRegistry.release(memoryId);
+    }
+    
+    private void compactIndices() {
+        List<Memory> live = slotRegistry.liveMemories();
+        for (FilterIndex index : filterIndices.values()) {
+            index.clear();
+        }
+        slotRegistry.clear();
+        for (Memory memory : live) {
+            indexMemoryInternal(memory);
+        }
+        logger.debug("Compacted filter indices to {} live slots", live.size());
+    }
+    
     /**
      * 执行过滤操作
      * 
+     * 对列表逐条评估预编译后的条件。列表内容与索引无关，需要按索引计划过滤已索引的全部内存时
+     * 使用 {@link #filterIndexed(FilterCriteria)}。
+     * 
      * @param memories 待过滤的内存列表
      * @param criteria 过滤条件
      * @return 过滤结果
@@ -408,11 +699,24 @@ public class SearchFilter {
                 
                 if (configuration.isEnableParallelProcessing() && 
                     memories.size() >= configuration.getParallelThreshold()) {
-                    // 并行过滤
-                    filteredMemories = memories.parallelStream()
-                        .filter(memory -> matchesCriteria(memory, criteria))
-                        .limit(configuration.getMaxFilterResults())
-                        .collect(Collectors.toList());
+                    // 在共用CPU线程池上按区间并行过滤，按下标顺序拼接并保留前maxFilterResults条
+                    Memory[] source = memories.toArray(new Memory[0]);
+                    int maxResults = configuration.getMaxFilterResults();
+                    filteredMemories = ConcurrentExecutionManager.parallelScan(source.length, (from, to) -> {
+                        List<Memory> matched = new ArrayList<>();
+                        for (int i = from; i < to && matched.size() < maxResults; i++) {
+                            if (matchesCriteria(source[i], criteria)) {
+                                matched.add(source[i]);
+                            }
+                        }
+                        return matched;
+                    }, (left, right) -> {
+                        int room = maxResults - left.size();
+                        if (room > 0) {
+                            left.addAll(right.size() <= room ? right : right.subList(0, room));
+                        }
+                        return left;
+                    });
                 } else {
                     // 串行过滤
                     filteredMemories = memories.stream()
@@ -421,41 +725,278 @@ public class SearchFilter {
                         .collect(Collectors.toList());
                 }
                 
-                long processingTime = System.currentTimeMillis() - startTime;
-                
-                // 统计信息
-                Map<String, Integer> filterBreakdown = analyzeFilterBreakdown(criteria);
-                double filterEfficiency = memories.isEmpty() ? 1.0 : (double) filteredMemories.size() / memories.size();
+                return buildFilterResult("composite", memories.size(), filteredMemories, criteria, startTime);
                 
-                FilterResult.FilterStatisticsSnapshot statisticsSnapshot = 
-                    new FilterResult.FilterStatisticsSnapshot(
-                        memories.size(),
-                        filteredMemories.size(),
-                        processingTime,
-                        filterBreakdown,
-                        filterEfficiency
-                    );
+            } catch (Exception e) {
+                logger.error("Error in filter operation", e);
+                throw new RuntimeException("Filter operation failed", e);
+            }
+        });
+    }
+    
+    /**
+     * 基于倒排索引对已索引的全部内存执行过滤
+     * 
+     * 可索引的条件（用户、会话、内容类型、标签、重要性范围、时间范围）按估算基数
+     * 由小到大做位图交集，剩余条件只在存活的候选上评估。
+     * 
+     * @param criteria 过滤条件
+     * @return 过滤结果
+     */
+    public CompletableFuture<FilterResult> filterIndexed(FilterCriteria criteria) {
+        return CompletableFuture.supplyAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            
+            indexLock.readLock().lock();
+            try {
+                int corpusSize = slotRegistry.liveCount();
+                QueryPlan plan = planQuery(criteria);
+                IntBitmap candidates = executePlan(plan);
                 
-                // 记录统计
-                if (configuration.isEnableStatistics()) {
-                    statistics.recordFilterOperation("composite", processingTime, 
-                                                   memories.size(), filteredMemories.size());
+                List<Memory> filteredMemories = new ArrayList<>(Math.min(candidates.getCardinality(),
+                                                                         configuration.getMaxFilterResults()));
+                int maxResults = configuration.getMaxFilterResults();
+                for (int slot : candidates.toArray()) {
+                    if (filteredMemories.size() >= maxResults) {
+                        break;
+                    }
+                    Memory memory = slotRegistry.memoryAt(slot);
+                    if (memory != null && matchesCriteria(memory, criteria, plan.residualConditions)) {
+                        filteredMemories.add(memory);
+                    }
                 }
                 
-                FilterResult result = new FilterResult(filteredMemories, statisticsSnapshot, criteria);
-                
-                logger.debug("Filter operation completed: {} -> {} results in {}ms",
-                           memories.size(), filteredMemories.size(), processingTime);
-                
-                return result;
+                return buildFilterResult("indexed", corpusSize, filteredMemories, criteria, startTime);
                 
             } catch (Exception e) {
-                logger.error("Error in filter operation", e);
+                logger.error("Error in indexed filter operation", e);
                 throw new RuntimeException("Filter operation failed", e);
+            } finally {
+                indexLock.readLock().unlock();
+            }
+        });
+    }
+    
+    private FilterResult buildFilterResult(String filterType, int originalCount, List<Memory> filteredMemories,
+                                           FilterCriteria criteria, long startTime) {
+        long processingTime = System.currentTimeMillis() - startTime;
+        
+        // 统计信息
+        Map<String, Integer> filterBreakdown = analyzeFilterBreakdown(criteria);
+        double filterEfficiency = originalCount == 0 ? 1.0 : (double) filteredMemories.size() / originalCount;
+        
+        FilterResult.FilterStatisticsSnapshot statisticsSnapshot = 
+            new FilterResult.FilterStatisticsSnapshot(
+                originalCount,
+                filteredMemories.size(),
+                processingTime,
+                filterBreakdown,
+                filterEfficiency
+            );
+        
+        // 记录统计
+        if (configuration.isEnableStatistics()) {
+            synchronized (statistics) {
+                statistics.recordFilterOperation(filterType, processingTime, 
+                                               originalCount, filteredMemories.size());
+            }
+        }
+        
+        logger.debug("Filter operation ({}) completed: {} -> {} results in {}ms",
+                   filterType, originalCount, filteredMemories.size(), processingTime);
+        
+        return new FilterResult(filteredMemories, statisticsSnapshot, criteria);
+    }
+    
+    /**
+     * 生成查询计划
+     * 
+     * 只有顶层条件在逻辑上是必须满足的（无子条件或AND逻辑）时才能下推到索引，
+     * 否则全部条件作为剩余条件在所有存活槽位上评估。
+     */
+    private QueryPlan planQuery(FilterCriteria criteria) {
+        Map<String, Object> residual = new HashMap<>(criteria.getConditions());
+        List<IndexedPredicate> predicates = new ArrayList<>();
+        
+        boolean conditionsRequired = criteria.getSubCriteria().isEmpty() ||
+                                     criteria.getLogic() == FilterCriteria.FilterLogic.AND;
+        if (!configuration.isEnableIndexOptimization() || !conditionsRequired) {
+            return new QueryPlan(predicates, residual);
+        }
+        
+        addEqualityPredicate(predicates, residual, "userId", "userId");
+        addEqualityPredicate(predicates, residual, "sessionId", "sessionId");
+        addContentTypePredicate(predicates, residual);
+        addTagPredicates(predicates, residual);
+        addRangePredicate(predicates, residual, "importanceLevel", "minImportance", "maxImportance");
+        addRangePredicate(predicates, residual, "createdAt", "startTime", "endTime");
+        
+        predicates.sort(Comparator.comparingInt(IndexedPredicate::getEstimatedCardinality));
+        return new QueryPlan(predicates, residual);
+    }
+    
+    /**
+     * 执行索引谓词：从基数最小的谓词开始求交，候选集足够小时把剩余谓词退回逐条评估
+     */
+    private IntBitmap executePlan(QueryPlan plan) {
+        if (plan.indexedPredicates.isEmpty()) {
+            return slotRegistry.getLiveSlots();
+        }
+        
+        IntBitmap candidates = null;
+        for (IndexedPredicate predicate : plan.indexedPredicates) {
+            if (candidates == null) {
+                candidates = predicate.materialize();
+            } else if (candidates.isEmpty()) {
+                break;
+            } else if ((long) candidates.getCardinality() * RESIDUAL_SWITCH_FACTOR
+                       < predicate.getEstimatedCardinality()) {
+                plan.residualConditions.putAll(predicate.getConditions());
+            } else {
+                candidates = predicate.intersect(candidates);
+            }
+        }
+        return candidates;
+    }
+    
+    private void addEqualityPredicate(List<IndexedPredicate> predicates, Map<String, Object> residual,
+                                      String indexName, String conditionKey) {
+        Object value = residual.get(conditionKey);
+        FilterIndex index = filterIndices.get(indexName);
+        if (!(value instanceof String) || index == null) {
+            return;
+        }
+        residual.remove(conditionKey);
+        predicates.add(new IndexedPredicate(Collections.singletonMap(conditionKey, value), index.cardinality(value)) {
+            @Override
+            IntBitmap materialize() {
+                IntBitmap slots = index.getSlots(value);
+                return slots != null ? slots.copy() : new IntBitmap();
+            }
+            
+            @Override
+            IntBitmap intersect(IntBitmap candidates) {
+                IntBitmap slots = index.getSlots(value);
+                return slots != null ? candidates.and(slots) : new IntBitmap();
+            }
+        });
+    }
+    
+    private void addContentTypePredicate(List<IndexedPredicate> predicates, Map<String, Object> residual) {
+        Object value = residual.get("contentTypes");
+        FilterIndex index = filterIndices.get("contentType");
+        if (!(value instanceof List) || index == null) {
+            return;
+        }
+        List<?> types = (List<?>) value;
+        int estimate = 0;
+        for (Object type : types) {
+            estimate += index.cardinality(type);
+        }
+        residual.remove("contentTypes");
+        predicates.add(new IndexedPredicate(Collections.singletonMap("contentTypes", value), estimate) {
+            @Override
+            IntBitmap materialize() {
+                IntBitmap union = new IntBitmap();
+                for (Object type : new LinkedHashSet<>(types)) {
+                    IntBitmap slots = index.getSlots(type);
+                    if (slots != null) {
+                        union.addAll(slots);
+                    }
+                }
+                return union;
+            }
+        });
+    }
+    
+    private void addTagPredicates(List<IndexedPredicate> predicates, Map<String, Object> residual) {
+        Object value = residual.get("requiredTags");
+        FilterIndex index = filterIndices.get("tags");
+        // 空标签列表的语义是"存在tags字段"，索引无法表达，保留为剩余条件
+        if (!(value instanceof List) || ((List<?>) value).isEmpty() || index == null) {
+            return;
+        }
+        residual.remove("requiredTags");
+        for (Object tag : new LinkedHashSet<>((List<?>) value)) {
+            predicates.add(new IndexedPredicate(Collections.singletonMap("requiredTags", value), index.cardinality(tag)) {
+                @Override
+                IntBitmap materialize() {
+                    IntBitmap slots = index.getSlots(tag);
+                    return slots != null ? slots.copy() : new IntBitmap();
+                }
+                
+                @Override
+                IntBitmap intersect(IntBitmap candidates) {
+                    IntBitmap slots = index.getSlots(tag);
+                    return slots != null ? candidates.and(slots) : new IntBitmap();
+                }
+            });
+        }
+    }
+    
+    private void addRangePredicate(List<IndexedPredicate> predicates, Map<String, Object> residual,
+                                   String indexName, String fromKey, String toKey) {
+        FilterIndex index = filterIndices.get(indexName);
+        Object fromValue = residual.get(fromKey);
+        Object toValue = residual.get(toKey);
+        if (index == null || (fromValue == null && toValue == null)) {
+            return;
+        }
+        
+        Object from = toIndexKey(fromValue);
+        Object to = toIndexKey(toValue);
+        if ((fromValue != null && from == null) || (toValue != null && to == null)) {
+            return;
+        }
+        
+        Map<String, Object> covered = new HashMap<>(4);
+        if (fromValue != null) {
+            covered.put(fromKey, fromValue);
+            residual.remove(fromKey);
+        }
+        if (toValue != null) {
+            covered.put(toKey, toValue);
+            residual.remove(toKey);
+        }
+        
+        // 估算时只数到足以判定"比已有谓词宽得多"为止，避免宽范围估算本身退化为全量遍历
+        long cap = Long.MAX_VALUE;
+        for (IndexedPredicate predicate : predicates) {
+            cap = Math.min(cap, (long) predicate.getEstimatedCardinality() * RESIDUAL_SWITCH_FACTOR);
+        }
+        NavigableMap<Object, IntBitmap> range = index.range(from, to);
+        long estimate = 0;
+        for (IntBitmap slots : range.values()) {
+            estimate += slots.getCardinality();
+            if (estimate > cap) {
+                break;
+            }
+        }
+        predicates.add(new IndexedPredicate(covered, (int) Math.min(Integer.MAX_VALUE, estimate)) {
+            @Override
+            IntBitmap materialize() {
+                IntBitmap union = new IntBitmap();
+                for (IntBitmap slots : range.values()) {
+                    union.addAll(slots);
+                }
+                return union;
             }
         });
     }
     
+    /**
+     * 将条件值转换为有序索引键，类型不支持时返回null
+     */
+    private Object toIndexKey(Object conditionValue) {
+        if (conditionValue instanceof Integer) {
+            return conditionValue;
+        }
+        if (conditionValue instanceof LocalDateTime) {
+            return ((LocalDateTime) conditionValue).atZone(java.time.ZoneId.systemDefault()).toInstant();
+        }
+        return null;
+    }
+    
     /**
      * 检查内存是否匹配过滤条件
      * 
@@ -464,7 +1005,14 @@ public class SearchFilter {
      * @return 是否匹配
      */
     private boolean matchesCriteria(Memory memory, FilterCriteria criteria) {
-        boolean mainResult = evaluateConditions(memory, criteria.getConditions());
+        return matchesCriteria(memory, criteria, criteria.getConditions());
+    }
+    
+    /**
+     * 检查内存是否匹配过滤条件，顶层条件使用给定的（剩余）条件集合
+     */
+    private boolean matchesCriteria(Memory memory, FilterCriteria criteria, Map<String, Object> conditions) {
+        boolean mainResult = evaluateConditions(memory, conditions);
         
         if (criteria.getSubCriteria().isEmpty()) {
             return mainResult;
@@ -491,7 +1039,6 @@ public class SearchFilter {
         return criteria.getLogic() == FilterCriteria.FilterLogic.AND ? 
                mainResult && subResult : mainResult || subResult;
     }
-    
     /**
      * 评估条件
      * 
@@ -576,8 +1123,7 @@ public class SearchFilter {
                 return relevance != null && relevance >= threshold;
                 
             case "contentRegex":
-                String regex = (String) value;
-                Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+                Pattern pattern = compilePattern((String) value);
                 return pattern.matcher(memory.getContent()).find();
                 
             default:
@@ -587,6 +1133,21 @@ public class SearchFilter {
         }
     }
     
+    /**
+     * 获取预编译的正则，避免每条内存重复编译
+     */
+    private Pattern compilePattern(String regex) {
+        Pattern pattern = patternCache.get(regex);
+        if (pattern == null) {
+            if (patternCache.size() >= MAX_CACHED_PATTERNS) {
+                patternCache.clear();
+            }
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            patternCache.put(regex, pattern);
+        }
+        return pattern;
+    }
+    
     /**
      * 分析过滤器分解情况
      * 
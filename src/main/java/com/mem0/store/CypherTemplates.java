@@ -0,0 +1,241 @@
+package com.mem0.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cypher查询模板缓存 / Cypher Query Template Cache
+ *
+ * <p>标签、关系类型与变长路径的跳数无法作为参数传入Cypher，只能拼接进查询文本。若每次调用都
+ * 重新拼接，文本中混入的常量会让服务端的执行计划缓存失效。本类按 (形状, 标签, 关系类型, 跳数,
+ * 属性键) 缓存预先构建的查询文本，其余取值一律通过参数传递，同一形状的调用共享同一份文本与
+ * 执行计划。缓存为容量受限的LRU，避免调用方传入的任意跳数或属性组合无限增长。</p>
+ *
+ * <p>Labels, relationship types and variable-length hop bounds cannot be Cypher parameters and have
+ * to be spliced into the query text. Re-building the text on every call mixes constants into it and
+ * defeats the server's plan cache. This class caches pre-built query text keyed by (shape, label,
+ * relationship type, max hops, property keys) while every value travels as a parameter, so calls of
+ * the same shape share one text and one plan. The cache is a bounded LRU so arbitrary hop counts or
+ * property combinations from callers cannot grow it without limit.</p>
+ *
+ * <p>拼接进文本的标识符统一经 {@link #quote(String)} 转义 / Identifiers spliced into the text are
+ * always escaped with {@link #quote(String)}.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CypherTemplates {
+
+    /** 默认缓存容量 / Default cache capacity */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** 库写入的所有节点共有的标签 / Label shared by every node the library writes */
+    public static final String BASE_LABEL = "Mem0Node";
+
+    private static final String NODE = quote(BASE_LABEL);
+
+    private final int capacity;
+    private final Map<Key, String> templates;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CypherTemplates() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CypherTemplates(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.templates = Collections.synchronizedMap(new LinkedHashMap<Key, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                return size() > CypherTemplates.this.capacity;
+            }
+        });
+    }
+
+    /**
+     * 批量创建节点，每行为 {@code {id, properties}} / Create nodes in bulk from rows of
+     * {@code {id, properties}}.
+     */
+    public String createNodes(String label) {
+        return template("createNodes", label, null, 0, null,
+            () -> "UNWIND $rows AS row CREATE (n:" + quote(label) + ":" + NODE + ") SET n = row.properties "
+                + "RETURN row.id AS id");
+    }
+
+    /**
+     * 批量在已有节点间创建关系，每行为 {@code {id, sourceId, targetId, properties}}；端点缺失的行
+     * 不返回 / Create relationships between existing nodes in bulk from rows of
+     * {@code {id, sourceId, targetId, properties}}; rows with a missing endpoint return nothing.
+     */
+    public String createRelationships(String relationshipType) {
+        return template("createRelationships", null, relationshipType, 0, null,
+            () -> "UNWIND $rows AS row "
+                + "MATCH (source:" + NODE + " {id: row.sourceId}), (target:" + NODE + " {id: row.targetId}) "
+                + "CREATE (source)-[r:" + quote(relationshipType) + "]->(target) SET r = row.properties "
+                + "RETURN row.id AS id");
+    }
+
+    /**
+     * 按标签与等值属性查询节点，属性值依次以 {@code $p0, $p1, ...} 传入，顺序与 {@code propertyKeys}
+     * 一致 / Find nodes by label and equality predicates; values travel as {@code $p0, $p1, ...} in
+     * the order of {@code propertyKeys}.
+     */
+    public String nodesByLabel(String label, List<String> propertyKeys) {
+        List<String> keys = propertyKeys != null ? propertyKeys : Collections.<String>emptyList();
+        return template("nodesByLabel", label, null, 0, keys,
+            () -> matchByLabel(label, keys).append(" RETURN n").toString());
+    }
+
+    /**
+     * {@link #nodesByLabel} 的键集分页形式：返回 {@code n.id > $after} 的前 {@code $limit} 个节点，
+     * 按ID升序 / Keyset-paged form of {@link #nodesByLabel}: the first {@code $limit} nodes with
+     * {@code n.id > $after} in ascending id order.
+     */
+    public String nodesByLabelPage(String label, List<String> propertyKeys) {
+        List<String> keys = propertyKeys != null ? propertyKeys : Collections.<String>emptyList();
+        return template("nodesByLabelPage", label, null, 0, keys, () -> {
+            StringBuilder cypher = matchByLabel(label, keys);
+            return cypher.append(keys.isEmpty() ? " WHERE " : " AND ")
+                .append("n.id > $after RETURN n ORDER BY n.id LIMIT $limit").toString();
+        });
+    }
+
+    /**
+     * 节点的全部关系，relationshipType为null表示任意类型 / Relationships of {@code $nodeId}; a null
+     * type matches any type.
+     */
+    public String relationshipsOf(String relationshipType) {
+        return template("relationshipsOf", null, relationshipType, 0, null,
+            () -> "MATCH (n:" + NODE + " {id: $nodeId})-[r" + typeFilter(relationshipType) + "]-(m) "
+                + "RETURN r, startNode(r) AS source, endNode(r) AS target");
+    }
+
+    /**
+     * {@code $nodeId} 在maxHops跳内可达的节点 / Nodes reachable from {@code $nodeId} within maxHops.
+     */
+    public String connectedNodes(String relationshipType, int maxHops) {
+        if (maxHops < 1) {
+            throw new IllegalArgumentException("maxHops must be positive: " + maxHops);
+        }
+        return template("connectedNodes", null, relationshipType, maxHops, null,
+            () -> "MATCH (start:" + NODE + " {id: $nodeId})-[" + typeFilter(relationshipType) + "*1.." + maxHops
+                + "]-(connected:" + NODE + ") RETURN DISTINCT connected");
+    }
+
+    /**
+     * 在两个记忆节点间创建关系，参数为 {@code $fromId}、{@code $toId}、{@code $properties} /
+     * Create a relationship between two memory nodes from {@code $fromId}, {@code $toId} and
+     * {@code $properties}.
+     */
+    public String memoryRelationship(String relationshipType) {
+        return template("memoryRelationship", null, relationshipType, 0, null,
+            () -> "MATCH (from:Memory {id: $fromId}), (to:Memory {id: $toId}) "
+                + "CREATE (from)-[r:" + quote(relationshipType) + "]->(to) SET r = $properties");
+    }
+
+    /**
+     * 以反引号转义标识符 / Escape an identifier with backticks.
+     */
+    public static String quote(String identifier) {
+        if (identifier == null || identifier.isEmpty()) {
+            throw new IllegalArgumentException("Cypher identifier cannot be null or empty");
+        }
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private String template(String shape, String label, String relationshipType, int maxHops,
+                            Collection<String> propertyKeys, Supplier<String> builder) {
+        Key key = new Key(shape, label, relationshipType, maxHops,
+            propertyKeys != null ? new ArrayList<>(propertyKeys) : Collections.<String>emptyList());
+        String cypher = templates.get(key);
+        if (cypher != null) {
+            hits.incrementAndGet();
+            return cypher;
+        }
+        misses.incrementAndGet();
+        // 构建是纯函数，并发下重复构建无害 / building is pure, so a racing duplicate is harmless
+        cypher = builder.get();
+        templates.put(key, cypher);
+        return cypher;
+    }
+
+    private static StringBuilder matchByLabel(String label, List<String> keys) {
+        StringBuilder cypher = new StringBuilder("MATCH (n:").append(quote(label)).append(')');
+        for (int i = 0; i < keys.size(); i++) {
+            cypher.append(i == 0 ? " WHERE " : " AND ")
+                .append("n.").append(quote(keys.get(i))).append(" = $p").append(i);
+        }
+        return cypher;
+    }
+
+    private static String typeFilter(String relationshipType) {
+        return relationshipType != null && !relationshipType.isEmpty() ? ":" + quote(relationshipType) : "";
+    }
+
+    private static final class Key {
+        final String shape;
+        final String label;
+        final String relationshipType;
+        final int maxHops;
+        final List<String> propertyKeys;
+        final int hash;
+
+        Key(String shape, String label, String relationshipType, int maxHops, List<String> propertyKeys) {
+            this.shape = shape;
+            this.label = label;
+            this.relationshipType = relationshipType;
+            this.maxHops = maxHops;
+            this.propertyKeys = propertyKeys;
+            this.hash = Objects.hash(shape, label, relationshipType, maxHops, propertyKeys);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return maxHops == other.maxHops
+                && shape.equals(other.shape)
+                && Objects.equals(label, other.label)
+                && Objects.equals(relationshipType, other.relationshipType)
+                && propertyKeys.equals(other.propertyKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
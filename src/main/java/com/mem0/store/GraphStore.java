@@ -1,10 +1,14 @@
 package com.mem0.store;
 
 import com.mem0.core.EnhancedMemory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 图数据库存储接口 - Graph database store interface
@@ -209,8 +213,55 @@ public interface GraphStore {
     
     CompletableFuture<GraphNode> getNode(String nodeId);
     
+    /**
+     * 一次调用批量获取节点 / Fetch several nodes in one call.
+     * 
+     * <p>返回ID到节点的映射，不存在的ID不出现在结果中。默认实现逐个调用 {@link #getNode}，
+     * 能一次往返完成批量读取的实现应覆盖此方法。</p>
+     * 
+     * <p>Returns a map from id to node; unknown ids are left out. The default issues one
+     * {@link #getNode} per id; implementations able to read in a single round trip should
+     * override it.</p>
+     */
+    default CompletableFuture<Map<String, GraphNode>> getNodes(Collection<String> nodeIds) {
+        List<CompletableFuture<GraphNode>> futures = new ArrayList<>(nodeIds.size());
+        for (String nodeId : nodeIds) {
+            futures.add(getNode(nodeId));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                Map<String, GraphNode> result = new HashMap<>();
+                for (CompletableFuture<GraphNode> future : futures) {
+                    GraphNode node = future.join();
+                    if (node != null) {
+                        result.put(node.getId(), node);
+                    }
+                }
+                return result;
+            });
+    }
+    
     CompletableFuture<List<GraphNode>> getNodesByLabel(String label, Map<String, Object> properties);
     
+    /**
+     * 按节点ID键集分页查询 {@link #getNodesByLabel} / Keyset-paged {@link #getNodesByLabel}.
+     * 
+     * <p>结果按节点ID升序，第一页传入null令牌，之后传入上一页的 {@link Page#getNextPageToken()}。
+     * 默认实现取全量结果后切页，只保证语义正确；数据量大的实现应覆盖此方法，只读取和构建一页
+     * 节点。</p>
+     * 
+     * <p>Results come in ascending node id order; pass a null token for the first page and the
+     * previous {@link Page#getNextPageToken()} afterwards. The default slices the full result and
+     * only guarantees the semantics; implementations holding large graphs should override it to read
+     * and build one page of nodes at a time.</p>
+     */
+    default CompletableFuture<Page<GraphNode>> getNodesByLabelPage(String label, Map<String, Object> properties,
+                                                                  String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return getNodesByLabel(label, properties)
+            .thenApply(nodes -> Page.select(nodes, GraphNode::getId, null, pageToken, pageSize));
+    }
+    
     CompletableFuture<List<GraphRelationship>> getRelationships(String nodeId, String relationshipType);
     
     CompletableFuture<List<GraphNode>> findConnectedNodes(String nodeId, String relationshipType, int maxHops);
@@ -236,6 +287,19 @@ public interface GraphStore {
     
     CompletableFuture<List<EnhancedMemory>> getUserMemories(String userId);
     
+    /**
+     * 按记忆ID键集分页查询 {@link #getUserMemories} / Keyset-paged {@link #getUserMemories}.
+     * 
+     * <p>结果按记忆ID升序；默认实现取全量结果后切页 / Results come in ascending memory id order;
+     * the default slices the full result.</p>
+     */
+    default CompletableFuture<Page<EnhancedMemory>> getUserMemoriesPage(String userId, String pageToken,
+                                                                       int pageSize) {
+        Page.checkPageSize(pageSize);
+        return getUserMemories(userId)
+            .thenApply(memories -> Page.select(memories, EnhancedMemory::getId, null, pageToken, pageSize));
+    }
+    
     CompletableFuture<List<EnhancedMemory>> getMemoryHistory(String userId);
     
     CompletableFuture<List<EnhancedMemory>> searchMemories(String query, String userId, int limit);
@@ -244,6 +308,103 @@ public interface GraphStore {
     
     CompletableFuture<Void> close();
     
+    /**
+     * 以种子节点计算个性化PageRank / Personalised PageRank seeded from the given nodes.
+     * 
+     * <p>实现应使用有界的近似算法（如前推法），使代价受 {@link PageRankOptions} 的精度与时间预算
+     * 约束而与图规模无关。不支持的实现返回空结果，调用方据此退化为不使用图信号。</p>
+     * 
+     * <p>Implementations should use a bounded approximation such as forward push, so the cost is
+     * governed by the precision and time budget in {@link PageRankOptions} rather than graph size.
+     * Implementations without support return an empty map and callers fall back to ranking
+     * without the graph.</p>
+     * 
+     * @param seeds 种子节点ID到重启权重 / seed node ids mapped to restart weights
+     * @param options 算法参数 / algorithm parameters
+     * @return 节点ID到PageRank估计值 / node ids mapped to PageRank estimates
+     */
+    default CompletableFuture<Map<String, Double>> personalizedPageRank(Map<String, Double> seeds,
+                                                                       PageRankOptions options) {
+        return CompletableFuture.completedFuture(Collections.emptyMap());
+    }
+    
+    /**
+     * 个性化PageRank参数，不可变 / Immutable personalised PageRank parameters
+     */
+    static class PageRankOptions {
+        /** 默认重启概率 / Default restart (teleport) probability */
+        public static final double DEFAULT_RESTART_PROBABILITY = 0.15;
+        /** 默认残差阈值（按度归一） / Default per-degree residual threshold */
+        public static final double DEFAULT_EPSILON = 1e-4;
+        /** 默认最大推送次数 / Default maximum number of pushes */
+        public static final int DEFAULT_MAX_PUSHES = 20_000;
+        /** 默认时间预算（微秒） / Default time budget in microseconds */
+        public static final long DEFAULT_TIME_BUDGET_MICROS = 2_000;
+        
+        private static final PageRankOptions DEFAULTS = new PageRankOptions(DEFAULT_RESTART_PROBABILITY,
+            DEFAULT_EPSILON, DEFAULT_MAX_PUSHES, TimeUnit.MICROSECONDS.toNanos(DEFAULT_TIME_BUDGET_MICROS), null);
+        
+        private final double restartProbability;
+        private final double epsilon;
+        private final int maxPushes;
+        private final long timeBudgetNanos;
+        private final String relationshipType;
+        
+        private PageRankOptions(double restartProbability, double epsilon, int maxPushes,
+                                long timeBudgetNanos, String relationshipType) {
+            this.restartProbability = restartProbability;
+            this.epsilon = epsilon;
+            this.maxPushes = maxPushes;
+            this.timeBudgetNanos = timeBudgetNanos;
+            this.relationshipType = relationshipType;
+        }
+        
+        public static PageRankOptions defaults() {
+            return DEFAULTS;
+        }
+        
+        public PageRankOptions withRestartProbability(double restartProbability) {
+            if (restartProbability <= 0.0 || restartProbability >= 1.0) {
+                throw new IllegalArgumentException("restart probability must be in (0, 1): " + restartProbability);
+            }
+            return new PageRankOptions(restartProbability, epsilon, maxPushes, timeBudgetNanos, relationshipType);
+        }
+        
+        public PageRankOptions withEpsilon(double epsilon) {
+            if (epsilon <= 0.0) {
+                throw new IllegalArgumentException("epsilon must be positive: " + epsilon);
+            }
+            return new PageRankOptions(restartProbability, epsilon, maxPushes, timeBudgetNanos, relationshipType);
+        }
+        
+        public PageRankOptions withMaxPushes(int maxPushes) {
+            if (maxPushes <= 0) {
+                throw new IllegalArgumentException("max pushes must be positive: " + maxPushes);
+            }
+            return new PageRankOptions(restartProbability, epsilon, maxPushes, timeBudgetNanos, relationshipType);
+        }
+        
+        public PageRankOptions withTimeBudget(long budget, TimeUnit unit) {
+            if (budget <= 0) {
+                throw new IllegalArgumentException("time budget must be positive: " + budget);
+            }
+            return new PageRankOptions(restartProbability, epsilon, maxPushes, unit.toNanos(budget), relationshipType);
+        }
+        
+        /**
+         * 只沿指定类型的关系传播，null表示任意类型 / Only spread along one relationship type, null for any.
+         */
+        public PageRankOptions withRelationshipType(String relationshipType) {
+            return new PageRankOptions(restartProbability, epsilon, maxPushes, timeBudgetNanos, relationshipType);
+        }
+        
+        public double getRestartProbability() { return restartProbability; }
+        public double getEpsilon() { return epsilon; }
+        public int getMaxPushes() { return maxPushes; }
+        public long getTimeBudgetNanos() { return timeBudgetNanos; }
+        public String getRelationshipType() { return relationshipType; }
+    }
+    
     static class GraphNode {
         private final String id;
         private final List<String> labels;
@@ -1,5 +1,6 @@
 package com.mem0.store;
 
+import com.mem0.vector.MetadataIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +31,9 @@ public class MilvusVectorStore implements VectorStore {
     private final Map<String, CollectionInfo> collections = new ConcurrentHashMap<>();
     private final Map<String, Map<String, VectorDocument>> vectorStorage = new ConcurrentHashMap<>();
     
+    // 每个集合的元数据二级索引
+    private final Map<String, MetadataIndex<VectorDocument>> metadataIndexes = new ConcurrentHashMap<>();
+    
     /**
      * 集合信息内部类
      */
@@ -95,6 +99,7 @@ public class MilvusVectorStore implements VectorStore {
             CollectionInfo collectionInfo = new CollectionInfo(collectionName, dimension);
             collections.put(collectionName, collectionInfo);
             vectorStorage.put(collectionName, new ConcurrentHashMap<>());
+            metadataIndexes.put(collectionName, new MetadataIndex<>(VectorDocument::getMetadata));
             
             logger.info("Created collection '{}' with dimension {}", collectionName, dimension);
             return null;
@@ -124,6 +129,7 @@ public class MilvusVectorStore implements VectorStore {
             // 删除集合和所有向量数据
             collections.remove(collectionName);
             Map<String, VectorDocument> removed = vectorStorage.remove(collectionName);
+            metadataIndexes.remove(collectionName);
             int removedCount = removed != null ? removed.size() : 0;
             
             logger.info("Dropped collection '{}' and removed {} vectors", collectionName, removedCount);
@@ -162,7 +168,7 @@ public class MilvusVectorStore implements VectorStore {
             VectorDocument document = new VectorDocument(vectorId, new ArrayList<>(vector), safeMetadata);
             
             // 存储向量
-            vectorStorage.get(collectionName).put(vectorId, document);
+            putDocument(vectorStorage.get(collectionName), metadataIndexes.get(collectionName), document);
             
             logger.debug("Inserted vector {} into collection '{}'", vectorId, collectionName);
             return vectorId;
@@ -191,6 +197,7 @@ public class MilvusVectorStore implements VectorStore {
             
             List<String> insertedIds = new ArrayList<>();
             Map<String, VectorDocument> collectionStorage = vectorStorage.get(collectionName);
+            MetadataIndex<VectorDocument> metadataIndex = metadataIndexes.get(collectionName);
             
             for (int i = 0; i < vectors.size(); i++) {
                 List<Float> vector = vectors.get(i);
@@ -216,7 +223,7 @@ public class MilvusVectorStore implements VectorStore {
                 metadata.put("batch_index", i);
                 
                 VectorDocument document = new VectorDocument(vectorId, new ArrayList<>(vector), metadata);
-                collectionStorage.put(vectorId, document);
+                putDocument(collectionStorage, metadataIndex, document);
                 insertedIds.add(vectorId);
             }
             
@@ -258,12 +265,22 @@ public class MilvusVectorStore implements VectorStore {
                 return Collections.emptyList();
             }
             
+            // 根据元数据索引生成过滤计划：选择度高时只对候选打分，否则扫描后逐条判定
+            MetadataIndex.FilterPlan<VectorDocument> plan = metadataIndexes.get(collectionName).plan(filter);
+            if (plan.getStrategy() == MetadataIndex.Strategy.EMPTY) {
+                return Collections.emptyList();
+            }
+            Collection<VectorDocument> candidates = plan.isCandidateSetAvailable()
+                ? plan.getCandidates() : collectionStorage.values();
+            Map<String, Object> remainingFilter = plan.isCandidateSetAvailable()
+                ? plan.getResidualFilter() : filter;
+            
             // 执行向量搜索
             List<VectorSearchResult> allResults = new ArrayList<>();
             
-            for (VectorDocument document : collectionStorage.values()) {
+            for (VectorDocument document : candidates) {
                 // 应用过滤器
-                if (filter != null && !matchesFilter(document.getMetadata(), filter)) {
+                if (remainingFilter != null && !matchesFilter(document.getMetadata(), remainingFilter)) {
                     continue;
                 }
                 
@@ -303,7 +320,7 @@ public class MilvusVectorStore implements VectorStore {
                 throw new IllegalStateException("Collection " + collectionName + " does not exist");
             }
             
-            VectorDocument removed = collectionStorage.remove(id);
+            VectorDocument removed = removeDocument(collectionStorage, metadataIndexes.get(collectionName), id);
             if (removed == null) {
                 logger.warn("Vector with id {} not found in collection '{}'", id, collectionName);
             } else {
@@ -330,17 +347,27 @@ public class MilvusVectorStore implements VectorStore {
             }
             
             // 查找匹配的向量
+            MetadataIndex<VectorDocument> metadataIndex = metadataIndexes.get(collectionName);
+            MetadataIndex.FilterPlan<VectorDocument> plan = metadataIndex.plan(filter);
             List<String> toDelete = new ArrayList<>();
-            for (VectorDocument document : collectionStorage.values()) {
-                if (matchesFilter(document.getMetadata(), filter)) {
-                    toDelete.add(document.getId());
+            if (plan.isCandidateSetAvailable()) {
+                for (VectorDocument document : plan.getCandidates()) {
+                    if (matchesFilter(document.getMetadata(), plan.getResidualFilter())) {
+                        toDelete.add(document.getId());
+                    }
+                }
+            } else {
+                for (VectorDocument document : collectionStorage.values()) {
+                    if (matchesFilter(document.getMetadata(), filter)) {
+                        toDelete.add(document.getId());
+                    }
                 }
             }
             
             // 删除匹配的向量
             int deletedCount = 0;
             for (String id : toDelete) {
-                if (collectionStorage.remove(id) != null) {
+                if (removeDocument(collectionStorage, metadataIndex, id) != null) {
                     deletedCount++;
                 }
             }
@@ -369,14 +396,67 @@ public class MilvusVectorStore implements VectorStore {
             }
             
             // 返回文档的副本以避免外部修改
-            return new VectorDocument(
-                document.getId(),
-                new ArrayList<>(document.getVector()),
-                new HashMap<>(document.getMetadata())
-            );
+            return copyOf(document);
         });
     }
     
+    @Override
+    public CompletableFuture<Map<String, VectorDocument>> getBatch(String collectionName, Collection<String> ids) {
+        return CompletableFuture.supplyAsync(() -> {
+            ensureConnected();
+            
+            Map<String, VectorDocument> collectionStorage = vectorStorage.get(collectionName);
+            if (collectionStorage == null) {
+                throw new IllegalStateException("Collection " + collectionName + " does not exist");
+            }
+            
+            // 对应Milvus中一次按主键 "id in [...]" 的查询
+            Map<String, VectorDocument> documents = new HashMap<>(ids.size() * 2);
+            for (String id : ids) {
+                VectorDocument document = id != null ? collectionStorage.get(id) : null;
+                if (document != null) {
+                    documents.put(id, copyOf(document));
+                }
+            }
+            return documents;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Page<VectorDocument>> listPage(String collectionName, Map<String, Object> filter,
+                                                           String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return CompletableFuture.supplyAsync(() -> {
+            ensureConnected();
+            
+            Map<String, VectorDocument> collectionStorage = vectorStorage.get(collectionName);
+            if (collectionStorage == null) {
+                throw new IllegalStateException("Collection " + collectionName + " does not exist");
+            }
+            
+            // 对应Milvus中 "id > token" 的过滤查询按主键排序取 limit 条
+            MetadataIndex.FilterPlan<VectorDocument> plan = metadataIndexes.get(collectionName).plan(filter);
+            if (plan.getStrategy() == MetadataIndex.Strategy.EMPTY) {
+                return Page.<VectorDocument>empty();
+            }
+            Collection<VectorDocument> candidates = plan.isCandidateSetAvailable()
+                ? plan.getCandidates() : collectionStorage.values();
+            return Page.select(candidates, VectorDocument::getId,
+                    document -> plan.isCandidateSetAvailable()
+                        ? plan.matchesResidual(document.getMetadata()) : plan.matchesAll(document.getMetadata()),
+                    pageToken, pageSize)
+                .map(MilvusVectorStore::copyOf);
+        });
+    }
+    
+    private static VectorDocument copyOf(VectorDocument document) {
+        return new VectorDocument(
+            document.getId(),
+            new ArrayList<>(document.getVector()),
+            new HashMap<>(document.getMetadata())
+        );
+    }
+    
     @Override
     public CompletableFuture<Void> close() {
         return CompletableFuture.supplyAsync(() -> {
@@ -384,6 +464,7 @@ public class MilvusVectorStore implements VectorStore {
                 // 清理资源
                 collections.clear();
                 vectorStorage.clear();
+                metadataIndexes.clear();
                 connected = false;
                 
                 logger.info("Closed MilvusVectorStore connection to {}:{}", host, port);
@@ -465,6 +546,17 @@ public class MilvusVectorStore implements VectorStore {
         return true;
     }
     
+    /**
+     * 为集合的自定义元数据键建立二级索引，使按该键过滤的搜索走预过滤
+     */
+    public void addMetadataIndex(String collectionName, String key) {
+        MetadataIndex<VectorDocument> metadataIndex = metadataIndexes.get(collectionName);
+        if (metadataIndex == null) {
+            throw new IllegalStateException("Collection " + collectionName + " does not exist");
+        }
+        metadataIndex.addIndexedKey(key);
+    }
+    
     /**
      * 获取连接状态
      */
@@ -486,6 +578,31 @@ public class MilvusVectorStore implements VectorStore {
         return port;
     }
     
+    /**
+     * 在同一个键的compute内写入文档与元数据索引，并发的写入与删除不会让两者对同一ID不一致
+     */
+    private static void putDocument(Map<String, VectorDocument> collectionStorage,
+                                    MetadataIndex<VectorDocument> metadataIndex, VectorDocument document) {
+        collectionStorage.compute(document.getId(), (id, current) -> {
+            metadataIndex.put(id, document, document.getMetadata());
+            return document;
+        });
+    }
+    
+    /**
+     * 在同一个键的compute内移除文档与元数据索引，返回被移除的文档
+     */
+    private static VectorDocument removeDocument(Map<String, VectorDocument> collectionStorage,
+                                                 MetadataIndex<VectorDocument> metadataIndex, String id) {
+        VectorDocument[] removed = new VectorDocument[1];
+        collectionStorage.computeIfPresent(id, (key, current) -> {
+            metadataIndex.remove(id);
+            removed[0] = current;
+            return null;
+        });
+        return removed[0];
+    }
+    
     /**
      * 获取集合数量
      */
@@ -1,7 +1,12 @@
 package com.mem0.store;
 
+import com.mem0.constants.MemoryConstants;
 import com.mem0.core.EnhancedMemory;
 import org.neo4j.driver.*;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.AsyncTransactionWork;
+import org.neo4j.driver.async.ResultCursor;
 import org.neo4j.driver.types.Node;
 import org.neo4j.driver.types.Relationship;
 import org.slf4j.Logger;
@@ -10,7 +15,10 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * Neo4j图数据库存储实现 / Neo4j Graph Database Storage Implementation
@@ -39,17 +47,21 @@ import java.util.stream.Collectors;
  * - High availability: Support cluster deployment and read-write separation for enterprise availability
  * 
  * 集成详情 / Integration Details:
- * - 驱动版本：基于Neo4j Java Driver 5.x版本
+ * - 驱动版本：基于Neo4j Java Driver 4.4版本
  * - 连接管理：支持URI连接字符串和认证令牌
  * - 查询语言：使用Cypher查询语言进行图数据操作
- * - 会话管理：采用会话模式管理数据库连接和事务
- * - 异步操作：所有图数据库操作均采用CompletableFuture异步模式
+ * - 会话管理：使用驱动的异步会话与托管事务，不在Bolt I/O上阻塞线程；写事务的书签串联到后续会话，
+ *   保证读到自己的写入
+ * - 批量写入：并发调用方的 createNode/createRelationship/addMemory/updateNode 由
+ *   {@link BatchWriteCoalescer} 合并为 {@code UNWIND $rows} 事务，批次大小可配置
  * 
- * - Driver version: Based on Neo4j Java Driver 5.x
+ * - Driver version: Based on Neo4j Java Driver 4.4
  * - Connection management: Support URI connection strings and authentication tokens
  * - Query language: Use Cypher query language for graph data operations
- * - Session management: Use session pattern for database connection and transaction management
- * - Async operations: All graph database operations use CompletableFuture async pattern
+ * - Session management: Async sessions with managed transactions, so no thread waits on Bolt I/O;
+ *   the bookmark of each write is chained into later sessions so callers read their own writes
+ * - Batched writes: createNode/createRelationship/addMemory/updateNode from concurrent callers are
+ *   coalesced by {@link BatchWriteCoalescer} into {@code UNWIND $rows} transactions of configurable size
  * 
  * 数据模型 / Data Model:
  * - Node: 图中的实体节点，具有标签和属性
@@ -62,6 +74,21 @@ import java.util.stream.Collectors;
  * - Label: Node classification labels for query optimization and data organization
  * - Property: Key-value property data for nodes and relationships
  * 
+ * 索引与查询计划 / Indexes and Query Plans:
+ * - 库写入的每个节点都带有公共标签 {@code Mem0Node}，按ID的查找都通过该标签上的索引完成，
+ *   不再进行全节点扫描
+ * - 构造时执行幂等的模式初始化：创建 {@code Memory}/{@code EnhancedMemory} 的ID唯一约束以及
+ *   {@code id}/{@code userId} 索引，并为旧数据补上公共标签
+ * - 查询文本由 {@link CypherTemplates} 按形状缓存，取值全部参数化，以复用服务端执行计划
+ * 
+ * - Every node the library writes carries the shared {@code Mem0Node} label, so id lookups go
+ *   through the index on that label instead of scanning all nodes
+ * - An idempotent schema bootstrap runs at construction: uniqueness constraints on the ids of
+ *   {@code Memory}/{@code EnhancedMemory}, {@code id}/{@code userId} indexes, and a backfill of the
+ *   shared label onto older data
+ * - Query text is cached per shape by {@link CypherTemplates} and every value is parameterised, so
+ *   the server's plan cache is reused
+ * 
  * 使用示例 / Usage Example:
  * <pre>{@code
  * // Initialize Neo4j graph store
@@ -94,354 +121,279 @@ public class Neo4jGraphStore implements GraphStore {
     
     private static final Logger logger = LoggerFactory.getLogger(Neo4jGraphStore.class);
     
+    private static final String NODE = CypherTemplates.quote(CypherTemplates.BASE_LABEL);
+    
+    /**
+     * 模式初始化语句，均为幂等操作 / Schema bootstrap statements, all idempotent.
+     */
+    private static final String[] SCHEMA_STATEMENTS = {
+        "CREATE CONSTRAINT mem0_memory_id IF NOT EXISTS FOR (n:Memory) REQUIRE n.id IS UNIQUE",
+        "CREATE CONSTRAINT mem0_enhanced_memory_id IF NOT EXISTS FOR (n:EnhancedMemory) REQUIRE n.id IS UNIQUE",
+        "CREATE INDEX mem0_node_id IF NOT EXISTS FOR (n:" + NODE + ") ON (n.id)",
+        "CREATE INDEX mem0_node_user_id IF NOT EXISTS FOR (n:" + NODE + ") ON (n.userId)",
+        "CREATE INDEX mem0_memory_user_id IF NOT EXISTS FOR (n:Memory) ON (n.userId)",
+        "CREATE INDEX mem0_enhanced_memory_user_id IF NOT EXISTS FOR (n:EnhancedMemory) ON (n.userId)"
+    };
+    
+    /**
+     * 为早于公共标签写入的节点补标签，分批提交 / Backfill the shared label onto nodes written before
+     * it existed, committing in batches.
+     */
+    private static final String BACKFILL_BASE_LABEL =
+        "MATCH (n) WHERE n.id IS NOT NULL AND NOT n:" + NODE + " "
+        + "CALL { WITH n SET n:" + NODE + " } IN TRANSACTIONS OF 10000 ROWS";
+    
+    private static final String UPDATE_NODES =
+        "UNWIND $rows AS row MATCH (n:" + NODE + " {id: row.id}) SET n += row.properties RETURN row.id AS id";
+    
+    private static final String ADD_MEMORIES =
+        "UNWIND $rows AS row CREATE (m:Memory:" + NODE + ") SET m = row.properties RETURN row.id AS id";
+    
     private final Driver driver;
+    private final CypherTemplates templates;
+    private final BatchWriteCoalescer writeCoalescer;
+    // 最近一次提交的写事务书签，后续会话据此保证读到自己的写入
+    // bookmark of the latest committed write; later sessions chain on it to read their own writes
+    private final AtomicReference<Bookmark> lastBookmark = new AtomicReference<>();
     
     public Neo4jGraphStore(String uri, String username, String password) {
-        this.driver = GraphDatabase.driver(uri, AuthTokens.basic(username, password));
+        this(GraphDatabase.driver(uri, AuthTokens.basic(username, password)), new CypherTemplates());
+        logger.info("Connected to Neo4j at {}", uri);
+    }
+    
+    /**
+     * 使用已有驱动创建存储 / Create a store on an existing driver.
+     * 
+     * @param driver Neo4j驱动，由本存储负责关闭 / Neo4j driver, closed by this store
+     * @param templates 查询模板缓存 / query template cache
+     */
+    public Neo4jGraphStore(Driver driver, CypherTemplates templates) {
+        this(driver, templates, MemoryConstants.DEFAULT_GRAPH_WRITE_BATCH_SIZE);
+    }
+    
+    /**
+     * @param driver Neo4j驱动，由本存储负责关闭 / Neo4j driver, closed by this store
+     * @param templates 查询模板缓存 / query template cache
+     * @param writeBatchSize 合并写入时单个UNWIND事务的最大行数 / maximum rows per coalesced UNWIND transaction
+     */
+    public Neo4jGraphStore(Driver driver, CypherTemplates templates, int writeBatchSize) {
+        this.driver = driver;
+        this.templates = templates;
+        this.writeCoalescer = new BatchWriteCoalescer(this::writeBatch, writeBatchSize);
         
         // Test connection
         try (Session session = driver.session()) {
             session.run("RETURN 1 as test").consume();
-            logger.info("Connected to Neo4j at {}", uri);
         } catch (Exception e) {
             throw new RuntimeException("Failed to connect to Neo4j", e);
         }
+        bootstrapSchema();
     }
     
-    @Override
-    public CompletableFuture<String> createNode(String label, Map<String, Object> properties) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                StringBuilder cypher = new StringBuilder("CREATE (n:");
-                cypher.append(label).append(" {");
-                
-                // Add id property if not present
-                Map<String, Object> nodeProperties = new HashMap<>(properties);
-                if (!nodeProperties.containsKey("id")) {
-                    nodeProperties.put("id", UUID.randomUUID().toString());
-                }
-                
-                List<String> propertyAssignments = new ArrayList<>();
-                for (String key : nodeProperties.keySet()) {
-                    propertyAssignments.add(key + ": $" + key);
-                }
-                
-                cypher.append(String.join(", ", propertyAssignments));
-                cypher.append("}) RETURN n.id as id");
-                
-                Result result = session.run(cypher.toString(), nodeProperties);
-                
-                if (result.hasNext()) {
-                    String nodeId = result.next().get("id").asString();
-                    logger.debug("Created node with id: {}", nodeId);
-                    return nodeId;
-                } else {
-                    throw new RuntimeException("Failed to create node");
+    /**
+     * 创建约束与索引并补齐公共标签 / Create constraints and indexes and backfill the shared label.
+     * 
+     * <p>每条语句独立执行，单条失败（例如已有重复ID导致唯一约束无法建立）只记录警告，不影响
+     * 其余语句与存储的可用性。</p>
+     * 
+     * <p>Each statement runs on its own; a failing one (for example a uniqueness constraint blocked by
+     * existing duplicate ids) is logged and does not affect the others or the store.</p>
+     */
+    public void bootstrapSchema() {
+        try (Session session = driver.session()) {
+            for (String statement : SCHEMA_STATEMENTS) {
+                try {
+                    session.run(statement).consume();
+                } catch (Exception e) {
+                    logger.warn("Neo4j schema statement failed: {} ({})", statement, e.getMessage());
                 }
-                
+            }
+            try {
+                session.run(BACKFILL_BASE_LABEL).consume();
             } catch (Exception e) {
-                throw new CompletionException("Failed to create node", e);
+                logger.warn("Failed to backfill {} label: {}", CypherTemplates.BASE_LABEL, e.getMessage());
             }
-        });
+        }
+    }
+    
+    public CypherTemplates getTemplates() {
+        return templates;
+    }
+    
+    public BatchWriteCoalescer getWriteCoalescer() {
+        return writeCoalescer;
+    }
+    
+    @Override
+    public CompletableFuture<String> createNode(String label, Map<String, Object> properties) {
+        // Add id property if not present
+        Map<String, Object> nodeProperties = new HashMap<>(properties);
+        if (!nodeProperties.containsKey("id")) {
+            nodeProperties.put("id", UUID.randomUUID().toString());
+        }
+        String nodeId = String.valueOf(nodeProperties.get("id"));
+        
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", nodeId);
+        row.put("properties", nodeProperties);
+        return writeCoalescer.submit(templates.createNodes(label), row, "Failed to create node")
+            .thenApply(ignored -> {
+                logger.debug("Created node with id: {}", nodeId);
+                return nodeId;
+            });
     }
     
     @Override
     public CompletableFuture<String> createRelationship(String sourceNodeId, String targetNodeId, 
                                                       String relationshipType, 
                                                       Map<String, Object> properties) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                Map<String, Object> relProperties = new HashMap<>(properties);
-                if (!relProperties.containsKey("id")) {
-                    relProperties.put("id", UUID.randomUUID().toString());
-                }
-                
-                StringBuilder cypher = new StringBuilder(
-                    "MATCH (source {id: $sourceId}), (target {id: $targetId}) " +
-                    "CREATE (source)-[r:" + relationshipType + " {"
-                );
-                
-                List<String> propertyAssignments = new ArrayList<>();
-                for (String key : relProperties.keySet()) {
-                    propertyAssignments.add(key + ": $" + key);
-                }
-                
-                cypher.append(String.join(", ", propertyAssignments));
-                cypher.append("}]->(target) RETURN r.id as id");
-                
-                Map<String, Object> parameters = new HashMap<>(relProperties);
-                parameters.put("sourceId", sourceNodeId);
-                parameters.put("targetId", targetNodeId);
-                
-                Result result = session.run(cypher.toString(), parameters);
-                
-                if (result.hasNext()) {
-                    String relId = result.next().get("id").asString();
-                    logger.debug("Created relationship with id: {}", relId);
-                    return relId;
-                } else {
-                    throw new RuntimeException("Failed to create relationship");
-                }
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to create relationship", e);
-            }
-        });
+        Map<String, Object> relProperties = new HashMap<>(properties);
+        if (!relProperties.containsKey("id")) {
+            relProperties.put("id", UUID.randomUUID().toString());
+        }
+        String relId = String.valueOf(relProperties.get("id"));
+        
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", relId);
+        row.put("sourceId", sourceNodeId);
+        row.put("targetId", targetNodeId);
+        row.put("properties", relProperties);
+        return writeCoalescer.submit(templates.createRelationships(relationshipType), row,
+                "Failed to create relationship, source or target node not found")
+            .thenApply(ignored -> {
+                logger.debug("Created relationship with id: {}", relId);
+                return relId;
+            });
     }
     
     @Override
     public CompletableFuture<GraphNode> getNode(String nodeId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                Result result = session.run(
-                    "MATCH (n {id: $nodeId}) RETURN n",
-                    Values.parameters("nodeId", nodeId)
-                );
-                
-                if (result.hasNext()) {
-                    Node node = result.next().get("n").asNode();
-                    return convertToGraphNode(node);
-                } else {
-                    return null;
+        return readAsync("get node", tx -> tx
+            .runAsync("MATCH (n:" + NODE + " {id: $nodeId}) RETURN n", Values.parameters("nodeId", nodeId))
+            .thenCompose(ResultCursor::nextAsync)
+            .thenApply(record -> record != null ? convertToGraphNode(record.get("n").asNode()) : null));
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, GraphNode>> getNodes(Collection<String> nodeIds) {
+        if (nodeIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return readList("get nodes", "MATCH (n:" + NODE + ") WHERE n.id IN $nodeIds RETURN n",
+                Values.parameters("nodeIds", new ArrayList<>(nodeIds)),
+                record -> convertToGraphNode(record.get("n").asNode()))
+            .thenApply(nodes -> {
+                Map<String, GraphNode> result = new HashMap<>(nodes.size() * 2);
+                for (GraphNode node : nodes) {
+                    result.put(node.getId(), node);
                 }
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to get node", e);
-            }
-        });
+                return result;
+            });
     }
     
     @Override
     public CompletableFuture<List<GraphNode>> getNodesByLabel(String label, Map<String, Object> properties) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                StringBuilder cypher = new StringBuilder("MATCH (n:").append(label);
-                
-                if (properties != null && !properties.isEmpty()) {
-                    cypher.append(" {");
-                    List<String> conditions = new ArrayList<>();
-                    for (String key : properties.keySet()) {
-                        conditions.add(key + ": $" + key);
-                    }
-                    cypher.append(String.join(", ", conditions));
-                    cypher.append("}");
-                }
-                
-                cypher.append(") RETURN n");
-                
-                Result result = session.run(cypher.toString(), properties != null ? properties : Collections.emptyMap());
-                
-                List<GraphNode> nodes = new ArrayList<>();
-                while (result.hasNext()) {
-                    Node node = result.next().get("n").asNode();
-                    nodes.add(convertToGraphNode(node));
-                }
-                
-                return nodes;
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to get nodes by label", e);
-            }
-        });
+        // 键排序后同一组谓词总是命中同一个模板 / sorted keys map a predicate set to one template
+        List<String> keys = properties != null ? new ArrayList<>(properties.keySet()) : new ArrayList<>();
+        Collections.sort(keys);
+        Map<String, Object> parameters = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            parameters.put("p" + i, properties.get(keys.get(i)));
+        }
+        
+        return readList("get nodes by label", templates.nodesByLabel(label, keys), Values.value(parameters),
+            record -> convertToGraphNode(record.get("n").asNode()));
+    }
+    
+    @Override
+    public CompletableFuture<Page<GraphNode>> getNodesByLabelPage(String label, Map<String, Object> properties,
+                                                                 String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        List<String> keys = properties != null ? new ArrayList<>(properties.keySet()) : new ArrayList<>();
+        Collections.sort(keys);
+        Map<String, Object> parameters = pageParameters(pageToken, pageSize);
+        for (int i = 0; i < keys.size(); i++) {
+            parameters.put("p" + i, properties.get(keys.get(i)));
+        }
+        
+        return readList("get nodes by label page", templates.nodesByLabelPage(label, keys), Values.value(parameters),
+                record -> convertToGraphNode(record.get("n").asNode()))
+            .thenApply(nodes -> toPage(nodes, GraphNode::getId, pageSize));
     }
     
     @Override
     public CompletableFuture<List<GraphRelationship>> getRelationships(String nodeId, String relationshipType) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                String cypher;
-                if (relationshipType != null && !relationshipType.isEmpty()) {
-                    cypher = "MATCH (n {id: $nodeId})-[r:" + relationshipType + "]-(m) RETURN r, startNode(r) as source, endNode(r) as target";
-                } else {
-                    cypher = "MATCH (n {id: $nodeId})-[r]-(m) RETURN r, startNode(r) as source, endNode(r) as target";
-                }
-                
-                Result result = session.run(cypher, Values.parameters("nodeId", nodeId));
-                
-                List<GraphRelationship> relationships = new ArrayList<>();
-                while (result.hasNext()) {
-                    Record record = result.next();
-                    Relationship rel = record.get("r").asRelationship();
-                    Node source = record.get("source").asNode();
-                    Node target = record.get("target").asNode();
-                    
-                    relationships.add(convertToGraphRelationship(rel, source, target));
-                }
-                
-                return relationships;
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to get relationships", e);
-            }
-        });
+        return readList("get relationships", templates.relationshipsOf(relationshipType),
+            Values.parameters("nodeId", nodeId),
+            record -> convertToGraphRelationship(record.get("r").asRelationship(),
+                record.get("source").asNode(), record.get("target").asNode()));
     }
     
     @Override
     public CompletableFuture<List<GraphNode>> findConnectedNodes(String nodeId, String relationshipType, int maxHops) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                String cypher;
-                if (relationshipType != null && !relationshipType.isEmpty()) {
-                    cypher = String.format(
-                        "MATCH (start {id: $nodeId})-[:%s*1..%d]-(connected) RETURN DISTINCT connected",
-                        relationshipType, maxHops
-                    );
-                } else {
-                    cypher = String.format(
-                        "MATCH (start {id: $nodeId})-[*1..%d]-(connected) RETURN DISTINCT connected",
-                        maxHops
-                    );
-                }
-                
-                Result result = session.run(cypher, Values.parameters("nodeId", nodeId));
-                
-                List<GraphNode> connectedNodes = new ArrayList<>();
-                while (result.hasNext()) {
-                    Node node = result.next().get("connected").asNode();
-                    connectedNodes.add(convertToGraphNode(node));
-                }
-                
-                return connectedNodes;
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to find connected nodes", e);
-            }
-        });
+        return readList("find connected nodes", templates.connectedNodes(relationshipType, maxHops),
+            Values.parameters("nodeId", nodeId),
+            record -> convertToGraphNode(record.get("connected").asNode()));
     }
     
     @Override
     public CompletableFuture<Void> updateNode(String nodeId, Map<String, Object> properties) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                if (properties == null || properties.isEmpty()) {
-                    return;
-                }
-                
-                StringBuilder cypher = new StringBuilder("MATCH (n {id: $nodeId}) SET ");
-                List<String> setStatements = new ArrayList<>();
-                
-                for (String key : properties.keySet()) {
-                    setStatements.add("n." + key + " = $" + key);
-                }
-                
-                cypher.append(String.join(", ", setStatements));
-                
-                Map<String, Object> parameters = new HashMap<>(properties);
-                parameters.put("nodeId", nodeId);
-                
-                session.run(cypher.toString(), parameters).consume();
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to update node", e);
-            }
-        });
+        if (properties == null || properties.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", nodeId);
+        row.put("properties", new HashMap<>(properties));
+        return writeCoalescer.submit(UPDATE_NODES, row, null);
     }
     
     @Override
     public CompletableFuture<Void> updateRelationship(String relationshipId, Map<String, Object> properties) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                if (properties == null || properties.isEmpty()) {
-                    return;
-                }
-                
-                StringBuilder cypher = new StringBuilder("MATCH ()-[r {id: $relationshipId}]-() SET ");
-                List<String> setStatements = new ArrayList<>();
-                
-                for (String key : properties.keySet()) {
-                    setStatements.add("r." + key + " = $" + key);
-                }
-                
-                cypher.append(String.join(", ", setStatements));
-                
-                Map<String, Object> parameters = new HashMap<>(properties);
-                parameters.put("relationshipId", relationshipId);
-                
-                session.run(cypher.toString(), parameters).consume();
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to update relationship", e);
-            }
-        });
+        if (properties == null || properties.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return writeStatement("update relationship", "MATCH ()-[r {id: $relationshipId}]-() SET r += $properties",
+            Values.parameters("relationshipId", relationshipId, "properties", properties));
     }
     
     @Override
     public CompletableFuture<Void> deleteNode(String nodeId) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                session.run(
-                    "MATCH (n {id: $nodeId}) DETACH DELETE n",
-                    Values.parameters("nodeId", nodeId)
-                ).consume();
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to delete node", e);
-            }
-        });
+        return writeStatement("delete node", "MATCH (n:" + NODE + " {id: $nodeId}) DETACH DELETE n",
+            Values.parameters("nodeId", nodeId));
     }
     
     @Override
     public CompletableFuture<Void> deleteRelationship(String relationshipId) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                session.run(
-                    "MATCH ()-[r {id: $relationshipId}]-() DELETE r",
-                    Values.parameters("relationshipId", relationshipId)
-                ).consume();
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to delete relationship", e);
-            }
-        });
+        return writeStatement("delete relationship", "MATCH ()-[r {id: $relationshipId}]-() DELETE r",
+            Values.parameters("relationshipId", relationshipId));
     }
     
     @Override
     public CompletableFuture<List<Map<String, Object>>> executeQuery(String cypher, Map<String, Object> parameters) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                
-                Result result = session.run(cypher, parameters != null ? parameters : Collections.emptyMap());
-                
-                List<Map<String, Object>> records = new ArrayList<>();
-                while (result.hasNext()) {
-                    Record record = result.next();
-                    Map<String, Object> recordMap = new HashMap<>();
-                    
-                    for (String key : record.keys()) {
-                        recordMap.put(key, record.get(key).asObject());
-                    }
-                    
-                    records.add(recordMap);
+        // 任意语句以自动提交事务执行，以支持 CALL { ... } IN TRANSACTIONS 等写法
+        // arbitrary statements run in an auto-commit transaction so CALL { ... } IN TRANSACTIONS works
+        return inSession(AccessMode.WRITE, "execute query", session -> session
+            .runAsync(cypher, parameters != null ? parameters : Collections.<String, Object>emptyMap())
+            .thenCompose(cursor -> cursor.listAsync(record -> {
+                Map<String, Object> recordMap = new HashMap<>();
+                for (String key : record.keys()) {
+                    recordMap.put(key, record.get(key).asObject());
                 }
-                
-                return records;
-                
-            } catch (Exception e) {
-                throw new CompletionException("Failed to execute query", e);
-            }
-        });
+                return recordMap;
+            })));
     }
     
     @Override
     public CompletableFuture<Void> close() {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                driver.close();
+        return driver.closeAsync().toCompletableFuture()
+            .handle((ignored, error) -> {
+                if (error != null) {
+                    throw new CompletionException("Failed to close Neo4j connection", unwrap(error));
+                }
                 logger.info("Closed Neo4j connection");
-            } catch (Exception e) {
-                throw new CompletionException("Failed to close Neo4j connection", e);
-            }
-        });
+                return null;
+            });
     }
     
     private GraphNode convertToGraphNode(Node node) {
@@ -475,171 +427,190 @@ public class Neo4jGraphStore implements GraphStore {
     
     @Override
     public CompletableFuture<Void> addMemory(EnhancedMemory memory) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                Map<String, Object> properties = new HashMap<>();
-                properties.put("id", memory.getId());
-                properties.put("content", memory.getContent());
-                properties.put("userId", memory.getUserId());
-                properties.put("createdAt", memory.getCreatedAt().toString());
-                if (memory.getUpdatedAt() != null) {
-                    properties.put("updatedAt", memory.getUpdatedAt().toString());
-                }
-                
-                String cypher = "CREATE (m:Memory {id: $id, content: $content, userId: $userId, createdAt: $createdAt" +
-                              (properties.containsKey("updatedAt") ? ", updatedAt: $updatedAt" : "") + "})";
-                
-                session.run(cypher, properties).consume();
-                logger.debug("Added memory with id: {}", memory.getId());
-            } catch (Exception e) {
-                throw new CompletionException("Failed to add memory", e);
-            }
-        });
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("id", memory.getId());
+        properties.put("content", memory.getContent());
+        properties.put("userId", memory.getUserId());
+        properties.put("createdAt", memory.getCreatedAt().toString());
+        if (memory.getUpdatedAt() != null) {
+            properties.put("updatedAt", memory.getUpdatedAt().toString());
+        }
+        
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", memory.getId());
+        row.put("properties", properties);
+        return writeCoalescer.submit(ADD_MEMORIES, row, "Failed to add memory")
+            .thenRun(() -> logger.debug("Added memory with id: {}", memory.getId()));
     }
     
     @Override
     public CompletableFuture<EnhancedMemory> getMemory(String memoryId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                Result result = session.run("MATCH (m:Memory {id: $memoryId}) RETURN m", 
-                                           Values.parameters("memoryId", memoryId));
-                
-                if (result.hasNext()) {
-                    Node node = result.next().get("m").asNode();
-                    return convertToEnhancedMemory(node);
-                }
-                return null;
-            } catch (Exception e) {
-                throw new CompletionException("Failed to get memory", e);
-            }
-        });
+        return readAsync("get memory", tx -> tx
+            .runAsync("MATCH (m:Memory {id: $memoryId}) RETURN m", Values.parameters("memoryId", memoryId))
+            .thenCompose(ResultCursor::nextAsync)
+            .thenApply(record -> record != null ? convertToEnhancedMemory(record.get("m").asNode()) : null));
     }
     
     @Override
     public CompletableFuture<Void> updateMemory(EnhancedMemory memory) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                Map<String, Object> properties = new HashMap<>();
-                properties.put("memoryId", memory.getId());
-                properties.put("content", memory.getContent());
-                properties.put("updatedAt", memory.getUpdatedAt() != null ? 
-                              memory.getUpdatedAt().toString() : java.time.Instant.now().toString());
-                
-                String cypher = "MATCH (m:Memory {id: $memoryId}) SET m.content = $content, m.updatedAt = $updatedAt";
-                session.run(cypher, properties).consume();
-                logger.debug("Updated memory with id: {}", memory.getId());
-            } catch (Exception e) {
-                throw new CompletionException("Failed to update memory", e);
-            }
-        });
+        String updatedAt = memory.getUpdatedAt() != null ?
+            memory.getUpdatedAt().toString() : java.time.Instant.now().toString();
+        return writeStatement("update memory",
+                "MATCH (m:Memory {id: $memoryId}) SET m.content = $content, m.updatedAt = $updatedAt",
+                Values.parameters("memoryId", memory.getId(), "content", memory.getContent(),
+                    "updatedAt", updatedAt))
+            .thenRun(() -> logger.debug("Updated memory with id: {}", memory.getId()));
     }
     
     @Override
     public CompletableFuture<Void> deleteMemory(String memoryId) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                session.run("MATCH (m:Memory {id: $memoryId}) DETACH DELETE m", 
-                          Values.parameters("memoryId", memoryId)).consume();
-                logger.debug("Deleted memory with id: {}", memoryId);
-            } catch (Exception e) {
-                throw new CompletionException("Failed to delete memory", e);
-            }
-        });
+        return writeStatement("delete memory", "MATCH (m:Memory {id: $memoryId}) DETACH DELETE m",
+                Values.parameters("memoryId", memoryId))
+            .thenRun(() -> logger.debug("Deleted memory with id: {}", memoryId));
     }
     
     @Override
     public CompletableFuture<List<EnhancedMemory>> getUserMemories(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                Result result = session.run("MATCH (m:Memory {userId: $userId}) RETURN m ORDER BY m.createdAt", 
-                                           Values.parameters("userId", userId));
-                
-                List<EnhancedMemory> memories = new ArrayList<>();
-                while (result.hasNext()) {
-                    Node node = result.next().get("m").asNode();
-                    memories.add(convertToEnhancedMemory(node));
-                }
-                return memories;
-            } catch (Exception e) {
-                throw new CompletionException("Failed to get user memories", e);
-            }
-        });
+        return readList("get user memories", "MATCH (m:Memory {userId: $userId}) RETURN m ORDER BY m.createdAt",
+            Values.parameters("userId", userId), record -> convertToEnhancedMemory(record.get("m").asNode()));
+    }
+    
+    @Override
+    public CompletableFuture<Page<EnhancedMemory>> getUserMemoriesPage(String userId, String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        Map<String, Object> parameters = pageParameters(pageToken, pageSize);
+        parameters.put("userId", userId);
+        
+        return readList("get user memories page",
+                "MATCH (m:Memory {userId: $userId}) WHERE m.id > $after RETURN m ORDER BY m.id LIMIT $limit",
+                Values.value(parameters), record -> convertToEnhancedMemory(record.get("m").asNode()))
+            .thenApply(memories -> toPage(memories, EnhancedMemory::getId, pageSize));
     }
     
     @Override
     public CompletableFuture<List<EnhancedMemory>> getMemoryHistory(String userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                Result result = session.run("MATCH (m:Memory {userId: $userId}) RETURN m ORDER BY m.createdAt ASC", 
-                                           Values.parameters("userId", userId));
-                
-                List<EnhancedMemory> memories = new ArrayList<>();
-                while (result.hasNext()) {
-                    Node node = result.next().get("m").asNode();
-                    memories.add(convertToEnhancedMemory(node));
-                }
-                return memories;
-            } catch (Exception e) {
-                throw new CompletionException("Failed to get memory history", e);
-            }
-        });
+        return readList("get memory history",
+            "MATCH (m:Memory {userId: $userId}) RETURN m ORDER BY m.createdAt ASC",
+            Values.parameters("userId", userId), record -> convertToEnhancedMemory(record.get("m").asNode()));
     }
     
     @Override
     public CompletableFuture<List<EnhancedMemory>> searchMemories(String query, String userId, int limit) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Session session = driver.session()) {
-                Result result = session.run("MATCH (m:Memory {userId: $userId}) " +
-                                           "WHERE toLower(m.content) CONTAINS toLower($query) " +
-                                           "RETURN m ORDER BY m.createdAt DESC LIMIT $limit", 
-                                           Values.parameters("userId", userId, "query", query, "limit", limit));
-                
-                List<EnhancedMemory> memories = new ArrayList<>();
-                while (result.hasNext()) {
-                    Node node = result.next().get("m").asNode();
-                    memories.add(convertToEnhancedMemory(node));
-                }
-                return memories;
-            } catch (Exception e) {
-                throw new CompletionException("Failed to search memories", e);
-            }
-        });
+        return readList("search memories",
+            "MATCH (m:Memory {userId: $userId}) " +
+            "WHERE toLower(m.content) CONTAINS toLower($query) " +
+            "RETURN m ORDER BY m.createdAt DESC LIMIT $limit",
+            Values.parameters("userId", userId, "query", query, "limit", limit),
+            record -> convertToEnhancedMemory(record.get("m").asNode()));
     }
     
     @Override
     public CompletableFuture<Void> addRelationship(String fromMemoryId, String toMemoryId, 
                                                   String relationshipType, Map<String, Object> properties) {
-        return CompletableFuture.runAsync(() -> {
-            try (Session session = driver.session()) {
-                Map<String, Object> params = new HashMap<>(properties != null ? properties : new HashMap<>());
-                params.put("fromId", fromMemoryId);
-                params.put("toId", toMemoryId);
-                params.put("id", UUID.randomUUID().toString());
-                
-                StringBuilder cypher = new StringBuilder(
-                    "MATCH (from:Memory {id: $fromId}), (to:Memory {id: $toId}) " +
-                    "CREATE (from)-[r:" + relationshipType + " {"
-                );
-                
-                List<String> propertyAssignments = new ArrayList<>();
-                propertyAssignments.add("id: $id");
-                if (properties != null) {
-                    for (String key : properties.keySet()) {
-                        if (!key.equals("fromId") && !key.equals("toId") && !key.equals("id")) {
-                            propertyAssignments.add(key + ": $" + key);
-                        }
-                    }
+        Map<String, Object> relProperties = new HashMap<>(properties != null ? properties : new HashMap<>());
+        relProperties.remove("fromId");
+        relProperties.remove("toId");
+        relProperties.put("id", UUID.randomUUID().toString());
+        
+        return writeStatement("add memory relationship", templates.memoryRelationship(relationshipType),
+                Values.parameters("fromId", fromMemoryId, "toId", toMemoryId, "properties", relProperties))
+            .thenRun(() -> logger.debug("Added relationship between memories: {} -> {}", fromMemoryId, toMemoryId));
+    }
+    
+    /**
+     * 键集分页参数：多取一条用于判断是否还有下一页；ID均为非空字符串，第一页以空串作为下界
+     * Keyset paging parameters: one extra row tells whether another page follows. Ids are non-empty
+     * strings, so the empty string is the lower bound of the first page.
+     */
+    private static Map<String, Object> pageParameters(String pageToken, int pageSize) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("after", pageToken != null ? pageToken : "");
+        parameters.put("limit", (long) pageSize + 1);
+        return parameters;
+    }
+    
+    private static <T> Page<T> toPage(List<T> rows, Function<T, String> idOf, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new Page<>(items, idOf.apply(items.get(pageSize - 1)));
+    }
+    
+    /**
+     * 在一个写事务中执行一批合并后的UNWIND语句 / Run one coalesced UNWIND batch in a write transaction.
+     */
+    private CompletionStage<Set<String>> writeBatch(String statement, List<Map<String, Object>> rows) {
+        return writeAsync("write batch", tx -> tx
+            .runAsync(statement, Collections.<String, Object>singletonMap("rows", rows))
+            .thenCompose(cursor -> cursor.listAsync(record -> String.valueOf(record.get("id").asObject())))
+            .thenApply(HashSet::new));
+    }
+    
+    private CompletableFuture<Void> writeStatement(String operation, String cypher, Value parameters) {
+        return writeAsync(operation, tx -> tx.runAsync(cypher, parameters)
+            .thenCompose(ResultCursor::consumeAsync)
+            .thenApply(summary -> (Void) null));
+    }
+    
+    private <T> CompletableFuture<List<T>> readList(String operation, String cypher, Value parameters,
+                                                   Function<Record, T> mapper) {
+        return readAsync(operation, tx -> tx.runAsync(cypher, parameters)
+            .thenCompose(cursor -> cursor.listAsync(mapper)));
+    }
+    
+    private <T> CompletableFuture<T> readAsync(String operation, AsyncTransactionWork<CompletionStage<T>> work) {
+        return inSession(AccessMode.READ, operation, session -> session.readTransactionAsync(work));
+    }
+    
+    private <T> CompletableFuture<T> writeAsync(String operation, AsyncTransactionWork<CompletionStage<T>> work) {
+        return inSession(AccessMode.WRITE, operation, session -> session.writeTransactionAsync(work));
+    }
+    
+    /**
+     * 在异步会话中执行工作并在完成后关闭会话，全程不阻塞线程；写会话提交后记录书签
+     * Run work in an async session and close it afterwards without blocking a thread; write sessions
+     * record their bookmark on commit.
+     */
+    private <T> CompletableFuture<T> inSession(AccessMode mode, String operation,
+                                               Function<AsyncSession, CompletionStage<T>> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AsyncSession session;
+        CompletionStage<T> stage;
+        try {
+            SessionConfig.Builder config = SessionConfig.builder().withDefaultAccessMode(mode);
+            Bookmark bookmark = lastBookmark.get();
+            if (bookmark != null) {
+                config.withBookmarks(bookmark);
+            }
+            session = driver.asyncSession(config.build());
+            stage = work.apply(session);
+        } catch (Exception e) {
+            future.completeExceptionally(new CompletionException("Failed to " + operation, e));
+            return future;
+        }
+        
+        stage.whenComplete((result, error) -> {
+            if (error == null && mode == AccessMode.WRITE) {
+                Bookmark bookmark = session.lastBookmark();
+                if (bookmark != null && !bookmark.isEmpty()) {
+                    lastBookmark.set(bookmark);
                 }
-                
-                cypher.append(String.join(", ", propertyAssignments));
-                cypher.append("}]->(to)");
-                
-                session.run(cypher.toString(), params).consume();
-                logger.debug("Added relationship between memories: {} -> {}", fromMemoryId, toMemoryId);
-            } catch (Exception e) {
-                throw new CompletionException("Failed to add memory relationship", e);
             }
+            // 调用方的后续回调不在驱动的I/O线程上执行 / keep callers' continuations off the driver's I/O threads
+            session.closeAsync().whenCompleteAsync((ignored, closeError) -> {
+                if (error != null) {
+                    future.completeExceptionally(new CompletionException("Failed to " + operation, unwrap(error)));
+                } else {
+                    future.complete(result);
+                }
+            }, ForkJoinPool.commonPool());
         });
+        return future;
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
     
     private EnhancedMemory convertToEnhancedMemory(Node node) {
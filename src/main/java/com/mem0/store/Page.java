@@ -0,0 +1,243 @@
+package com.mem0.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 键集分页结果 / Keyset Page
+ *
+ * <p>按ID升序返回一页结果及下一页令牌。令牌记录本页最后一个ID，下一页从严格大于它的ID开始，
+ * 因此翻页期间插入或删除数据不会造成重复或跳过已存在的条目，也不需要偏移量扫描。令牌对调用方
+ * 不透明，只能原样传回；为null表示没有更多数据。</p>
+ *
+ * <p>One page of results in ascending id order plus the token for the next page. The token records
+ * the last id of the page and the next page starts strictly after it, so inserts and deletes while
+ * paging neither repeat nor skip entries that exist throughout, and no offset scan is needed. Tokens
+ * are opaque to callers and must be passed back unchanged; null means there is nothing more.</p>
+ *
+ * <p>{@link #forEach} 与 {@link #iterator} 在分页接口之上提供流式消费，任一时刻只持有一页
+ * 数据 / {@link #forEach} and {@link #iterator} stream over a paged source while holding one
+ * page at a time.</p>
+ *
+ * @param <T> 条目类型 / item type
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Page<T> {
+
+    /**
+     * 分页数据源 / Paged source.
+     */
+    @FunctionalInterface
+    public interface Fetcher<T> {
+        /**
+         * @param pageToken 上一页返回的令牌，第一页为null / token from the previous page, null for the first
+         */
+        CompletableFuture<Page<T>> fetch(String pageToken);
+    }
+
+    private static final Page<?> EMPTY = new Page<>(Collections.emptyList(), null);
+
+    private final List<T> items;
+    private final String nextPageToken;
+
+    public Page(List<T> items, String nextPageToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextPageToken = nextPageToken;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Page<T> empty() {
+        return (Page<T>) EMPTY;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+
+    /**
+     * 转换本页条目，保留令牌；映射为null的条目被丢弃（例如翻页期间被删除）
+     * Map the items keeping the token; items mapped to null are dropped, e.g. deleted while paging.
+     */
+    public <R> Page<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            R result = mapper.apply(item);
+            if (result != null) {
+                mapped.add(result);
+            }
+        }
+        return new Page<>(mapped, nextPageToken);
+    }
+
+    public static void checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+    }
+
+    /**
+     * 从候选集中选出一页：键严格大于令牌且满足过滤条件的最小pageSize个条目
+     * Select one page from the candidates: the pageSize smallest keys strictly after the token that
+     * pass the filter.
+     *
+     * <p>使用容量为pageSize的大顶堆，候选集只遍历一次，额外内存与页大小成正比而与候选数无关。
+     * Uses a max-heap bounded by pageSize, so the candidates are walked once and extra memory grows
+     * with the page size rather than the number of candidates.</p>
+     *
+     * @param candidates 候选条目，可为任意顺序 / candidates in any order
+     * @param keyOf      条目的唯一键，null键被忽略 / unique key of an item, null keys are skipped
+     * @param filter     过滤条件，null表示全部接受 / filter, null accepts everything
+     */
+    public static <T> Page<T> select(Iterable<? extends T> candidates, Function<? super T, String> keyOf,
+                                     Predicate<? super T> filter, String pageToken, int pageSize) {
+        checkPageSize(pageSize);
+        PriorityQueue<Keyed<T>> heap = new PriorityQueue<>(Math.min(pageSize, 64) + 1,
+            (a, b) -> b.key.compareTo(a.key));
+        boolean more = false;
+        for (T candidate : candidates) {
+            String key = candidate != null ? keyOf.apply(candidate) : null;
+            if (key == null || (pageToken != null && key.compareTo(pageToken) <= 0)) {
+                continue;
+            }
+            if (filter != null && !filter.test(candidate)) {
+                continue;
+            }
+            if (heap.size() == pageSize && key.compareTo(heap.peek().key) >= 0) {
+                more = true;
+                continue;
+            }
+            heap.add(new Keyed<T>(key, candidate));
+            if (heap.size() > pageSize) {
+                heap.poll();
+                more = true;
+            }
+        }
+
+        List<T> items = new ArrayList<>(heap.size());
+        String lastKey = null;
+        while (!heap.isEmpty()) {
+            Keyed<T> keyed = heap.poll();
+            if (lastKey == null) {
+                lastKey = keyed.key;
+            }
+            items.add(keyed.item);
+        }
+        Collections.reverse(items);
+        return new Page<>(items, more ? lastKey : null);
+    }
+
+    /**
+     * 依次取出每一页交给消费者，上一页处理完才取下一页
+     * Hand every page to the consumer in turn, fetching the next page only after the previous one
+     * has been processed.
+     *
+     * <p>下一页在公共池上发起，页数再多也不会加深调用栈 / The next page is requested on the common
+     * pool, so the call stack does not deepen with the number of pages.</p>
+     */
+    public static <T> CompletableFuture<Void> forEach(Fetcher<T> fetcher,
+                                                      Function<? super List<T>, ? extends CompletionStage<?>> consumer) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        step(fetcher, consumer, null, done);
+        return done;
+    }
+
+    /**
+     * 逐条遍历分页数据源，按需阻塞获取下一页
+     * Iterate over a paged source item by item, blocking to fetch the next page on demand.
+     */
+    public static <T> Iterator<T> iterator(Fetcher<T> fetcher) {
+        return new PageIterator<>(fetcher);
+    }
+
+    private static <T> void step(Fetcher<T> fetcher, Function<? super List<T>, ? extends CompletionStage<?>> consumer,
+                                 String pageToken, CompletableFuture<Void> done) {
+        CompletableFuture<Page<T>> processed;
+        try {
+            processed = fetcher.fetch(pageToken)
+                .thenCompose(page -> consumer.apply(page.getItems()).thenApply(ignored -> page));
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+            return;
+        }
+        processed.whenCompleteAsync((page, error) -> {
+            if (error != null) {
+                done.completeExceptionally(unwrap(error));
+            } else if (!page.hasNext()) {
+                done.complete(null);
+            } else if (page.getNextPageToken().equals(pageToken)) {
+                done.completeExceptionally(new IllegalStateException(
+                    "Paged source did not advance past token: " + pageToken));
+            } else {
+                step(fetcher, consumer, page.getNextPageToken(), done);
+            }
+        }, ForkJoinPool.commonPool());
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static final class Keyed<T> {
+        final String key;
+        final T item;
+
+        Keyed(String key, T item) {
+            this.key = key;
+            this.item = item;
+        }
+    }
+
+    private static final class PageIterator<T> implements Iterator<T> {
+        private final Fetcher<T> fetcher;
+        private Iterator<T> current = Collections.emptyIterator();
+        private String nextPageToken;
+        private boolean exhausted;
+
+        PageIterator(Fetcher<T> fetcher) {
+            this.fetcher = fetcher;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // 空页不代表结束，继续按令牌取下一页 / an empty page is not the end while a token remains
+            while (!current.hasNext() && !exhausted) {
+                Page<T> page = fetcher.fetch(nextPageToken).join();
+                if (page.hasNext() && page.getNextPageToken().equals(nextPageToken)) {
+                    throw new IllegalStateException("Paged source did not advance past token: " + nextPageToken);
+                }
+                current = page.getItems().iterator();
+                nextPageToken = page.getNextPageToken();
+                exhausted = !page.hasNext();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.mem0.store;
 
+import com.mem0.vector.QuantizationConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -157,6 +162,17 @@ public interface VectorStore {
     
     CompletableFuture<Void> createCollection(String collectionName, int dimension);
     
+    /**
+     * 创建集合并指定向量量化方式 / Create a collection with a vector quantization mode.
+     * 
+     * <p>不支持量化的实现忽略该配置，按fp32创建集合 / Implementations without quantization
+     * support ignore the setting and create a full-precision collection.</p>
+     */
+    default CompletableFuture<Void> createCollection(String collectionName, int dimension,
+                                                     QuantizationConfig quantization) {
+        return createCollection(collectionName, dimension);
+    }
+    
     CompletableFuture<Boolean> collectionExists(String collectionName);
     
     CompletableFuture<Void> dropCollection(String collectionName);
@@ -179,6 +195,52 @@ public interface VectorStore {
     
     CompletableFuture<VectorDocument> get(String collectionName, String id);
     
+    /**
+     * 一次调用批量获取文档 / Fetch several documents in one call.
+     * 
+     * <p>返回ID到文档的映射，不存在的ID不出现在结果中。默认实现逐个调用 {@link #get}，
+     * 能一次往返完成批量读取的实现应覆盖此方法。</p>
+     * 
+     * <p>Returns a map from id to document; unknown ids are left out. The default issues one
+     * {@link #get} per id; implementations able to read in a single round trip should override it.</p>
+     */
+    default CompletableFuture<Map<String, VectorDocument>> getBatch(String collectionName, Collection<String> ids) {
+        List<CompletableFuture<VectorDocument>> futures = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            futures.add(get(collectionName, id));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> {
+                Map<String, VectorDocument> documents = new HashMap<>();
+                for (CompletableFuture<VectorDocument> future : futures) {
+                    VectorDocument document = future.join();
+                    if (document != null) {
+                        documents.put(document.getId(), document);
+                    }
+                }
+                return documents;
+            });
+    }
+    
+    /**
+     * 按ID键集分页列出满足过滤条件的文档 / List the documents matching a filter, keyset-paged by id.
+     * 
+     * <p>结果按ID升序，第一页传入null令牌，之后传入上一页的 {@link Page#getNextPageToken()}；
+     * filter为null或空表示不过滤。实现只应构建当前页的文档。默认实现不支持分页。</p>
+     * 
+     * <p>Results come in ascending id order; pass a null token for the first page and the previous
+     * {@link Page#getNextPageToken()} afterwards. A null or empty filter matches everything.
+     * Implementations should only build the documents of the current page. Paging is unsupported by
+     * default.</p>
+     */
+    default CompletableFuture<Page<VectorDocument>> listPage(String collectionName, Map<String, Object> filter,
+                                                            String pageToken, int pageSize) {
+        CompletableFuture<Page<VectorDocument>> unsupported = new CompletableFuture<>();
+        unsupported.completeExceptionally(new UnsupportedOperationException(
+            getClass().getSimpleName() + " does not support paged listing"));
+        return unsupported;
+    }
+    
     CompletableFuture<Void> close();
     
     static class VectorSearchResult {
@@ -0,0 +1,143 @@
+package com.mem0.vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 集合级量化状态 / Per-Collection Quantization State
+ *
+ * <p>持有集合的 {@link QuantizationConfig} 与当前编解码器。INT8模式创建时即可用；PQ模式先
+ * 收集 {@code trainingSize} 个样本，由恰好达到阈值的插入线程训练一次并发布编解码器，
+ * 在此之前该集合的向量以fp32保存并精确打分。</p>
+ *
+ * <p>Holds a collection's {@link QuantizationConfig} and current codec. INT8 is usable right away;
+ * PQ first collects {@code trainingSize} samples, and the insert that reaches the threshold trains
+ * once and publishes the codec. Until then the collection's vectors stay fp32 and are scored
+ * exactly.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CollectionQuantizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectionQuantizer.class);
+
+    private static final long TRAINING_SEED = 42L;
+
+    private final String collectionName;
+    private final int dimension;
+    private final QuantizationConfig config;
+    private final List<float[]> trainingSamples;
+    private final AtomicBoolean training = new AtomicBoolean(false);
+    private volatile VectorCodec codec;
+
+    public CollectionQuantizer(String collectionName, int dimension, QuantizationConfig config) {
+        this.collectionName = collectionName;
+        this.dimension = dimension;
+        this.config = config;
+        if (config.getMode() == QuantizationConfig.Mode.INT8) {
+            this.codec = new ScalarQuantizer(dimension);
+            this.trainingSamples = null;
+        } else {
+            this.trainingSamples = config.getMode() == QuantizationConfig.Mode.PQ
+                ? new ArrayList<>(config.getTrainingSize()) : null;
+        }
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public QuantizationConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 当前编解码器；未量化或PQ尚未训练时为null / Current codec, or null when not quantized or
+     * PQ is still collecting samples.
+     */
+    public VectorCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * 编码后是否仍需保留fp32副本 / Whether fp32 copies must be kept next to the codes.
+     */
+    public boolean keepsFullPrecision() {
+        return config.getMode() == QuantizationConfig.Mode.NONE || config.isRerankEnabled();
+    }
+
+    /**
+     * 每个向量占用的字节数（编码加可能的fp32副本） / Bytes per stored vector, codes plus any fp32 copy.
+     */
+    public int getBytesPerVector() {
+        VectorCodec current = codec;
+        int fullPrecision = dimension * Float.BYTES;
+        if (current == null) {
+            return fullPrecision;
+        }
+        return current.getCodeSize() + (config.isRerankEnabled() ? fullPrecision : 0);
+    }
+
+    /**
+     * 记录PQ训练样本；恰好达到阈值的调用会训练并发布编解码器并返回true，调用方随后应重新编码
+     * 该集合中尚未编码的向量。训练失败时丢弃样本重新收集。Record a PQ training sample. The call that
+     * reaches the threshold trains and publishes the codec and returns true; the caller should then
+     * encode the collection's remaining fp32 vectors. A failed training discards the samples and
+     * collects a fresh batch.
+     */
+    public boolean offerTrainingSample(float[] vector) {
+        if (trainingSamples == null || codec != null) {
+            return false;
+        }
+        List<float[]> snapshot = null;
+        synchronized (trainingSamples) {
+            if (trainingSamples.size() < config.getTrainingSize()) {
+                trainingSamples.add(vector);
+            }
+            if (trainingSamples.size() >= config.getTrainingSize() && training.compareAndSet(false, true)) {
+                snapshot = new ArrayList<>(trainingSamples);
+            }
+        }
+        if (snapshot == null) {
+            return false;
+        }
+
+        long start = System.currentTimeMillis();
+        int subspaces = config.getSubspaces(dimension);
+        try {
+            codec = ProductQuantizer.train(snapshot, subspaces, ProductQuantizer.DEFAULT_ITERATIONS, TRAINING_SEED);
+        } catch (RuntimeException e) {
+            // 重新收集一批样本后再训练，集合在此期间保持fp32 / retrain on a fresh batch; fp32 until then
+            synchronized (trainingSamples) {
+                trainingSamples.clear();
+            }
+            training.set(false);
+            logger.warn("集合 {} 的PQ训练失败，重新收集样本: {}", collectionName, e.getMessage(), e);
+            return false;
+        }
+        synchronized (trainingSamples) {
+            trainingSamples.clear();
+        }
+        logger.info("集合 {} 的PQ训练完成: 样本 {}, 子空间 {}, 每向量 {} 字节, 耗时 {}ms",
+            collectionName, snapshot.size(), subspaces, getBytesPerVector(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * 为查询准备ADC评分器；尚无编解码器时返回null / Prepare an ADC scorer, or null without a codec.
+     */
+    public VectorCodec.QueryScorer prepare(float[] query) {
+        VectorCodec current = codec;
+        return current == null ? null : current.prepare(query);
+    }
+}
@@ -0,0 +1,385 @@
+package com.mem0.vector;
+
+import com.mem0.util.IntBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 向量元数据二级索引 / Vector Metadata Secondary Index
+ *
+ * 为向量存储维护 (元数据键, 值) -> 槽位位图 的倒排索引，使带元数据过滤的向量搜索
+ * 只需要对满足过滤条件的向量计算相似度，而不是全量扫描后再逐条比较元数据。
+ *
+ * Maintains (metadata key, value) -> slot bitmaps for a vector store so that filtered searches
+ * only score the vectors that satisfy the filter instead of scanning every entry.
+ *
+ * <h3>查询计划 / Query Planning:</h3>
+ * <ul>
+ *   <li>过滤条件中已索引的等值条件按基数从小到大做位图交集 / Indexed equality predicates are intersected smallest first</li>
+ *   <li>选择度低于阈值时走预过滤：只对位图成员打分 / PRE_FILTER scores only bitmap members when selective</li>
+ *   <li>选择度高时走后过滤：顺序扫描并逐条判定，避免物化大候选集 / POST_FILTER scans and checks per entry otherwise</li>
+ *   <li>未索引或非等值条件作为剩余条件在候选上评估 / Non-indexed or non-equality predicates are evaluated as residuals</li>
+ * </ul>
+ *
+ * <h3>使用示例 / Usage Example:</h3>
+ * <pre>{@code
+ * MetadataIndex<VectorEntry> index = new MetadataIndex<>(entry -> entry.properties);
+ * index.put(id, entry, entry.properties);
+ *
+ * MetadataIndex.FilterPlan<VectorEntry> plan = index.plan(filter);
+ * if (plan.getStrategy() == MetadataIndex.Strategy.PRE_FILTER) {
+ *     for (VectorEntry candidate : plan.getCandidates()) {
+ *         if (plan.matchesResidual(candidate.properties)) { score(candidate); }
+ *     }
+ * }
+ * }</pre>
+ *
+ * <h3>线程安全性 / Thread Safety:</h3>
+ * 所有方法线程安全，内部使用读写锁；计划中的候选列表在读锁下物化后即与索引解耦。
+ * All methods are thread-safe; candidate lists are materialized under the read lock and detached afterwards.
+ *
+ * @param <T> 存储条目类型 / stored entry type
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public class MetadataIndex<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataIndex.class);
+
+    /**
+     * 默认建立索引的元数据键
+     */
+    public static final Set<String> DEFAULT_INDEXED_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "userId", "agentId", "runId", "sessionId", "memoryType", "type", "category", "collection")));
+
+    /**
+     * 默认预过滤选择度阈值：候选占比不超过该值时只对候选打分
+     */
+    public static final double DEFAULT_PRE_FILTER_SELECTIVITY = 0.5;
+
+    /**
+     * 过滤策略
+     */
+    public enum Strategy {
+        /** 无过滤条件，全量扫描 */
+        FULL_SCAN,
+        /** 只对位图成员打分 */
+        PRE_FILTER,
+        /** 扫描全部条目并逐条判定过滤条件 */
+        POST_FILTER,
+        /** 某个已索引条件无匹配，结果必为空 */
+        EMPTY
+    }
+
+    private final Function<T, Map<String, Object>> metadataExtractor;
+    private final Set<String> indexedKeys;
+    private final double preFilterSelectivity;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Map<Object, IntBitmap>> postings = new HashMap<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final List<T> entries = new ArrayList<>();
+    private final List<Object[]> indexedValues = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    public MetadataIndex(Function<T, Map<String, Object>> metadataExtractor) {
+        this(metadataExtractor, DEFAULT_INDEXED_KEYS, DEFAULT_PRE_FILTER_SELECTIVITY);
+    }
+
+    public MetadataIndex(Function<T, Map<String, Object>> metadataExtractor,
+                         Collection<String> indexedKeys, double preFilterSelectivity) {
+        this.metadataExtractor = metadataExtractor;
+        this.indexedKeys = new HashSet<>(indexedKeys);
+        this.preFilterSelectivity = preFilterSelectivity;
+    }
+
+    /**
+     * 插入或替换条目
+     *
+     * @param id 条目ID
+     * @param entry 条目
+     * @param metadata 条目元数据
+     */
+    public void put(String id, T entry, Map<String, Object> metadata) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotsById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                unindexSlot(slot);
+            } else {
+                slot = allocateSlot();
+                slotsById.put(id, slot);
+            }
+            entries.set(slot, entry);
+            indexSlot(slot, metadata);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除条目
+     *
+     * @param id 条目ID
+     */
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                unindexSlot(slot);
+                entries.set(slot, null);
+                freeSlots.push(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            slotsById.clear();
+            entries.clear();
+            indexedValues.clear();
+            freeSlots.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 为新的元数据键建立索引，并回填已有条目
+     *
+     * @param key 元数据键
+     */
+    public void addIndexedKey(String key) {
+        lock.writeLock().lock();
+        try {
+            if (!indexedKeys.add(key)) {
+                return;
+            }
+            for (int slot : new ArrayList<>(slotsById.values())) {
+                Map<String, Object> metadata = metadataExtractor.apply(entries.get(slot));
+                unindexSlot(slot);
+                indexSlot(slot, metadata);
+            }
+            logger.debug("Added metadata index on key '{}' for {} entries", key, slotsById.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isIndexed(String key) {
+        lock.readLock().lock();
+        try {
+            return indexedKeys.contains(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 某个 (键, 值) 对应的条目数
+     */
+    public int count(String key, Object value) {
+        lock.readLock().lock();
+        try {
+            Map<Object, IntBitmap> values = postings.get(key);
+            IntBitmap slots = values != null ? values.get(value) : null;
+            return slots != null ? slots.getCardinality() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 生成过滤计划
+     *
+     * @param filter 等值过滤条件，可为null
+     * @return 过滤计划
+     */
+    public FilterPlan<T> plan(Map<String, Object> filter) {
+        if (filter == null || filter.isEmpty()) {
+            return new FilterPlan<>(Strategy.FULL_SCAN, null, Collections.<String, Object>emptyMap(), filter, 1.0);
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Object> residual = new HashMap<>();
+            List<IntBitmap> matched = new ArrayList<>();
+            for (Map.Entry<String, Object> condition : filter.entrySet()) {
+                if (!isIndexable(condition.getKey(), condition.getValue())) {
+                    residual.put(condition.getKey(), condition.getValue());
+                    continue;
+                }
+                Map<Object, IntBitmap> values = postings.get(condition.getKey());
+                IntBitmap slots = values != null ? values.get(condition.getValue()) : null;
+                if (slots == null) {
+                    return new FilterPlan<>(Strategy.EMPTY, Collections.<T>emptyList(), residual, filter, 0.0);
+                }
+                matched.add(slots);
+            }
+
+            if (matched.isEmpty()) {
+                return new FilterPlan<>(Strategy.POST_FILTER, null, residual, filter, 1.0);
+            }
+
+            matched.sort(Comparator.comparingInt(IntBitmap::getCardinality));
+            IntBitmap candidates = matched.get(0);
+            for (int i = 1; i < matched.size() && !candidates.isEmpty(); i++) {
+                candidates = candidates.and(matched.get(i));
+            }
+
+            int total = slotsById.size();
+            double selectivity = total == 0 ? 0.0 : (double) candidates.getCardinality() / total;
+            if (candidates.isEmpty()) {
+                return new FilterPlan<>(Strategy.EMPTY, Collections.<T>emptyList(), residual, filter, 0.0);
+            }
+            if (selectivity > preFilterSelectivity) {
+                return new FilterPlan<>(Strategy.POST_FILTER, null, residual, filter, selectivity);
+            }
+
+            List<T> resolved = new ArrayList<>(candidates.getCardinality());
+            candidates.forEach(slot -> resolved.add(entries.get(slot)));
+            return new FilterPlan<>(Strategy.PRE_FILTER, resolved, residual, filter, selectivity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isIndexable(String key, Object value) {
+        // 以比较运算符开头的字符串是范围条件，不走等值索引
+        return indexedKeys.contains(key) && isIndexableValue(value)
+            && !(value instanceof String && ((String) value).startsWith(">"));
+    }
+
+    private static boolean isIndexableValue(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+            || value instanceof Enum || value instanceof Character;
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        entries.add(null);
+        indexedValues.add(null);
+        return entries.size() - 1;
+    }
+
+    private void indexSlot(int slot, Map<String, Object> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            indexedValues.set(slot, null);
+            return;
+        }
+        List<Object> pairs = new ArrayList<>(4);
+        for (String key : indexedKeys) {
+            Object value = metadata.get(key);
+            if (value != null && isIndexableValue(value)) {
+                postings.computeIfAbsent(key, k -> new HashMap<>())
+                        .computeIfAbsent(value, v -> new IntBitmap())
+                        .add(slot);
+                pairs.add(key);
+                pairs.add(value);
+            }
+        }
+        indexedValues.set(slot, pairs.isEmpty() ? null : pairs.toArray());
+    }
+
+    private void unindexSlot(int slot) {
+        Object[] pairs = indexedValues.get(slot);
+        if (pairs == null) {
+            return;
+        }
+        for (int i = 0; i < pairs.length; i += 2) {
+            Map<Object, IntBitmap> values = postings.get(pairs[i]);
+            if (values == null) {
+                continue;
+            }
+            IntBitmap slots = values.get(pairs[i + 1]);
+            if (slots != null) {
+                slots.remove(slot);
+                if (slots.isEmpty()) {
+                    values.remove(pairs[i + 1]);
+                }
+            }
+        }
+        indexedValues.set(slot, null);
+    }
+
+    /**
+     * 过滤计划
+     *
+     * @param <T> 存储条目类型
+     */
+    public static final class FilterPlan<T> {
+        private final Strategy strategy;
+        private final List<T> candidates;
+        private final Map<String, Object> residualFilter;
+        private final Map<String, Object> fullFilter;
+        private final double selectivity;
+
+        FilterPlan(Strategy strategy, List<T> candidates, Map<String, Object> residualFilter,
+                   Map<String, Object> fullFilter, double selectivity) {
+            this.strategy = strategy;
+            this.candidates = candidates;
+            this.residualFilter = residualFilter;
+            this.fullFilter = fullFilter;
+            this.selectivity = selectivity;
+        }
+
+        /**
+         * 预过滤候选是否满足剩余（未索引）条件
+         */
+        public boolean matchesResidual(Map<String, Object> metadata) {
+            return matchesEquality(metadata, residualFilter);
+        }
+
+        /**
+         * 后过滤时判定全部条件（等值语义）
+         */
+        public boolean matchesAll(Map<String, Object> metadata) {
+            return matchesEquality(metadata, fullFilter);
+        }
+
+        private static boolean matchesEquality(Map<String, Object> metadata, Map<String, Object> filter) {
+            if (filter == null || filter.isEmpty()) {
+                return true;
+            }
+            for (Map.Entry<String, Object> condition : filter.entrySet()) {
+                if (!Objects.equals(metadata.get(condition.getKey()), condition.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Getters
+        public Strategy getStrategy() { return strategy; }
+        public List<T> getCandidates() { return candidates; }
+        public Map<String, Object> getResidualFilter() { return residualFilter; }
+        public double getSelectivity() { return selectivity; }
+        public boolean isCandidateSetAvailable() { return candidates != null; }
+    }
+}
@@ -0,0 +1,257 @@
+package com.mem0.vector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 乘积量化编解码器 / Product Quantization Codec
+ *
+ * <p>将向量切分为M个子空间，每个子空间用k-means训练最多256个质心，编码时每个子空间只存
+ * 最近质心的1字节下标。编码布局为 {@code [norm:float][M个质心下标]}。查询时为每个子空间
+ * 预计算查询子向量与全部质心的点积查找表（ADC），单个编码的评分只需M次查表与加法。
+ * 以1536维、192个子空间为例，每个向量196字节，约为fp32的1/31。</p>
+ *
+ * <p>Splits vectors into M subspaces, trains up to 256 centroids per subspace with k-means and
+ * stores one centroid index byte per subspace. The code layout is {@code [norm:float][M indexes]}.
+ * Each query precomputes a per-subspace table of dot products against every centroid (ADC), so
+ * scoring a code costs M lookups and additions. At 1536 dimensions and 192 subspaces a vector
+ * takes 196 bytes, roughly 1/31 of fp32.</p>
+ *
+ * <p>实例训练完成后不可变，线程安全 / Instances are immutable once trained and thread-safe.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ProductQuantizer implements VectorCodec {
+
+    /** 每个子空间的最大质心数 / Maximum centroids per subspace */
+    public static final int MAX_CENTROIDS = 256;
+
+    /** 默认k-means迭代次数 / Default k-means iterations */
+    public static final int DEFAULT_ITERATIONS = 12;
+
+    private static final int HEADER_BYTES = 4;
+
+    private final int dimension;
+    private final int subspaces;
+    private final int centroidCount;
+    private final int[] offsets;
+    // centroids[m]为第m个子空间的质心，按质心连续存放 / centroids[m] holds subspace m centroids back to back
+    private final float[][] centroids;
+
+    private ProductQuantizer(int dimension, int subspaces, int centroidCount, int[] offsets, float[][] centroids) {
+        this.dimension = dimension;
+        this.subspaces = subspaces;
+        this.centroidCount = centroidCount;
+        this.offsets = offsets;
+        this.centroids = centroids;
+    }
+
+    /**
+     * 在样本上训练量化器 / Train a quantizer on sample vectors.
+     *
+     * @param samples    训练样本，至少一条 / training vectors, at least one
+     * @param subspaces  子空间数，不超过维度 / number of subspaces, at most the dimension
+     * @param iterations k-means迭代次数 / k-means iterations
+     * @param seed       初始化随机种子 / seed for centroid initialisation
+     */
+    public static ProductQuantizer train(List<float[]> samples, int subspaces, int iterations, long seed) {
+        if (samples == null || samples.isEmpty()) {
+            throw new IllegalArgumentException("Product quantization needs at least one training sample");
+        }
+        int dimension = samples.get(0).length;
+        if (subspaces <= 0 || subspaces > dimension) {
+            throw new IllegalArgumentException("subspaces must be between 1 and " + dimension + ": " + subspaces);
+        }
+        for (float[] sample : samples) {
+            if (sample.length != dimension) {
+                throw new IllegalArgumentException("Training samples must share dimension " + dimension);
+            }
+        }
+
+        int[] offsets = new int[subspaces + 1];
+        for (int m = 0; m <= subspaces; m++) {
+            offsets[m] = (int) ((long) dimension * m / subspaces);
+        }
+        int k = Math.min(MAX_CENTROIDS, samples.size());
+        float[][] centroids = new float[subspaces][];
+        Random random = new Random(seed);
+        for (int m = 0; m < subspaces; m++) {
+            centroids[m] = kMeans(samples, offsets[m], offsets[m + 1] - offsets[m], k, iterations, random);
+        }
+        return new ProductQuantizer(dimension, subspaces, k, offsets, centroids);
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public int getCodeSize() {
+        return HEADER_BYTES + subspaces;
+    }
+
+    public int getSubspaces() {
+        return subspaces;
+    }
+
+    public int getCentroidCount() {
+        return centroidCount;
+    }
+
+    @Override
+    public byte[] encode(float[] vector) {
+        checkDimension(vector);
+        byte[] code = new byte[getCodeSize()];
+        double norm = 0.0;
+        for (int m = 0; m < subspaces; m++) {
+            int offset = offsets[m];
+            int length = offsets[m + 1] - offset;
+            int nearest = nearestCentroid(centroids[m], vector, offset, length, centroidCount);
+            code[HEADER_BYTES + m] = (byte) nearest;
+            int base = nearest * length;
+            for (int i = 0; i < length; i++) {
+                double c = centroids[m][base + i];
+                norm += c * c;
+            }
+        }
+        ScalarQuantizer.writeFloat(code, 0, (float) Math.sqrt(norm));
+        return code;
+    }
+
+    @Override
+    public float[] decode(byte[] code) {
+        float[] vector = new float[dimension];
+        for (int m = 0; m < subspaces; m++) {
+            int offset = offsets[m];
+            int length = offsets[m + 1] - offset;
+            int base = (code[HEADER_BYTES + m] & 0xff) * length;
+            System.arraycopy(centroids[m], base, vector, offset, length);
+        }
+        return vector;
+    }
+
+    @Override
+    public QueryScorer prepare(float[] query) {
+        checkDimension(query);
+        double queryNorm = 0.0;
+        for (float value : query) {
+            queryNorm += value * value;
+        }
+        float invQueryNorm = queryNorm == 0.0 ? 0.0f : (float) (1.0 / Math.sqrt(queryNorm));
+
+        // ADC查找表：table[m * k + c] = <query_m, centroid_mc>
+        int k = centroidCount;
+        float[] table = new float[subspaces * k];
+        for (int m = 0; m < subspaces; m++) {
+            int offset = offsets[m];
+            int length = offsets[m + 1] - offset;
+            float[] subCentroids = centroids[m];
+            for (int c = 0; c < k; c++) {
+                int base = c * length;
+                float dot = 0.0f;
+                for (int i = 0; i < length; i++) {
+                    dot += query[offset + i] * subCentroids[base + i];
+                }
+                table[m * k + c] = dot;
+            }
+        }
+        return code -> {
+            float norm = ScalarQuantizer.readFloat(code, 0);
+            if (norm == 0.0f || invQueryNorm == 0.0f) {
+                return 0.0f;
+            }
+            float dot = 0.0f;
+            for (int m = 0, row = 0; m < subspaces; m++, row += k) {
+                dot += table[row + (code[HEADER_BYTES + m] & 0xff)];
+            }
+            return dot * invQueryNorm / norm;
+        };
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected dimension " + dimension + " but got " + vector.length);
+        }
+    }
+
+    private static float[] kMeans(List<float[]> samples, int offset, int length, int k,
+                                  int iterations, Random random) {
+        int n = samples.size();
+        float[] centroids = new float[k * length];
+
+        // 以随机不重复的样本初始化 / initialise from distinct random samples (partial Fisher-Yates)
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int c = 0; c < k; c++) {
+            int pick = c + random.nextInt(n - c);
+            int tmp = order[c];
+            order[c] = order[pick];
+            order[pick] = tmp;
+            System.arraycopy(samples.get(order[c]), offset, centroids, c * length, length);
+        }
+
+        int[] assignment = new int[n];
+        float[] sums = new float[k * length];
+        int[] counts = new int[k];
+        for (int iter = 0; iter < iterations; iter++) {
+            boolean changed = false;
+            for (int s = 0; s < n; s++) {
+                int nearest = nearestCentroid(centroids, samples.get(s), offset, length, k);
+                if (iter == 0 || nearest != assignment[s]) {
+                    assignment[s] = nearest;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+            Arrays.fill(sums, 0.0f);
+            Arrays.fill(counts, 0);
+            for (int s = 0; s < n; s++) {
+                float[] sample = samples.get(s);
+                int base = assignment[s] * length;
+                for (int i = 0; i < length; i++) {
+                    sums[base + i] += sample[offset + i];
+                }
+                counts[assignment[s]]++;
+            }
+            for (int c = 0; c < k; c++) {
+                int base = c * length;
+                if (counts[c] == 0) {
+                    // 空簇重新取一个随机样本 / re-seed empty clusters from a random sample
+                    System.arraycopy(samples.get(random.nextInt(n)), offset, centroids, base, length);
+                } else {
+                    float inv = 1.0f / counts[c];
+                    for (int i = 0; i < length; i++) {
+                        centroids[base + i] = sums[base + i] * inv;
+                    }
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private static int nearestCentroid(float[] centroids, float[] vector, int offset, int length, int k) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < k; c++) {
+            int base = c * length;
+            float distance = 0.0f;
+            for (int i = 0; i < length; i++) {
+                float d = vector[offset + i] - centroids[base + i];
+                distance += d * d;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,128 @@
+package com.mem0.vector;
+
+/**
+ * 向量集合量化配置 / Vector Collection Quantization Settings
+ *
+ * <p>在创建集合时选择向量的存储精度。实例不可变，通过静态工厂与 {@code with*} 方法构造。</p>
+ *
+ * <p>Chooses how a collection stores its vectors at creation time. Instances are immutable and
+ * built from the static factories plus {@code with*} methods.</p>
+ *
+ * <pre>{@code
+ * // 1536维嵌入使用PQ（192个子空间），并对前 topK*4 个候选做fp32重排
+ * vectorStore.createCollection("memories", 1536,
+ *     QuantizationConfig.productQuantization(192).withRerank(4));
+ * }</pre>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+public final class QuantizationConfig {
+
+    /**
+     * 量化模式 / Quantization mode
+     */
+    public enum Mode {
+        /** fp32原始向量 / full-precision fp32 vectors */
+        NONE,
+        /** 按向量int8标量量化，约4倍压缩 / per-vector int8 scalar quantization, about 4x smaller */
+        INT8,
+        /** 乘积量化，需先积累训练样本 / product quantization, trained once enough samples arrive */
+        PQ
+    }
+
+    /** 默认PQ训练样本数 / Default number of vectors collected before PQ training */
+    public static final int DEFAULT_TRAINING_SIZE = 1024;
+
+    /** 默认每个PQ子空间的维度 / Default dimensions per PQ subspace when not specified */
+    public static final int DEFAULT_DIMENSIONS_PER_SUBSPACE = 8;
+
+    private static final QuantizationConfig NONE = new QuantizationConfig(Mode.NONE, 0, DEFAULT_TRAINING_SIZE, 0);
+
+    private final Mode mode;
+    private final int subspaces;
+    private final int trainingSize;
+    private final int rerankMultiplier;
+
+    private QuantizationConfig(Mode mode, int subspaces, int trainingSize, int rerankMultiplier) {
+        this.mode = mode;
+        this.subspaces = subspaces;
+        this.trainingSize = trainingSize;
+        this.rerankMultiplier = rerankMultiplier;
+    }
+
+    public static QuantizationConfig none() {
+        return NONE;
+    }
+
+    public static QuantizationConfig int8() {
+        return new QuantizationConfig(Mode.INT8, 0, DEFAULT_TRAINING_SIZE, 0);
+    }
+
+    /**
+     * 子空间数按维度/8自动确定 / Subspace count derived as dimension / 8.
+     */
+    public static QuantizationConfig productQuantization() {
+        return productQuantization(0);
+    }
+
+    public static QuantizationConfig productQuantization(int subspaces) {
+        if (subspaces < 0) {
+            throw new IllegalArgumentException("subspaces must not be negative: " + subspaces);
+        }
+        return new QuantizationConfig(Mode.PQ, subspaces, DEFAULT_TRAINING_SIZE, 0);
+    }
+
+    /**
+     * 保留fp32副本并对近似结果的前 {@code topK * multiplier} 个候选精确重排；0表示关闭。
+     * Keep fp32 copies and exactly re-rank the top {@code topK * multiplier} approximate
+     * candidates; 0 disables re-ranking.
+     */
+    public QuantizationConfig withRerank(int multiplier) {
+        if (multiplier < 0) {
+            throw new IllegalArgumentException("rerank multiplier must not be negative: " + multiplier);
+        }
+        return new QuantizationConfig(mode, subspaces, trainingSize, multiplier);
+    }
+
+    /**
+     * PQ训练前收集的向量数 / Vectors collected before PQ training.
+     */
+    public QuantizationConfig withTrainingSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("training size must be positive: " + size);
+        }
+        return new QuantizationConfig(mode, subspaces, size, rerankMultiplier);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getTrainingSize() {
+        return trainingSize;
+    }
+
+    public int getRerankMultiplier() {
+        return rerankMultiplier;
+    }
+
+    public boolean isRerankEnabled() {
+        return rerankMultiplier > 0;
+    }
+
+    /**
+     * 针对给定维度解析子空间数 / Resolve the subspace count for a dimension.
+     */
+    public int getSubspaces(int dimension) {
+        int resolved = subspaces > 0 ? subspaces : Math.max(1, dimension / DEFAULT_DIMENSIONS_PER_SUBSPACE);
+        return Math.min(resolved, dimension);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QuantizationConfig{mode=%s, subspaces=%d, trainingSize=%d, rerank=%d}",
+            mode, subspaces, trainingSize, rerankMultiplier);
+    }
+}
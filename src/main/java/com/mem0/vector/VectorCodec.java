@@ -0,0 +1,57 @@
+package com.mem0.vector;
+
+/**
+ * 向量压缩编解码器 / Vector Compression Codec
+ *
+ * <p>将fp32向量编码为紧凑的字节码，并支持非对称距离计算（ADC）：查询向量保持fp32，
+ * 每次查询先调用 {@link #prepare(float[])} 预计算查找表或归一化因子，之后对每个编码只做
+ * 查表/整型点积即可得到近似余弦相似度，无需解码。</p>
+ *
+ * <p>Encodes fp32 vectors into compact byte codes and supports asymmetric distance computation
+ * (ADC): the query stays fp32, {@link #prepare(float[])} precomputes lookup tables or norms once
+ * per query, and each code is then scored by table lookups or integer dot products without
+ * being decoded.</p>
+ *
+ * <p>实现必须线程安全；编码结果为不可变字节数组 / Implementations must be thread-safe; codes are
+ * treated as immutable byte arrays.</p>
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ * @see ScalarQuantizer
+ * @see ProductQuantizer
+ */
+public interface VectorCodec {
+
+    /**
+     * 向量维度 / Vector dimension
+     */
+    int getDimension();
+
+    /**
+     * 每个编码的字节数 / Bytes per encoded vector
+     */
+    int getCodeSize();
+
+    /**
+     * 编码向量 / Encode a vector
+     */
+    byte[] encode(float[] vector);
+
+    /**
+     * 解码为近似的fp32向量 / Decode to an approximate fp32 vector
+     */
+    float[] decode(byte[] code);
+
+    /**
+     * 为一次查询预计算评分器 / Prepare a scorer for one query
+     */
+    QueryScorer prepare(float[] query);
+
+    /**
+     * 单次查询的评分器，返回近似余弦相似度 / Per-query scorer returning approximate cosine similarity
+     */
+    interface QueryScorer {
+        float score(byte[] code);
+    }
+}
@@ -1,15 +1,21 @@
 package com.mem0.vector.impl;
 
+import com.mem0.store.Page;
 import com.mem0.store.VectorStore;
 import com.mem0.model.SearchResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.mem0.concurrency.VersionedResultCache;
 import com.mem0.concurrency.cache.HighPerformanceCache;
+import com.mem0.constants.MemoryConstants;
 import com.mem0.performance.ConcurrentExecutionManager;
+import com.mem0.performance.TopK;
+import com.mem0.vector.MetadataIndex;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
@@ -26,9 +32,14 @@ public class HighPerformanceVectorStore implements VectorStore {
     private final Map<String, VectorEntry> vectors = new ConcurrentHashMap<>();
     private final Map<String, List<String>> userMemories = new ConcurrentHashMap<>();
     
+    // 按用户增量维护的类型计数，类型分布查询无需遍历用户的全部向量
+    private final Map<String, Map<String, LongAdder>> userTypeCounts = new ConcurrentHashMap<>();
+    
     // 性能优化组件
     private final HighPerformanceCache<String, SearchResult> queryCache;
     private final HighPerformanceCache<String, List<SearchResult>> userCache;
+    // 按用户版本失效的检索结果缓存，用户的任何写入之后不再返回写入之前的结果
+    private final VersionedResultCache<SearchKey, List<SearchResult>> searchCache;
     private final ConcurrentExecutionManager executionManager;
     
     // 批量操作缓冲区
@@ -39,6 +50,9 @@ public class HighPerformanceVectorStore implements VectorStore {
     private final Map<Integer, Set<String>> dimensionIndex = new ConcurrentHashMap<>();
     private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
     
+    // 元数据二级索引（按键值位图预过滤）
+    private final MetadataIndex<VectorEntry> metadataIndex = new MetadataIndex<>(entry -> entry.properties);
+    
     // 统计信息
     private volatile long totalQueries = 0;
     private volatile long totalInserts = 0;
@@ -47,6 +61,8 @@ public class HighPerformanceVectorStore implements VectorStore {
     public HighPerformanceVectorStore() {
         this.queryCache = new HighPerformanceCache<>(5000, 300000, 60000); // 5K条目，5分钟TTL
         this.userCache = new HighPerformanceCache<>(1000, 600000, 120000);  // 1K用户，10分钟TTL
+        this.searchCache = new VersionedResultCache<>("vector-search",
+            MemoryConstants.DEFAULT_SEARCH_CACHE_MAX_ENTRIES, MemoryConstants.DEFAULT_SEARCH_CACHE_TTL_MS, ArrayList::new);
         this.executionManager = new ConcurrentExecutionManager();
         
         logger.info("高性能VectorStore初始化完成，启用缓存和并发优化");
@@ -99,8 +115,11 @@ public class HighPerformanceVectorStore implements VectorStore {
             // 内存实现中，清空所有数据
             vectors.clear();
             userMemories.clear();
+            userTypeCounts.clear();
+            metadataIndex.clear();
             queryCache.clear();
             userCache.clear();
+            searchCache.invalidateAll();
             return null;
         });
     }
@@ -118,12 +137,11 @@ public class HighPerformanceVectorStore implements VectorStore {
             long startTime = System.currentTimeMillis();
             
             try {
-                List<String> ids = new ArrayList<>();
+                List<String> ids = new ArrayList<>(vectors.size());
                 
-                // 批量插入
+                // 在同一个IO任务内逐条写入，避免每条向量再占用一个IO线程并阻塞等待
                 for (int i = 0; i < vectors.size(); i++) {
-                    String id = insert(collectionName, vectors.get(i), metadataList.get(i)).join();
-                    ids.add(id);
+                    ids.add(insertNow(vectors.get(i), metadataList.get(i)));
                 }
                 
                 long duration = System.currentTimeMillis() - startTime;
@@ -139,35 +157,37 @@ public class HighPerformanceVectorStore implements VectorStore {
     
     @Override
     public CompletableFuture<String> insert(String collectionName, List<Float> vector, Map<String, Object> metadata) {
-        return executionManager.executeIOOperation(() -> {
-            String id = null;
-            try {
-                // 生成ID
-                id = generateId();
-                logger.debug("插入向量: {}", id);
-                
-                // 转换List<Float>到float[]
-                float[] embedding = new float[vector.size()];
-                for (int i = 0; i < vector.size(); i++) {
-                    embedding[i] = vector.get(i);
-                }
-                
-                VectorEntry entry = new VectorEntry(id, embedding, metadata);
-                
-                if (batchMode) {
-                    pendingInserts.put(id, entry);
-                } else {
-                    insertEntry(id, entry);
-                }
-                
-                totalInserts++;
-                logger.debug("向量插入成功: {}", id);
-                return id;
-            } catch (Exception e) {
-                logger.error("向量插入失败: " + (id != null ? id : "unknown"), e);
-                throw new RuntimeException("向量插入失败", e);
+        return executionManager.executeIOOperation(() -> insertNow(vector, metadata));
+    }
+    
+    private String insertNow(List<Float> vector, Map<String, Object> metadata) {
+        String id = null;
+        try {
+            // 生成ID
+            id = generateId();
+            logger.debug("插入向量: {}", id);
+            
+            // 转换List<Float>到float[]
+            float[] embedding = new float[vector.size()];
+            for (int i = 0; i < vector.size(); i++) {
+                embedding[i] = vector.get(i);
             }
-        });
+            
+            VectorEntry entry = new VectorEntry(id, embedding, metadata);
+            
+            if (batchMode) {
+                pendingInserts.put(id, entry);
+            } else {
+                insertEntry(id, entry);
+            }
+            
+            totalInserts++;
+            logger.debug("向量插入成功: {}", id);
+            return id;
+        } catch (Exception e) {
+            logger.error("向量插入失败: " + (id != null ? id : "unknown"), e);
+            throw new RuntimeException("向量插入失败", e);
+        }
     }
     
     /**
@@ -222,23 +242,38 @@ public class HighPerformanceVectorStore implements VectorStore {
             try {
                 logger.debug("更新向量: {}", id);
                 
-                VectorEntry existingEntry = vectors.get(id);
-                if (existingEntry == null) {
+                // 更新属性（保留现有属性），与元数据索引在同一个键的compute内一起写入
+                VectorEntry[] previous = new VectorEntry[1];
+                VectorEntry updatedEntry = vectors.computeIfPresent(id, (key, current) -> {
+                    Map<String, Object> updatedProperties = new HashMap<>(current.properties);
+                    updatedProperties.putAll(properties);
+                    VectorEntry updated = new VectorEntry(id, embedding, updatedProperties);
+                    metadataIndex.put(id, updated, updated.properties);
+                    previous[0] = current;
+                    return updated;
+                });
+                if (updatedEntry == null) {
                     throw new RuntimeException("向量不存在: " + id);
                 }
-                
-                // 更新属性（保留现有属性）
-                Map<String, Object> updatedProperties = new HashMap<>(existingEntry.properties);
-                updatedProperties.putAll(properties);
-                
-                VectorEntry updatedEntry = new VectorEntry(id, embedding, updatedProperties);
-                vectors.put(id, updatedEntry);
+                VectorEntry existingEntry = previous[0];
+                
+                String ownerId = (String) existingEntry.properties.get("userId");
+                String previousType = typeOf(existingEntry.properties);
+                String currentType = typeOf(updatedEntry.properties);
+                if (ownerId != null && !previousType.equals(currentType)) {
+                    countType(ownerId, previousType, -1);
+                    countType(ownerId, currentType, 1);
+                }
                 
                 // 更新索引
                 updateVectorIndex(id, embedding);
                 
-                // 清理相关缓存
-                invalidateCache(id, (String) properties.get("userId"));
+                // 清理相关缓存，属性中的用户ID与原所属用户不同时两者都失效
+                invalidateCache(id, ownerId);
+                Object newUserId = properties.get("userId");
+                if (newUserId instanceof String && !newUserId.equals(ownerId)) {
+                    invalidateCache(id, (String) newUserId);
+                }
                 
                 totalUpdates++;
                 logger.debug("向量更新成功: {}", id);
@@ -256,19 +291,10 @@ public class HighPerformanceVectorStore implements VectorStore {
             try {
                 logger.debug("删除向量: {}", id);
                 
-                VectorEntry entry = vectors.remove(id);
+                VectorEntry entry = removeEntry(id);
                 if (entry != null) {
                     // 从用户索引中移除
-                    String userId = (String) entry.properties.get("userId");
-                    if (userId != null) {
-                        List<String> userMemoryList = userMemories.get(userId);
-                        if (userMemoryList != null) {
-                            userMemoryList.remove(id);
-                            if (userMemoryList.isEmpty()) {
-                                userMemories.remove(userId);
-                            }
-                        }
-                    }
+                    String userId = removeFromUserIndex(id, entry);
                     
                     // 从索引中移除
                     removeFromIndex(id, entry.embedding);
@@ -296,46 +322,34 @@ public class HighPerformanceVectorStore implements VectorStore {
                 logger.debug("按过滤条件删除向量，过滤条件: {}", filter);
                 
                 // 找到匹配过滤条件的向量
+                MetadataIndex.FilterPlan<VectorEntry> plan = metadataIndex.plan(filter);
                 List<String> toDelete = new ArrayList<>();
-                for (Map.Entry<String, VectorEntry> entry : vectors.entrySet()) {
-                    VectorEntry vectorEntry = entry.getValue();
-                    boolean matches = true;
-                    
-                    // 检查是否匹配过滤条件
-                    for (Map.Entry<String, Object> filterEntry : filter.entrySet()) {
-                        String key = filterEntry.getKey();
-                        Object expectedValue = filterEntry.getValue();
-                        Object actualValue = vectorEntry.properties.get(key);
-                        
-                        if (!Objects.equals(actualValue, expectedValue)) {
-                            matches = false;
-                            break;
+                if (plan.isCandidateSetAvailable()) {
+                    for (VectorEntry vectorEntry : plan.getCandidates()) {
+                        if (plan.matchesResidual(vectorEntry.properties)) {
+                            toDelete.add(vectorEntry.id);
                         }
                     }
-                    
-                    if (matches) {
-                        toDelete.add(entry.getKey());
+                } else {
+                    for (Map.Entry<String, VectorEntry> entry : vectors.entrySet()) {
+                        if (plan.matchesAll(entry.getValue().properties)) {
+                            toDelete.add(entry.getKey());
+                        }
                     }
                 }
                 
                 // 删除匹配的向量
                 for (String id : toDelete) {
-                    VectorEntry entry = vectors.remove(id);
+                    VectorEntry entry = removeEntry(id);
                     if (entry != null) {
                         // 从用户索引中移除
-                        String userId = (String) entry.properties.get("userId");
-                        if (userId != null) {
-                            List<String> userMemoryList = userMemories.get(userId);
-                            if (userMemoryList != null) {
-                                userMemoryList.remove(id);
-                                if (userMemoryList.isEmpty()) {
-                                    userMemories.remove(userId);
-                                }
-                            }
-                        }
+                        String userId = removeFromUserIndex(id, entry);
                         
                         // 从索引中移除
                         removeFromIndex(id, entry.embedding);
+                        
+                        // 清理缓存
+                        invalidateCache(id, userId);
                     }
                 }
                 
@@ -356,18 +370,7 @@ public class HighPerformanceVectorStore implements VectorStore {
                 logger.debug("获取向量: {}", id);
                 
                 VectorEntry entry = vectors.get(id);
-                if (entry == null) {
-                    return null;
-                }
-                
-                // 转换float[]到List<Float>
-                float[] embeddingArray = entry.embedding;
-                List<Float> embeddingList = new ArrayList<>();
-                for (float f : embeddingArray) {
-                    embeddingList.add(f);
-                }
-                
-                return new VectorStore.VectorDocument(id, embeddingList, entry.properties);
+                return entry == null ? null : toDocument(entry);
                     
             } catch (Exception e) {
                 logger.error("获取向量失败: " + id, e);
@@ -376,6 +379,55 @@ public class HighPerformanceVectorStore implements VectorStore {
         });
     }
     
+    @Override
+    public CompletableFuture<Map<String, VectorStore.VectorDocument>> getBatch(String collectionName,
+                                                                             Collection<String> ids) {
+        return executionManager.executeIOOperation(() -> {
+            logger.debug("批量获取向量: {} 个", ids.size());
+            
+            Map<String, VectorStore.VectorDocument> documents = new HashMap<>(ids.size() * 2);
+            for (String id : ids) {
+                VectorEntry entry = id != null ? vectors.get(id) : null;
+                if (entry != null) {
+                    documents.put(id, toDocument(entry));
+                }
+            }
+            return documents;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Page<VectorStore.VectorDocument>> listPage(String collectionName,
+                                                                       Map<String, Object> filter,
+                                                                       String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return executionManager.executeIOOperation(() -> {
+            // 过滤计划给出候选集时只遍历候选，页内条目才转换为文档
+            // walk only the plan's candidates when it has them and convert just the page to documents
+            MetadataIndex.FilterPlan<VectorEntry> plan = metadataIndex.plan(filter);
+            if (plan.getStrategy() == MetadataIndex.Strategy.EMPTY) {
+                return Page.<VectorStore.VectorDocument>empty();
+            }
+            Collection<VectorEntry> candidates = plan.isCandidateSetAvailable()
+                ? plan.getCandidates() : vectors.values();
+            return Page.select(candidates, entry -> entry.id,
+                    entry -> plan.isCandidateSetAvailable()
+                        ? plan.matchesResidual(entry.properties) : plan.matchesAll(entry.properties),
+                    pageToken, pageSize)
+                .map(HighPerformanceVectorStore::toDocument);
+        });
+    }
+    
+    private static VectorStore.VectorDocument toDocument(VectorEntry entry) {
+        // 转换float[]到List<Float>
+        float[] embeddingArray = entry.embedding;
+        List<Float> embeddingList = new ArrayList<>(embeddingArray.length);
+        for (float f : embeddingArray) {
+            embeddingList.add(f);
+        }
+        return new VectorStore.VectorDocument(entry.id, embeddingList, entry.properties);
+    }
+    
     // 保持向后兼容的方法
     public CompletableFuture<SearchResult> get(String id) {
         return executionManager.executeIOOperation(() -> {
@@ -412,41 +464,46 @@ public class HighPerformanceVectorStore implements VectorStore {
             try {
                 totalQueries++;
                 
-                // 生成缓存键
-                String cacheKey = generateSearchCacheKey(queryEmbedding, userId, limit);
-                
-                // 检查缓存
-                List<SearchResult> cached = userCache.get(cacheKey);
+                // 缓存键保存查询向量的副本并按内容精确比较，不会因哈希冲突返回其他查询的结果
+                SearchKey cacheKey = new SearchKey(queryEmbedding, limit);
+                List<SearchResult> cached = searchCache.get(userId, cacheKey);
                 if (cached != null) {
                     logger.debug("从缓存返回搜索结果，用户: {}，限制: {}", userId, limit);
                     return cached;
                 }
                 
+                // 先取版本再读取数据，计算期间发生的写入会使这次的结果不被缓存
+                long version = searchCache.version(userId);
                 logger.debug("搜索向量，用户: {}，限制: {}", userId, limit);
                 
-                List<String> userMemoryIds = userMemories.getOrDefault(userId, Collections.emptyList());
-                if (userMemoryIds.isEmpty()) {
+                String[] userMemoryIds = userMemories.getOrDefault(userId, Collections.emptyList())
+                    .toArray(new String[0]);
+                int k = Math.min(limit, userMemoryIds.length);
+                if (k <= 0) {
                     return Collections.emptyList();
                 }
                 
-                // 并行计算相似度
-                List<SearchResult> results = userMemoryIds.parallelStream()
-                    .map(memoryId -> {
-                        VectorEntry entry = vectors.get(memoryId);
+                // 在共用CPU线程池上按区间计算相似度，每段只保留自己的top-K，合并后再创建结果
+                TopK<VectorEntry> best = ConcurrentExecutionManager.parallelScan(userMemoryIds.length, (from, to) -> {
+                    TopK<VectorEntry> top = new TopK<>(k);
+                    for (int i = from; i < to; i++) {
+                        VectorEntry entry = vectors.get(userMemoryIds[i]);
                         if (entry != null) {
                             entry.updateAccess();
-                            float similarity = calculateCosineSimilarity(queryEmbedding, entry.embedding);
-                            return new SearchResult(entry.id, similarity, entry.properties);
+                            top.offer(calculateCosineSimilarity(queryEmbedding, entry.embedding), entry);
                         }
-                        return null;
-                    })
-                    .filter(Objects::nonNull)
-                    .sorted((a, b) -> Float.compare(b.similarity, a.similarity))
-                    .limit(limit)
-                    .collect(Collectors.toList());
+                    }
+                    return top;
+                }, TopK::merge).sortDescending();
+                
+                List<SearchResult> results = new ArrayList<>(best.size());
+                for (int rank = 0; rank < best.size(); rank++) {
+                    VectorEntry entry = best.item(rank);
+                    results.add(new SearchResult(entry.id, best.score(rank), entry.properties));
+                }
                 
                 // 缓存结果
-                userCache.put(cacheKey, results, 300000); // 5分钟缓存
+                searchCache.put(userId, cacheKey, version, results);
                 
                 logger.debug("搜索完成，返回 {} 个结果", results.size());
                 return results;
@@ -474,41 +531,45 @@ public class HighPerformanceVectorStore implements VectorStore {
                 
                 logger.debug("搜索向量，集合: {}，topK: {}, 过滤器: {}", collectionName, topK, filter);
                 
-                // 根据过滤器获取候选向量
-                Collection<VectorEntry> candidates;
-                if (filter != null && filter.containsKey("userId")) {
-                    String userId = (String) filter.get("userId");
-                    List<String> userMemoryIds = userMemories.getOrDefault(userId, Collections.emptyList());
-                    candidates = userMemoryIds.stream()
-                        .map(vectors::get)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-                } else {
-                    candidates = vectors.values();
+                // 根据元数据索引生成过滤计划：选择度高时只对候选打分，否则扫描后逐条判定
+                MetadataIndex.FilterPlan<VectorEntry> plan = metadataIndex.plan(filter);
+                if (plan.getStrategy() == MetadataIndex.Strategy.EMPTY) {
+                    return Collections.emptyList();
                 }
-                
-                if (candidates.isEmpty()) {
+                VectorEntry[] candidates = plan.isCandidateSetAvailable()
+                    ? plan.getCandidates().toArray(new VectorEntry[0])
+                    : vectors.values().toArray(new VectorEntry[0]);
+                int k = Math.min(topK, candidates.length);
+                if (k <= 0) {
                     return Collections.emptyList();
                 }
                 
-                // 并行计算相似度
-                List<VectorStore.VectorSearchResult> results = candidates.parallelStream()
-                    .filter(entry -> matchesFilter(entry, filter))
-                    .map(entry -> {
-                        entry.updateAccess();
-                        float similarity = calculateCosineSimilarity(queryEmbedding, entry.embedding);
-                        
-                        // 转换float[]到List<Float>
-                        List<Float> vectorList = new ArrayList<>();
-                        for (float f : entry.embedding) {
-                            vectorList.add(f);
+                // 在共用CPU线程池上按区间过滤并计算相似度，每段只保留自己的top-K
+                TopK<VectorEntry> best = ConcurrentExecutionManager.parallelScan(candidates.length, (from, to) -> {
+                    TopK<VectorEntry> top = new TopK<>(k);
+                    for (int i = from; i < to; i++) {
+                        VectorEntry entry = candidates[i];
+                        boolean matches = plan.isCandidateSetAvailable()
+                            ? plan.matchesResidual(entry.properties) : plan.matchesAll(entry.properties);
+                        if (matches) {
+                            entry.updateAccess();
+                            top.offer(calculateCosineSimilarity(queryEmbedding, entry.embedding), entry);
                         }
-                        
-                        return new VectorStore.VectorSearchResult(entry.id, similarity, entry.properties, vectorList);
-                    })
-                    .sorted((a, b) -> Float.compare(b.getScore(), a.getScore()))
-                    .limit(topK)
-                    .collect(Collectors.toList());
+                    }
+                    return top;
+                }, TopK::merge).sortDescending();
+                
+                // 只为最终结果转换float[]到List<Float>
+                List<VectorStore.VectorSearchResult> results = new ArrayList<>(best.size());
+                for (int rank = 0; rank < best.size(); rank++) {
+                    VectorEntry entry = best.item(rank);
+                    List<Float> vectorList = new ArrayList<>(entry.embedding.length);
+                    for (float f : entry.embedding) {
+                        vectorList.add(f);
+                    }
+                    results.add(new VectorStore.VectorSearchResult(entry.id, best.score(rank),
+                        entry.properties, vectorList));
+                }
                 
                 logger.debug("搜索完成，返回 {} 个结果", results.size());
                 return results;
@@ -519,24 +580,6 @@ public class HighPerformanceVectorStore implements VectorStore {
         });
     }
     
-    private boolean matchesFilter(VectorEntry entry, Map<String, Object> filter) {
-        if (filter == null || filter.isEmpty()) {
-            return true;
-        }
-        
-        for (Map.Entry<String, Object> filterEntry : filter.entrySet()) {
-            String key = filterEntry.getKey();
-            Object expectedValue = filterEntry.getValue();
-            Object actualValue = entry.properties.get(key);
-            
-            if (!Objects.equals(actualValue, expectedValue)) {
-                return false;
-            }
-        }
-        
-        return true;
-    }
-    
     public CompletableFuture<List<SearchResult>> getAllByUser(String userId) {
         return executionManager.executeIOOperation(() -> {
             try {
@@ -595,15 +638,15 @@ public class HighPerformanceVectorStore implements VectorStore {
             try {
                 logger.debug("获取用户内存类型分布: {}", userId);
                 
-                List<String> userMemoryIds = userMemories.getOrDefault(userId, Collections.emptyList());
                 Map<String, Long> distribution = new HashMap<>();
-                
-                for (String memoryId : userMemoryIds) {
-                    VectorEntry entry = vectors.get(memoryId);
-                    if (entry != null) {
-                        String type = (String) entry.properties.getOrDefault("type", "UNKNOWN");
-                        distribution.put(type, distribution.getOrDefault(type, 0L) + 1);
-                    }
+                Map<String, LongAdder> counts = userTypeCounts.get(userId);
+                if (counts != null) {
+                    counts.forEach((type, count) -> {
+                        long value = count.sum();
+                        if (value > 0) {
+                            distribution.put(type, value);
+                        }
+                    });
                 }
                 
                 return distribution;
@@ -655,10 +698,18 @@ public class HighPerformanceVectorStore implements VectorStore {
             totalInserts,
             totalUpdates,
             queryCache.getStats(),
-            userCache.getStats()
+            userCache.getStats(),
+            searchCache.getStats()
         );
     }
     
+    /**
+     * 为自定义元数据键建立二级索引，使按该键过滤的搜索走预过滤
+     */
+    public void addMetadataIndex(String key) {
+        metadataIndex.addIndexedKey(key);
+    }
+    
     /**
      * 预热缓存
      */
@@ -690,7 +741,9 @@ public class HighPerformanceVectorStore implements VectorStore {
             
             vectors.clear();
             userMemories.clear();
+            userTypeCounts.clear();
             dimensionIndex.clear();
+            metadataIndex.clear();
             
             logger.info("向量存储关闭完成");
             return null;
@@ -704,12 +757,13 @@ public class HighPerformanceVectorStore implements VectorStore {
     }
     
     private void insertEntry(String id, VectorEntry entry) {
-        vectors.put(id, entry);
+        putEntry(id, entry);
         
         // 更新用户索引
         String userId = (String) entry.properties.get("userId");
         if (userId != null) {
             userMemories.computeIfAbsent(userId, k -> new ArrayList<>()).add(id);
+            countType(userId, typeOf(entry.properties), 1);
         }
         
         // 更新向量索引
@@ -719,6 +773,57 @@ public class HighPerformanceVectorStore implements VectorStore {
         invalidateCache(id, userId);
     }
     
+    /**
+     * 在同一个键的compute内写入向量与元数据索引，并发的写入与删除不会让两者对同一ID不一致
+     */
+    private void putEntry(String id, VectorEntry entry) {
+        vectors.compute(id, (key, current) -> {
+            metadataIndex.put(id, entry, entry.properties);
+            return entry;
+        });
+    }
+    
+    /**
+     * 在同一个键的compute内移除向量与元数据索引，返回被移除的条目
+     */
+    private VectorEntry removeEntry(String id) {
+        VectorEntry[] removed = new VectorEntry[1];
+        vectors.computeIfPresent(id, (key, current) -> {
+            metadataIndex.remove(id);
+            removed[0] = current;
+            return null;
+        });
+        return removed[0];
+    }
+    
+    /**
+     * 从用户索引和类型计数中移除条目，返回其用户ID
+     */
+    private String removeFromUserIndex(String id, VectorEntry entry) {
+        String userId = (String) entry.properties.get("userId");
+        if (userId != null) {
+            List<String> userMemoryList = userMemories.get(userId);
+            if (userMemoryList != null) {
+                userMemoryList.remove(id);
+                if (userMemoryList.isEmpty()) {
+                    userMemories.remove(userId);
+                }
+            }
+            countType(userId, typeOf(entry.properties), -1);
+        }
+        return userId;
+    }
+    
+    private void countType(String userId, String type, int delta) {
+        userTypeCounts.computeIfAbsent(userId, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(type, k -> new LongAdder())
+            .add(delta);
+    }
+    
+    private static String typeOf(Map<String, Object> properties) {
+        return (String) properties.getOrDefault("type", "UNKNOWN");
+    }
+    
     private void addToIndex(String id, float[] embedding) {
         indexLock.writeLock().lock();
         try {
@@ -757,18 +862,12 @@ public class HighPerformanceVectorStore implements VectorStore {
     private void invalidateCache(String id, String userId) {
         queryCache.remove(id);
         if (userId != null) {
-            // 清理用户相关的缓存
+            // 清理用户相关的缓存，递增用户版本使该用户已缓存的检索结果全部失效
             userCache.remove("user_all_" + userId);
-            // 可以进一步优化，清理涉及该用户的搜索缓存
+            searchCache.invalidate(userId);
         }
     }
     
-    private String generateSearchCacheKey(float[] queryEmbedding, String userId, int limit) {
-        // 简化的缓存键生成（实际使用中可能需要更精确的哈希）
-        int embeddingHash = Arrays.hashCode(queryEmbedding);
-        return String.format("search_%s_%d_%d", userId, embeddingHash, limit);
-    }
-    
     /**
      * 计算余弦相似度
      */
@@ -803,6 +902,38 @@ public class HighPerformanceVectorStore implements VectorStore {
         }
     }
     
+    /**
+     * 检索缓存键：查询向量的副本与结果数，按向量内容精确比较
+     */
+    private static final class SearchKey {
+        final float[] embedding;
+        final int limit;
+        final int hash;
+        
+        SearchKey(float[] embedding, int limit) {
+            this.embedding = Arrays.copyOf(embedding, embedding.length);
+            this.limit = limit;
+            this.hash = 31 * Arrays.hashCode(this.embedding) + limit;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SearchKey)) {
+                return false;
+            }
+            SearchKey other = (SearchKey) o;
+            return hash == other.hash && limit == other.limit && Arrays.equals(embedding, other.embedding);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
     public static class VectorStoreStats {
         private final int totalVectors;
         private final int totalUsers;
@@ -811,11 +942,21 @@ public class HighPerformanceVectorStore implements VectorStore {
         private final long totalUpdates;
         private final HighPerformanceCache.CacheStats queryCacheStats;
         private final HighPerformanceCache.CacheStats userCacheStats;
+        private final VersionedResultCache.Stats searchCacheStats;
         
         public VectorStoreStats(int totalVectors, int totalUsers, long totalQueries, 
                               long totalInserts, long totalUpdates,
                               HighPerformanceCache.CacheStats queryCacheStats,
                               HighPerformanceCache.CacheStats userCacheStats) {
+            this(totalVectors, totalUsers, totalQueries, totalInserts, totalUpdates,
+                queryCacheStats, userCacheStats, null);
+        }
+        
+        public VectorStoreStats(int totalVectors, int totalUsers, long totalQueries, 
+                              long totalInserts, long totalUpdates,
+                              HighPerformanceCache.CacheStats queryCacheStats,
+                              HighPerformanceCache.CacheStats userCacheStats,
+                              VersionedResultCache.Stats searchCacheStats) {
             this.totalVectors = totalVectors;
             this.totalUsers = totalUsers;
             this.totalQueries = totalQueries;
@@ -823,6 +964,7 @@ public class HighPerformanceVectorStore implements VectorStore {
             this.totalUpdates = totalUpdates;
             this.queryCacheStats = queryCacheStats;
             this.userCacheStats = userCacheStats;
+            this.searchCacheStats = searchCacheStats;
         }
         
         // Getter方法
@@ -833,12 +975,13 @@ public class HighPerformanceVectorStore implements VectorStore {
         public long getTotalUpdates() { return totalUpdates; }
         public HighPerformanceCache.CacheStats getQueryCacheStats() { return queryCacheStats; }
         public HighPerformanceCache.CacheStats getUserCacheStats() { return userCacheStats; }
+        public VersionedResultCache.Stats getSearchCacheStats() { return searchCacheStats; }
         
         @Override
         public String toString() {
-            return String.format("VectorStoreStats{向量=%d, 用户=%d, 查询=%d, 插入=%d, 更新=%d, 查询缓存=%s, 用户缓存=%s}", 
+            return String.format("VectorStoreStats{向量=%d, 用户=%d, 查询=%d, 插入=%d, 更新=%d, 查询缓存=%s, 用户缓存=%s, 检索缓存=%s}", 
                 totalVectors, totalUsers, totalQueries, totalInserts, totalUpdates,
-                queryCacheStats, userCacheStats);
+                queryCacheStats, userCacheStats, searchCacheStats);
         }
     }
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package com.mem0.vector.impl;
 
+import com.mem0.store.Page;
 import com.mem0.store.VectorStore;
 import com.mem0.model.SearchResult;
 import com.mem0.exception.VectorOperationException;
 import com.mem0.exception.MemoryValidationException;
 import com.mem0.constants.MemoryConstants;
+import com.mem0.vector.CollectionQuantizer;
+import com.mem0.vector.MetadataIndex;
+import com.mem0.vector.QuantizationConfig;
+import com.mem0.vector.VectorCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +32,7 @@ import java.util.stream.Collectors;
  * <ul>
  *   <li>快速的向量CRUD操作 / Fast vector CRUD operations</li>
  *   <li>余弦相似度计算和搜索 / Cosine similarity calculation and search</li>
+ *   <li>按集合可选int8/PQ量化与fp32重排 / Optional per-collection int8/PQ quantization with fp32 re-ranking</li>
  *   <li>用户维度的向量管理 / User-based vector management</li>
  *   <li>向量计数和统计功能 / Vector counting and statistics functionality</li>
  *   <li>内存类型分布分析 / Memory type distribution analysis</li>
@@ -59,20 +65,73 @@ public class InMemoryVectorStore implements VectorStore {
     private final Map<String, List<String>> userMemories = new ConcurrentHashMap<>();
     private final Map<String, Integer> collections = new ConcurrentHashMap<>();
     
+    // 元数据二级索引，用于带过滤条件的搜索和删除
+    private final MetadataIndex<VectorEntry> metadataIndex = new MetadataIndex<>(entry -> entry.properties);
+    
+    // 启用量化的集合 / Collections created with a quantization mode
+    private final Map<String, CollectionQuantizer> quantizers = new ConcurrentHashMap<>();
+    
     private static class VectorEntry {
         final String id;
-        final float[] embedding;
         final Map<String, Object> properties;
+        final CollectionQuantizer quantizer;
+        // 量化后fp32副本可能被释放；先写code再清空embedding / code is published before embedding is dropped
+        volatile float[] embedding;
+        volatile byte[] code;
         
         VectorEntry(String id, float[] embedding, Map<String, Object> properties) {
+            this(id, embedding, properties, null);
+        }
+        
+        VectorEntry(String id, float[] embedding, Map<String, Object> properties, CollectionQuantizer quantizer) {
             this.id = id;
             this.embedding = Arrays.copyOf(embedding, embedding.length);
             this.properties = new HashMap<>(properties);
+            this.quantizer = quantizer;
+            VectorCodec codec = quantizer != null ? quantizer.getCodec() : null;
+            if (codec != null) {
+                compress(codec, quantizer.keepsFullPrecision());
+            }
+        }
+        
+        void compress(VectorCodec codec, boolean keepFullPrecision) {
+            float[] full = embedding;
+            if (full == null || code != null) {
+                return;
+            }
+            code = codec.encode(full);
+            if (!keepFullPrecision) {
+                embedding = null;
+            }
+        }
+        
+        /**
+         * fp32向量；已量化且未保留副本时返回解码的近似值
+         */
+        float[] vector() {
+            float[] full = embedding;
+            return full != null ? full : quantizer.getCodec().decode(code);
+        }
+    }
+    
+    private static class ScoredEntry {
+        final VectorEntry entry;
+        final float score;
+        
+        ScoredEntry(VectorEntry entry, float score) {
+            this.entry = entry;
+            this.score = score;
         }
     }
     
     @Override
     public CompletableFuture<Void> createCollection(String collectionName, int dimension) {
+        return createCollection(collectionName, dimension, QuantizationConfig.none());
+    }
+    
+    @Override
+    public CompletableFuture<Void> createCollection(String collectionName, int dimension,
+                                                    QuantizationConfig quantization) {
         return CompletableFuture.supplyAsync(() -> {
             // Input validation
             if (collectionName == null || collectionName.trim().isEmpty()) {
@@ -89,8 +148,11 @@ public class InMemoryVectorStore implements VectorStore {
             
             // Create collection by storing its dimension
             collections.put(collectionName, dimension);
+            if (quantization != null && quantization.getMode() != QuantizationConfig.Mode.NONE) {
+                quantizers.put(collectionName, new CollectionQuantizer(collectionName, dimension, quantization));
+            }
             
-            logger.debug("创建向量集合: {} (维度: {})", collectionName, dimension);
+            logger.debug("创建向量集合: {} (维度: {}, 量化: {})", collectionName, dimension, quantization);
             return null;
         });
     }
@@ -120,10 +182,18 @@ public class InMemoryVectorStore implements VectorStore {
             
             // Remove collection from tracking
             collections.remove(collectionName);
+            quantizers.remove(collectionName);
             
             // Remove only vectors belonging to this collection
-            vectors.entrySet().removeIf(entry -> 
-                collectionName.equals(entry.getValue().properties.get("collection")));
+            for (String id : vectors.keySet()) {
+                vectors.computeIfPresent(id, (key, current) -> {
+                    if (!collectionName.equals(current.properties.get("collection"))) {
+                        return current;
+                    }
+                    metadataIndex.remove(id);
+                    return null;
+                });
+            }
             
             return null;
         });
@@ -149,8 +219,14 @@ public class InMemoryVectorStore implements VectorStore {
                 Map<String, Object> fullMetadata = new java.util.HashMap<>(metadata != null ? metadata : new java.util.HashMap<>());
                 fullMetadata.put("collection", collectionName);
                 
-                VectorEntry entry = new VectorEntry(id, embedding, fullMetadata);
-                vectors.put(id, entry);
+                CollectionQuantizer quantizer = quantizers.get(collectionName);
+                VectorEntry entry = new VectorEntry(id, embedding, fullMetadata, quantizer);
+                putEntry(id, entry);
+                if (quantizer != null && quantizer.offerTrainingSample(embedding)) {
+                    compressCollection(quantizer);
+                } else {
+                    compressIfTrained(entry);
+                }
                 
                 // 按用户跟踪
                 String userId = (String) fullMetadata.get("userId");
@@ -239,41 +315,51 @@ public class InMemoryVectorStore implements VectorStore {
                 
                 logger.debug("搜索向量，集合: {}，topK: {}, 过滤器: {}", collectionName, topK, filter);
                 
-                // 根据过滤器获取候选向量
-                Collection<VectorEntry> candidates;
-                if (filter != null && filter.containsKey("userId")) {
-                    String userId = (String) filter.get("userId");
-                    List<String> userMemoryIds = userMemories.getOrDefault(userId, Collections.emptyList());
-                    candidates = userMemoryIds.stream()
-                        .map(vectors::get)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-                } else {
-                    candidates = vectors.values();
+                // 根据元数据索引生成过滤计划：选择度高时只对候选打分，否则扫描后逐条判定
+                MetadataIndex.FilterPlan<VectorEntry> plan = metadataIndex.plan(filter);
+                if (plan.getStrategy() == MetadataIndex.Strategy.EMPTY) {
+                    return Collections.emptyList();
                 }
+                Collection<VectorEntry> candidates = plan.isCandidateSetAvailable()
+                    ? plan.getCandidates() : vectors.values();
                 
                 if (candidates.isEmpty()) {
                     return Collections.emptyList();
                 }
                 
-                // 计算相似度
-                List<VectorStore.VectorSearchResult> results = candidates.stream()
-                    .filter(entry -> matchesFilter(entry, filter))
-                    .map(entry -> {
-                        float similarity = calculateCosineSimilarity(queryEmbedding, entry.embedding);
-                        
-                        // 转换float[]到List<Float>
-                        List<Float> vectorList = new ArrayList<>();
-                        for (float f : entry.embedding) {
-                            vectorList.add(f);
-                        }
-                        
-                        return new VectorStore.VectorSearchResult(entry.id, similarity, entry.properties, vectorList);
-                    })
-                    .sorted((a, b) -> Float.compare(b.getScore(), a.getScore()))
-                    .limit(topK)
+                // 量化集合使用ADC近似打分；开启重排时先取 topK*倍数 个候选再用fp32精确重排
+                CollectionQuantizer quantizer = quantizers.get(collectionName);
+                VectorCodec.QueryScorer scorer = quantizer != null ? quantizer.prepare(queryEmbedding) : null;
+                boolean rerank = scorer != null && quantizer.getConfig().isRerankEnabled();
+                int candidateLimit = rerank ? topK * quantizer.getConfig().getRerankMultiplier() : topK;
+                
+                List<ScoredEntry> scored = candidates.stream()
+                    .filter(entry -> plan.isCandidateSetAvailable()
+                        ? plan.matchesResidual(entry.properties) : plan.matchesAll(entry.properties))
+                    .map(entry -> new ScoredEntry(entry, score(entry, queryEmbedding, quantizer, scorer)))
+                    .sorted((a, b) -> Float.compare(b.score, a.score))
+                    .limit(candidateLimit)
                     .collect(Collectors.toList());
                 
+                if (rerank) {
+                    scored = scored.stream()
+                        .map(candidate -> new ScoredEntry(candidate.entry,
+                            calculateCosineSimilarity(queryEmbedding, candidate.entry.vector())))
+                        .sorted((a, b) -> Float.compare(b.score, a.score))
+                        .limit(topK)
+                        .collect(Collectors.toList());
+                }
+                
+                // 只为最终结果转换float[]到List<Float>
+                List<VectorStore.VectorSearchResult> results = new ArrayList<>(scored.size());
+                for (ScoredEntry hit : scored) {
+                    List<Float> vectorList = new ArrayList<>();
+                    for (float f : hit.entry.vector()) {
+                        vectorList.add(f);
+                    }
+                    results.add(new VectorStore.VectorSearchResult(hit.entry.id, hit.score, hit.entry.properties, vectorList));
+                }
+                
                 logger.debug("搜索完成，返回 {} 个结果", results.size());
                 return results;
             } catch (MemoryValidationException e) {
@@ -286,24 +372,6 @@ public class InMemoryVectorStore implements VectorStore {
         });
     }
     
-    private boolean matchesFilter(VectorEntry entry, Map<String, Object> filter) {
-        if (filter == null || filter.isEmpty()) {
-            return true;
-        }
-        
-        for (Map.Entry<String, Object> filterEntry : filter.entrySet()) {
-            String key = filterEntry.getKey();
-            Object expectedValue = filterEntry.getValue();
-            Object actualValue = entry.properties.get(key);
-            
-            if (!Objects.equals(actualValue, expectedValue)) {
-                return false;
-            }
-        }
-        
-        return true;
-    }
-    
     @Override
     public CompletableFuture<Void> delete(String collectionName, String id) {
         return CompletableFuture.supplyAsync(() -> {
@@ -318,7 +386,7 @@ public class InMemoryVectorStore implements VectorStore {
                 
                 logger.debug("删除向量: {}", id);
                 
-                VectorEntry entry = vectors.remove(id);
+                VectorEntry entry = removeEntry(id);
                 if (entry != null) {
                     // 从用户跟踪中移除
                     String userId = (String) entry.properties.get("userId");
@@ -352,8 +420,15 @@ public class InMemoryVectorStore implements VectorStore {
             try {
                 logger.debug("Inserting vector: {}", id);
                 
-                VectorEntry entry = new VectorEntry(id, embedding, properties);
-                vectors.put(id, entry);
+                Object collection = properties.get("collection");
+                CollectionQuantizer quantizer = collection instanceof String ? quantizers.get(collection) : null;
+                VectorEntry entry = new VectorEntry(id, embedding, properties, quantizer);
+                putEntry(id, entry);
+                if (quantizer != null && quantizer.offerTrainingSample(embedding)) {
+                    compressCollection(quantizer);
+                } else {
+                    compressIfTrained(entry);
+                }
                 
                 // Track by user
                 String userId = (String) properties.get("userId");
@@ -381,17 +456,18 @@ public class InMemoryVectorStore implements VectorStore {
             try {
                 logger.debug("Updating vector: {}", id);
                 
-                VectorEntry existingEntry = vectors.get(id);
-                if (existingEntry == null) {
+                // Update properties while preserving existing ones, together with the metadata index
+                VectorEntry updatedEntry = vectors.computeIfPresent(id, (key, current) -> {
+                    Map<String, Object> updatedProperties = new HashMap<>(current.properties);
+                    updatedProperties.putAll(properties);
+                    VectorEntry updated = new VectorEntry(id, embedding, updatedProperties, current.quantizer);
+                    metadataIndex.put(id, updated, updated.properties);
+                    return updated;
+                });
+                if (updatedEntry == null) {
                     throw new RuntimeException("Vector not found: " + id);
                 }
-                
-                // Update properties while preserving existing ones
-                Map<String, Object> updatedProperties = new HashMap<>(existingEntry.properties);
-                updatedProperties.putAll(properties);
-                
-                VectorEntry updatedEntry = new VectorEntry(id, embedding, updatedProperties);
-                vectors.put(id, updatedEntry);
+                compressIfTrained(updatedEntry);
                 
                 logger.debug("Vector updated successfully: {}", id);
             } catch (Exception e) {
@@ -406,7 +482,7 @@ public class InMemoryVectorStore implements VectorStore {
             try {
                 logger.debug("Deleting vector: {}", id);
                 
-                VectorEntry entry = vectors.remove(id);
+                VectorEntry entry = removeEntry(id);
                 if (entry != null) {
                     // Remove from user tracking
                     String userId = (String) entry.properties.get("userId");
@@ -461,11 +537,14 @@ public class InMemoryVectorStore implements VectorStore {
                 }
                 
                 List<SearchResult> results = new ArrayList<>();
+                Map<CollectionQuantizer, VectorCodec.QueryScorer> scorers = new IdentityHashMap<>();
                 
                 for (String memoryId : userMemoryIds) {
                     VectorEntry entry = vectors.get(memoryId);
                     if (entry != null) {
-                        float similarity = calculateCosineSimilarity(queryEmbedding, entry.embedding);
+                        VectorCodec.QueryScorer scorer = entry.quantizer == null ? null
+                            : scorers.computeIfAbsent(entry.quantizer, q -> q.prepare(queryEmbedding));
+                        float similarity = score(entry, queryEmbedding, entry.quantizer, scorer);
                         results.add(new SearchResult(entry.id, similarity, entry.properties));
                     }
                 }
@@ -560,20 +639,65 @@ public class InMemoryVectorStore implements VectorStore {
             }
             
             VectorEntry entry = vectors.get(id);
-            if (entry == null) {
-                return null;
+            return entry == null ? null : toDocument(id, entry);
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, VectorStore.VectorDocument>> getBatch(String collectionName,
+                                                                             Collection<String> ids) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (collectionName == null || collectionName.trim().isEmpty()) {
+                throw new IllegalArgumentException("Collection name cannot be null or empty");
             }
             
-            // 转换float[]到List<Float>
-            List<Float> embeddingList = new ArrayList<>();
-            for (float f : entry.embedding) {
-                embeddingList.add(f);
+            Map<String, VectorStore.VectorDocument> documents = new HashMap<>(ids.size() * 2);
+            for (String id : ids) {
+                VectorEntry entry = id != null ? vectors.get(id) : null;
+                if (entry != null) {
+                    documents.put(id, toDocument(id, entry));
+                }
+            }
+            return documents;
+        });
+    }
+    
+    @Override
+    public CompletableFuture<Page<VectorStore.VectorDocument>> listPage(String collectionName,
+                                                                       Map<String, Object> filter,
+                                                                       String pageToken, int pageSize) {
+        Page.checkPageSize(pageSize);
+        return CompletableFuture.supplyAsync(() -> {
+            if (collectionName == null || collectionName.trim().isEmpty()) {
+                throw new IllegalArgumentException("Collection name cannot be null or empty");
             }
             
-            return new VectorStore.VectorDocument(id, embeddingList, entry.properties);
+            // 过滤计划给出候选集时只遍历候选，页内条目才转换为文档
+            // walk only the plan's candidates when it has them and convert just the page to documents
+            MetadataIndex.FilterPlan<VectorEntry> plan = metadataIndex.plan(filter);
+            if (plan.getStrategy() == MetadataIndex.Strategy.EMPTY) {
+                return Page.<VectorStore.VectorDocument>empty();
+            }
+            Collection<VectorEntry> candidates = plan.isCandidateSetAvailable()
+                ? plan.getCandidates() : vectors.values();
+            return Page.select(candidates, entry -> entry.id,
+                    entry -> plan.isCandidateSetAvailable()
+                        ? plan.matchesResidual(entry.properties) : plan.matchesAll(entry.properties),
+                    pageToken, pageSize)
+                .map(entry -> toDocument(entry.id, entry));
         });
     }
     
+    private static VectorStore.VectorDocument toDocument(String id, VectorEntry entry) {
+        // 转换float[]到List<Float>
+        float[] vector = entry.vector();
+        List<Float> embeddingList = new ArrayList<>(vector.length);
+        for (float f : vector) {
+            embeddingList.add(f);
+        }
+        return new VectorStore.VectorDocument(id, embeddingList, entry.properties);
+    }
+    
     @Override
     public CompletableFuture<Void> deleteByFilter(String collectionName, Map<String, Object> filter) {
         return CompletableFuture.supplyAsync(() -> {
@@ -590,31 +714,25 @@ public class InMemoryVectorStore implements VectorStore {
                 logger.debug("Deleting vectors by filter: {}", filter);
                 
                 // 找到匹配过滤条件的向量
+                MetadataIndex.FilterPlan<VectorEntry> plan = metadataIndex.plan(filter);
                 List<String> toDelete = new ArrayList<>();
-                for (Map.Entry<String, VectorEntry> entry : vectors.entrySet()) {
-                    VectorEntry vectorEntry = entry.getValue();
-                    boolean matches = true;
-                    
-                    // 检查是否匹配过滤条件
-                    for (Map.Entry<String, Object> filterEntry : filter.entrySet()) {
-                        String key = filterEntry.getKey();
-                        Object expectedValue = filterEntry.getValue();
-                        Object actualValue = vectorEntry.properties.get(key);
-                        
-                        if (!Objects.equals(actualValue, expectedValue)) {
-                            matches = false;
-                            break;
+                if (plan.isCandidateSetAvailable()) {
+                    for (VectorEntry vectorEntry : plan.getCandidates()) {
+                        if (plan.matchesResidual(vectorEntry.properties)) {
+                            toDelete.add(vectorEntry.id);
                         }
                     }
-                    
-                    if (matches) {
-                        toDelete.add(entry.getKey());
+                } else {
+                    for (Map.Entry<String, VectorEntry> entry : vectors.entrySet()) {
+                        if (plan.matchesAll(entry.getValue().properties)) {
+                            toDelete.add(entry.getKey());
+                        }
                     }
                 }
                 
                 // 删除匹配的向量
                 for (String id : toDelete) {
-                    vectors.remove(id);
+                    removeEntry(id);
                     // 从用户内存索引中移除
                     for (Map.Entry<String, List<String>> userEntry : userMemories.entrySet()) {
                         userEntry.getValue().remove(id);
@@ -637,8 +755,72 @@ public class InMemoryVectorStore implements VectorStore {
             logger.info("Closing InMemoryVectorStore");
             vectors.clear();
             userMemories.clear();
+            metadataIndex.clear();
+            quantizers.clear();
+            return null;
+        });
+    }
+    
+    /**
+     * 在同一个键的compute内写入向量与元数据索引，并发的写入与删除不会让两者对同一ID不一致
+     */
+    private void putEntry(String id, VectorEntry entry) {
+        vectors.compute(id, (key, current) -> {
+            metadataIndex.put(id, entry, entry.properties);
+            return entry;
+        });
+    }
+    
+    /**
+     * 在同一个键的compute内移除向量与元数据索引，返回被移除的条目
+     */
+    private VectorEntry removeEntry(String id) {
+        VectorEntry[] removed = new VectorEntry[1];
+        vectors.computeIfPresent(id, (key, current) -> {
+            metadataIndex.remove(id);
+            removed[0] = current;
             return null;
         });
+        return removed[0];
+    }
+    
+    /**
+     * 量化条目用ADC评分，其余（含PQ训练前的条目）按fp32精确计算
+     */
+    private float score(VectorEntry entry, float[] queryEmbedding, CollectionQuantizer quantizer,
+                        VectorCodec.QueryScorer scorer) {
+        byte[] code = entry.code;
+        if (scorer != null && code != null && entry.quantizer == quantizer) {
+            return scorer.score(code);
+        }
+        return calculateCosineSimilarity(queryEmbedding, entry.vector());
+    }
+    
+    /**
+     * 条目写入后再检查编解码器：PQ训练期间创建的条目可能在compressCollection遍历之后才写入
+     */
+    private void compressIfTrained(VectorEntry entry) {
+        CollectionQuantizer quantizer = entry.quantizer;
+        VectorCodec codec = quantizer != null ? quantizer.getCodec() : null;
+        if (codec != null && entry.code == null) {
+            entry.compress(codec, quantizer.keepsFullPrecision());
+        }
+    }
+    
+    /**
+     * PQ训练完成后编码集合中尚为fp32的条目
+     */
+    private void compressCollection(CollectionQuantizer quantizer) {
+        VectorCodec codec = quantizer.getCodec();
+        boolean keepFullPrecision = quantizer.keepsFullPrecision();
+        int compressed = 0;
+        for (VectorEntry entry : vectors.values()) {
+            if (entry.quantizer == quantizer && entry.code == null) {
+                entry.compress(codec, keepFullPrecision);
+                compressed++;
+            }
+        }
+        logger.debug("集合 {} 量化了 {} 个已有向量", quantizer.getCollectionName(), compressed);
     }
     
     /**
@@ -767,11 +949,40 @@ public class InMemoryVectorStore implements VectorStore {
         return new HashSet<>(userMemories.keySet());
     }
     
+    /**
+     * 集合的量化配置；未量化的集合返回 {@link QuantizationConfig#none()}
+     */
+    public QuantizationConfig getQuantizationConfig(String collectionName) {
+        CollectionQuantizer quantizer = quantizers.get(collectionName);
+        return quantizer != null ? quantizer.getConfig() : QuantizationConfig.none();
+    }
+    
+    /**
+     * 集合中每个向量当前占用的字节数 / Bytes currently used per vector in the collection
+     */
+    public int getBytesPerVector(String collectionName) {
+        CollectionQuantizer quantizer = quantizers.get(collectionName);
+        if (quantizer != null) {
+            return quantizer.getBytesPerVector();
+        }
+        Integer dimension = collections.get(collectionName);
+        return dimension != null ? dimension * Float.BYTES : 0;
+    }
+    
+    /**
+     * 为自定义元数据键建立二级索引，使按该键过滤的搜索走预过滤
+     */
+    public void addMetadataIndex(String key) {
+        metadataIndex.addIndexedKey(key);
+    }
+    
     public void clear() {
         logger.info("Clearing all vectors from store");
         vectors.clear();
         userMemories.clear();
+        metadataIndex.clear();
         collections.clear();
+        quantizers.clear();
     }
     
     // Input validation methods
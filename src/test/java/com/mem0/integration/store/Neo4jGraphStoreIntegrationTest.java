@@ -0,0 +1,162 @@
+package com.mem0.integration.store;
+
+import com.mem0.store.GraphStore.GraphNode;
+import com.mem0.store.Neo4jGraphStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.summary.Plan;
+import org.testcontainers.containers.Neo4jContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Neo4jGraphStore集成测试
+ * 在容器化的Neo4j上验证模式初始化、带标签的索引查找以及模板化查询；无Docker环境时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Neo4jGraphStore集成测试")
+public class Neo4jGraphStoreIntegrationTest {
+
+    @Container
+    private static final Neo4jContainer<?> NEO4J =
+        new Neo4jContainer<>(DockerImageName.parse("neo4j:4.4")).withoutAuthentication();
+
+    private Neo4jGraphStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new Neo4jGraphStore(NEO4J.getBoltUrl(), "neo4j", "");
+        store.executeQuery("MATCH (n) DETACH DELETE n", null).get();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close().get();
+    }
+
+    @Test
+    @DisplayName("模式初始化幂等并创建约束与索引")
+    void testSchemaBootstrap() throws Exception {
+        store.bootstrapSchema();
+
+        Set<String> constraints = names(store.executeQuery("SHOW CONSTRAINTS YIELD name", null).get());
+        assertTrue(constraints.containsAll(Arrays.asList("mem0_memory_id", "mem0_enhanced_memory_id")));
+        Set<String> indexes = names(store.executeQuery("SHOW INDEXES YIELD name", null).get());
+        assertTrue(indexes.containsAll(Arrays.asList("mem0_node_id", "mem0_node_user_id",
+            "mem0_memory_user_id", "mem0_enhanced_memory_user_id")));
+    }
+
+    @Test
+    @DisplayName("按ID的查找使用公共标签上的索引")
+    void testIndexedLookupPlan() throws Exception {
+        store.createNode("EnhancedMemory", props("id", "m1", "userId", "alice")).get();
+
+        try (Driver driver = GraphDatabase.driver(NEO4J.getBoltUrl(), AuthTokens.none());
+             Session session = driver.session()) {
+            Plan plan = session.run("EXPLAIN " + store.getTemplates().connectedNodes("RELATED_TO", 2),
+                Values.parameters("nodeId", "m1")).consume().plan();
+            assertTrue(operators(plan).stream().anyMatch(op -> op.startsWith("NodeIndexSeek")),
+                "expected an index seek, got " + operators(plan));
+        }
+    }
+
+    @Test
+    @DisplayName("节点、关系与k跳查询经模板执行")
+    void testTemplatedOperations() throws Exception {
+        String a = store.createNode("EnhancedMemory", props("userId", "alice", "memoryType", "FACT")).get();
+        String b = store.createNode("EnhancedMemory", props("userId", "alice", "memoryType", "EPISODIC")).get();
+        String c = store.createNode("Entity", props("userId", "bob")).get();
+        store.createRelationship(a, b, "RELATED_TO", props("weight", 1.0)).get();
+        store.createRelationship(b, c, "MENTIONS", new HashMap<>()).get();
+
+        assertEquals(Collections.singleton(a), ids(store.getNodesByLabel("EnhancedMemory",
+            props("memoryType", "FACT", "userId", "alice")).get()));
+        assertEquals(new HashSet<>(Arrays.asList(b, c)), ids(store.findConnectedNodes(a, null, 2).get()));
+        assertEquals(Collections.singleton(b), ids(store.findConnectedNodes(a, "RELATED_TO", 3).get()));
+        assertEquals(1, store.getRelationships(a, "RELATED_TO").get().size());
+        assertTrue(store.getNode(a).get().getLabels().contains("Mem0Node"));
+
+        store.updateNode(a, props("memoryType", "EPISODIC")).get();
+        assertEquals(2, store.getNodesByLabel("EnhancedMemory", props("memoryType", "EPISODIC")).get().size());
+
+        store.deleteNode(b).get();
+        assertNull(store.getNode(b).get());
+        assertTrue(store.findConnectedNodes(a, null, 2).get().isEmpty());
+        assertTrue(store.getTemplates().getHitCount() > 0);
+    }
+
+    @Test
+    @DisplayName("并发写入合并为UNWIND事务，写后读可见")
+    void testCoalescedConcurrentWrites() throws Exception {
+        List<CompletableFuture<String>> creates = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            creates.add(store.createNode("EnhancedMemory", props("userId", "u" + (i % 4), "seq", i)));
+        }
+        CompletableFuture.allOf(creates.toArray(new CompletableFuture[0])).get();
+        List<String> ids = creates.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        List<CompletableFuture<String>> links = new ArrayList<>();
+        for (int i = 1; i < ids.size(); i++) {
+            links.add(store.createRelationship(ids.get(i - 1), ids.get(i), "NEXT", new HashMap<>()));
+        }
+        CompletableFuture.allOf(links.toArray(new CompletableFuture[0])).get();
+
+        assertTrue(store.getWriteCoalescer().getBatchCount() < 399);
+        assertEquals(50, store.getNodesByLabel("EnhancedMemory", props("userId", "u1")).get().size());
+        assertEquals(2, store.getRelationships(ids.get(1), "NEXT").get().size());
+
+        ExecutionException missing = assertThrows(ExecutionException.class,
+            () -> store.createRelationship(ids.get(0), "no-such-node", "NEXT", new HashMap<>()).get());
+        assertTrue(missing.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    @DisplayName("早于公共标签写入的节点在初始化时补齐标签")
+    void testBackfill() throws Exception {
+        store.executeQuery("CREATE (:Legacy {id: 'legacy-1'})", null).get();
+        assertNull(store.getNode("legacy-1").get());
+
+        store.bootstrapSchema();
+        assertNotNull(store.getNode("legacy-1").get());
+    }
+
+    private static Map<String, Object> props(Object... keyValues) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static Set<String> names(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> (String) row.get("name")).collect(Collectors.toSet());
+    }
+
+    private static List<String> operators(Plan plan) {
+        List<String> operators = new ArrayList<>();
+        operators.add(plan.operatorType());
+        for (Plan child : plan.children()) {
+            operators.addAll(operators(child));
+        }
+        return operators;
+    }
+
+    private static Set<String> ids(List<GraphNode> nodes) {
+        return nodes.stream().map(GraphNode::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,108 @@
+package com.mem0.performance.benchmark;
+
+import com.mem0.embedding.impl.HighPerformanceTFIDFProvider;
+import com.mem0.graph.impl.HighPerformanceGraphStore;
+import com.mem0.monitoring.PerformanceMonitor;
+import com.mem0.performance.ConcurrentExecutionManager;
+import com.mem0.pipeline.AsyncMemoryPipeline;
+import com.mem0.pipeline.AsyncMemoryPipeline.MemoryCreationRequest;
+import com.mem0.pipeline.MemoryIngestRing;
+import com.mem0.vector.impl.HighPerformanceVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量导入吞吐基准测试
+ *
+ * 通过 AsyncMemoryPipeline.createMemoriesBatch 把大批量对话写入环形导入通道，
+ * 使用 TF-IDF 嵌入与高性能内存存储，记录每秒导入的记忆数。
+ * 吞吐目标（5万条/秒）只记录在日志中，断言仅检查导入结果，避免不同机器上的波动导致构建失败。
+ */
+public class IngestRingBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestRingBenchmarkTest.class);
+    private static final int WARMUP_MEMORIES = 20_000;
+    private static final int TEST_MEMORIES = 200_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int PRODUCERS = 4;
+    private static final double TARGET_PER_SECOND = 50_000;
+
+    private AsyncMemoryPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new AsyncMemoryPipeline(
+            new HighPerformanceTFIDFProvider(10000, 128, 256),
+            new HighPerformanceVectorStore(),
+            new HighPerformanceGraphStore(),
+            new ConcurrentExecutionManager(),
+            new PerformanceMonitor());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown().join();
+    }
+
+    @Test
+    @DisplayName("环形导入通道批量写入吞吐")
+    void testBulkIngestThroughput() throws Exception {
+        ingest(WARMUP_MEMORIES);
+
+        long start = System.nanoTime();
+        List<String> ids = ingest(TEST_MEMORIES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double perSecond = TEST_MEMORIES / seconds;
+
+        MemoryIngestRing.IngestStats stats = pipeline.getIngestStats();
+        logger.info("批量导入 {} 条记忆耗时 {} 秒，吞吐 {} 条/秒（目标 {}），{}",
+            TEST_MEMORIES, String.format("%.2f", seconds), String.format("%.0f", perSecond),
+            String.format("%.0f", TARGET_PER_SECOND), stats);
+        if (perSecond < TARGET_PER_SECOND) {
+            logger.warn("批量导入吞吐低于目标，当前机器: {} 核", Runtime.getRuntime().availableProcessors());
+        }
+
+        assertEquals(TEST_MEMORIES, ids.size());
+        assertFalse(ids.contains(null));
+        assertEquals(0, stats.getFailed());
+        assertEquals(WARMUP_MEMORIES + TEST_MEMORIES, stats.getIngested());
+        assertTrue(stats.getVectorGroups() < stats.getIngested() / 10, "向量写入应按组提交: " + stats);
+    }
+
+    /**
+     * 多个生产者并发提交批次，全部完成后按提交顺序返回ID
+     */
+    private List<String> ingest(int total) throws Exception {
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        for (int offset = 0; offset < total; offset += BATCH_SIZE) {
+            List<MemoryCreationRequest> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = offset; i < Math.min(total, offset + BATCH_SIZE); i++) {
+                batch.add(new MemoryCreationRequest(
+                    "User " + (i % 1000) + " said message " + i + " about topic " + (i % 37),
+                    "user-" + (i % 1000), null));
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> pipeline.createMemoriesBatch(batch))
+                .thenCompose(future -> future));
+            if (futures.size() % PRODUCERS == 0) {
+                futures.get(futures.size() - PRODUCERS).join();
+            }
+        }
+
+        List<String> ids = new ArrayList<>(total);
+        for (CompletableFuture<List<String>> future : futures) {
+            ids.addAll(future.get(120, TimeUnit.SECONDS));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,129 @@
+package com.mem0.performance.benchmark;
+
+import com.mem0.performance.ConcurrentExecutionManager;
+import com.mem0.performance.VirtualThreadSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 阻塞I/O并发扩展基准测试
+ *
+ * 用休眠模拟慢速的提供者调用，同时发起大量调用，记录峰值在途数与总耗时。
+ * JDK 21上I/O走虚拟线程，在途数应达到数千且总耗时接近单次调用延迟；
+ * 更早的JDK上使用平台线程池，在途数受线程数限制，只记录结果并缩小规模，避免拖慢构建。
+ */
+public class VirtualThreadIoBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadIoBenchmarkTest.class);
+    private static final int VIRTUAL_CALLS = 5_000;
+    private static final int PLATFORM_CALLS = 100;
+    private static final long CALL_LATENCY_MS = 100;
+
+    private ConcurrentExecutionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new ConcurrentExecutionManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    @DisplayName("executeIOOperation 的阻塞调用并发扩展")
+    void testIOOperationScaling() throws Exception {
+        boolean virtual = manager.isVirtualThreadIO();
+        Result result = run(virtual ? VIRTUAL_CALLS : PLATFORM_CALLS,
+            call -> manager.executeIOOperation(call::get));
+        report("executeIOOperation", virtual, result);
+        if (virtual) {
+            assertTrue(result.peakInFlight >= VIRTUAL_CALLS / 5, "虚拟线程下在途调用应达到数千: " + result.peakInFlight);
+        }
+        assertEquals(0, manager.getActiveIOOperations());
+    }
+
+    @Test
+    @DisplayName("提供者阻塞调用执行器的并发扩展")
+    void testProviderExecutorScaling() throws Exception {
+        boolean virtual = VirtualThreadSupport.isEnabled();
+        Executor executor = VirtualThreadSupport.blockingIoExecutor();
+        Result result = run(virtual ? VIRTUAL_CALLS : PLATFORM_CALLS,
+            call -> CompletableFuture.supplyAsync(call::get, executor));
+        report("provider executor", virtual, result);
+        if (virtual) {
+            assertTrue(result.peakInFlight >= VIRTUAL_CALLS / 5, "虚拟线程下在途调用应达到数千: " + result.peakInFlight);
+        }
+    }
+
+    /**
+     * 同时发起 calls 次模拟调用，等待全部完成
+     */
+    private Result run(int calls, Function<Supplier<Integer>, CompletableFuture<Integer>> submit) throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Supplier<Integer> call = () -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(CALL_LATENCY_MS);
+                return 1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(calls);
+        for (int i = 0; i < calls; i++) {
+            futures.add(submit.apply(call));
+        }
+        int completed = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            completed += future.get(120, TimeUnit.SECONDS);
+        }
+        assertEquals(calls, completed);
+        return new Result(calls, peak.get(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private void report(String path, boolean virtual, Result result) {
+        logger.info("{}（{}）: {} 次 {}ms 调用耗时 {} 秒，峰值在途 {}，有效并发 {}", path,
+            virtual ? "虚拟线程" : "平台线程池", result.calls, CALL_LATENCY_MS,
+            String.format("%.2f", result.seconds), result.peakInFlight,
+            String.format("%.0f", result.calls * CALL_LATENCY_MS / 1000.0 / result.seconds));
+        if (!virtual) {
+            logger.warn("当前JDK不支持虚拟线程（{}），在途调用受线程池大小限制",
+                System.getProperty("java.version"));
+        }
+    }
+
+    private static final class Result {
+        final int calls;
+        final int peakInFlight;
+        final double seconds;
+
+        Result(int calls, int peakInFlight, double seconds) {
+            this.calls = calls;
+            this.peakInFlight = peakInFlight;
+            this.seconds = seconds;
+        }
+    }
+}
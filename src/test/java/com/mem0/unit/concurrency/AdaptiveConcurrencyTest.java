@@ -0,0 +1,159 @@
+package com.mem0.unit.concurrency;
+
+import com.mem0.concurrency.AdaptiveConcurrencyLimit;
+import com.mem0.concurrency.ConcurrencyController;
+import com.mem0.concurrency.ConcurrencyController.RequestPriority;
+import com.mem0.monitoring.PerformanceMonitor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应并发控制测试
+ * 验证梯度上限随延迟伸缩，以及控制器的优先级队列、完成时排空和按类型限流
+ */
+@DisplayName("自适应并发控制测试")
+public class AdaptiveConcurrencyTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Nested
+    @DisplayName("自适应上限")
+    class LimitTests {
+
+        @Test
+        @DisplayName("延迟稳定且满载时上限增长，延迟上升时收缩")
+        void testGradient() {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 200);
+
+            saturate(limit, 1 * MS, 20);
+            int grown = limit.getLimit();
+            assertTrue(grown > 10, "稳定延迟下上限应增长: " + limit);
+
+            saturate(limit, 10 * MS, 2);
+            assertTrue(limit.getLimit() < grown * 0.8, "延迟上升后上限应收缩: " + limit);
+            assertEquals(0, limit.getInFlight());
+        }
+
+        @Test
+        @DisplayName("未满载时不增长，丢弃使上限乘性减小")
+        void testAppLimitedAndDrop() {
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100);
+
+            for (int i = 0; i < 100; i++) {
+                assertTrue(limit.tryAcquire());
+                limit.onSuccess(MS);
+            }
+            assertEquals(20, limit.getLimit());
+
+            assertTrue(limit.tryAcquire());
+            limit.onDropped();
+            assertEquals(18, limit.getLimit());
+
+            for (int i = 0; i < 50; i++) {
+                assertTrue(limit.tryAcquire());
+                limit.onDropped();
+            }
+            assertEquals(2, limit.getLimit());
+            assertTrue(limit.tryAcquire());
+            assertTrue(limit.tryAcquire());
+            assertFalse(limit.tryAcquire());
+        }
+
+        private void saturate(AdaptiveConcurrencyLimit limit, long rttNanos, int rounds) {
+            for (int round = 0; round < rounds; round++) {
+                int acquired = 0;
+                while (limit.tryAcquire()) {
+                    acquired++;
+                }
+                for (int i = 0; i < acquired; i++) {
+                    limit.onSuccess(rttNanos);
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("并发控制器")
+    class ControllerTests {
+
+        private ConcurrencyController controller;
+
+        @AfterEach
+        void tearDown() {
+            if (controller != null) {
+                controller.shutdown().join();
+            }
+        }
+
+        @Test
+        @DisplayName("排队请求按优先级在完成时被排空，无需新请求到达")
+        void testPriorityDrainOnCompletion() throws Exception {
+            controller = new ConcurrencyController(new PerformanceMonitor(), 1, 100, 5000, 60000, 1000);
+            CompletableFuture<String> gate = new CompletableFuture<>();
+            List<String> order = new CopyOnWriteArrayList<>();
+
+            CompletableFuture<CompletableFuture<String>> running =
+                controller.executeControlledRequest("user-1", "search", () -> gate);
+            List<CompletableFuture<String>> queued = new ArrayList<>();
+            queued.add(controller.executeControlledRequest("user-1", "search", () -> record(order, "low"), RequestPriority.LOW));
+            queued.add(controller.executeControlledRequest("user-1", "search", () -> record(order, "normal"), RequestPriority.NORMAL));
+            queued.add(controller.executeControlledRequest("user-1", "search", () -> record(order, "urgent"), RequestPriority.URGENT));
+
+            running.get(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            assertTrue(order.isEmpty(), "异步请求完成前不应释放许可");
+            assertEquals(3, controller.getStats().getQueueSize());
+
+            gate.complete("done");
+            for (CompletableFuture<String> future : queued) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(java.util.Arrays.asList("urgent", "normal", "low"), order);
+            assertEquals(0, controller.getStats().getQueueSize());
+        }
+
+        @Test
+        @DisplayName("类型上限只限制该类请求，其他类型不被阻塞")
+        void testRequestTypeLimit() throws Exception {
+            controller = new ConcurrencyController(new PerformanceMonitor(), 10, 100, 5000, 60000, 1000);
+            controller.setRequestTypeLimit("embed", 1);
+            CompletableFuture<String> gate = new CompletableFuture<>();
+            List<String> started = new CopyOnWriteArrayList<>();
+
+            List<CompletableFuture<CompletableFuture<String>>> embeds = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                embeds.add(controller.executeControlledRequest("user-1", "embed", () -> {
+                    started.add("embed");
+                    return gate;
+                }));
+            }
+            String search = controller.executeControlledRequest("user-1", "search", () -> "result")
+                .get(5, TimeUnit.SECONDS);
+
+            assertEquals("result", search);
+            assertEquals(1, started.size());
+            assertEquals(1, (int) controller.getRequestTypeLimits().get("embed"));
+
+            gate.complete("done");
+            for (CompletableFuture<CompletableFuture<String>> embed : embeds) {
+                assertEquals("done", embed.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(3, started.size());
+        }
+
+        private String record(List<String> order, String name) {
+            order.add(name);
+            return name;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.mem0.unit.concurrency;
+
+import com.mem0.concurrency.ConcurrencyController;
+import com.mem0.concurrency.ConcurrencyController.RequestPriority;
+import com.mem0.concurrency.GcraRateLimiter;
+import com.mem0.monitoring.PerformanceMonitor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GCRA限流器测试
+ * 验证突发与匀速放行、并发下的精确计数、空闲键过期与分层限流
+ */
+@DisplayName("GCRA限流器测试")
+public class GcraRateLimiterTest {
+
+    @Test
+    @DisplayName("空闲键可突发N次，之后按发射间隔放行")
+    void testBurstAndRefill() throws Exception {
+        GcraRateLimiter limiter = new GcraRateLimiter(10, 2000);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("user-1"));
+        }
+        assertFalse(limiter.tryAcquire("user-1"));
+        assertTrue(limiter.tryAcquire("user-2"), "其他键不受影响");
+
+        Thread.sleep(250);
+        assertTrue(limiter.tryAcquire("user-1"));
+        assertFalse(limiter.tryAcquire("user-1"));
+
+        limiter.refund("user-1");
+        assertTrue(limiter.tryAcquire("user-1"));
+    }
+
+    @Test
+    @DisplayName("并发请求同一个键时放行数恰好等于配额")
+    void testConcurrentExactness() throws Exception {
+        GcraRateLimiter limiter = new GcraRateLimiter(500, 60000);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (limiter.tryAcquire("hot-user")) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(500, allowed.get());
+    }
+
+    @Test
+    @DisplayName("空闲键由过期时间轮删除，单独设置的速率保留")
+    void testExpireIdle() throws Exception {
+        GcraRateLimiter limiter = new GcraRateLimiter(5, 50);
+        limiter.setLimit("vip", 1, 50);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire("user-" + i));
+        }
+        assertTrue(limiter.tryAcquire("vip"));
+        assertEquals(1001, limiter.size());
+
+        Thread.sleep(150);
+        assertEquals(1001, limiter.expireIdle());
+        assertEquals(0, limiter.size());
+
+        assertTrue(limiter.tryAcquire("vip"));
+        assertFalse(limiter.tryAcquire("vip"), "过期后仍使用单独设置的速率");
+    }
+
+    @Test
+    @DisplayName("分层限流：Agent与全局配额由所有用户共享")
+    void testHierarchicalLimits() throws Exception {
+        ConcurrencyController controller = new ConcurrencyController(new PerformanceMonitor(), 10, 100, 5000, 60000, 100);
+        try {
+            controller.setAgentRateLimit("agent-1", 2, 60000);
+            assertEquals("ok", controller.executeControlledRequest("user-1", "agent-1", "search", () -> "ok",
+                RequestPriority.NORMAL).get(5, TimeUnit.SECONDS));
+            assertEquals("ok", controller.executeControlledRequest("user-2", "agent-1", "search", () -> "ok",
+                RequestPriority.NORMAL).get(5, TimeUnit.SECONDS));
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> controller.executeControlledRequest("user-3", "agent-1", "search", () -> "ok",
+                    RequestPriority.NORMAL).get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause().getMessage().contains("agent-1"));
+
+            controller.setGlobalRateLimit(1, 60000);
+            assertEquals("ok", controller.executeControlledRequest("user-3", "search", () -> "ok")
+                .get(5, TimeUnit.SECONDS));
+            error = assertThrows(ExecutionException.class,
+                () -> controller.executeControlledRequest("user-4", "search", () -> "ok").get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause().getMessage().contains("全局"));
+            assertEquals(2, controller.getStats().getRateLimitedRequests());
+        } finally {
+            controller.shutdown().join();
+        }
+    }
+}
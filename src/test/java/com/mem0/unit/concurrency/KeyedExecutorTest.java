@@ -0,0 +1,190 @@
+package com.mem0.unit.concurrency;
+
+import com.mem0.Mem0;
+import com.mem0.concurrency.KeyedExecutor;
+import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.graph.impl.DefaultInMemoryGraphStore;
+import com.mem0.llm.impl.RuleBasedLLMProvider;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按键有序执行器测试
+ * 验证同键顺序、异键并行、队列深度限制与指标，以及单条删除与同一用户的新增按顺序执行
+ */
+@DisplayName("按键有序执行器测试")
+public class KeyedExecutorTest {
+
+    private KeyedExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new KeyedExecutor("test-keyed", 4, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("同一个键的异步任务串行执行且保持提交顺序")
+    void testOrderingPerKey() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            futures.add(executor.submit("alice", () -> CompletableFuture.supplyAsync(() -> {
+                assertEquals(1, running.incrementAndGet());
+                order.add(value);
+                running.decrementAndGet();
+                return value;
+            })));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, order.get(i).intValue());
+            assertEquals(i, futures.get(i).get().intValue());
+        }
+        assertEquals(0, executor.getActiveKeys());
+        assertEquals(50, executor.getCompletedTasks());
+    }
+
+    @Test
+    @DisplayName("不同键互不阻塞，失败的任务不影响后续任务")
+    void testIndependentKeys() throws Exception {
+        CompletableFuture<Void> blocker = new CompletableFuture<>();
+        CompletableFuture<Void> blocked = executor.submit("alice", () -> blocker);
+        CompletableFuture<String> queued = executor.submit("alice", () -> CompletableFuture.completedFuture("next"));
+
+        assertEquals("bob", executor.submit("bob", () -> CompletableFuture.completedFuture("bob"))
+            .get(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.getQueueDepth("alice"));
+        assertFalse(queued.isDone());
+
+        blocker.completeExceptionally(new IllegalStateException("boom"));
+        ExecutionException error = assertThrows(ExecutionException.class, blocked::get);
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertEquals("next", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.getFailedTasks());
+    }
+
+    @Test
+    @DisplayName("超过每键队列深度时拒绝提交")
+    void testQueueDepthLimit() throws Exception {
+        KeyedExecutor bounded = new KeyedExecutor("test-bounded", 1, 2);
+        try {
+            CompletableFuture<Void> gate = new CompletableFuture<>();
+            bounded.submit("alice", () -> gate);
+            CompletableFuture<Void> queued = bounded.submit("alice", () -> CompletableFuture.completedFuture(null));
+
+            CompletableFuture<Void> rejected = bounded.submit("alice", () -> CompletableFuture.completedFuture(null));
+            ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+            assertTrue(error.getCause() instanceof RejectedExecutionException);
+            assertEquals(1, bounded.getRejectedTasks());
+            assertEquals(2, bounded.getMaxObservedDepth());
+
+            gate.complete(null);
+            queued.get(5, TimeUnit.SECONDS);
+            bounded.submit("alice", () -> CompletableFuture.completedFuture(null)).get(5, TimeUnit.SECONDS);
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Mem0入口：单条删除等待同一用户进行中的新增完成")
+    void testSingleDeleteWaitsForUsersAdd() throws Exception {
+        GatedEmbeddingProvider provider = new GatedEmbeddingProvider();
+        Mem0 mem0 = new Mem0(new InMemoryVectorStore(), new DefaultInMemoryGraphStore(),
+            provider, new RuleBasedLLMProvider());
+        try {
+            String existing = mem0.add("I like green tea", "alice").get(30, TimeUnit.SECONDS);
+
+            CompletableFuture<String> add = mem0.add("I drink coffee every morning", "alice");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (provider.gatedEmbeds.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(provider.gatedEmbeds.get() > 0, "新增应已进入嵌入阶段");
+
+            CompletableFuture<Void> delete = mem0.delete(existing);
+            Thread.sleep(200);
+            assertFalse(delete.isDone(), "删除应排在进行中的新增之后");
+
+            provider.gate.complete(Arrays.asList(0f, 0f, 1f, 0f));
+            assertNotNull(add.get(30, TimeUnit.SECONDS));
+            delete.get(30, TimeUnit.SECONDS);
+            assertNull(mem0.get(existing).get(10, TimeUnit.SECONDS));
+        } finally {
+            mem0.close();
+        }
+    }
+
+    /**
+     * 含coffee的文本在放行前挂起嵌入的提供者
+     */
+    private static class GatedEmbeddingProvider implements EmbeddingProvider {
+        final CompletableFuture<List<Float>> gate = new CompletableFuture<>();
+        final AtomicInteger gatedEmbeds = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<List<Float>> embed(String text) {
+            if (text.contains("coffee")) {
+                gatedEmbeds.incrementAndGet();
+                return gate.thenApply(ArrayList::new);
+            }
+            return CompletableFuture.completedFuture(Arrays.asList(1f, 0f, 0f, 0f));
+        }
+
+        @Override
+        public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
+            List<CompletableFuture<List<Float>>> embeds = new ArrayList<>();
+            for (String text : texts) {
+                embeds.add(embed(text));
+            }
+            return CompletableFuture.allOf(embeds.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<List<Float>> vectors = new ArrayList<>();
+                    embeds.forEach(embed -> vectors.add(embed.join()));
+                    return vectors;
+                });
+        }
+
+        @Override
+        public int getDimension() {
+            return 4;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "gated";
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.mem0.unit.concurrency;
+
+import com.mem0.Mem0;
+import com.mem0.concurrency.SingleFlight;
+import com.mem0.core.EnhancedMemory;
+import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.graph.impl.DefaultInMemoryGraphStore;
+import com.mem0.llm.impl.RuleBasedLLMProvider;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单飞请求合并测试
+ * 验证并发相同请求只执行一次、写入后不再复用旧的请求与备忘，以及检索入口的合并效果
+ */
+@DisplayName("单飞请求合并测试")
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("并发的相同请求共享一次加载，每个调用方拿到各自的结果副本")
+    void testConcurrentIdenticalRequestsCollapse() throws Exception {
+        SingleFlight<List<String>> flight = new SingleFlight<>("test", ArrayList::new);
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<List<String>> gate = new CompletableFuture<>();
+
+        List<CompletableFuture<List<String>>> callers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // 空白不同的相同查询视为同一个请求
+            callers.add(flight.execute("user-1", SingleFlight.key(i % 2 == 0 ? "coffee  order" : " coffee order", 5),
+                () -> {
+                    loads.incrementAndGet();
+                    return gate;
+                }));
+        }
+        CompletableFuture<List<String>> otherUser = flight.execute("user-2", SingleFlight.key("coffee order", 5),
+            () -> CompletableFuture.completedFuture(Arrays.asList("other")));
+
+        assertEquals(1, loads.get());
+        gate.complete(Arrays.asList("a", "b"));
+        for (CompletableFuture<List<String>> caller : callers) {
+            assertEquals(Arrays.asList("a", "b"), caller.get(5, TimeUnit.SECONDS));
+        }
+        assertNotSame(callers.get(0).get(), callers.get(1).get(), "可变结果不应在调用方之间共享");
+        assertEquals(Arrays.asList("other"), otherUser.get(5, TimeUnit.SECONDS));
+
+        SingleFlight.Stats stats = flight.getStats();
+        assertEquals(11, stats.getRequests());
+        assertEquals(2, stats.getExecutions());
+        assertEquals(9, stats.getCollapsed());
+        assertEquals(9.0 / 11, stats.getCollapseRate(), 1e-9);
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    @DisplayName("失败传给所有调用方且不备忘，取消自己的future不影响其他调用方")
+    void testFailureAndCancellation() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>("test", 60_000, 100, null);
+        CompletableFuture<String> gate = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("u", "k", () -> gate);
+        CompletableFuture<String> second = flight.execute("u", "k", () -> gate);
+
+        first.cancel(true);
+        gate.completeExceptionally(new IllegalStateException("boom"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("ok", flight.execute("u", "k", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("ok");
+        }).get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get(), "失败的结果不应被备忘");
+    }
+
+    @Test
+    @DisplayName("备忘在有效期内命中，用户写入后立即失效，加载期间发生写入时不备忘")
+    void testMemoInvalidatedByWrites() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>("test", 60_000, 100, null);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", flight.execute("u", "k", () -> load(loads, "v1")).get());
+        assertEquals("v1", flight.execute("u", "k", () -> load(loads, "v2")).get());
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getStats().getMemoHits());
+
+        flight.execute("other", "k", () -> load(loads, "x"));
+        flight.invalidate("other");
+        assertEquals("v1", flight.execute("u", "k", () -> load(loads, "v2")).get(), "其他用户的写入不影响");
+
+        flight.invalidate("u");
+        assertEquals("v2", flight.execute("u", "k", () -> load(loads, "v2")).get());
+
+        // 加载进行中发生写入：之后的请求不加入旧的加载，旧的结果也不备忘
+        CompletableFuture<String> gate = new CompletableFuture<>();
+        flight.invalidate("u");
+        CompletableFuture<String> stale = flight.execute("u", "k", () -> gate);
+        flight.invalidate("u");
+        CompletableFuture<String> fresh = flight.execute("u", "k", () -> load(loads, "v3"));
+        gate.complete("stale");
+        assertEquals("stale", stale.get());
+        assertEquals("v3", fresh.get());
+        assertEquals("v3", flight.execute("u", "k", () -> load(loads, "v4")).get());
+
+        flight.invalidateAll();
+        assertEquals("v5", flight.execute("u", "k", () -> load(loads, "v5")).get());
+    }
+
+    @Test
+    @DisplayName("失效不为作用域保留状态：只移出该作用域进行中的请求，大量用户写入后表为空")
+    void testInvalidationKeepsNoPerScopeState() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>("test", 60_000, 100, null);
+        CompletableFuture<String> gate = new CompletableFuture<>();
+        CompletableFuture<String> pending = flight.execute("u", "k", () -> gate);
+        CompletableFuture<String> other = flight.execute("other", "k", () -> gate);
+        assertEquals(2, flight.getStats().getInFlight());
+
+        flight.invalidate("u");
+        assertEquals(1, flight.getStats().getInFlight(), "只移出被写入作用域的请求");
+        for (int i = 0; i < 10_000; i++) {
+            flight.invalidate("user-" + i);
+        }
+
+        gate.complete("v");
+        assertEquals("v", pending.get(5, TimeUnit.SECONDS));
+        assertEquals("v", other.get(5, TimeUnit.SECONDS));
+        SingleFlight.Stats stats = flight.getStats();
+        assertEquals(0, stats.getInFlight());
+        assertEquals(1, stats.getMemoEntries(), "过时的加载不备忘，其他作用域的结果照常备忘");
+    }
+
+    @Test
+    @DisplayName("Mem0检索入口：并发的相同检索只嵌入一次查询")
+    void testSearchEntryPointCollapses() throws Exception {
+        GatedEmbeddingProvider provider = new GatedEmbeddingProvider();
+        Mem0 mem0 = new Mem0(new InMemoryVectorStore(), new DefaultInMemoryGraphStore(),
+            provider, new RuleBasedLLMProvider());
+        try {
+            List<CompletableFuture<List<EnhancedMemory>>> searches = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                searches.add(mem0.search("what do I drink", "user-1", 5));
+            }
+            assertEquals(1, provider.queryEmbeds.get());
+
+            provider.gate.complete(Arrays.asList(1f, 0f, 0f, 0f));
+            for (CompletableFuture<List<EnhancedMemory>> search : searches) {
+                assertNotNull(search.get(10, TimeUnit.SECONDS));
+            }
+
+            // 默认不备忘，完成后的检索重新执行
+            mem0.search("what do I drink", "user-1", 5).get(10, TimeUnit.SECONDS);
+            assertEquals(2, provider.queryEmbeds.get());
+        } finally {
+            mem0.close();
+        }
+    }
+
+    private static CompletableFuture<String> load(AtomicInteger loads, String value) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(value);
+    }
+
+    /**
+     * 查询嵌入在放行前挂起的提供者，统计查询被嵌入的次数
+     */
+    private static class GatedEmbeddingProvider implements EmbeddingProvider {
+        final CompletableFuture<List<Float>> gate = new CompletableFuture<>();
+        final AtomicInteger queryEmbeds = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<List<Float>> embed(String text) {
+            if (text.startsWith("what")) {
+                queryEmbeds.incrementAndGet();
+                return gate.thenApply(ArrayList::new);
+            }
+            return CompletableFuture.completedFuture(Arrays.asList(0f, 1f, 0f, 0f));
+        }
+
+        @Override
+        public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
+            List<List<Float>> vectors = new ArrayList<>();
+            for (String text : texts) {
+                vectors.add(Arrays.asList(0f, 1f, 0f, 0f));
+            }
+            return CompletableFuture.completedFuture(vectors);
+        }
+
+        @Override
+        public int getDimension() {
+            return 4;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "gated";
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mem0.unit.concurrency;
+
+import com.mem0.concurrency.VersionedResultCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按作用域版本失效的结果缓存测试
+ * 验证写入后的精确失效、计算期间发生写入时不缓存、条目上限与并发读写下不返回过时结果
+ */
+@DisplayName("按作用域版本失效的结果缓存测试")
+public class VersionedResultCacheTest {
+
+    @Test
+    @DisplayName("失效只影响对应用户，计算期间发生写入的结果不缓存")
+    void testInvalidationIsPerScope() {
+        VersionedResultCache<String, List<String>> cache = new VersionedResultCache<>("test", 100, 60_000, ArrayList::new);
+
+        assertTrue(cache.put("u1", "q", cache.version("u1"), Arrays.asList("a")));
+        assertTrue(cache.put("u2", "q", cache.version("u2"), Arrays.asList("b")));
+        List<String> hit = cache.get("u1", "q");
+        assertEquals(Arrays.asList("a"), hit);
+        hit.clear();
+        assertEquals(Arrays.asList("a"), cache.get("u1", "q"), "修改返回值不应影响缓存");
+
+        cache.invalidate("u1");
+        assertNull(cache.get("u1", "q"));
+        assertEquals(Arrays.asList("b"), cache.get("u2", "q"));
+
+        // 先取版本、后发生写入：这次计算的结果是过时的，不能进入缓存
+        long version = cache.version("u1");
+        cache.invalidate("u1");
+        assertFalse(cache.put("u1", "q", version, Arrays.asList("stale")));
+        assertNull(cache.get("u1", "q"));
+
+        cache.invalidateAll();
+        assertNull(cache.get("u2", "q"));
+        assertTrue(cache.put("u2", "q", cache.version("u2"), Arrays.asList("c")));
+        assertEquals(Arrays.asList("c"), cache.get("u2", "q"));
+
+        VersionedResultCache.Stats stats = cache.getStats();
+        assertEquals(4, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(1, stats.getStaleDrops());
+    }
+
+    @Test
+    @DisplayName("条目数不超过上限，淘汰最久未访问的条目，过期条目不再返回")
+    void testBoundedAndExpiring() throws Exception {
+        VersionedResultCache<Integer, String> cache = new VersionedResultCache<>("test", 100, 60_000, null);
+        for (int i = 0; i < 100; i++) {
+            cache.put("u", i, cache.version("u"), "v" + i);
+        }
+        // 访问前10个，使它们在淘汰时被保留
+        Thread.sleep(2);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v" + i, cache.get("u", i));
+        }
+        cache.put("u", 100, cache.version("u"), "v100");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v" + i, cache.get("u", i));
+        }
+        assertNull(cache.get("u", 10));
+        for (int i = 101; i < 1_000; i++) {
+            cache.put("u", i, cache.version("u"), "v" + i);
+            assertTrue(cache.size() <= 100, "size: " + cache.size());
+        }
+        assertTrue(cache.getStats().getEvictions() >= 900);
+        assertEquals("v999", cache.get("u", 999));
+
+        VersionedResultCache<String, String> shortLived = new VersionedResultCache<>("test", 10, 20, null);
+        shortLived.put("u", "q", shortLived.version("u"), "v");
+        assertEquals("v", shortLived.get("u", "q"));
+        Thread.sleep(50);
+        assertNull(shortLived.get("u", "q"));
+    }
+
+    @Test
+    @DisplayName("没有条目的作用域的版本记录被清理，清理后写入前取得的版本仍然无效")
+    void testScopeVersionsArePruned() {
+        VersionedResultCache<String, String> cache = new VersionedResultCache<>("test", 10, 60_000, null);
+        assertTrue(cache.put("kept", "q", cache.version("kept"), "v"));
+
+        long before = cache.version("gone");
+        cache.invalidate("gone");
+        for (int i = 0; i < 1_000; i++) {
+            cache.invalidate("user-" + i);
+            assertTrue(cache.getStats().getScopes() <= 21, "scopes: " + cache.getStats().getScopes());
+        }
+
+        assertFalse(cache.put("gone", "q", before, "stale"), "记录被清理后旧版本也不能写入");
+        assertNull(cache.get("gone", "q"));
+        assertEquals("v", cache.get("kept", "q"), "有条目的作用域不受清理影响");
+        assertTrue(cache.put("gone", "q", cache.version("gone"), "fresh"));
+        assertEquals("fresh", cache.get("gone", "q"));
+    }
+
+    @Test
+    @DisplayName("并发写入与读取时，读到的结果总不早于读取开始前完成的写入")
+    void testNoStaleReadsUnderConcurrency() throws Exception {
+        VersionedResultCache<String, Long> cache = new VersionedResultCache<>("test", 1_000, 60_000, null);
+        AtomicLong committed = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    committed.incrementAndGet();
+                    cache.invalidate("u");
+                }
+                running.set(false);
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(executor.submit(() -> {
+                    while (running.get()) {
+                        // 读取开始前已完成并失效的写入必须反映在命中的结果里
+                        long floor = committed.get() - 1;
+                        Long cached = cache.get("u", "q");
+                        if (cached != null) {
+                            assertTrue(cached >= floor, "过时的结果: " + cached + " < " + floor);
+                            continue;
+                        }
+                        long version = cache.version("u");
+                        cache.put("u", "q", version, committed.get());
+                    }
+                }));
+            }
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.mem0.unit.core;
+
+import com.mem0.Mem0;
+import com.mem0.core.EnhancedMemory;
+import com.mem0.core.MemoryImportance;
+import com.mem0.core.MemoryStatisticsAggregator;
+import com.mem0.core.MemoryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 增量记忆统计测试
+ * 验证新增、更新、访问、删除对聚合值的影响以及播种时的墓碑处理
+ */
+@DisplayName("增量记忆统计测试")
+public class MemoryStatisticsAggregatorTest {
+
+    private MemoryStatisticsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new MemoryStatisticsAggregator();
+    }
+
+    @Test
+    @DisplayName("新增、更新与删除只调整受影响的计数")
+    void testIncrementalUpdates() {
+        EnhancedMemory fact = memory("m1", "alice", MemoryType.FACTUAL, 10);
+        EnhancedMemory preference = memory("m2", "alice", MemoryType.PREFERENCE, 20);
+        aggregator.record(fact);
+        aggregator.record(preference);
+        aggregator.record(memory("m3", "bob", MemoryType.FACTUAL, 0));
+
+        Mem0.MemoryStatistics stats = aggregator.snapshot("alice");
+        assertEquals(2, stats.getTotalMemories());
+        assertEquals(Integer.valueOf(1), stats.getMemoryTypeCount().get(MemoryType.FACTUAL));
+        assertEquals(15.0, stats.getAverageAge(), 0.01);
+
+        // 新建的记忆访问计数从1开始，两次访问后为3，另一条保持1
+        assertEquals(1, fact.getAccessCount());
+        assertEquals(1, preference.getAccessCount());
+        preference.recordAccess();
+        preference.recordAccess();
+        assertEquals(3, preference.getAccessCount());
+        preference.deprecate();
+        aggregator.record(preference);
+        stats = aggregator.snapshot("alice");
+        assertEquals(2, stats.getTotalMemories());
+        assertEquals((1 + 3) / 2.0, stats.getAverageAccessCount(), 1e-9);
+        assertEquals(1, stats.getDeprecatedMemories());
+        assertEquals(Integer.valueOf(1), stats.getImportanceDistribution().get(MemoryImportance.MINIMAL));
+
+        aggregator.remove("m2");
+        aggregator.remove("m2");
+        stats = aggregator.snapshot("alice");
+        assertEquals(1, stats.getTotalMemories());
+        assertNull(stats.getMemoryTypeCount().get(MemoryType.PREFERENCE));
+        assertEquals(0, stats.getDeprecatedMemories());
+        assertEquals(0, aggregator.snapshot("nobody").getTotalMemories());
+    }
+
+    @Test
+    @DisplayName("播种不重复登记，也不会复活播种期间删除的记忆")
+    void testSeeding() {
+        EnhancedMemory live = memory("m1", "alice", MemoryType.FACTUAL, 1);
+        EnhancedMemory deleted = memory("m2", "alice", MemoryType.FACTUAL, 1);
+        aggregator.record(live);
+        assertFalse(aggregator.isSeeded("alice"));
+
+        aggregator.beginSeed();
+        aggregator.remove("m2");
+        assertFalse(aggregator.recordIfAbsent(live));
+        assertFalse(aggregator.recordIfAbsent(deleted));
+        assertTrue(aggregator.recordIfAbsent(memory("m3", "alice", MemoryType.EPISODIC, 1)));
+        aggregator.endSeed("alice", true);
+
+        assertTrue(aggregator.isSeeded("alice"));
+        assertEquals(2, aggregator.snapshot("alice").getTotalMemories());
+
+        aggregator.beginSeed();
+        aggregator.endSeed("bob", false);
+        assertFalse(aggregator.isSeeded("bob"));
+    }
+
+    @Test
+    @DisplayName("并发记录同一批记忆后聚合值准确")
+    void testConcurrentRecords() throws Exception {
+        List<EnhancedMemory> memories = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            memories.add(memory("m" + i, "alice", i % 2 == 0 ? MemoryType.FACTUAL : MemoryType.SEMANTIC, 0));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> memories.forEach(aggregator::record)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Mem0.MemoryStatistics stats = aggregator.snapshot("alice");
+        assertEquals(200, stats.getTotalMemories());
+        assertEquals(Integer.valueOf(100), stats.getMemoryTypeCount().get(MemoryType.SEMANTIC));
+    }
+
+    @Test
+    @DisplayName("播种与删除并发时，被删除的记忆不会被重新登记")
+    void testSeedRacingRemoveNeverResurrects() throws Exception {
+        int count = 2_000;
+        List<EnhancedMemory> memories = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            memories.add(memory("m" + i, "alice", MemoryType.FACTUAL, 0));
+        }
+        aggregator.beginSeed();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> seed = executor.submit(() -> {
+                start.await();
+                memories.forEach(aggregator::recordIfAbsent);
+                return null;
+            });
+            Future<?> deletes = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < count; i += 2) {
+                    aggregator.remove("m" + i);
+                }
+                return null;
+            });
+            start.countDown();
+            seed.get(30, TimeUnit.SECONDS);
+            deletes.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        aggregator.endSeed("alice", true);
+
+        assertEquals(count / 2, aggregator.snapshot("alice").getTotalMemories());
+    }
+
+    private static EnhancedMemory memory(String id, String userId, MemoryType type, int daysOld) {
+        EnhancedMemory memory = new EnhancedMemory(id, "content " + id, userId);
+        memory.setType(type);
+        memory.setCreatedAt(LocalDateTime.now().minusDays(daysOld));
+        return memory;
+    }
+}
@@ -0,0 +1,239 @@
+package com.mem0.unit.core;
+
+import com.mem0.Mem0;
+import com.mem0.core.SemanticAnswerCache;
+import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.graph.impl.DefaultInMemoryGraphStore;
+import com.mem0.llm.impl.RuleBasedLLMProvider;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 语义RAG答案缓存测试
+ * 验证相似查询命中、参数不同或相似度不足时未命中、用户写入后失效、答案各自过期与并发写入，以及RAG入口跳过LLM生成
+ */
+@DisplayName("语义RAG答案缓存测试")
+public class SemanticAnswerCacheTest {
+
+    private static final Object VARIANT = Arrays.asList(5, null);
+
+    @Test
+    @DisplayName("相似度不低于阈值且参数相同时命中")
+    void testSimilarQueriesHit() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(60_000, 0.95, 100, 16);
+        cache.put("u", cache.version("u"), Arrays.asList(1f, 0f, 0f), VARIANT, "coffee");
+
+        assertEquals("coffee", cache.get("u", Arrays.asList(2f, 0f, 0f), VARIANT), "只差长度的向量应命中");
+        assertEquals("coffee", cache.get("u", Arrays.asList(1f, 0.1f, 0f), VARIANT));
+        assertNull(cache.get("u", Arrays.asList(1f, 1f, 0f), VARIANT), "相似度约0.71，低于阈值");
+        assertNull(cache.get("u", Arrays.asList(1f, 0f, 0f), Arrays.asList(3, null)), "记忆数不同不应命中");
+        assertNull(cache.get("other", Arrays.asList(1f, 0f, 0f), VARIANT), "其他用户不应命中");
+
+        // 多个候选时返回最相似的答案
+        cache.put("u", cache.version("u"), Arrays.asList(0f, 1f, 0f), VARIANT, "tea");
+        assertEquals("tea", cache.get("u", Arrays.asList(0.05f, 1f, 0f), VARIANT));
+
+        SemanticAnswerCache.Stats stats = cache.getStats();
+        assertEquals(3, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("用户写入后答案全部失效，写入前开始生成的答案不进入缓存")
+    void testWritesInvalidate() {
+        SemanticAnswerCache cache = new SemanticAnswerCache(60_000, 0.95, 100, 16);
+        List<Float> query = Arrays.asList(1f, 0f, 0f);
+        cache.put("u", cache.version("u"), query, VARIANT, "before");
+        cache.put("other", cache.version("other"), query, VARIANT, "other");
+
+        cache.invalidate("u");
+        assertNull(cache.get("u", query, VARIANT));
+        assertEquals("other", cache.get("other", query, VARIANT));
+
+        long version = cache.version("u");
+        cache.invalidate("u");
+        cache.put("u", version, query, VARIANT, "stale");
+        assertNull(cache.get("u", query, VARIANT));
+
+        cache.put("u", cache.version("u"), query, VARIANT, "after");
+        assertEquals("after", cache.get("u", query, VARIANT));
+        cache.invalidateAll();
+        assertNull(cache.get("u", query, VARIANT));
+        assertNull(cache.get("other", query, VARIANT));
+    }
+
+    @Test
+    @DisplayName("答案过期后不再返回，每个用户的答案数不超过上限")
+    void testExpiryAndCapacity() throws Exception {
+        SemanticAnswerCache cache = new SemanticAnswerCache(60_000, 0.99, 100, 4);
+        for (int i = 0; i < 10; i++) {
+            float[] direction = new float[10];
+            direction[i] = 1f;
+            cache.put("u", cache.version("u"), toList(direction), VARIANT, "a" + i);
+        }
+        assertNull(cache.get("u", toList(new float[]{1f, 0f, 0f, 0f, 0f, 0f, 0f, 0f, 0f, 0f}), VARIANT), "最早的答案应被淘汰");
+        assertEquals("a9", cache.get("u", toList(new float[]{0f, 0f, 0f, 0f, 0f, 0f, 0f, 0f, 0f, 1f}), VARIANT));
+
+        SemanticAnswerCache shortLived = new SemanticAnswerCache(20, 0.95, 100, 4);
+        shortLived.put("u", shortLived.version("u"), Arrays.asList(1f, 0f), VARIANT, "v");
+        assertEquals("v", shortLived.get("u", Arrays.asList(1f, 0f), VARIANT));
+        Thread.sleep(50);
+        assertNull(shortLived.get("u", Arrays.asList(1f, 0f), VARIANT));
+    }
+
+    @Test
+    @DisplayName("索引不随最早的答案一起过期，并发写入的答案都保留")
+    void testIndexOutlivesAnswersAndConcurrentPutsKeepAll() throws Exception {
+        SemanticAnswerCache cache = new SemanticAnswerCache(400, 0.99, 100, 16);
+        cache.put("u", cache.version("u"), Arrays.asList(1f, 0f), VARIANT, "early");
+        Thread.sleep(250);
+        cache.put("u", cache.version("u"), Arrays.asList(0f, 1f), VARIANT, "late");
+        Thread.sleep(250);
+        assertNull(cache.get("u", Arrays.asList(1f, 0f), VARIANT));
+        assertEquals("late", cache.get("u", Arrays.asList(0f, 1f), VARIANT), "后加入的答案按自己的存活时间过期");
+
+        SemanticAnswerCache shared = new SemanticAnswerCache(60_000, 0.99, 100, 16);
+        int threads = 8;
+        long version = shared.version("u");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> puts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int index = t;
+                puts.add(executor.submit(() -> {
+                    start.await();
+                    shared.put("u", version, direction(threads, index), VARIANT, "a" + index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> put : puts) {
+                put.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int t = 0; t < threads; t++) {
+            assertEquals("a" + t, shared.get("u", direction(threads, t), VARIANT));
+        }
+    }
+
+    @Test
+    @DisplayName("RAG入口：相似问题命中缓存不再调用LLM，新增记忆后重新生成")
+    void testQueryWithRAGUsesCache() throws Exception {
+        CountingLLMProvider llm = new CountingLLMProvider();
+        Mem0 mem0 = new Mem0(new InMemoryVectorStore(), new DefaultInMemoryGraphStore(), new WordEmbeddingProvider(), llm);
+        try {
+            assertNull(mem0.getAnswerCacheStats(), "默认关闭");
+            mem0.configureAnswerCache(60_000, 0.95);
+            mem0.add("I like to drink coffee", "user-1").get(30, TimeUnit.SECONDS);
+
+            String first = mem0.queryWithRAG("What do I like to drink?", "user-1").get(30, TimeUnit.SECONDS);
+            int generations = llm.chatCompletions.get();
+            String second = mem0.queryWithRAG("what do I like to drink", "user-1").get(30, TimeUnit.SECONDS);
+            assertEquals(first, second);
+            assertEquals(generations, llm.chatCompletions.get(), "命中时不应调用LLM");
+            assertEquals(1, mem0.getAnswerCacheStats().getHits());
+
+            mem0.queryWithRAG("where do I live", "user-1").get(30, TimeUnit.SECONDS);
+            assertTrue(llm.chatCompletions.get() > generations, "不相似的问题应重新生成");
+
+            // 新增记忆使该用户的答案失效
+            mem0.add("I live in Hangzhou", "user-1").get(30, TimeUnit.SECONDS);
+            int afterWrite = llm.chatCompletions.get();
+            mem0.queryWithRAG("what do I like to drink", "user-1").get(30, TimeUnit.SECONDS);
+            assertTrue(llm.chatCompletions.get() > afterWrite, "写入后应重新生成");
+        } finally {
+            mem0.close();
+        }
+    }
+
+    private static List<Float> direction(int dimension, int axis) {
+        float[] vector = new float[dimension];
+        vector[axis] = 1f;
+        return toList(vector);
+    }
+
+    private static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float value : vector) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * 统计对话生成次数的规则LLM
+     */
+    private static class CountingLLMProvider extends RuleBasedLLMProvider {
+        final AtomicInteger chatCompletions = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<LLMResponse> generateChatCompletion(List<ChatMessage> messages, LLMConfig config) {
+            chatCompletions.incrementAndGet();
+            return super.generateChatCompletion(messages, config);
+        }
+    }
+
+    /**
+     * 按单词哈希的词袋嵌入，大小写与标点不同的相同问题得到相同的向量
+     */
+    private static class WordEmbeddingProvider implements EmbeddingProvider {
+        private static final int DIMENSION = 64;
+
+        @Override
+        public CompletableFuture<List<Float>> embed(String text) {
+            float[] vector = new float[DIMENSION];
+            for (String word : text.toLowerCase().split("[^a-z]+")) {
+                if (!word.isEmpty()) {
+                    vector[Math.floorMod(word.hashCode(), DIMENSION)] += 1f;
+                }
+            }
+            return CompletableFuture.completedFuture(toList(vector));
+        }
+
+        @Override
+        public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
+            List<List<Float>> vectors = new ArrayList<>();
+            for (String text : texts) {
+                vectors.add(embed(text).join());
+            }
+            return CompletableFuture.completedFuture(vectors);
+        }
+
+        @Override
+        public int getDimension() {
+            return DIMENSION;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "word-hash";
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.mem0.unit.embedding;
+
+import com.mem0.embedding.impl.CorpusStatistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 无锁语料统计单元测试
+ * Lock-Free Corpus Statistics Unit Tests
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+@DisplayName("Corpus Statistics Tests")
+class CorpusStatisticsTest {
+
+    @Test
+    @DisplayName("Empty corpus weighs every term at 1")
+    void shouldWeighTermsEquallyWhenEmpty() {
+        CorpusStatistics statistics = CorpusStatistics.exact(16);
+        assertEquals(1.0f, statistics.snapshot().idf(3), 1e-6f);
+        assertEquals(0, statistics.snapshot().getDocumentCount());
+    }
+
+    @Test
+    @DisplayName("Published snapshots are immutable and rarer terms weigh more")
+    void shouldPublishImmutableSnapshots() {
+        CorpusStatistics statistics = CorpusStatistics.exact(16);
+        statistics.addDocument(new int[]{0, 1}, 2);
+        statistics.addDocument(new int[]{0}, 1);
+        statistics.addDocument(new int[]{0, 2}, 2);
+
+        CorpusStatistics.IdfSnapshot before = statistics.snapshot();
+        CorpusStatistics.IdfSnapshot published = statistics.publish();
+
+        assertEquals(0, before.getDocumentCount());
+        assertEquals(3, published.getDocumentCount());
+        assertEquals(3, published.getPopulatedCells());
+        assertTrue(published.idf(1) > published.idf(0));
+        assertEquals((float) (Math.log(4.0 / 4.0) + 1.0), published.idf(0), 1e-6f);
+
+        statistics.addDocument(new int[]{1}, 1);
+        assertEquals(3, published.getDocumentCount());
+        assertEquals(2, statistics.documentFrequency(1));
+    }
+
+    @Test
+    @DisplayName("Snapshots refresh automatically once enough documents arrive")
+    void shouldRefreshAutomatically() {
+        CorpusStatistics statistics = CorpusStatistics.exact(16).withMinRefreshDocuments(10);
+        for (int i = 0; i < 9; i++) {
+            statistics.addDocument(new int[]{i}, 1);
+        }
+        assertEquals(0, statistics.snapshot().getDocumentCount());
+
+        statistics.addDocument(new int[]{9}, 1);
+        assertEquals(10, statistics.snapshot().getDocumentCount());
+    }
+
+    @Test
+    @DisplayName("Count-min sketch never underestimates document frequencies")
+    void shouldNotUnderestimateWithSketch() {
+        CorpusStatistics sketch = CorpusStatistics.countMinSketch(64, 4);
+        for (int doc = 0; doc < 200; doc++) {
+            int shift = doc % 3;
+            int[] keys = IntStream.range(0, 5).map(k -> k * 7919 + shift).toArray();
+            sketch.addDocument(keys, keys.length);
+        }
+
+        long trueFrequency = IntStream.range(0, 200).filter(doc -> doc % 3 == 0).count();
+        assertTrue(sketch.documentFrequency(0) >= trueFrequency);
+        assertEquals(64L * 4 * Long.BYTES, sketch.getSizeInBytes());
+    }
+
+    @Test
+    @DisplayName("Concurrent document counting is exact")
+    void shouldCountConcurrently() {
+        CorpusStatistics statistics = CorpusStatistics.exact(8);
+        IntStream.range(0, 10000).parallel()
+            .forEach(i -> statistics.addDocument(new int[]{i % 4}, 1));
+
+        assertEquals(10000, statistics.getDocumentCount());
+        assertEquals(2500, statistics.documentFrequency(1));
+    }
+}
@@ -0,0 +1,118 @@
+package com.mem0.unit.embedding;
+
+import com.mem0.embedding.impl.HashingTextVectorizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 特征哈希文本向量化器单元测试
+ * Feature-Hashing Text Vectorizer Unit Tests
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+@DisplayName("Hashing Text Vectorizer Tests")
+class HashingTextVectorizerTest {
+
+    private final HashingTextVectorizer vectorizer = new HashingTextVectorizer(64);
+
+    @Test
+    @DisplayName("Latin words are lower-cased and punctuation splits tokens")
+    void shouldTokenizeLatinWords() {
+        assertEquals(Arrays.asList("hello", "world", "java8"),
+            vectorizer.tokens("Hello, WORLD! a Java8"));
+    }
+
+    @Test
+    @DisplayName("Overlong Latin words are dropped")
+    void shouldDropOverlongWords() {
+        char[] longWord = new char[HashingTextVectorizer.MAX_TOKEN_LENGTH + 1];
+        Arrays.fill(longWord, 'x');
+        assertEquals(Arrays.asList("ok", "fine"),
+            vectorizer.tokens("ok " + new String(longWord) + " fine"));
+    }
+
+    @Test
+    @DisplayName("CJK runs emit overlapping bigrams and isolated unigrams")
+    void shouldTokenizeCjkAsBigrams() {
+        assertEquals(Arrays.asList("我喜", "喜欢", "欢咖", "咖啡", "coffee", "好"),
+            vectorizer.tokens("我喜欢咖啡coffee，好"));
+    }
+
+    @Test
+    @DisplayName("Term hashes are independent of the buffer offset")
+    void shouldHashSliceConsistently() {
+        char[] chars = "xxhelloyy".toCharArray();
+        int sliced = HashingTextVectorizer.murmur3(chars, 2, 5, 42);
+        int whole = HashingTextVectorizer.murmur3("hello".toCharArray(), 0, 5, 42);
+        assertEquals(whole, sliced);
+        assertNotEquals(whole, HashingTextVectorizer.murmur3("hellp".toCharArray(), 0, 5, 42));
+    }
+
+    @Test
+    @DisplayName("Term visitor reports distinct terms with counts")
+    void shouldCountDistinctTerms() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        int total = vectorizer.forEachTerm("apple banana apple cherry apple", counts::put);
+
+        assertEquals(5, total);
+        assertEquals(3, counts.size());
+        assertEquals(Integer.valueOf(3), counts.get(vectorizer.hashTerm("apple")));
+        assertEquals(Integer.valueOf(1), counts.get(vectorizer.hashTerm("banana")));
+    }
+
+    @Test
+    @DisplayName("Term table grows past its initial capacity")
+    void shouldGrowTermTable() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("term").append(i).append(' ');
+        }
+        Map<Integer, Integer> counts = new HashMap<>();
+        assertEquals(1000, vectorizer.forEachTerm(text, counts::put));
+        assertEquals(1000, counts.size());
+    }
+
+    @Test
+    @DisplayName("Vectors are normalised, deterministic and case-insensitive")
+    void shouldVectorizeDeterministically() {
+        float[] a = vectorizer.vectorize("Memory systems store facts", null);
+        float[] b = vectorizer.vectorize("memory SYSTEMS store facts", null);
+
+        assertEquals(64, a.length);
+        assertArrayEquals(a, b);
+        double norm = 0.0;
+        for (float v : a) {
+            norm += v * v;
+        }
+        assertEquals(1.0, norm, 1e-5);
+    }
+
+    @Test
+    @DisplayName("Texts without tokens produce zero vectors")
+    void shouldReturnZeroVectorWithoutTokens() {
+        float[] vector = vectorizer.vectorize("!!! ... ?", null);
+        assertArrayEquals(new float[64], vector);
+    }
+
+    @Test
+    @DisplayName("Term weights scale individual features")
+    void shouldApplyTermWeights() {
+        int hash = vectorizer.hashTerm("rare");
+        float[] weighted = vectorizer.vectorize("rare common", h -> h == hash ? 3.0f : 1.0f);
+        int rareIndex = (hash >>> 1) % 64;
+        int commonHash = vectorizer.hashTerm("common");
+        int commonIndex = (commonHash >>> 1) % 64;
+
+        if (rareIndex != commonIndex) {
+            assertEquals(3.0f, Math.abs(weighted[rareIndex]) / Math.abs(weighted[commonIndex]), 1e-4f);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mem0.unit.embedding;
+
+import com.mem0.embedding.impl.TermDictionary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 只追加并发词典单元测试
+ * Append-Only Term Dictionary Unit Tests
+ *
+ * @author kevin.chen
+ * @version 1.0
+ * @since 1.0
+ */
+@DisplayName("Term Dictionary Tests")
+class TermDictionaryTest {
+
+    @Test
+    @DisplayName("IDs are dense, stable and reversible")
+    void shouldAssignDenseStableIds() {
+        TermDictionary dictionary = new TermDictionary(10);
+
+        assertEquals(0, dictionary.getOrAssign("alpha"));
+        assertEquals(1, dictionary.getOrAssign("beta"));
+        assertEquals(0, dictionary.getOrAssign("alpha"));
+        assertEquals(1, dictionary.idOf("beta"));
+        assertEquals(TermDictionary.NO_ID, dictionary.idOf("gamma"));
+        assertEquals("beta", dictionary.termOf(1));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("Full dictionaries stop assigning IDs but keep existing ones")
+    void shouldStopAtCapacity() {
+        TermDictionary dictionary = new TermDictionary(2);
+        dictionary.getOrAssign("a");
+        dictionary.getOrAssign("b");
+
+        assertTrue(dictionary.isFull());
+        assertEquals(TermDictionary.NO_ID, dictionary.getOrAssign("c"));
+        assertEquals(1, dictionary.getOrAssign("b"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("Concurrent writers never hand out duplicate or out-of-range IDs")
+    void shouldAssignUniqueIdsConcurrently() throws Exception {
+        TermDictionary dictionary = new TermDictionary(500);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    dictionary.getOrAssign("term" + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(500, dictionary.size());
+        Set<Integer> ids = new HashSet<>();
+        dictionary.forEach((term, id) -> {
+            assertEquals(id, dictionary.idOf(term));
+            ids.add(id);
+        });
+        assertEquals(500, ids.size());
+    }
+}
@@ -0,0 +1,172 @@
+package com.mem0.unit.graph;
+
+import com.mem0.graph.impl.AdjacencyIndex;
+import com.mem0.graph.impl.AdjacencyIndex.Direction;
+import com.mem0.graph.impl.HighPerformanceGraphStore;
+import com.mem0.store.GraphStore.GraphNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图邻接索引测试
+ * 覆盖可变邻接表与CSR快照两条遍历路径，以及HighPerformanceGraphStore的遍历接口
+ */
+@DisplayName("图邻接索引测试")
+public class AdjacencyIndexTest {
+
+    private AdjacencyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // 关闭自动压缩，由测试显式控制CSR快照
+        index = new AdjacencyIndex(0);
+        // a -KNOWS-> b -KNOWS-> c -KNOWS-> d,  a -LIKES-> e,  f -KNOWS-> a
+        index.addEdge("r1", "a", "b", "KNOWS");
+        index.addEdge("r2", "b", "c", "KNOWS");
+        index.addEdge("r3", "c", "d", "KNOWS");
+        index.addEdge("r4", "a", "e", "LIKES");
+        index.addEdge("r5", "f", "a", "KNOWS");
+    }
+
+    @Nested
+    @DisplayName("遍历")
+    class TraversalTests {
+
+        @Test
+        @DisplayName("BFS按距离返回并受深度限制")
+        void testBreadthFirst() {
+            assertBothPaths(() -> {
+                assertEquals(Arrays.asList("a", "b", "e", "f", "c"),
+                    index.breadthFirst("a", null, Direction.BOTH, 2, true));
+                assertEquals(Arrays.asList("b", "e", "f"),
+                    index.breadthFirst("a", null, Direction.BOTH, 1, false));
+                assertEquals(Collections.emptyList(), index.breadthFirst("a", null, Direction.BOTH, 0, false));
+            });
+        }
+
+        @Test
+        @DisplayName("按关系类型与方向过滤")
+        void testTypeAndDirectionFilter() {
+            assertBothPaths(() -> {
+                assertEquals(Arrays.asList("b", "c", "d"),
+                    index.breadthFirst("a", "KNOWS", Direction.OUTGOING, 5, false));
+                assertEquals(Collections.singletonList("f"),
+                    index.breadthFirst("a", "KNOWS", Direction.INCOMING, 5, false));
+                assertEquals(Collections.singletonList("e"), index.neighbors("a", "LIKES", Direction.BOTH));
+                assertEquals(Collections.emptyList(), index.breadthFirst("a", "UNKNOWN", Direction.BOTH, 3, false));
+            });
+        }
+
+        @Test
+        @DisplayName("DFS先序访问与递归实现一致")
+        void testDepthFirst() {
+            assertBothPaths(() -> {
+                assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f"),
+                    index.depthFirst("a", null, Direction.BOTH, 5));
+                assertEquals(Arrays.asList("a", "b", "c", "e", "f"),
+                    index.depthFirst("a", null, Direction.BOTH, 2));
+                assertEquals(Collections.singletonList("unknown"),
+                    index.depthFirst("unknown", null, Direction.BOTH, 3));
+            });
+        }
+
+        @Test
+        @DisplayName("环路只访问一次")
+        void testCycle() {
+            index.addEdge("r6", "d", "a", "KNOWS");
+            assertBothPaths(() -> assertEquals(Arrays.asList("a", "b", "c", "d"),
+                index.depthFirst("a", "KNOWS", Direction.OUTGOING, 10)));
+        }
+    }
+
+    @Nested
+    @DisplayName("维护与压缩")
+    class MaintenanceTests {
+
+        @Test
+        @DisplayName("写入使CSR快照失效")
+        void testWriteInvalidatesSnapshot() {
+            index.compact();
+            assertTrue(index.isCompacted());
+
+            index.removeEdge("r2");
+            assertFalse(index.isCompacted());
+            assertEquals(Collections.singletonList("b"),
+                index.breadthFirst("a", "KNOWS", Direction.OUTGOING, 5, false));
+        }
+
+        @Test
+        @DisplayName("删除节点移除其全部边并回收编号")
+        void testRemoveNode() {
+            index.removeNode("b");
+            assertEquals(3, index.getEdgeCount());
+            assertEquals(Collections.emptyList(), index.neighbors("c", "KNOWS", Direction.INCOMING));
+
+            index.addEdge("r7", "g", "c", "KNOWS");
+            assertEquals(Arrays.asList("c", "d", "g"),
+                index.breadthFirst("c", null, Direction.BOTH, 3, true));
+        }
+
+        @Test
+        @DisplayName("快照过期后的连续遍历触发自动压缩")
+        void testAutomaticCompaction() {
+            AdjacencyIndex auto = new AdjacencyIndex(3);
+            auto.addEdge("r1", "a", "b", "KNOWS");
+            for (int i = 0; i < 2; i++) {
+                auto.neighbors("a", null, Direction.BOTH);
+            }
+            assertFalse(auto.isCompacted());
+            assertEquals(Collections.singletonList("b"), auto.neighbors("a", null, Direction.BOTH));
+            assertTrue(auto.isCompacted());
+        }
+    }
+
+    @Nested
+    @DisplayName("HighPerformanceGraphStore遍历")
+    class StoreTraversalTests {
+
+        @Test
+        @DisplayName("k跳查询与BFS/DFS使用邻接索引")
+        void testStoreTraversal() throws Exception {
+            HighPerformanceGraphStore store = new HighPerformanceGraphStore();
+            List<String> chain = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                Map<String, Object> properties = new HashMap<>();
+                properties.put("label", "Step");
+                properties.put("position", i);
+                chain.add(store.createNode("Step", properties).get());
+            }
+            for (int i = 0; i < 4; i++) {
+                store.createRelationship(chain.get(i), chain.get(i + 1), "NEXT", new HashMap<>()).get();
+            }
+
+            List<GraphNode> connected = store.findConnectedNodes(chain.get(0), "NEXT", 2).get();
+            assertEquals(chain.subList(1, 3), connected.stream().map(GraphNode::getId).collect(Collectors.toList()));
+            assertEquals(chain, store.breadthFirstTraversal(chain.get(0), "NEXT", 10).get());
+            assertEquals(chain.subList(0, 4), store.depthFirstTraversal(chain.get(0), null, 3).get());
+
+            store.deleteNode(chain.get(2)).get();
+            assertEquals(chain.subList(0, 2), store.breadthFirstTraversal(chain.get(0), "NEXT", 10).get());
+            assertTrue(store.getRelationships(chain.get(1), null).get().stream()
+                .noneMatch(rel -> rel.getTargetNodeId().equals(chain.get(2))));
+            store.close().get();
+        }
+    }
+
+    /**
+     * 先在可变邻接表上断言，再压缩为CSR快照后重复断言
+     */
+    private void assertBothPaths(Runnable assertions) {
+        assertions.run();
+        index.compact();
+        assertTrue(index.isCompacted());
+        assertions.run();
+    }
+}
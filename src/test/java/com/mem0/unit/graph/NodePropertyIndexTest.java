@@ -0,0 +1,145 @@
+package com.mem0.unit.graph;
+
+import com.mem0.graph.impl.HighPerformanceGraphStore;
+import com.mem0.graph.impl.InMemoryGraphStore;
+import com.mem0.graph.impl.NodePropertyIndex;
+import com.mem0.store.GraphStore;
+import com.mem0.store.GraphStore.GraphNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点标签/属性索引测试
+ * 覆盖索引交集规划以及两个内存图存储的getNodesByLabel路由
+ */
+@DisplayName("节点标签/属性索引测试")
+public class NodePropertyIndexTest {
+
+    private NodePropertyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NodePropertyIndex();
+        index.add("n1", "Memory", props("userId", "alice", "memoryType", "FACT"));
+        index.add("n2", "Memory", props("userId", "alice", "memoryType", "EPISODIC"));
+        index.add("n3", "Memory", props("userId", "bob", "memoryType", "FACT"));
+        index.add("n4", "Entity", props("userId", "alice", "memoryType", "FACT"));
+    }
+
+    @Nested
+    @DisplayName("交集规划")
+    class PlannerTests {
+
+        @Test
+        @DisplayName("复合键按标签隔离并求交集")
+        void testIntersection() {
+            assertEquals(setOf("n1", "n2"), new HashSet<>(index.candidates("Memory", props("userId", "alice"))));
+            assertEquals(setOf("n1"),
+                new HashSet<>(index.candidates("Memory", props("userId", "alice", "memoryType", "FACT"))));
+            assertEquals(setOf("n1", "n3", "n4"), new HashSet<>(index.candidates(null, props("memoryType", "FACT"))));
+            assertTrue(index.candidates("Memory", props("userId", "carol")).isEmpty());
+        }
+
+        @Test
+        @DisplayName("只有标签时返回标签倒排表，无可用索引时要求扫描")
+        void testLabelOnlyAndFallback() {
+            assertEquals(setOf("n1", "n2", "n3"), new HashSet<>(index.candidates("Memory", null)));
+            assertEquals(setOf("n1", "n2", "n3"),
+                new HashSet<>(index.candidates("Memory", props("embedding", new float[]{1f}))));
+            assertNull(index.candidates(null, Collections.emptyMap()));
+        }
+
+        @Test
+        @DisplayName("移除最后一个成员后倒排表被清理")
+        void testRemoveDropsEmptyPostings() {
+            int before = index.size();
+            index.remove("n3", "Memory", props("userId", "bob", "memoryType", "FACT"));
+            assertTrue(index.candidates("Memory", props("userId", "bob")).isEmpty());
+            assertTrue(index.size() < before);
+        }
+    }
+
+    @Nested
+    @DisplayName("图存储路由")
+    class StoreTests {
+
+        @Test
+        @DisplayName("HighPerformanceGraphStore按标签和属性命中索引并跟随更新")
+        void testHighPerformanceGraphStore() throws Exception {
+            verifyStore(new HighPerformanceGraphStore());
+        }
+
+        @Test
+        @DisplayName("InMemoryGraphStore按标签和属性命中索引并跟随更新")
+        void testInMemoryGraphStore() throws Exception {
+            verifyStore(new InMemoryGraphStore());
+        }
+
+        @Test
+        @DisplayName("并发更新后索引与节点属性一致")
+        void testConcurrentUpdates() throws Exception {
+            InMemoryGraphStore store = new InMemoryGraphStore();
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                ids.add(store.createNode("Memory", props("userId", "u" + (i % 5), "state", "new")).get());
+            }
+            List<CompletableFuture<Void>> updates = new ArrayList<>();
+            for (String id : ids) {
+                updates.add(store.updateNode(id, props("state", "seen")));
+                updates.add(store.updateNode(id, props("state", "done")));
+            }
+            CompletableFuture.allOf(updates.toArray(new CompletableFuture[0])).get();
+
+            assertTrue(store.getNodesByLabel("Memory", props("state", "new")).get().isEmpty());
+            int seen = store.getNodesByLabel("Memory", props("state", "seen")).get().size();
+            int done = store.getNodesByLabel("Memory", props("state", "done")).get().size();
+            assertEquals(50, seen + done);
+            store.close().get();
+        }
+
+        private void verifyStore(GraphStore store) throws Exception {
+            String a1 = store.createNode("EnhancedMemory", props("userId", "alice", "memoryType", "FACT")).get();
+            String a2 = store.createNode("EnhancedMemory", props("userId", "alice", "memoryType", "EPISODIC")).get();
+            store.createNode("EnhancedMemory", props("userId", "bob", "memoryType", "FACT")).get();
+            store.createNode("Entity", props("userId", "alice")).get();
+
+            assertEquals(setOf(a1, a2), ids(store.getNodesByLabel("EnhancedMemory", props("userId", "alice")).get()));
+            assertEquals(setOf(a1), ids(store.getNodesByLabel("EnhancedMemory",
+                props("userId", "alice", "memoryType", "FACT")).get()));
+            assertEquals(4, store.getNodesByLabel("EnhancedMemory", null).get().size()
+                + store.getNodesByLabel("Entity", null).get().size());
+
+            store.updateNode(a2, props("memoryType", "FACT")).get();
+            assertEquals(setOf(a1, a2), ids(store.getNodesByLabel("EnhancedMemory",
+                props("userId", "alice", "memoryType", "FACT")).get()));
+
+            store.deleteNode(a1).get();
+            assertEquals(setOf(a2), ids(store.getNodesByLabel("EnhancedMemory", props("userId", "alice")).get()));
+            store.close().get();
+        }
+    }
+
+    private static Map<String, Object> props(Object... keyValues) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static Set<String> setOf(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    private static Set<String> ids(List<GraphNode> nodes) {
+        return nodes.stream().map(GraphNode::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,112 @@
+package com.mem0.unit.graph;
+
+import com.mem0.graph.impl.AdjacencyIndex;
+import com.mem0.graph.impl.InMemoryGraphStore;
+import com.mem0.store.GraphStore.PageRankOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 个性化PageRank测试
+ * 验证前推近似的排序、质量守恒以及推送预算
+ */
+@DisplayName("个性化PageRank测试")
+public class PersonalizedPageRankTest {
+
+    private AdjacencyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AdjacencyIndex(0);
+        // 两个团：{a, b, c, d} 与 {x, y, z}，之间仅通过 d - x 相连
+        String[] left = {"a", "b", "c", "d"};
+        String[] right = {"x", "y", "z"};
+        int edge = 0;
+        for (String[] clique : new String[][]{left, right}) {
+            for (int i = 0; i < clique.length; i++) {
+                for (int j = i + 1; j < clique.length; j++) {
+                    index.addEdge("r" + edge++, clique[i], clique[j], "RELATED");
+                }
+            }
+        }
+        index.addEdge("bridge", "d", "x", "MENTIONS");
+    }
+
+    @Test
+    @DisplayName("种子所在团的节点得分高于远端节点")
+    void testLocality() {
+        Map<String, Double> ranks = index.personalizedPageRank(seeds("a"), options());
+
+        assertTrue(ranks.get("a") > ranks.get("b"));
+        assertTrue(ranks.get("b") > ranks.getOrDefault("x", 0.0));
+        assertTrue(ranks.get("d") > ranks.getOrDefault("z", 0.0));
+        double total = ranks.values().stream().mapToDouble(Double::doubleValue).sum();
+        assertTrue(total <= 1.0 + 1e-9);
+        assertTrue(total > 0.9);
+    }
+
+    @Test
+    @DisplayName("按关系类型限制传播")
+    void testRelationshipTypeFilter() {
+        Map<String, Double> ranks = index.personalizedPageRank(seeds("a"),
+            options().withRelationshipType("RELATED"));
+        assertFalse(ranks.containsKey("x"));
+
+        assertTrue(index.personalizedPageRank(seeds("a"),
+            options().withRelationshipType("UNKNOWN")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("推送预算限制触达的节点数，CSR快照结果一致")
+    void testBudgetAndSnapshot() {
+        Map<String, Double> bounded = index.personalizedPageRank(seeds("a"),
+            options().withMaxPushes(1));
+        assertEquals(Collections.singleton("a"), bounded.keySet());
+
+        Map<String, Double> mutable = index.personalizedPageRank(seeds("a"), options());
+        index.compact();
+        Map<String, Double> compacted = index.personalizedPageRank(seeds("a"), options());
+        assertEquals(mutable.keySet(), compacted.keySet());
+        for (String node : mutable.keySet()) {
+            assertEquals(mutable.get(node), compacted.get(node), 1e-12);
+        }
+    }
+
+    @Test
+    @DisplayName("InMemoryGraphStore基于内存关系计算PageRank")
+    void testInMemoryGraphStore() throws Exception {
+        InMemoryGraphStore store = new InMemoryGraphStore();
+        store.createRelationship("m1", "m2", "RELATED_TO", new HashMap<>()).get();
+        store.createRelationship("m2", "m3", "RELATED_TO", new HashMap<>()).get();
+
+        Map<String, Double> ranks = store.personalizedPageRank(seeds("m1"), options()).get();
+        assertTrue(ranks.get("m2") > ranks.get("m3"));
+        assertTrue(store.personalizedPageRank(seeds("missing"), options()).get().isEmpty());
+
+        store.deleteNode("m2").get();
+        assertEquals(Collections.singleton("m1"),
+            store.personalizedPageRank(seeds("m1"), options()).get().keySet());
+        store.close().get();
+    }
+
+    /**
+     * 放宽时间预算，避免JIT预热影响结果的确定性
+     */
+    private static PageRankOptions options() {
+        return PageRankOptions.defaults().withTimeBudget(10, TimeUnit.SECONDS);
+    }
+
+    private static Map<String, Double> seeds(String node) {
+        Map<String, Double> seeds = new HashMap<>();
+        seeds.put(node, 1.0);
+        return seeds;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mem0.unit.memory;
+
+import com.mem0.core.EnhancedMemory;
+import com.mem0.memory.ConsistentHashRing;
+import com.mem0.memory.MemoryShard;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存分片测试
+ * 验证一致性哈希环的分布与拆分，以及无锁分片的并发一致性和迁移
+ */
+@DisplayName("内存分片测试")
+public class MemoryShardingTest {
+
+    @Nested
+    @DisplayName("一致性哈希环")
+    class RingTests {
+
+        @Test
+        @DisplayName("虚拟节点使键在分片间大致均匀分布")
+        void testDistribution() {
+            ConsistentHashRing ring = ConsistentHashRing.of(Arrays.asList(0, 1, 2, 3), 128);
+            Map<Integer, Integer> counts = new HashMap<>();
+            for (int i = 0; i < 40000; i++) {
+                counts.merge(ring.shardFor("memory-" + i), 1, Integer::sum);
+            }
+
+            assertEquals(4, counts.size());
+            for (int count : counts.values()) {
+                assertTrue(count > 7000 && count < 13000, "分片键数偏差过大: " + counts);
+            }
+            double total = 0;
+            for (int shardId : ring.getShardIds()) {
+                total += ring.ownership(shardId);
+            }
+            assertEquals(1.0, total, 1e-9);
+        }
+
+        @Test
+        @DisplayName("拆分只移动被拆分分片的一半键")
+        void testSplit() {
+            ConsistentHashRing ring = ConsistentHashRing.of(Arrays.asList(0, 1, 2, 3), 64);
+            ConsistentHashRing split = ring.split(2, 4);
+
+            int moved = 0;
+            int before = 0;
+            for (int i = 0; i < 40000; i++) {
+                String key = "memory-" + i;
+                int oldShard = ring.shardFor(key);
+                int newShard = split.shardFor(key);
+                if (oldShard == 2) {
+                    before++;
+                }
+                if (oldShard != newShard) {
+                    assertEquals(2, oldShard);
+                    assertEquals(4, newShard);
+                    moved++;
+                }
+            }
+
+            assertEquals(0.5, (double) moved / before, 0.05);
+            assertEquals(ring.ownership(2), split.ownership(2) + split.ownership(4), 1e-9);
+            assertEquals(ring.ownership(0), split.ownership(0), 1e-12);
+            assertThrows(IllegalArgumentException.class, () -> split.split(0, 4));
+        }
+    }
+
+    @Nested
+    @DisplayName("无锁分片")
+    class ShardTests {
+
+        @Test
+        @DisplayName("热点用户的并发增删保持计数与用户索引一致")
+        void testConcurrentHotUser() throws Exception {
+            MemoryShard shard = new MemoryShard(0);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 1000; i++) {
+                            String id = "m-" + thread + "-" + i;
+                            shard.addMemory(new EnhancedMemory(id, "content " + i, "hot-user"));
+                            if (i % 2 == 0) {
+                                shard.removeMemory(id);
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(4000, shard.getMemoryCount());
+            assertEquals(4000, shard.getUserMemories("hot-user").size());
+            assertEquals(1, shard.getUserCount());
+            assertEquals(4000, shard.getStats().getMemoryCount());
+        }
+
+        @Test
+        @DisplayName("迁移移动匹配的内存且不覆盖目标分片中的新版本")
+        void testMigrate() {
+            MemoryShard source = new MemoryShard(0);
+            MemoryShard target = new MemoryShard(1);
+            for (int i = 0; i < 10; i++) {
+                source.addMemory(new EnhancedMemory("m" + i, "old " + i, "alice"));
+            }
+            target.addMemory(new EnhancedMemory("m0", "new 0", "alice"));
+
+            int moved = source.migrateTo(target, id -> Integer.parseInt(id.substring(1)) % 2 == 0);
+
+            assertEquals(5, moved);
+            assertEquals(5, source.getMemoryCount());
+            assertEquals(5, target.getMemoryCount());
+            assertEquals("new 0", target.getMemory("m0").getContent());
+            assertNull(source.getMemory("m2"));
+            assertEquals(5, source.getUserMemories("alice").size());
+            assertEquals(5, target.getUserMemories("alice").size());
+        }
+    }
+}
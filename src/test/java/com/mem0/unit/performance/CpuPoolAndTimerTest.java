@@ -0,0 +1,185 @@
+package com.mem0.unit.performance;
+
+import com.mem0.performance.ConcurrentExecutionManager;
+import com.mem0.performance.TopK;
+import com.mem0.performance.WheelTimer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 共用CPU线程池与时间轮定时器测试
+ * 验证区间扫描的覆盖与合并顺序、top-K选择、定时器的到期与取消，以及超时执行不再泄漏线程
+ */
+@DisplayName("共用CPU线程池与时间轮定时器测试")
+public class CpuPoolAndTimerTest {
+
+    @Test
+    @DisplayName("并行扫描恰好访问每个下标一次，合并结果保持下标顺序")
+    void testParallelScanCoverageAndOrder() {
+        int n = 100_000;
+        AtomicIntegerArray visits = new AtomicIntegerArray(n);
+        ConcurrentExecutionManager.parallelScan(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                visits.incrementAndGet(i);
+            }
+        });
+        for (int i = 0; i < n; i++) {
+            assertEquals(1, visits.get(i), "下标 " + i);
+        }
+
+        List<Integer> multiples = ConcurrentExecutionManager.parallelScan(n, 16, (from, to) -> {
+            List<Integer> found = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (i % 7 == 0) {
+                    found.add(i);
+                }
+            }
+            return found;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+        assertEquals((n + 6) / 7, multiples.size());
+        for (int i = 0; i < multiples.size(); i++) {
+            assertEquals(i * 7, multiples.get(i).intValue());
+        }
+
+        assertEquals(Integer.valueOf(0), ConcurrentExecutionManager.parallelScan(0, (from, to) -> to - from, Integer::sum));
+    }
+
+    @Test
+    @DisplayName("CPU线程池内发起的嵌套扫描就地分叉，异步扫描不阻塞调用线程")
+    void testNestedAndAsyncScan() throws Exception {
+        AtomicLong total = new AtomicLong();
+        CompletableFuture<Void> future = ConcurrentExecutionManager.parallelScanAsync(64, 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                long sum = ConcurrentExecutionManager.parallelScan(10_000, (a, b) -> {
+                    long partial = 0;
+                    for (int j = a; j < b; j++) {
+                        partial += j;
+                    }
+                    return partial;
+                }, Long::sum);
+                total.addAndGet(sum);
+            }
+        });
+        future.get(30, TimeUnit.SECONDS);
+        assertEquals(64L * (10_000L * 9_999L / 2), total.get());
+    }
+
+    @Test
+    @DisplayName("分区top-K合并后与整体排序的前K名一致")
+    void testTopKMatchesFullSort() {
+        Random random = new Random(42);
+        float[] scores = new float[5_000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat();
+        }
+
+        TopK<Integer> best = ConcurrentExecutionManager.parallelScan(scores.length, 100, (from, to) -> {
+            TopK<Integer> top = new TopK<>(10);
+            for (int i = from; i < to; i++) {
+                top.offer(scores[i], i);
+            }
+            return top;
+        }, TopK::merge).sortDescending();
+
+        float[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        assertEquals(10, best.size());
+        for (int rank = 0; rank < 10; rank++) {
+            assertEquals(sorted[sorted.length - 1 - rank], best.score(rank));
+            assertEquals(scores[best.item(rank)], best.score(rank));
+        }
+    }
+
+    @Test
+    @DisplayName("定时任务不会提前执行，取消后不再执行")
+    void testWheelTimerFiresAndCancels() throws Exception {
+        WheelTimer timer = new WheelTimer("test-timer", 5, TimeUnit.MILLISECONDS, 8);
+        try {
+            CountDownLatch fired = new CountDownLatch(20);
+            long start = System.nanoTime();
+            AtomicLong earliest = new AtomicLong(Long.MAX_VALUE);
+            for (int i = 0; i < 20; i++) {
+                // 延迟超过一圈（8个刻度）的任务需要在后续轮次到期
+                timer.newTimeout(() -> {
+                    earliest.accumulateAndGet(System.nanoTime() - start, Math::min);
+                    fired.countDown();
+                }, 50 + i * 5, TimeUnit.MILLISECONDS);
+            }
+            WheelTimer.Timeout cancelled = timer.newTimeout(() -> fail("已取消的任务不应执行"), 30, TimeUnit.MILLISECONDS);
+            assertTrue(cancelled.cancel());
+            assertFalse(cancelled.cancel());
+
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertTrue(earliest.get() >= TimeUnit.MILLISECONDS.toNanos(50), "提前执行: " + earliest.get());
+            assertTrue(cancelled.isCancelled());
+            assertEquals(0, timer.getPendingTimeouts());
+
+            // 空闲挂起后仍能被新任务唤醒
+            Thread.sleep(50);
+            CountDownLatch again = new CountDownLatch(1);
+            WheelTimer.Timeout timeout = timer.newTimeout(again::countDown, 10, TimeUnit.MILLISECONDS);
+            assertTrue(again.await(5, TimeUnit.SECONDS));
+            assertTrue(timeout.isExpired());
+        } finally {
+            timer.close();
+        }
+    }
+
+    @Test
+    @DisplayName("带超时的执行返回降级值，且不再为每次调用创建调度线程")
+    void testExecuteWithTimeoutDoesNotLeakThreads() throws Exception {
+        ConcurrentExecutionManager manager = new ConcurrentExecutionManager(4);
+        try {
+            assertEquals("fallback", manager.executeWithTimeout(() -> {
+                Thread.sleep(500);
+                return "slow";
+            }, 20, TimeUnit.MILLISECONDS, "fallback").get(5, TimeUnit.SECONDS));
+
+            int before = Thread.activeCount();
+            int pendingBefore = WheelTimer.shared().getPendingTimeouts();
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(manager.executeWithTimeout(() -> "ok", 10, TimeUnit.SECONDS, "fallback"));
+            }
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("ok", future.get(5, TimeUnit.SECONDS));
+            }
+            assertTrue(Thread.activeCount() - before < 20, "线程数不应随调用次数增长");
+            assertTrue(WheelTimer.shared().getPendingTimeouts() <= pendingBefore, "完成的调用应取消超时任务");
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("关闭后提交的I/O任务被拒绝或丢弃时不残留活动计数")
+    void testRejectedIOOperationReleasesCounter() throws Exception {
+        ConcurrentExecutionManager manager = new ConcurrentExecutionManager(2);
+        assertEquals("ok", manager.executeIOOperation(() -> "ok").get(5, TimeUnit.SECONDS));
+        manager.close();
+
+        // 虚拟线程执行器直接拒绝，平台线程池的CallerRunsPolicy在关闭后静默丢弃
+        try {
+            manager.executeIOOperation(() -> "late");
+        } catch (RejectedExecutionException expected) {
+            // 两种结果都可以接受
+        }
+        assertEquals(0, manager.getActiveIOOperations());
+    }
+}
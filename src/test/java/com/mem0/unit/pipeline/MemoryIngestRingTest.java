@@ -0,0 +1,269 @@
+package com.mem0.unit.pipeline;
+
+import com.mem0.core.MemoryType;
+import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.graph.impl.InMemoryGraphStore;
+import com.mem0.pipeline.AsyncMemoryPipeline.MemoryCreationRequest;
+import com.mem0.pipeline.MemoryIngestRing;
+import com.mem0.store.GraphStore;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 环形导入通道测试
+ * 验证环回绕、多生产者、调用方不被阻塞、空闲时挂起、按组提交、按批完成与失败隔离
+ */
+@DisplayName("环形导入通道测试")
+public class MemoryIngestRingTest {
+
+    private final AtomicLong ids = new AtomicLong();
+    private final InMemoryVectorStore vectorStore = new InMemoryVectorStore();
+    private final InMemoryGraphStore graphStore = new InMemoryGraphStore() {
+        @Override
+        public CompletableFuture<String> createNode(String label, Map<String, Object> properties) {
+            if ("graph-fail".equals(properties.get("content"))) {
+                CompletableFuture<String> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IllegalStateException("graph write failed"));
+                return failed;
+            }
+            return super.createNode(label, properties);
+        }
+    };
+    private MemoryIngestRing ring;
+
+    @BeforeEach
+    void setUp() {
+        vectorStore.createCollection("memories", 4).join();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ring != null) {
+            ring.close();
+        }
+    }
+
+    @Test
+    @DisplayName("超过环大小的批次回绕写入，结果按请求顺序返回且按组提交")
+    void testWrapAroundAndGroupCommit() throws Exception {
+        ring = newRing(new FakeEmbeddingProvider(), 64, 16, 32);
+
+        List<String> result = ring.ingest(requests("user-1", 1000)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1000, result.size());
+        assertEquals(1000, new HashSet<>(result).size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals("m-" + (i + 1), result.get(i));
+        }
+        assertEquals(1000, vectorStore.getTotalVectorCount());
+        assertEquals(1000, graphStore.getNodesByLabel("Memory", Collections.emptyMap()).get().size());
+
+        MemoryIngestRing.IngestStats stats = ring.getStats();
+        assertEquals(1000, stats.getIngested());
+        assertEquals(0, stats.getInFlight());
+        assertTrue(stats.getEmbedBatches() >= 1000 / 16);
+        assertTrue(stats.getVectorGroups() < 1000, "向量应按组提交: " + stats);
+    }
+
+    @Test
+    @DisplayName("多个生产者并发导入，每个批次独立完成")
+    void testConcurrentProducers() throws Exception {
+        ring = newRing(new FakeEmbeddingProvider(), 128, 32, 64);
+
+        List<CompletableFuture<List<String>>> futures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            String userId = "user-" + p;
+            Thread producer = new Thread(() -> {
+                for (int b = 0; b < 5; b++) {
+                    futures.add(ring.ingest(requests(userId, 100)));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        Set<String> all = new HashSet<>();
+        for (CompletableFuture<List<String>> future : futures) {
+            List<String> batch = future.get(10, TimeUnit.SECONDS);
+            assertEquals(100, batch.size());
+            assertFalse(batch.contains(null));
+            all.addAll(batch);
+        }
+        assertEquals(2000, all.size());
+        assertEquals(2000, vectorStore.getTotalVectorCount());
+        assertEquals(2000, ring.getStats().getIngested());
+    }
+
+    @Test
+    @DisplayName("环满时调用方不被阻塞，ingest立即返回future")
+    void testIngestDoesNotBlockCaller() throws Exception {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        ring = newRing(new FakeEmbeddingProvider() {
+            @Override
+            public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
+                return gate.thenCompose(ignored -> super.embedBatch(texts));
+            }
+        }, 16, 4, 4);
+
+        CompletableFuture<List<String>> future = assertTimeoutPreemptively(Duration.ofSeconds(2),
+            () -> ring.ingest(requests("user-1", 200)));
+        assertFalse(future.isDone());
+
+        gate.complete(null);
+        List<String> result = future.get(10, TimeUnit.SECONDS);
+        assertEquals(200, result.size());
+        assertFalse(result.contains(null));
+    }
+
+    @Test
+    @DisplayName("导入结束后处理线程无超时挂起，不再定时唤醒")
+    void testIdleThreadsPark() throws Exception {
+        ring = newRing(new FakeEmbeddingProvider(), 64, 16, 32);
+        ring.ingest(requests("user-1", 500)).get(10, TimeUnit.SECONDS);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<Thread> workers = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("mem0-ingest-")) {
+                workers.add(thread);
+            }
+        }
+        assertEquals(4, workers.size());
+        for (Thread worker : workers) {
+            while (worker.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(Thread.State.WAITING, worker.getState(), worker.getName());
+        }
+
+        // 挂起后新的批次仍能唤醒整条通道 / a new batch still wakes the whole path after parking
+        assertEquals(10, ring.ingest(requests("user-1", 10)).get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    @DisplayName("嵌入失败只影响所在的组，关闭后拒绝新批次")
+    void testFailureIsolationAndClose() throws Exception {
+        ring = newRing(new FakeEmbeddingProvider(), 16, 1, 8);
+
+        List<MemoryCreationRequest> requests = requests("user-1", 10);
+        requests.set(3, new MemoryCreationRequest("fail", "user-1", null));
+        List<String> result = ring.ingest(requests).get(10, TimeUnit.SECONDS);
+
+        assertNull(result.get(3));
+        assertEquals(9, result.stream().filter(id -> id != null).count());
+        assertEquals(9, vectorStore.getTotalVectorCount());
+        assertEquals(1, ring.getStats().getFailed());
+
+        ring.close();
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> ring.ingest(requests("user-1", 1)).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        ring = null;
+    }
+
+    @Test
+    @DisplayName("图写入失败时回滚同组的向量与节点，记忆类型写入图节点")
+    void testGraphFailureRollsBackGroup() throws Exception {
+        ring = newRing(new FakeEmbeddingProvider(), 16, 4, 4);
+
+        List<MemoryCreationRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String content = i == 5 ? "graph-fail" : "memory content " + i;
+            requests.add(new MemoryCreationRequest(content, "user-1", null, MemoryType.FACTUAL));
+        }
+        List<String> result = ring.ingest(requests).get(10, TimeUnit.SECONDS);
+
+        assertNull(result.get(5));
+        long succeeded = result.stream().filter(id -> id != null).count();
+        assertTrue(succeeded >= 8 && succeeded < 12, "只有失败所在的组为null: " + result);
+        assertEquals(succeeded, vectorStore.getTotalVectorCount(), "失败组的向量应被回滚");
+        List<GraphStore.GraphNode> nodes = graphStore.getNodesByLabel("Memory", Collections.emptyMap()).get();
+        assertEquals(succeeded, nodes.size(), "失败组的节点应被回滚");
+        assertTrue(nodes.stream().allMatch(node -> "FACTUAL".equals(node.getProperties().get("memoryType"))));
+        assertEquals(12 - succeeded, ring.getStats().getFailed());
+    }
+
+    private MemoryIngestRing newRing(EmbeddingProvider provider, int bufferSize, int embedBatch, int writeBatch) {
+        return new MemoryIngestRing(provider, vectorStore, graphStore, "memories",
+            () -> "m-" + ids.incrementAndGet(), bufferSize, embedBatch, writeBatch);
+    }
+
+    private static List<MemoryCreationRequest> requests(String userId, int count) {
+        List<MemoryCreationRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new MemoryCreationRequest("memory content " + i, userId, null));
+        }
+        return requests;
+    }
+
+    /**
+     * 同步返回低维向量的嵌入提供者，内容为"fail"的批次失败
+     */
+    private static class FakeEmbeddingProvider implements EmbeddingProvider {
+
+        @Override
+        public CompletableFuture<List<Float>> embed(String text) {
+            return CompletableFuture.completedFuture(vector(text));
+        }
+
+        @Override
+        public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
+            if (texts.contains("fail")) {
+                CompletableFuture<List<List<Float>>> failed = new CompletableFuture<>();
+                failed.completeExceptionally(new IllegalStateException("embedding failed"));
+                return failed;
+            }
+            List<List<Float>> vectors = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                vectors.add(vector(text));
+            }
+            return CompletableFuture.completedFuture(vectors);
+        }
+
+        private static List<Float> vector(String text) {
+            int h = text.hashCode();
+            return Arrays.asList(1.0f, (h & 0xff) / 255.0f, ((h >>> 8) & 0xff) / 255.0f, 0.5f);
+        }
+
+        @Override
+        public int getDimension() {
+            return 4;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "fake";
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
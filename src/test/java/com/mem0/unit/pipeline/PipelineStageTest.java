@@ -0,0 +1,125 @@
+package com.mem0.unit.pipeline;
+
+import com.mem0.pipeline.PipelineStage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 管道阶段测试
+ * 验证有界队列、非阻塞背压、批量合并与阶段指标
+ */
+@DisplayName("管道阶段测试")
+public class PipelineStageTest {
+
+    @Test
+    @DisplayName("队列满时offer立即拒绝，enqueue在容量释放后被接纳")
+    void testBackpressure() throws Exception {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        PipelineStage<Integer, Integer> stage = PipelineStage.of("test", 2, 1,
+            value -> gate.thenApply(v -> value * 10), ForkJoinPool.commonPool());
+
+        CompletableFuture<Integer> running = stage.offer(1);
+        waitUntil(() -> stage.getActive() == 1);
+        CompletableFuture<Integer> queued1 = stage.offer(2);
+        CompletableFuture<Integer> queued2 = stage.offer(3);
+        assertEquals(2, stage.getDepth());
+
+        CompletableFuture<Integer> rejected = stage.offer(4);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof RejectedExecutionException);
+
+        CompletableFuture<CompletableFuture<Integer>> admission = stage.enqueue(5);
+        assertFalse(admission.isDone());
+        assertEquals(1, stage.getStats().getWaiting());
+
+        gate.complete(null);
+        assertEquals(50, admission.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS).intValue());
+        assertEquals(10, running.get().intValue());
+        assertEquals(20, queued1.get().intValue());
+        assertEquals(30, queued2.get().intValue());
+
+        PipelineStage.StageStats stats = stage.getStats();
+        assertEquals(1, stats.getRejected());
+        assertEquals(4, stats.getCompleted());
+        assertTrue(stage.isIdle());
+    }
+
+    @Test
+    @DisplayName("批量阶段合并排队中的请求，工作预算受限")
+    void testBatching() throws Exception {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        PipelineStage<Integer, Integer> stage = PipelineStage.batched("batch", 100, 1, 10, values -> {
+            batchSizes.add(values.size());
+            return gate.thenApply(v -> values.stream().map(x -> x + 1).collect(Collectors.toList()));
+        }, ForkJoinPool.commonPool());
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            results.add(stage.submit(i));
+        }
+        waitUntil(() -> !batchSizes.isEmpty());
+        assertEquals(1, stage.getActive());
+
+        gate.complete(null);
+        for (int i = 0; i < 25; i++) {
+            assertEquals(i + 1, results.get(i).get(5, TimeUnit.SECONDS).intValue());
+        }
+        assertEquals(25, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 10));
+        assertTrue(batchSizes.size() <= 4, "排队中的请求应被合并: " + batchSizes);
+    }
+
+    @Test
+    @DisplayName("下游未接纳时上游不释放工作预算，失败与关闭正确传播")
+    void testPropagationAndClose() throws Exception {
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+        PipelineStage<Integer, Integer> downstream = PipelineStage.of("down", 1, 1,
+            value -> gate.thenApply(v -> value), ForkJoinPool.commonPool());
+        PipelineStage<Integer, Void> upstream = PipelineStage.of("up", 10, 1,
+            value -> downstream.enqueue(value).thenApply(result -> null), ForkJoinPool.commonPool());
+
+        for (int i = 0; i < 4; i++) {
+            upstream.offer(i);
+        }
+        // 下游：1个执行中 + 1个排队，上游唯一的工作预算等待下游接纳第3个
+        waitUntil(() -> downstream.getStats().getWaiting() == 1);
+        assertEquals(1, upstream.getActive());
+        assertEquals(1, upstream.getDepth());
+
+        gate.complete(null);
+        waitUntil(() -> upstream.isIdle() && downstream.isIdle());
+        assertEquals(4, downstream.getStats().getCompleted());
+
+        PipelineStage<Integer, Integer> failing = PipelineStage.of("failing", 4, 1, value -> {
+            throw new IllegalStateException("boom");
+        }, ForkJoinPool.commonPool());
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failing.submit(1).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertEquals(1, failing.getStats().getFailed());
+
+        failing.close();
+        error = assertThrows(ExecutionException.class, () -> failing.submit(2).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof RejectedExecutionException);
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待条件超时");
+            Thread.sleep(5);
+        }
+    }
+}
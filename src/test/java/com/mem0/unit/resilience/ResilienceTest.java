@@ -0,0 +1,260 @@
+package com.mem0.unit.resilience;
+
+import com.mem0.Mem0;
+import com.mem0.embedding.EmbeddingProvider;
+import com.mem0.exception.CircuitBreakerOpenException;
+import com.mem0.exception.DeadlineExceededException;
+import com.mem0.llm.impl.RuleBasedLLMProvider;
+import com.mem0.resilience.CircuitBreaker;
+import com.mem0.resilience.Deadline;
+import com.mem0.resilience.ResilientEmbeddingProvider;
+import com.mem0.resilience.ResilientExecutor;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import com.mem0.graph.impl.DefaultInMemoryGraphStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 提供者容错层测试
+ * 验证熔断器状态转换、抖动退避重试、p95对冲与截止时间的传递和取消
+ */
+@DisplayName("提供者容错层测试")
+public class ResilienceTest {
+
+    @Nested
+    @DisplayName("熔断器")
+    class BreakerTests {
+
+        @Test
+        @DisplayName("失败率超过阈值时熔断，半开试探成功后闭合")
+        void testStateTransitions() throws Exception {
+            CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, 100, 2);
+
+            for (int i = 0; i < 3; i++) {
+                assertTrue(breaker.tryAcquire());
+                breaker.onSuccess();
+            }
+            for (int i = 0; i < 2; i++) {
+                assertTrue(breaker.tryAcquire());
+                breaker.onFailure();
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "失败率40%未达到阈值");
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertFalse(breaker.tryAcquire());
+
+            Thread.sleep(150);
+            assertTrue(breaker.tryAcquire());
+            assertTrue(breaker.tryAcquire());
+            assertFalse(breaker.tryAcquire(), "半开状态只放行试探名额");
+            breaker.onSuccess();
+            breaker.onFailure();
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState(), "试探失败重新熔断");
+
+            Thread.sleep(150);
+            assertTrue(breaker.tryAcquire());
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess();
+            breaker.onSuccess();
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            assertEquals(0.0, breaker.getFailureRate());
+        }
+
+        @Test
+        @DisplayName("熔断后执行器快速失败，不再调用提供者")
+        void testFailFast() throws Exception {
+            ResilientExecutor executor = new ResilientExecutor("flaky", ResilientExecutor.Options.defaults()
+                .withRetry(1, 1, 1, TimeUnit.MILLISECONDS)
+                .withCircuitBreaker(10, 5, 0.5, 60_000, 1));
+            AtomicInteger invocations = new AtomicInteger();
+
+            for (int i = 0; i < 5; i++) {
+                assertThrows(ExecutionException.class, () -> executor.execute("call", () -> {
+                    invocations.incrementAndGet();
+                    return failed(new IllegalStateException("503"));
+                }, Deadline.none()).get(5, TimeUnit.SECONDS));
+            }
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> executor.execute("call", () -> {
+                    invocations.incrementAndGet();
+                    return CompletableFuture.completedFuture("ok");
+                }, Deadline.none()).get(5, TimeUnit.SECONDS));
+
+            assertTrue(error.getCause() instanceof CircuitBreakerOpenException);
+            assertEquals(5, invocations.get());
+            assertEquals(1, executor.getStats().getRejectedCalls());
+        }
+    }
+
+    @Nested
+    @DisplayName("重试与对冲")
+    class RetryAndHedgeTests {
+
+        @Test
+        @DisplayName("失败后按退避重试直到成功，调用线程不被阻塞")
+        void testRetryWithBackoff() throws Exception {
+            ResilientExecutor executor = new ResilientExecutor("retry", ResilientExecutor.Options.defaults()
+                .withRetry(3, 20, 100, TimeUnit.MILLISECONDS));
+            AtomicInteger invocations = new AtomicInteger();
+
+            CompletableFuture<String> result = executor.execute("call", () -> invocations.incrementAndGet() < 3
+                ? failed(new IllegalStateException("timeout"))
+                : CompletableFuture.completedFuture("ok"), Deadline.none());
+
+            assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+            assertEquals(3, invocations.get());
+            assertEquals(2, executor.getStats().getRetries());
+        }
+
+        @Test
+        @DisplayName("超过p95延迟未返回时发出对冲请求，先完成者胜出并取消另一个")
+        void testHedging() throws Exception {
+            ResilientExecutor executor = new ResilientExecutor("hedge", ResilientExecutor.Options.defaults()
+                .withHedging(true, 10, 5, TimeUnit.MILLISECONDS));
+            for (int i = 0; i < 10; i++) {
+                executor.execute("warmup", () -> CompletableFuture.supplyAsync(() -> "ok"), Deadline.none())
+                    .get(5, TimeUnit.SECONDS);
+            }
+
+            CompletableFuture<String> stuck = new CompletableFuture<>();
+            AtomicInteger invocations = new AtomicInteger();
+            CompletableFuture<String> result = executor.execute("call", () -> invocations.incrementAndGet() == 1
+                ? stuck
+                : CompletableFuture.completedFuture("hedged"), Deadline.none());
+
+            assertEquals("hedged", result.get(5, TimeUnit.SECONDS));
+            assertEquals(2, invocations.get());
+            assertTrue(stuck.isCancelled(), "落败的请求应被取消");
+            assertEquals(1, executor.getStats().getHedgeWins());
+        }
+    }
+
+    @Nested
+    @DisplayName("截止时间")
+    class DeadlineTests {
+
+        @Test
+        @DisplayName("截止时刻取消进行中的调用，剩余预算不足以退避时不再重试")
+        void testDeadlineCancelsAndStopsRetry() throws Exception {
+            ResilientExecutor executor = new ResilientExecutor("deadline");
+            CompletableFuture<String> stuck = new CompletableFuture<>();
+
+            long start = System.nanoTime();
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> executor.execute("call", () -> stuck, Deadline.afterMillis(100)).get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause() instanceof DeadlineExceededException);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            assertTrue(stuck.isCancelled());
+
+            ResilientExecutor slowRetry = new ResilientExecutor("slow-retry", ResilientExecutor.Options.defaults()
+                .withRetry(5, 10_000, 10_000, TimeUnit.MILLISECONDS));
+            long retryStart = System.nanoTime();
+            CompletableFuture<String> result = slowRetry.execute("call",
+                () -> failed(new IllegalStateException("503")), Deadline.afterMillis(50));
+            error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause() instanceof IllegalStateException || error.getCause() instanceof DeadlineExceededException);
+            assertTrue(System.nanoTime() - retryStart < TimeUnit.SECONDS.toNanos(1), "不应等待超出预算的退避");
+        }
+
+        @Test
+        @DisplayName("Mem0检索的截止时间经由线程局部变量传到容错提供者")
+        void testDeadlineFromEntryPoint() throws Exception {
+            EmbeddingProvider provider = new ResilientEmbeddingProvider(new HangingEmbeddingProvider());
+            assertThrows(ExecutionException.class, () -> Deadline.callWith(Deadline.afterMillis(50),
+                () -> provider.embed("text")).get(5, TimeUnit.SECONDS));
+
+            Mem0 mem0 = new Mem0(new InMemoryVectorStore(), new DefaultInMemoryGraphStore(),
+                provider, new RuleBasedLLMProvider());
+            try {
+                long start = System.nanoTime();
+                ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> mem0.search("query", "user-1", 5, Deadline.afterMillis(200)).get(5, TimeUnit.SECONDS));
+                assertTrue(error.getCause() instanceof DeadlineExceededException, error.getCause().toString());
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+                error = assertThrows(ExecutionException.class,
+                    () -> mem0.search("query", "user-1", 5, Deadline.afterMillis(0)).get(5, TimeUnit.SECONDS));
+                assertTrue(error.getCause() instanceof DeadlineExceededException);
+            } finally {
+                mem0.close();
+            }
+        }
+
+        @Test
+        @DisplayName("不带截止时间的既有入口不施加截止时间")
+        void testExistingOverloadsHaveNoDeadline() throws Exception {
+            List<Boolean> bounded = new CopyOnWriteArrayList<>();
+            EmbeddingProvider provider = new HangingEmbeddingProvider() {
+                @Override
+                public CompletableFuture<List<Float>> embed(String text) {
+                    bounded.add(Deadline.current().isBounded());
+                    return CompletableFuture.completedFuture(Arrays.asList(1f, 0f, 0f, 0f));
+                }
+            };
+            Mem0 mem0 = new Mem0(new InMemoryVectorStore(), new DefaultInMemoryGraphStore(),
+                provider, new RuleBasedLLMProvider());
+            try {
+                mem0.add("I like coffee", "user-1").get(30, TimeUnit.SECONDS);
+                mem0.search("coffee", "user-1").get(30, TimeUnit.SECONDS);
+                mem0.queryWithRAG("what do I like", "user-1").get(30, TimeUnit.SECONDS);
+            } finally {
+                mem0.close();
+            }
+            assertFalse(bounded.isEmpty());
+            assertFalse(bounded.contains(true), "既有入口不应带截止时间: " + bounded);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * 嵌入调用永不返回的提供者，模拟挂起的远程端点
+     */
+    private static class HangingEmbeddingProvider implements EmbeddingProvider {
+
+        @Override
+        public CompletableFuture<List<Float>> embed(String text) {
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public CompletableFuture<List<List<Float>>> embedBatch(List<String> texts) {
+            return new CompletableFuture<>();
+        }
+
+        @Override
+        public int getDimension() {
+            return 4;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "hanging";
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.mem0.unit.search;
+
+import com.mem0.memory.Memory;
+import com.mem0.search.SearchFilter;
+import com.mem0.search.SearchFilter.FilterCriteria;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for SearchFilter index-based query planning
+ */
+public class SearchFilterTest {
+
+    private static final Instant BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0)
+        .atZone(ZoneId.systemDefault()).toInstant();
+
+    private SearchFilter searchFilter;
+    private List<Memory> memories;
+
+    @BeforeEach
+    void setUp() {
+        searchFilter = new SearchFilter();
+        memories = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Memory memory = new Memory("m" + i, "content number " + i + (i % 7 == 0 ? " coffee" : ""),
+                                       "user" + (i % 10), "session" + (i % 3));
+            memory.getMetadata().put("contentType", i % 2 == 0 ? "text" : "image");
+            memory.getMetadata().put("importanceLevel", i % 5);
+            memory.getMetadata().put("tags", i % 4 == 0 ? Arrays.asList("work", "urgent") : Arrays.asList("work"));
+            memory.setCreatedAt(BASE_TIME.plusSeconds(i * 60L));
+            memories.add(memory);
+        }
+        searchFilter.buildFilterIndices(memories).join();
+    }
+
+    @Test
+    void testIndexedFilterMatchesScan() {
+        FilterCriteria criteria = new FilterCriteria()
+            .userId("user4")
+            .contentType("text")
+            .importanceLevel(2, 4)
+            .tags("urgent")
+            .timeRange(LocalDateTime.of(2024, 1, 1, 1, 0), LocalDateTime.of(2024, 1, 1, 6, 0));
+
+        List<Memory> indexed = searchFilter.filterIndexed(criteria).join().getFilteredMemories();
+        List<Memory> scanned = searchFilter.filter(new ArrayList<>(memories), criteria).join().getFilteredMemories();
+
+        assertFalse(indexed.isEmpty());
+        assertEquals(ids(scanned), ids(indexed));
+    }
+
+    @Test
+    void testResidualRegexAndSubCriteria() {
+        FilterCriteria criteria = new FilterCriteria()
+            .sessionId("session1")
+            .contentMatches("COFFEE")
+            .addSubCriteria(new FilterCriteria().customCondition("contentType", "image"));
+
+        List<Memory> indexed = searchFilter.filterIndexed(criteria).join().getFilteredMemories();
+        List<Memory> scanned = searchFilter.filter(new ArrayList<>(memories), criteria).join().getFilteredMemories();
+
+        assertFalse(indexed.isEmpty());
+        assertEquals(ids(scanned), ids(indexed));
+        assertTrue(indexed.stream().allMatch(m -> m.getContent().contains("coffee")));
+    }
+
+    @Test
+    void testOrLogicFallsBackToResidualEvaluation() {
+        FilterCriteria criteria = new FilterCriteria(FilterCriteria.FilterLogic.OR)
+            .userId("user1")
+            .addSubCriteria(new FilterCriteria().userId("user2"));
+
+        List<Memory> indexed = searchFilter.filterIndexed(criteria).join().getFilteredMemories();
+        List<Memory> scanned = searchFilter.filter(new ArrayList<>(memories), criteria).join().getFilteredMemories();
+
+        assertEquals(ids(scanned), ids(indexed));
+    }
+
+    @Test
+    void testIndexedFilterPreservesOrder() {
+        SearchFilter.FilterResult result = searchFilter.filterIndexed(new FilterCriteria().userId("user3")).join();
+
+        assertEquals(50, result.getFilteredMemories().size());
+        assertEquals("m3", result.getFilteredMemories().get(0).getId());
+        assertEquals("m13", result.getFilteredMemories().get(1).getId());
+        assertTrue(searchFilter.getStatistics().getFilterTypeUsage().containsKey("indexed"));
+    }
+
+    @Test
+    void testFilterSeesInPlaceReplacement() {
+        memories.set(3, new Memory("x3", "replaced", "user3", "session0"));
+
+        List<String> user3 = ids(searchFilter.filter(memories, new FilterCriteria().userId("user3")).join()
+            .getFilteredMemories());
+
+        assertEquals(50, user3.size());
+        assertEquals("x3", user3.get(0));
+        assertFalse(user3.contains("m3"));
+    }
+
+    @Test
+    void testRebuildDropsPreviousSource() {
+        List<Memory> replacement = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Memory memory = new Memory("n" + i, "other content " + i, "user" + (i % 10), "session0");
+            memory.getMetadata().put("tags", Arrays.asList("work"));
+            replacement.add(memory);
+        }
+        searchFilter.buildFilterIndices(replacement).join();
+
+        List<String> expected = ids(replacement);
+        List<String> user3 = ids(searchFilter.filterIndexed(new FilterCriteria().userId("user3")).join()
+            .getFilteredMemories());
+        assertEquals(Arrays.asList("n3", "n13"), user3);
+
+        List<String> work = ids(searchFilter.filterIndexed(new FilterCriteria().tags("work")).join()
+            .getFilteredMemories());
+        assertEquals(expected, work);
+        assertTrue(searchFilter.filterIndexed(new FilterCriteria().contentType("text")).join()
+            .getFilteredMemories().isEmpty());
+    }
+
+    @Test
+    void testIndexMaintenance() {
+        searchFilter.removeFromIndex("m3");
+        Memory updated = memories.get(13);
+        updated.setUserId("user9");
+        searchFilter.indexMemory(updated);
+
+        List<Memory> user3 = searchFilter.filterIndexed(new FilterCriteria().userId("user3")).join()
+            .getFilteredMemories();
+        assertEquals(48, user3.size());
+        assertFalse(ids(user3).contains("m3"));
+        assertFalse(ids(user3).contains("m13"));
+
+        List<Memory> user9 = searchFilter.filterIndexed(new FilterCriteria().userId("user9")).join()
+            .getFilteredMemories();
+        assertEquals(51, user9.size());
+        assertEquals(1, searchFilter.getFilterIndices().get("userId").getMemoryIds("user9").stream()
+            .filter("m13"::equals).count());
+    }
+
+    private List<String> ids(List<Memory> memories) {
+        return memories.stream().map(Memory::getId).collect(Collectors.toList());
+    }
+}
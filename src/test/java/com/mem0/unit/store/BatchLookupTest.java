@@ -0,0 +1,93 @@
+package com.mem0.unit.store;
+
+import com.mem0.graph.impl.DefaultInMemoryGraphStore;
+import com.mem0.graph.impl.HighPerformanceGraphStore;
+import com.mem0.graph.impl.InMemoryGraphStore;
+import com.mem0.store.GraphStore;
+import com.mem0.store.GraphStore.GraphNode;
+import com.mem0.store.VectorStore.VectorDocument;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量查询测试
+ * 验证VectorStore.getBatch与GraphStore.getNodes的原生实现及默认实现
+ */
+@DisplayName("批量查询测试")
+public class BatchLookupTest {
+
+    private static final String COLLECTION = "batch_collection";
+
+    @Nested
+    @DisplayName("向量存储")
+    class VectorStoreTests {
+
+        @Test
+        @DisplayName("InMemoryVectorStore一次返回全部命中并跳过未知ID")
+        void testInMemoryGetBatch() throws Exception {
+            InMemoryVectorStore store = new InMemoryVectorStore();
+            store.createCollection(COLLECTION, 3).get();
+            String first = store.insert(COLLECTION, Arrays.asList(1f, 0f, 0f), props("userId", "alice")).get();
+            String second = store.insert(COLLECTION, Arrays.asList(0f, 1f, 0f), props("userId", "bob")).get();
+
+            Map<String, VectorDocument> documents =
+                store.getBatch(COLLECTION, Arrays.asList(first, "missing", second, null)).get();
+
+            assertEquals(new HashSet<>(Arrays.asList(first, second)), documents.keySet());
+            assertEquals(Arrays.asList(0f, 1f, 0f), documents.get(second).getVector());
+            assertEquals("alice", documents.get(first).getMetadata().get("userId"));
+            assertTrue(store.getBatch(COLLECTION, Collections.emptyList()).get().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("图存储")
+    class GraphStoreTests {
+
+        @Test
+        @DisplayName("InMemoryGraphStore原生批量获取节点")
+        void testInMemoryGetNodes() throws Exception {
+            verifyGetNodes(new InMemoryGraphStore());
+        }
+
+        @Test
+        @DisplayName("HighPerformanceGraphStore原生批量获取节点")
+        void testHighPerformanceGetNodes() throws Exception {
+            verifyGetNodes(new HighPerformanceGraphStore());
+        }
+
+        @Test
+        @DisplayName("未覆盖getNodes的实现回退到逐个getNode")
+        void testDefaultGetNodes() throws Exception {
+            verifyGetNodes(new DefaultInMemoryGraphStore());
+        }
+
+        private void verifyGetNodes(GraphStore store) throws Exception {
+            String a = store.createNode("Memory", props("userId", "alice")).get();
+            String b = store.createNode("Memory", props("userId", "bob")).get();
+
+            Map<String, GraphNode> nodes = store.getNodes(Arrays.asList(a, "missing", b)).get();
+            assertEquals(new HashSet<>(Arrays.asList(a, b)), nodes.keySet());
+            assertEquals("bob", nodes.get(b).getProperties().get("userId"));
+            assertEquals(a, nodes.get(a).getId());
+
+            store.deleteNode(a).get();
+            assertEquals(Collections.singleton(b), store.getNodes(Arrays.asList(a, b)).get().keySet());
+            store.close().get();
+        }
+    }
+
+    private static Map<String, Object> props(Object... keyValues) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+}
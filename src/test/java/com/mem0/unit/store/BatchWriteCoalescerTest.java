@@ -0,0 +1,127 @@
+package com.mem0.unit.store;
+
+import com.mem0.store.BatchWriteCoalescer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量写入合并器测试
+ * 使用内存中的写入执行器验证合并、批次上限、逐行重试与未匹配行的处理
+ */
+@DisplayName("批量写入合并器测试")
+public class BatchWriteCoalescerTest {
+
+    private static final String STATEMENT = "UNWIND $rows AS row RETURN row.id AS id";
+
+    /**
+     * 记录每个批次；第一个批次在gate完成前保持未完成，模拟在途事务
+     */
+    private static final class RecordingWriter implements BatchWriteCoalescer.BatchWriter {
+        final List<List<Map<String, Object>>> batches = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> gate = new CompletableFuture<>();
+
+        @Override
+        public CompletionStage<Set<String>> write(String statement, List<Map<String, Object>> rows) {
+            batches.add(rows);
+            CompletableFuture<Void> ready = batches.size() == 1 ? gate : CompletableFuture.completedFuture(null);
+            return ready.thenApplyAsync(ignored -> {
+                Set<String> written = new HashSet<>();
+                for (Map<String, Object> row : rows) {
+                    if (Boolean.TRUE.equals(row.get("bad"))) {
+                        throw new IllegalArgumentException("constraint violated by " + row.get("id"));
+                    }
+                    if (!Boolean.TRUE.equals(row.get("missing"))) {
+                        written.add((String) row.get("id"));
+                    }
+                }
+                return written;
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("在途批次期间到达的写入合并为下一批，且不超过批次上限")
+    void testCoalescesWhileBatchInFlight() throws Exception {
+        RecordingWriter writer = new RecordingWriter();
+        BatchWriteCoalescer coalescer = new BatchWriteCoalescer(writer, 10);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        futures.add(coalescer.submit(STATEMENT, row("w0"), "missing"));
+        for (int i = 1; i <= 25; i++) {
+            futures.add(coalescer.submit(STATEMENT, row("w" + i), "missing"));
+        }
+        assertEquals(1, writer.batches.size());
+
+        writer.gate.complete(null);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        List<Integer> sizes = new ArrayList<>();
+        List<Object> order = new ArrayList<>();
+        for (List<Map<String, Object>> batch : writer.batches) {
+            sizes.add(batch.size());
+            batch.forEach(r -> order.add(r.get("id")));
+        }
+        assertEquals(Arrays.asList(1, 10, 10, 5), sizes);
+        assertEquals("w0", order.get(0));
+        assertEquals("w25", order.get(order.size() - 1));
+        assertEquals(4, coalescer.getBatchCount());
+        assertEquals(26, coalescer.getRowCount());
+    }
+
+    @Test
+    @DisplayName("失败的批次逐行重试，只有出错的行失败")
+    void testFailedBatchIsolatesRows() throws Exception {
+        RecordingWriter writer = new RecordingWriter();
+        BatchWriteCoalescer coalescer = new BatchWriteCoalescer(writer, 10);
+
+        CompletableFuture<Void> first = coalescer.submit(STATEMENT, row("a"), "missing");
+        CompletableFuture<Void> good = coalescer.submit(STATEMENT, row("b"), "missing");
+        Map<String, Object> badRow = row("c");
+        badRow.put("bad", true);
+        CompletableFuture<Void> bad = coalescer.submit(STATEMENT, badRow, "missing");
+        CompletableFuture<Void> alsoGood = coalescer.submit(STATEMENT, row("d"), "missing");
+        writer.gate.complete(null);
+
+        first.get(5, TimeUnit.SECONDS);
+        good.get(5, TimeUnit.SECONDS);
+        alsoGood.get(5, TimeUnit.SECONDS);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalArgumentException);
+        // 1个初始批次 + 1个失败批次 + 3次逐行重试
+        assertEquals(5, writer.batches.size());
+    }
+
+    @Test
+    @DisplayName("语句未写入的行按需失败")
+    void testMissingRows() throws Exception {
+        RecordingWriter writer = new RecordingWriter();
+        writer.gate.complete(null);
+        BatchWriteCoalescer coalescer = new BatchWriteCoalescer(writer, 10);
+
+        Map<String, Object> required = row("x");
+        required.put("missing", true);
+        Map<String, Object> optional = row("y");
+        optional.put("missing", true);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> coalescer.submit(STATEMENT, required, "node not found").get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().startsWith("node not found"));
+        assertNull(coalescer.submit(STATEMENT, optional, null).get(5, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> coalescer.submit(STATEMENT, new HashMap<>(), null));
+    }
+
+    private static Map<String, Object> row(String id) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        return row;
+    }
+}
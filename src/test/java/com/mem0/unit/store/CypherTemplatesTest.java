@@ -0,0 +1,69 @@
+package com.mem0.unit.store;
+
+import com.mem0.store.CypherTemplates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cypher查询模板缓存测试
+ * 验证模板文本、标识符转义以及缓存的复用与容量上限
+ */
+@DisplayName("Cypher查询模板缓存测试")
+public class CypherTemplatesTest {
+
+    private CypherTemplates templates;
+
+    @BeforeEach
+    void setUp() {
+        templates = new CypherTemplates(4);
+    }
+
+    @Test
+    @DisplayName("按ID匹配总是带公共标签，取值全部参数化")
+    void testLabelledParameterisedText() {
+        assertEquals("MATCH (start:`Mem0Node` {id: $nodeId})-[:`KNOWS`*1..3]-(connected:`Mem0Node`) "
+            + "RETURN DISTINCT connected", templates.connectedNodes("KNOWS", 3));
+        assertEquals("MATCH (start:`Mem0Node` {id: $nodeId})-[*1..2]-(connected:`Mem0Node`) "
+            + "RETURN DISTINCT connected", templates.connectedNodes(null, 2));
+        assertEquals("UNWIND $rows AS row CREATE (n:`EnhancedMemory`:`Mem0Node`) SET n = row.properties "
+            + "RETURN row.id AS id", templates.createNodes("EnhancedMemory"));
+        assertEquals("MATCH (n:`EnhancedMemory`) WHERE n.`memoryType` = $p0 AND n.`userId` = $p1 RETURN n",
+            templates.nodesByLabel("EnhancedMemory", Arrays.asList("memoryType", "userId")));
+        assertEquals("MATCH (n:`Entity`) RETURN n", templates.nodesByLabel("Entity", Collections.emptyList()));
+        assertEquals("MATCH (n:`Entity`) WHERE n.id > $after RETURN n ORDER BY n.id LIMIT $limit",
+            templates.nodesByLabelPage("Entity", Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class, () -> templates.connectedNodes("KNOWS", 0));
+    }
+
+    @Test
+    @DisplayName("标识符中的反引号被转义")
+    void testQuote() {
+        assertEquals("`a``b`", CypherTemplates.quote("a`b"));
+        assertTrue(templates.createRelationships("X`]->() DETACH DELETE (n) //")
+            .contains("[r:`X``]->() DETACH DELETE (n) //`]"));
+        assertThrows(IllegalArgumentException.class, () -> CypherTemplates.quote(""));
+    }
+
+    @Test
+    @DisplayName("同一形状复用缓存文本，超出容量时淘汰最久未用的模板")
+    void testCacheReuseAndBound() {
+        String first = templates.connectedNodes("KNOWS", 2);
+        assertSame(first, templates.connectedNodes("KNOWS", 2));
+        assertEquals(1, templates.getHitCount());
+        assertNotSame(first, templates.connectedNodes("KNOWS", 3));
+
+        for (int hops = 4; hops < 10; hops++) {
+            templates.connectedNodes("KNOWS", hops);
+        }
+        assertEquals(4, templates.size());
+        long misses = templates.getMissCount();
+        templates.connectedNodes("KNOWS", 2);
+        assertEquals(misses + 1, templates.getMissCount());
+    }
+}
@@ -0,0 +1,173 @@
+package com.mem0.unit.store;
+
+import com.mem0.graph.impl.DefaultInMemoryGraphStore;
+import com.mem0.graph.impl.HighPerformanceGraphStore;
+import com.mem0.graph.impl.InMemoryGraphStore;
+import com.mem0.store.GraphStore;
+import com.mem0.store.GraphStore.GraphNode;
+import com.mem0.store.Page;
+import com.mem0.store.VectorStore.VectorDocument;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 键集分页测试
+ * 验证Page的选页与流式遍历，以及各存储的分页查询
+ */
+@DisplayName("键集分页测试")
+public class PaginationTest {
+
+    private static final String COLLECTION = "paged_collection";
+
+    @Nested
+    @DisplayName("Page")
+    class PageTests {
+
+        @Test
+        @DisplayName("按键升序选页，令牌之后继续且不重复")
+        void testSelect() {
+            List<String> keys = Arrays.asList("e", "a", "d", "b", "c", "f", "g");
+
+            Page<String> first = Page.select(keys, key -> key, null, null, 3);
+            assertEquals(Arrays.asList("a", "b", "c"), first.getItems());
+            assertEquals("c", first.getNextPageToken());
+
+            Page<String> filtered = Page.select(keys, key -> key, key -> !key.equals("e"),
+                first.getNextPageToken(), 3);
+            assertEquals(Arrays.asList("d", "f", "g"), filtered.getItems());
+            assertFalse(filtered.hasNext());
+
+            assertTrue(Page.select(keys, key -> key, null, "g", 3).getItems().isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> Page.select(keys, key -> key, null, null, 0));
+        }
+
+        @Test
+        @DisplayName("forEach与iterator按页遍历全部数据，页数多时不加深调用栈")
+        void testStreaming() throws Exception {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                keys.add(String.format("k%05d", i));
+            }
+            Page.Fetcher<String> fetcher = token ->
+                CompletableFuture.completedFuture(Page.select(keys, key -> key, null, token, 2));
+
+            List<String> consumed = new ArrayList<>();
+            Page.forEach(fetcher, page -> {
+                assertTrue(page.size() <= 2);
+                consumed.addAll(page);
+                return CompletableFuture.completedFuture(null);
+            }).get();
+            assertEquals(keys, consumed);
+
+            List<String> iterated = new ArrayList<>();
+            Page.iterator(fetcher).forEachRemaining(iterated::add);
+            assertEquals(keys, iterated);
+        }
+
+        @Test
+        @DisplayName("消费失败时停止遍历并传出异常")
+        void testStreamingFailure() {
+            List<String> keys = Arrays.asList("a", "b", "c");
+            List<String> consumed = new ArrayList<>();
+            CompletableFuture<Void> done = Page.<String>forEach(
+                token -> CompletableFuture.completedFuture(Page.select(keys, key -> key, null, token, 1)),
+                page -> {
+                    consumed.addAll(page);
+                    if (page.contains("b")) {
+                        throw new IllegalStateException("boom");
+                    }
+                    return CompletableFuture.completedFuture(null);
+                });
+
+            Exception error = assertThrows(Exception.class, done::get);
+            assertTrue(error.getCause() instanceof IllegalStateException);
+            assertEquals(Arrays.asList("a", "b"), consumed);
+        }
+    }
+
+    @Nested
+    @DisplayName("图存储")
+    class GraphStoreTests {
+
+        @Test
+        @DisplayName("InMemoryGraphStore原生分页")
+        void testInMemory() throws Exception {
+            verifyNodesByLabelPage(new InMemoryGraphStore());
+        }
+
+        @Test
+        @DisplayName("HighPerformanceGraphStore原生分页")
+        void testHighPerformance() throws Exception {
+            verifyNodesByLabelPage(new HighPerformanceGraphStore());
+        }
+
+        @Test
+        @DisplayName("未覆盖分页的实现回退到全量切页")
+        void testDefault() throws Exception {
+            verifyNodesByLabelPage(new DefaultInMemoryGraphStore());
+        }
+
+        private void verifyNodesByLabelPage(GraphStore store) throws Exception {
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < 7; i++) {
+                expected.add(store.createNode("EnhancedMemory", props("userId", "alice")).get());
+                store.createNode("EnhancedMemory", props("userId", "bob")).get();
+            }
+
+            List<String> paged = new ArrayList<>();
+            String token = null;
+            do {
+                Page<GraphNode> page = store.getNodesByLabelPage("EnhancedMemory", props("userId", "alice"),
+                    token, 3).get();
+                assertTrue(page.getItems().size() <= 3);
+                for (GraphNode node : page.getItems()) {
+                    assertEquals("alice", node.getProperties().get("userId"));
+                    paged.add(node.getId());
+                }
+                token = page.getNextPageToken();
+            } while (token != null);
+
+            assertEquals(expected, new HashSet<>(paged));
+            List<String> sorted = new ArrayList<>(paged);
+            Collections.sort(sorted);
+            assertEquals(sorted, paged);
+            store.close().get();
+        }
+    }
+
+    @Test
+    @DisplayName("InMemoryVectorStore按过滤条件分页列出文档")
+    void testVectorListPage() throws Exception {
+        InMemoryVectorStore store = new InMemoryVectorStore();
+        store.createCollection(COLLECTION, 2).get();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(store.insert(COLLECTION, Arrays.asList(1f, (float) i), props("userId", "alice")).get());
+            store.insert(COLLECTION, Arrays.asList(0f, (float) i), props("userId", "bob")).get();
+        }
+
+        Set<String> listed = new HashSet<>();
+        Iterator<VectorDocument> documents = Page.iterator(token ->
+            store.listPage(COLLECTION, props("userId", "alice"), token, 2));
+        while (documents.hasNext()) {
+            VectorDocument document = documents.next();
+            assertEquals("alice", document.getMetadata().get("userId"));
+            assertTrue(listed.add(document.getId()));
+        }
+        assertEquals(expected, listed);
+        assertEquals(10, store.listPage(COLLECTION, null, null, 20).get().getItems().size());
+    }
+
+    private static Map<String, Object> props(String key, Object value) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(key, value);
+        return props;
+    }
+}
@@ -0,0 +1,86 @@
+package com.mem0.unit.util;
+
+import com.mem0.util.IntBitmap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for IntBitmap
+ */
+public class IntBitmapTest {
+
+    @Test
+    void testAddRemoveContains() {
+        IntBitmap bitmap = new IntBitmap();
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.add(5));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.add(70000));
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70000));
+        assertFalse(bitmap.contains(6));
+        assertEquals(2, bitmap.getCardinality());
+
+        assertTrue(bitmap.remove(5));
+        assertFalse(bitmap.remove(5));
+        assertArrayEquals(new int[]{70000}, bitmap.toArray());
+    }
+
+    @Test
+    void testDenseContainerConversion() {
+        IntBitmap bitmap = new IntBitmap();
+        for (int i = 0; i < 10000; i++) {
+            bitmap.add(i * 2);
+        }
+        assertEquals(10000, bitmap.getCardinality());
+        assertTrue(bitmap.contains(19998));
+        assertFalse(bitmap.contains(19999));
+
+        for (int i = 0; i < 9000; i++) {
+            bitmap.remove(i * 2);
+        }
+        assertEquals(1000, bitmap.getCardinality());
+        assertTrue(bitmap.contains(18000));
+        assertFalse(bitmap.contains(0));
+    }
+
+    @Test
+    void testSetOperationsMatchReference() {
+        Random random = new Random(42);
+        IntBitmap left = new IntBitmap();
+        IntBitmap right = new IntBitmap();
+        TreeSet<Integer> leftSet = new TreeSet<>();
+        TreeSet<Integer> rightSet = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int a = random.nextInt(200000);
+            int b = random.nextInt(i < 10000 ? 70000 : 200000);
+            left.add(a);
+            leftSet.add(a);
+            right.add(b);
+            rightSet.add(b);
+        }
+
+        TreeSet<Integer> expectedAnd = new TreeSet<>(leftSet);
+        expectedAnd.retainAll(rightSet);
+        TreeSet<Integer> expectedOr = new TreeSet<>(leftSet);
+        expectedOr.addAll(rightSet);
+        TreeSet<Integer> expectedAndNot = new TreeSet<>(leftSet);
+        expectedAndNot.removeAll(rightSet);
+
+        assertArrayEquals(toArray(expectedAnd), left.and(right).toArray());
+        assertArrayEquals(toArray(expectedOr), left.or(right).toArray());
+        assertArrayEquals(toArray(expectedAndNot), left.andNot(right).toArray());
+
+        IntBitmap merged = left.copy();
+        merged.addAll(right);
+        assertEquals(left.or(right), merged);
+    }
+
+    private int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -258,6 +258,44 @@ public class HighPerformanceVectorStoreTest {
             assertEquals(results1.size(), results2.size());
             assertTrue(vectorStore.getStats().getTotalQueries() > startQueries);
         }
+
+        @Test
+        @DisplayName("用户写入后缓存的搜索结果立即失效")
+        void testSearchCacheInvalidatedByWrites() throws ExecutionException, InterruptedException {
+            float[] queryEmbedding = {0.0f, 0.0f, 1.0f};
+            List<SearchResult> before = vectorStore.search(queryEmbedding, TEST_USER_ID, 1).get();
+            before.clear();
+            assertEquals(1, vectorStore.search(queryEmbedding, TEST_USER_ID, 1).get().size(), "修改返回的列表不应影响缓存");
+            assertEquals(1, vectorStore.getStats().getSearchCacheStats().getHits());
+
+            // 插入与查询完全一致的向量后，下一次搜索必须看到它
+            String id = vectorStore.insert(TEST_COLLECTION, Arrays.asList(0.0f, 0.0f, 1.0f), createTestMetadata()).get();
+            List<SearchResult> afterInsert = vectorStore.search(queryEmbedding, TEST_USER_ID, 1).get();
+            assertEquals(id, afterInsert.get(0).id);
+
+            vectorStore.delete(TEST_COLLECTION, id).get();
+            assertNotEquals(id, vectorStore.search(queryEmbedding, TEST_USER_ID, 1).get().get(0).id);
+
+            // 按过滤条件删除同样使该用户的缓存失效
+            Map<String, Object> filter = new HashMap<>();
+            filter.put("userId", TEST_USER_ID);
+            vectorStore.deleteByFilter(TEST_COLLECTION, filter).get();
+            assertTrue(vectorStore.search(queryEmbedding, TEST_USER_ID, 1).get().isEmpty());
+        }
+
+        @Test
+        @DisplayName("搜索缓存按查询向量内容精确匹配")
+        void testSearchCacheKeyIsExact() throws ExecutionException, InterruptedException {
+            float[] queryEmbedding = {1.0f, 0.0f, 0.0f};
+            List<SearchResult> first = vectorStore.search(queryEmbedding, TEST_USER_ID, 1).get();
+
+            // 调用方随后修改自己的数组不影响已缓存的键
+            queryEmbedding[0] = -1.0f;
+            List<SearchResult> reversed = vectorStore.search(queryEmbedding, TEST_USER_ID, 1).get();
+            assertNotEquals(first.get(0).id, reversed.get(0).id);
+            assertEquals(first.get(0).id, vectorStore.search(new float[]{1.0f, 0.0f, 0.0f}, TEST_USER_ID, 1).get().get(0).id);
+            assertEquals(1, vectorStore.getStats().getSearchCacheStats().getHits());
+        }
     }
     
     @Nested
@@ -552,6 +552,40 @@ public class InMemoryVectorStoreTest {
             assertEquals(threadCount, results.size());
             assertTrue(results.stream().allMatch(result -> result.size() <= 10));
         }
+        
+        @Test
+        @DisplayName("同一ID并发写入与删除后，元数据索引与向量保持一致")
+        void testConcurrentUpsertAndDeleteKeepIndexConsistent() throws Exception {
+            // 其他用户的向量使按用户过滤时走预过滤
+            for (int i = 0; i < 500; i++) {
+                Map<String, Object> metadata = createTestMetadata();
+                metadata.put("userId", "other");
+                vectorStore.insert("other-" + i, new float[]{1f, 0f, 0f}, metadata).get();
+            }
+            
+            Set<String> ids = new HashSet<>();
+            for (int round = 0; round < 200; round++) {
+                String id = "race-" + round;
+                ids.add(id);
+                Map<String, Object> metadata = createTestMetadata();
+                metadata.put("userId", "racer");
+                CompletableFuture.allOf(
+                    vectorStore.insert(id, new float[]{0f, 1f, 0f}, metadata),
+                    vectorStore.delete(id)).get();
+            }
+            
+            Set<String> live = new HashSet<>();
+            for (String id : ids) {
+                if (vectorStore.get(TEST_COLLECTION, id).get() != null) {
+                    live.add(id);
+                }
+            }
+            Set<String> indexed = vectorStore.listPage(TEST_COLLECTION, Collections.singletonMap("userId", "racer"),
+                    null, 1000).get().getItems().stream()
+                .map(VectorStore.VectorDocument::getId)
+                .collect(Collectors.toSet());
+            assertEquals(live, indexed);
+        }
     }
     
     @Nested
@@ -0,0 +1,114 @@
+package com.mem0.unit.vector;
+
+import com.mem0.store.VectorStore;
+import com.mem0.vector.MetadataIndex;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for metadata bitmap pre-filtering
+ */
+public class MetadataIndexTest {
+
+    private MetadataIndex<Map<String, Object>> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MetadataIndex<>(metadata -> metadata);
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> metadata = metadata("user" + (i % 4), i % 10 == 0 ? "episodic" : "semantic");
+            metadata.put("id", "v" + i);
+            index.put("v" + i, metadata, metadata);
+        }
+    }
+
+    @Test
+    void testSelectiveFilterUsesPreFilter() {
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("userId", "user0");
+        filter.put("memoryType", "episodic");
+
+        MetadataIndex.FilterPlan<Map<String, Object>> plan = index.plan(filter);
+
+        assertEquals(MetadataIndex.Strategy.PRE_FILTER, plan.getStrategy());
+        assertEquals(5, plan.getCandidates().size());
+        assertTrue(plan.getResidualFilter().isEmpty());
+        assertTrue(plan.getCandidates().stream().allMatch(m -> "user0".equals(m.get("userId"))));
+    }
+
+    @Test
+    void testUnselectiveAndUnindexedFilters() {
+        Map<String, Object> broad = new HashMap<>();
+        broad.put("memoryType", "semantic");
+        assertEquals(MetadataIndex.Strategy.POST_FILTER, index.plan(broad).getStrategy());
+
+        Map<String, Object> custom = new HashMap<>();
+        custom.put("source", "chat");
+        MetadataIndex.FilterPlan<Map<String, Object>> plan = index.plan(custom);
+        assertEquals(MetadataIndex.Strategy.POST_FILTER, plan.getStrategy());
+        assertFalse(plan.matchesAll(metadata("user0", "semantic")));
+
+        Map<String, Object> missing = new HashMap<>();
+        missing.put("userId", "nobody");
+        assertEquals(MetadataIndex.Strategy.EMPTY, index.plan(missing).getStrategy());
+    }
+
+    @Test
+    void testMaintenanceOnUpdateRemoveAndNewKey() {
+        Map<String, Object> updated = metadata("user9", "semantic");
+        updated.put("source", "chat");
+        index.put("v1", updated, updated);
+        index.remove("v2");
+
+        assertEquals(1, index.count("userId", "user9"));
+        assertEquals(48, index.count("userId", "user1") + index.count("userId", "user2"));
+
+        index.addIndexedKey("source");
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("source", "chat");
+        MetadataIndex.FilterPlan<Map<String, Object>> plan = index.plan(filter);
+        assertEquals(MetadataIndex.Strategy.PRE_FILTER, plan.getStrategy());
+        assertEquals(1, plan.getCandidates().size());
+    }
+
+    @Test
+    void testStoreSearchAppliesIndexedFilter() throws Exception {
+        InMemoryVectorStore store = new InMemoryVectorStore();
+        store.createCollection("memories", 3).join();
+        for (int i = 0; i < 20; i++) {
+            store.insert("memories", Arrays.asList(1.0f, (float) i, 0.0f),
+                         metadata("user" + (i % 2), i % 5 == 0 ? "episodic" : "semantic")).join();
+        }
+
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("userId", "user0");
+        filter.put("memoryType", "episodic");
+        List<VectorStore.VectorSearchResult> results =
+            store.search("memories", Arrays.asList(1.0f, 0.0f, 0.0f), 10, filter).get();
+
+        assertEquals(2, results.size());
+        for (VectorStore.VectorSearchResult result : results) {
+            assertEquals("user0", result.getMetadata().get("userId"));
+            assertEquals("episodic", result.getMetadata().get("memoryType"));
+        }
+
+        store.deleteByFilter("memories", filter).join();
+        assertTrue(store.search("memories", Arrays.asList(1.0f, 0.0f, 0.0f), 10, filter).get().isEmpty());
+        assertEquals(18, store.getTotalVectorCount());
+    }
+
+    private Map<String, Object> metadata(String userId, String memoryType) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("userId", userId);
+        metadata.put("memoryType", memoryType);
+        return metadata;
+    }
+}
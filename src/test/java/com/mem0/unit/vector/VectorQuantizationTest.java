@@ -0,0 +1,292 @@
+package com.mem0.unit.vector;
+
+import com.mem0.store.VectorStore;
+import com.mem0.vector.CollectionQuantizer;
+import com.mem0.vector.ProductQuantizer;
+import com.mem0.vector.QuantizationConfig;
+import com.mem0.vector.ScalarQuantizer;
+import com.mem0.vector.VectorCodec;
+import com.mem0.vector.impl.InMemoryVectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 向量量化测试
+ * 覆盖int8/PQ编解码器以及InMemoryVectorStore的按集合量化
+ */
+@DisplayName("向量量化测试")
+public class VectorQuantizationTest {
+
+    private static final int DIMENSION = 64;
+
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        random = new Random(7);
+    }
+
+    @Nested
+    @DisplayName("编解码器")
+    class CodecTests {
+
+        @Test
+        @DisplayName("int8编码约为fp32的1/4且余弦误差很小")
+        void testScalarQuantizerAccuracy() {
+            ScalarQuantizer codec = new ScalarQuantizer(DIMENSION);
+            assertEquals(DIMENSION + 8, codec.getCodeSize());
+
+            for (int i = 0; i < 20; i++) {
+                float[] vector = randomVector();
+                float[] query = randomVector();
+                byte[] code = codec.encode(vector);
+
+                assertEquals(cosine(query, vector), codec.prepare(query).score(code), 0.02f);
+                assertEquals(1.0f, cosine(vector, codec.decode(code)), 0.001f);
+            }
+        }
+
+        @Test
+        @DisplayName("零向量得分为0")
+        void testScalarQuantizerZeroVector() {
+            ScalarQuantizer codec = new ScalarQuantizer(4);
+            byte[] code = codec.encode(new float[4]);
+            assertEquals(0.0f, codec.prepare(new float[]{1, 0, 0, 0}).score(code));
+        }
+
+        @Test
+        @DisplayName("PQ的ADC评分等于查询与重建向量的余弦")
+        void testProductQuantizerAdcMatchesDecoded() {
+            List<float[]> samples = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                samples.add(randomVector());
+            }
+            ProductQuantizer codec = ProductQuantizer.train(samples, 8, ProductQuantizer.DEFAULT_ITERATIONS, 1L);
+            assertEquals(12, codec.getCodeSize());
+            assertEquals(256, codec.getCentroidCount());
+
+            float[] query = randomVector();
+            VectorCodec.QueryScorer scorer = codec.prepare(query);
+            for (float[] sample : samples.subList(0, 20)) {
+                byte[] code = codec.encode(sample);
+                assertEquals(cosine(query, codec.decode(code)), scorer.score(code), 1e-4f);
+            }
+        }
+
+        @Test
+        @DisplayName("PQ在聚簇数据上保持最近邻")
+        void testProductQuantizerPreservesClusters() {
+            List<float[]> centers = new ArrayList<>();
+            for (int c = 0; c < 4; c++) {
+                centers.add(randomVector());
+            }
+            List<float[]> samples = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                samples.add(perturb(centers.get(i % 4), 0.05f));
+            }
+            ProductQuantizer codec = ProductQuantizer.train(samples, 16, ProductQuantizer.DEFAULT_ITERATIONS, 1L);
+
+            VectorCodec.QueryScorer scorer = codec.prepare(centers.get(2));
+            byte[] same = codec.encode(perturb(centers.get(2), 0.05f));
+            byte[] other = codec.encode(perturb(centers.get(0), 0.05f));
+            assertTrue(scorer.score(same) > scorer.score(other));
+        }
+
+        @Test
+        @DisplayName("PQ参数校验")
+        void testProductQuantizerValidation() {
+            assertThrows(IllegalArgumentException.class,
+                () -> ProductQuantizer.train(Collections.emptyList(), 4, 5, 1L));
+            assertThrows(IllegalArgumentException.class,
+                () -> ProductQuantizer.train(Collections.singletonList(new float[4]), 5, 5, 1L));
+        }
+
+        @Test
+        @DisplayName("PQ训练失败后重新收集样本并可再次训练")
+        void testFailedTrainingIsRetried() {
+            CollectionQuantizer quantizer = new CollectionQuantizer("pq", 4,
+                QuantizationConfig.productQuantization(2).withTrainingSize(2));
+            assertFalse(quantizer.offerTrainingSample(new float[]{1f, 0f, 0f, 0f}));
+            // 维度不一致的样本使训练失败
+            assertFalse(quantizer.offerTrainingSample(new float[]{1f, 0f, 0f}));
+            assertNull(quantizer.getCodec());
+
+            assertFalse(quantizer.offerTrainingSample(new float[]{0f, 1f, 0f, 0f}));
+            assertTrue(quantizer.offerTrainingSample(new float[]{0f, 0f, 1f, 0f}));
+            assertNotNull(quantizer.getCodec());
+        }
+    }
+
+    @Nested
+    @DisplayName("按集合量化的向量存储")
+    class StoreTests {
+
+        private InMemoryVectorStore store;
+
+        @BeforeEach
+        void createStore() {
+            store = new InMemoryVectorStore();
+        }
+
+        @Test
+        @DisplayName("int8集合返回正确的最近邻并减少内存")
+        void testInt8Collection() throws Exception {
+            store.createCollection("int8", DIMENSION, QuantizationConfig.int8()).get();
+            List<float[]> vectors = insertRandom("int8", 50);
+
+            float[] query = vectors.get(17);
+            List<VectorStore.VectorSearchResult> results = store.search("int8", toList(query), 3, null).get();
+
+            assertEquals(3, results.size());
+            assertEquals(0.99f, results.get(0).getScore(), 0.01f);
+            assertEquals(DIMENSION, results.get(0).getVector().size());
+            assertEquals(DIMENSION + 8, store.getBytesPerVector("int8"));
+            assertEquals(QuantizationConfig.Mode.INT8, store.getQuantizationConfig("int8").getMode());
+        }
+
+        @Test
+        @DisplayName("PQ集合在达到训练样本数后量化，重排后得分为精确余弦")
+        void testPqCollectionWithRerank() throws Exception {
+            QuantizationConfig config = QuantizationConfig.productQuantization(8)
+                .withTrainingSize(100)
+                .withRerank(4);
+            store.createCollection("pq", DIMENSION, config).get();
+
+            insertRandom("pq", 99);
+            assertEquals(DIMENSION * Float.BYTES, store.getBytesPerVector("pq"));
+
+            List<float[]> more = insertRandom("pq", 50);
+            assertEquals(12 + DIMENSION * Float.BYTES, store.getBytesPerVector("pq"));
+
+            float[] query = more.get(5);
+            List<VectorStore.VectorSearchResult> results = store.search("pq", toList(query), 5, null).get();
+            assertEquals(5, results.size());
+            assertEquals(1.0f, results.get(0).getScore(), 1e-4f);
+            for (int i = 1; i < results.size(); i++) {
+                assertTrue(results.get(i - 1).getScore() >= results.get(i).getScore());
+            }
+        }
+
+        @Test
+        @DisplayName("未开启重排的PQ集合释放fp32副本")
+        void testPqCollectionWithoutRerank() throws Exception {
+            store.createCollection("pq", DIMENSION,
+                QuantizationConfig.productQuantization().withTrainingSize(50)).get();
+            List<float[]> vectors = insertRandom("pq", 60);
+
+            assertEquals(4 + DIMENSION / QuantizationConfig.DEFAULT_DIMENSIONS_PER_SUBSPACE,
+                store.getBytesPerVector("pq"));
+            List<VectorStore.VectorSearchResult> results = store.search("pq", toList(vectors.get(3)), 1, null).get();
+            assertEquals(1, results.size());
+            assertEquals(DIMENSION, results.get(0).getVector().size());
+        }
+
+        @Test
+        @DisplayName("PQ训练期间并发写入的向量在训练完成后全部量化")
+        void testConcurrentInsertsDuringTrainingAreCompressed() throws Exception {
+            store.createCollection("pq", DIMENSION,
+                QuantizationConfig.productQuantization().withTrainingSize(50)).get();
+            int threads = 8;
+            List<float[]> vectors = new ArrayList<>();
+            for (int i = 0; i < threads * 50; i++) {
+                vectors.add(randomVector());
+            }
+            Map<String, float[]> inserted = Collections.synchronizedMap(new HashMap<>());
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    List<float[]> slice = vectors.subList(t * 50, (t + 1) * 50);
+                    writers.add(executor.submit(() -> {
+                        start.await();
+                        for (float[] vector : slice) {
+                            inserted.put(store.insert("pq", toList(vector), new HashMap<>()).get(), vector);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> writer : writers) {
+                    writer.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // 未开启重排时量化的条目读回重建向量；训练样本各自成为质心，只有它们能原样读回
+            int exact = 0;
+            for (Map.Entry<String, float[]> entry : inserted.entrySet()) {
+                if (toList(entry.getValue()).equals(store.get("pq", entry.getKey()).get().getVector())) {
+                    exact++;
+                }
+            }
+            assertTrue(exact <= 50, "仍为fp32的向量: " + (exact - 50));
+        }
+
+        @Test
+        @DisplayName("默认集合不量化")
+        void testDefaultCollectionUnquantized() throws Exception {
+            store.createCollection("plain", DIMENSION).get();
+            assertEquals(QuantizationConfig.Mode.NONE, store.getQuantizationConfig("plain").getMode());
+            assertEquals(DIMENSION * Float.BYTES, store.getBytesPerVector("plain"));
+        }
+
+        private List<float[]> insertRandom(String collection, int count) throws Exception {
+            List<float[]> vectors = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                float[] vector = randomVector();
+                vectors.add(vector);
+                Map<String, Object> metadata = new HashMap<>();
+                metadata.put("userId", "user1");
+                store.insert(collection, toList(vector), metadata).get();
+            }
+            return vectors;
+        }
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private float[] perturb(float[] base, float noise) {
+        float[] vector = base.clone();
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] += (float) random.nextGaussian() * noise;
+        }
+        return vector;
+    }
+
+    private static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float v : vector) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    private static float cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return (float) (dot / (Math.sqrt(na) * Math.sqrt(nb)));
+    }
+}